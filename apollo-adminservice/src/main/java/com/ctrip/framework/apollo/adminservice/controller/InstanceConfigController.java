@@ -17,24 +17,26 @@
 package com.ctrip.framework.apollo.adminservice.controller;
 
 import com.ctrip.framework.apollo.biz.entity.Instance;
-import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.repository.projection.InstanceConfigSummary;
+import com.ctrip.framework.apollo.biz.repository.projection.ReleaseSummary;
 import com.ctrip.framework.apollo.biz.service.InstanceService;
 import com.ctrip.framework.apollo.biz.service.ReleaseService;
 import com.ctrip.framework.apollo.common.dto.InstanceConfigDTO;
 import com.ctrip.framework.apollo.common.dto.InstanceDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDeliveryDTO;
 import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -44,8 +46,10 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -57,6 +61,7 @@ import java.util.stream.Collectors;
 public class InstanceConfigController {
   private static final Splitter RELEASES_SPLITTER = Splitter.on(",").omitEmptyStrings()
       .trimResults();
+  static final int INSTANCE_CONFIG_BATCH_SIZE = 1000;
   private final ReleaseService releaseService;
   private final InstanceService instanceService;
 
@@ -72,18 +77,17 @@ public class InstanceConfigController {
     if (release == null) {
       throw NotFoundException.releaseNotFound(releaseId);
     }
-    Page<InstanceConfig> instanceConfigsPage = instanceService.findActiveInstanceConfigsByReleaseKey
+    // only load the columns needed
+    Page<InstanceConfigSummary> instanceConfigsPage = instanceService.findActiveInstanceConfigSummariesByReleaseKey
         (release.getReleaseKey(), pageable);
 
     List<InstanceDTO> instanceDTOs = Collections.emptyList();
 
     if (instanceConfigsPage.hasContent()) {
-      Multimap<Long, InstanceConfig> instanceConfigMap = HashMultimap.create();
-      Set<String> otherReleaseKeys = Sets.newHashSet();
+      Multimap<Long, InstanceConfigSummary> instanceConfigMap = HashMultimap.create();
 
-      for (InstanceConfig instanceConfig : instanceConfigsPage.getContent()) {
+      for (InstanceConfigSummary instanceConfig : instanceConfigsPage.getContent()) {
         instanceConfigMap.put(instanceConfig.getInstanceId(), instanceConfig);
-        otherReleaseKeys.add(instanceConfig.getReleaseKey());
       }
 
       Set<Long> instanceIds = instanceConfigMap.keySet();
@@ -95,7 +99,7 @@ public class InstanceConfigController {
       }
 
       for (InstanceDTO instanceDTO : instanceDTOs) {
-        Collection<InstanceConfig> configs = instanceConfigMap.get(instanceDTO.getId());
+        Collection<InstanceConfigSummary> configs = instanceConfigMap.get(instanceDTO.getId());
         List<InstanceConfigDTO> configDTOs = configs.stream().map(instanceConfig -> {
           InstanceConfigDTO instanceConfigDTO = new InstanceConfigDTO();
           //to save some space
@@ -112,6 +116,10 @@ public class InstanceConfigController {
     return new PageDTO<>(instanceDTOs, pageable, instanceConfigsPage.getTotalElements());
   }
 
+  /**
+   * The portal groups all these instances by their releases, so they are returned as a whole, but loaded from the
+   * database in batches, and only the columns needed are loaded
+   */
   @GetMapping("/by-namespace-and-releases-not-in")
   public List<InstanceDTO> getByReleasesNotIn(@RequestParam("appId") String appId,
                                               @RequestParam("clusterName") String clusterName,
@@ -129,16 +137,38 @@ public class InstanceConfigController {
     Set<String> releaseKeys = releases.stream().map(Release::getReleaseKey).collect(Collectors
         .toSet());
 
-    List<InstanceConfig> instanceConfigs = instanceService
-        .findInstanceConfigsByNamespaceWithReleaseKeysNotIn(appId, clusterName, namespaceName,
-            releaseKeys);
+    List<InstanceDTO> instanceDTOs = Lists.newArrayList();
+    //configurations are not loaded to save space
+    Map<String, ReleaseDTO> releaseMap = Maps.newHashMap();
+    long afterId = 0;
+    List<InstanceConfigSummary> instanceConfigs;
+    do {
+      instanceConfigs = instanceService.findInstanceConfigSummariesByNamespaceWithReleaseKeysNotIn(appId,
+          clusterName, namespaceName, releaseKeys, afterId, INSTANCE_CONFIG_BATCH_SIZE);
+      if (instanceConfigs.isEmpty()) {
+        break;
+      }
+      afterId = instanceConfigs.get(instanceConfigs.size() - 1).getId();
+      // an instance has only one config of a namespace, so it's never split into different batches
+      instanceDTOs.addAll(transformInstanceConfigSummaries(instanceConfigs, releaseMap));
+    } while (instanceConfigs.size() == INSTANCE_CONFIG_BATCH_SIZE);
+
+    return instanceDTOs;
+  }
 
-    Multimap<Long, InstanceConfig> instanceConfigMap = HashMultimap.create();
+  /**
+   * @param releaseMap the releases loaded by the previous batches, which is updated with the ones loaded
+   */
+  private List<InstanceDTO> transformInstanceConfigSummaries(List<InstanceConfigSummary> instanceConfigs,
+      Map<String, ReleaseDTO> releaseMap) {
+    Multimap<Long, InstanceConfigSummary> instanceConfigMap = HashMultimap.create();
     Set<String> otherReleaseKeys = Sets.newHashSet();
 
-    for (InstanceConfig instanceConfig : instanceConfigs) {
+    for (InstanceConfigSummary instanceConfig : instanceConfigs) {
       instanceConfigMap.put(instanceConfig.getInstanceId(), instanceConfig);
-      otherReleaseKeys.add(instanceConfig.getReleaseKey());
+      if (!releaseMap.containsKey(instanceConfig.getReleaseKey())) {
+        otherReleaseKeys.add(instanceConfig.getReleaseKey());
+      }
     }
 
     List<Instance> instances = instanceService.findInstancesByIds(instanceConfigMap.keySet());
@@ -149,18 +179,14 @@ public class InstanceConfigController {
 
     List<InstanceDTO> instanceDTOs = BeanUtils.batchTransform(InstanceDTO.class, instances);
 
-    List<Release> otherReleases = releaseService.findByReleaseKeys(otherReleaseKeys);
-    Map<String, ReleaseDTO> releaseMap = Maps.newHashMap();
-
-    for (Release release : otherReleases) {
-      //unset configurations to save space
-      release.setConfigurations(null);
-      ReleaseDTO releaseDTO = BeanUtils.transform(ReleaseDTO.class, release);
-      releaseMap.put(release.getReleaseKey(), releaseDTO);
+    if (!otherReleaseKeys.isEmpty()) {
+      for (ReleaseSummary release : releaseService.findReleaseSummariesByReleaseKeys(otherReleaseKeys)) {
+        releaseMap.put(release.getReleaseKey(), transformReleaseSummary(release));
+      }
     }
 
     for (InstanceDTO instanceDTO : instanceDTOs) {
-      Collection<InstanceConfig> configs = instanceConfigMap.get(instanceDTO.getId());
+      Collection<InstanceConfigSummary> configs = instanceConfigMap.get(instanceDTO.getId());
       List<InstanceConfigDTO> configDTOs = configs.stream().map(instanceConfig -> {
         InstanceConfigDTO instanceConfigDTO = new InstanceConfigDTO();
         instanceConfigDTO.setRelease(releaseMap.get(instanceConfig.getReleaseKey()));
@@ -175,6 +201,23 @@ public class InstanceConfigController {
     return instanceDTOs;
   }
 
+  private ReleaseDTO transformReleaseSummary(ReleaseSummary release) {
+    ReleaseDTO releaseDTO = new ReleaseDTO();
+    releaseDTO.setId(release.getId());
+    releaseDTO.setReleaseKey(release.getReleaseKey());
+    releaseDTO.setName(release.getName());
+    releaseDTO.setAppId(release.getAppId());
+    releaseDTO.setClusterName(release.getClusterName());
+    releaseDTO.setNamespaceName(release.getNamespaceName());
+    releaseDTO.setComment(release.getComment());
+    releaseDTO.setAbandoned(release.isAbandoned());
+    releaseDTO.setDataChangeCreatedBy(release.getDataChangeCreatedBy());
+    releaseDTO.setDataChangeCreatedTime(release.getDataChangeCreatedTime());
+    releaseDTO.setDataChangeLastModifiedBy(release.getDataChangeLastModifiedBy());
+    releaseDTO.setDataChangeLastModifiedTime(release.getDataChangeLastModifiedTime());
+    return releaseDTO;
+  }
+
   @GetMapping("/by-namespace")
   public PageDTO<InstanceDTO> getInstancesByNamespace(
       @RequestParam("appId") String appId, @RequestParam("clusterName") String clusterName,
@@ -194,12 +237,48 @@ public class InstanceConfigController {
     return new PageDTO<>(instanceDTOs, pageable, instances.getTotalElements());
   }
 
+  /**
+   * Delivery latency of the latest release of the namespace, based on the release delivery time of the active instances
+   */
+  @GetMapping("/by-namespace/release-delivery")
+  public ReleaseDeliveryDTO getReleaseDeliveryByNamespace(@RequestParam("appId") String appId,
+                                                          @RequestParam("clusterName") String clusterName,
+                                                          @RequestParam("namespaceName") String namespaceName) {
+    Release release = releaseService.findLatestActiveRelease(appId, clusterName, namespaceName);
+    if (release == null) {
+      throw NotFoundException.latestReleaseNotFound(appId, clusterName, namespaceName);
+    }
+
+    List<Date> deliveryTimes = instanceService.findActiveReleaseDeliveryTimes(release.getReleaseKey());
+    long releaseTime = release.getDataChangeCreatedTime().getTime();
+    long[] latencies = deliveryTimes.stream().filter(Objects::nonNull)
+        .mapToLong(deliveryTime -> Math.max(deliveryTime.getTime() - releaseTime, 0)).sorted().toArray();
+
+    ReleaseDeliveryDTO releaseDelivery = new ReleaseDeliveryDTO();
+    releaseDelivery.setReleaseId(release.getId());
+    releaseDelivery.setReleaseKey(release.getReleaseKey());
+    releaseDelivery.setReleaseTime(release.getDataChangeCreatedTime());
+    releaseDelivery.setDeliveredInstanceCount(latencies.length);
+    releaseDelivery.setP50Latency(percentile(latencies, 0.5));
+    releaseDelivery.setP90Latency(percentile(latencies, 0.9));
+    releaseDelivery.setP99Latency(percentile(latencies, 0.99));
+    releaseDelivery.setMaxLatency(latencies.length == 0 ? 0 : latencies[latencies.length - 1]);
+
+    return releaseDelivery;
+  }
+
+  private long percentile(long[] sortedValues, double percentile) {
+    if (sortedValues.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sortedValues.length) - 1;
+    return sortedValues[Math.max(index, 0)];
+  }
+
   @GetMapping("/by-namespace/count")
   public long getInstancesCountByNamespace(@RequestParam("appId") String appId,
                                           @RequestParam("clusterName") String clusterName,
                                           @RequestParam("namespaceName") String namespaceName) {
-    Page<Instance> instances = instanceService.findInstancesByNamespace(appId, clusterName,
-        namespaceName, PageRequest.of(0, 1));
-    return instances.getTotalElements();
+    return instanceService.getInstanceCountByNamespace(appId, clusterName, namespaceName);
   }
 }
@@ -17,7 +17,6 @@
 package com.ctrip.framework.apollo.adminservice.controller;
 
 import com.ctrip.framework.apollo.adminservice.aop.PreAcquireNamespaceLock;
-import com.ctrip.framework.apollo.biz.entity.Commit;
 import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
 import com.ctrip.framework.apollo.biz.entity.Release;
@@ -34,11 +33,9 @@ import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -184,21 +181,9 @@ public class ItemController {
                                         @PathVariable("namespaceName") String namespaceName) {
     //get latest release time
     Release latestActiveRelease = releaseService.findLatestActiveRelease(appId, clusterName, namespaceName);
-    List<Commit> commits;
-    if (Objects.nonNull(latestActiveRelease)) {
-      commits = commitService.find(appId, clusterName, namespaceName, latestActiveRelease.getDataChangeCreatedTime(), null);
-    } else {
-      commits = commitService.find(appId, clusterName, namespaceName, null);
-    }
-
-    if (Objects.nonNull(commits)) {
-      List<Item> deletedItems = commits.stream()
-          .map(item -> ConfigChangeContentBuilder.convertJsonString(item.getChangeSets()).getDeleteItems())
-          .flatMap(Collection::stream)
-          .collect(Collectors.toList());
-      return BeanUtils.batchTransform(ItemDTO.class, deletedItems);
-    }
-    return Collections.emptyList();
+    Date latestReleaseTime = Objects.nonNull(latestActiveRelease) ? latestActiveRelease.getDataChangeCreatedTime() : null;
+    List<Item> deletedItems = commitService.findDeletedItems(appId, clusterName, namespaceName, latestReleaseTime);
+    return BeanUtils.batchTransform(ItemDTO.class, deletedItems);
   }
 
   @GetMapping("/items/{itemId}")
@@ -16,16 +16,29 @@
  */
 package com.ctrip.framework.apollo.adminservice.controller;
 
+import com.ctrip.framework.apollo.adminservice.search.ItemKeyIndexService;
+import com.ctrip.framework.apollo.adminservice.search.ItemKeyMatchMode;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.service.CommitService;
+import com.ctrip.framework.apollo.biz.service.ItemService;
 import com.ctrip.framework.apollo.biz.service.NamespaceService;
+import com.ctrip.framework.apollo.biz.service.ReleaseService;
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceWithItemsDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -34,17 +47,40 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.stream.Collectors;
 
 @RestController
 public class NamespaceController {
 
-  private final NamespaceService namespaceService;
+  // keep the same date format with the http message converters
+  private static final Gson GSON = new GsonBuilder().setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").create();
 
-  public NamespaceController(final NamespaceService namespaceService) {
+  private final NamespaceService namespaceService;
+  private final ItemService itemService;
+  private final ReleaseService releaseService;
+  private final CommitService commitService;
+  private final ItemKeyIndexService itemKeyIndexService;
+
+  public NamespaceController(
+      final NamespaceService namespaceService,
+      final ItemService itemService,
+      final ReleaseService releaseService,
+      final CommitService commitService,
+      final ItemKeyIndexService itemKeyIndexService) {
     this.namespaceService = namespaceService;
+    this.itemService = itemService;
+    this.releaseService = releaseService;
+    this.commitService = commitService;
+    this.itemKeyIndexService = itemKeyIndexService;
   }
 
   @PostMapping("/apps/{appId}/clusters/{clusterName}/namespaces")
@@ -81,6 +117,29 @@ public class NamespaceController {
     return BeanUtils.batchTransform(NamespaceDTO.class, groups);
   }
 
+  /**
+   * Load all the namespaces of a cluster with their items, deleted items and latest releases in one
+   * request. The namespaces are written to the response one by one, so the whole cluster is never
+   * held in memory.
+   */
+  @GetMapping("/apps/{appId}/clusters/{clusterName}/namespaces-with-items")
+  public void findWithItems(@PathVariable("appId") String appId,
+                            @PathVariable("clusterName") String clusterName,
+                            @RequestParam(value = "includeDeletedItems", defaultValue = "true") boolean includeDeletedItems,
+                            HttpServletResponse response) throws IOException {
+    List<Namespace> namespaces = namespaceService.findNamespaces(appId, clusterName);
+
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    try (JsonWriter writer = GSON.newJsonWriter(response.getWriter())) {
+      writer.beginArray();
+      for (Namespace namespace : namespaces) {
+        GSON.toJson(loadNamespaceWithItems(namespace, includeDeletedItems), NamespaceWithItemsDTO.class, writer);
+      }
+      writer.endArray();
+    }
+  }
+
   @GetMapping("/namespaces/{namespaceId}")
   public NamespaceDTO get(@PathVariable("namespaceId") Long namespaceId) {
     Namespace namespace = namespaceService.findOne(namespaceId);
@@ -91,15 +150,36 @@ public class NamespaceController {
   }
 
   /**
-   * the returned content's size is not fixed. so please carefully used.
+   * Search namespaces by item key with the item key index if it's enabled, the namespaces are paged then.
+   * Otherwise only exact match is supported, and the returned content's size is not fixed, so please carefully used.
+   * While the index is being built, e.g. just after startup, the other match modes fall back to exact match.
    */
   @GetMapping("/namespaces/find-by-item")
-  public PageDTO<NamespaceDTO> findByItem(@RequestParam String itemKey, Pageable pageable) {
-    Page<Namespace> namespacePage = namespaceService.findByItem(itemKey, pageable);
+  public PageDTO<NamespaceDTO> findByItem(@RequestParam String itemKey,
+                                          @RequestParam(defaultValue = "EXACT") ItemKeyMatchMode matchMode,
+                                          Pageable pageable) {
+    SortedSet<Long> namespaceIds = itemKeyIndexService.findNamespaceIds(itemKey, matchMode);
+    if (namespaceIds == null) {
+      if (matchMode != ItemKeyMatchMode.EXACT && !itemKeyIndexService.isBuilding()) {
+        throw new BadRequestException("Search by item with match mode %s requires item.key.index.enabled", matchMode);
+      }
+      Page<Namespace> namespacePage = namespaceService.findByItem(itemKey, pageable);
+
+      List<NamespaceDTO> namespaceDTOS = BeanUtils.batchTransform(NamespaceDTO.class, namespacePage.getContent());
+
+      return new PageDTO<>(namespaceDTOS, pageable, namespacePage.getTotalElements());
+    }
 
-    List<NamespaceDTO> namespaceDTOS = BeanUtils.batchTransform(NamespaceDTO.class, namespacePage.getContent());
+    Set<Long> pagedNamespaceIds = namespaceIds.stream().skip(pageable.getOffset()).limit(pageable.getPageSize())
+        .collect(Collectors.toSet());
+    List<NamespaceDTO> namespaceDTOS = namespaceService.findByIds(pagedNamespaceIds).stream()
+        .sorted(Comparator.comparingLong(Namespace::getId))
+        .map(namespace -> BeanUtils.transform(NamespaceDTO.class, namespace))
+        .collect(Collectors.toList());
+    // the namespaces deleted after the last index refresh are not found
+    long total = namespaceIds.size() - (pagedNamespaceIds.size() - namespaceDTOS.size());
 
-    return new PageDTO<>(namespaceDTOS, pageable, namespacePage.getTotalElements());
+    return new PageDTO<>(namespaceDTOS, pageable, total);
   }
 
   @GetMapping("/apps/{appId}/clusters/{clusterName}/namespaces/{namespaceName:.+}")
@@ -134,5 +214,23 @@ public class NamespaceController {
     return namespaceService.namespacePublishInfo(appId);
   }
 
+  private NamespaceWithItemsDTO loadNamespaceWithItems(Namespace namespace, boolean includeDeletedItems) {
+    NamespaceWithItemsDTO namespaceWithItems = new NamespaceWithItemsDTO();
+    namespaceWithItems.setNamespace(BeanUtils.transform(NamespaceDTO.class, namespace));
+    namespaceWithItems.setItems(
+        BeanUtils.batchTransform(ItemDTO.class, itemService.findItemsWithOrdered(namespace.getId())));
+
+    Release latestRelease = releaseService.findLatestActiveRelease(namespace);
+    if (latestRelease != null) {
+      namespaceWithItems.setLatestRelease(BeanUtils.transform(ReleaseDTO.class, latestRelease));
+    }
+
+    if (includeDeletedItems) {
+      namespaceWithItems.setDeletedItems(BeanUtils.batchTransform(ItemDTO.class,
+          commitService.findDeletedItems(namespace.getAppId(), namespace.getClusterName(),
+              namespace.getNamespaceName(), latestRelease == null ? null : latestRelease.getDataChangeCreatedTime())));
+    }
 
+    return namespaceWithItems;
+  }
 }
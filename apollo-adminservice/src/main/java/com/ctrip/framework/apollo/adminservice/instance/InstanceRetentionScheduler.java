@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.adminservice.instance;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.service.InstanceService;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Purge the instances and instance configs which are not active any more in bounded batches, so the instance tables
+ * don't grow with every instance ever started, and repair the drifted instance namespace summaries.
+ * <p>
+ * It's only run by the admin services, the config services don't need to do it as well.
+ */
+@Component
+public class InstanceRetentionScheduler implements InitializingBean {
+  private static final Logger logger = LoggerFactory.getLogger(InstanceRetentionScheduler.class);
+  private static final int RECONCILE_BATCHES_PER_SCAN = 10;
+
+  private final ScheduledExecutorService executorService;
+  private final InstanceService instanceService;
+  private final BizConfig bizConfig;
+  /**
+   * the summaries are reconciled a few batches per scan, starting from where the last scan stopped
+   */
+  private long lastReconciledSummaryId;
+
+  public InstanceRetentionScheduler(final InstanceService instanceService, final BizConfig bizConfig) {
+    this.instanceService = instanceService;
+    this.bizConfig = bizConfig;
+    executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("InstanceRetentionScheduler", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    executorService.scheduleWithFixedDelay(() -> {
+      if (!bizConfig.isInstanceRetentionEnabled()) {
+        return;
+      }
+      Transaction transaction = Tracer.newTransaction("Apollo.InstanceRetention", "purgeStaleInstances");
+      try {
+        purgeStaleInstances();
+        reconcileInstanceNamespaceSummaries();
+        transaction.setStatus(Transaction.SUCCESS);
+      } catch (Throwable ex) {
+        transaction.setStatus(ex);
+        logger.error("Purge stale instances failed", ex);
+      } finally {
+        transaction.complete();
+      }
+    }, bizConfig.instanceRetentionScanInterval(), bizConfig.instanceRetentionScanInterval(),
+        bizConfig.instanceRetentionScanIntervalTimeUnit());
+  }
+
+  void purgeStaleInstances() {
+    int batchSize = bizConfig.instanceRetentionBatchSize();
+    int purgedInstanceConfigs = 0;
+    int purgedInstances = 0;
+
+    // instance configs first, so the instances left without any instance configs could be purged in the same round
+    boolean hasMore = true;
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      int purged = instanceService.purgeStaleInstanceConfigs(batchSize);
+      purgedInstanceConfigs += purged;
+      hasMore = purged == batchSize;
+    }
+
+    hasMore = true;
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      int purged = instanceService.purgeStaleInstances(batchSize);
+      purgedInstances += purged;
+      hasMore = purged == batchSize;
+    }
+
+    if (purgedInstanceConfigs > 0 || purgedInstances > 0) {
+      logger.info("Purged {} stale instance configs and {} stale instances", purgedInstanceConfigs, purgedInstances);
+    }
+  }
+
+  void reconcileInstanceNamespaceSummaries() {
+    int batchSize = bizConfig.instanceRetentionBatchSize();
+    for (int i = 0; i < RECONCILE_BATCHES_PER_SCAN && !Thread.currentThread().isInterrupted(); i++) {
+      // 0 means all the summaries are checked, so start over from the first one next time
+      lastReconciledSummaryId = instanceService.reconcileInstanceNamespaceSummaries(lastReconciledSummaryId,
+          batchSize);
+      if (lastReconciledSummaryId == 0) {
+        return;
+      }
+    }
+  }
+
+  @PreDestroy
+  void stopPurge() {
+    executorService.shutdown();
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.adminservice.search;
+
+import com.google.common.base.Strings;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index of item key -> ids of the namespaces which have the key.
+ * <p>
+ * The keys are lower cased, as they are compared case insensitively by the database. The index could be read by many
+ * threads, but should be written by one thread only.
+ */
+public class ItemKeyIndex {
+
+  private final ConcurrentNavigableMap<String, Set<Long>> keyToNamespaceIds = new ConcurrentSkipListMap<>();
+
+  public void add(String key, long namespaceId) {
+    if (Strings.isNullOrEmpty(key)) {
+      // comment or blank line
+      return;
+    }
+    keyToNamespaceIds.computeIfAbsent(normalize(key), k -> ConcurrentHashMap.newKeySet()).add(namespaceId);
+  }
+
+  public void remove(String key, long namespaceId) {
+    if (Strings.isNullOrEmpty(key)) {
+      return;
+    }
+    String normalizedKey = normalize(key);
+    Set<Long> namespaceIds = keyToNamespaceIds.get(normalizedKey);
+    if (namespaceIds == null) {
+      return;
+    }
+    namespaceIds.remove(namespaceId);
+    if (namespaceIds.isEmpty()) {
+      keyToNamespaceIds.remove(normalizedKey, namespaceIds);
+    }
+  }
+
+  /**
+   * Remove the deleted namespaces, whose items are deleted without commits. It walks all the keys, so the namespaces
+   * should be removed in batches.
+   */
+  public void removeNamespaces(Set<Long> namespaceIds) {
+    if (namespaceIds.isEmpty()) {
+      return;
+    }
+    for (Map.Entry<String, Set<Long>> entry : keyToNamespaceIds.entrySet()) {
+      Set<Long> ids = entry.getValue();
+      if (ids.removeAll(namespaceIds) && ids.isEmpty()) {
+        keyToNamespaceIds.remove(entry.getKey(), ids);
+      }
+    }
+  }
+
+  /**
+   * @return the ids of the namespaces which have the matched keys, in ascending order so the pages are stable
+   */
+  public SortedSet<Long> search(String keyword, ItemKeyMatchMode matchMode) {
+    SortedSet<Long> result = new TreeSet<>();
+    if (Strings.isNullOrEmpty(keyword)) {
+      return result;
+    }
+    String normalizedKeyword = normalize(keyword);
+    switch (matchMode) {
+      case EXACT:
+        Set<Long> namespaceIds = keyToNamespaceIds.get(normalizedKeyword);
+        if (namespaceIds != null) {
+          result.addAll(namespaceIds);
+        }
+        break;
+      case PREFIX:
+        NavigableMap<String, Set<Long>> matched = keyToNamespaceIds.subMap(normalizedKeyword, true,
+            normalizedKeyword + Character.MAX_VALUE, true);
+        for (Set<Long> ids : matched.values()) {
+          result.addAll(ids);
+        }
+        break;
+      case CONTAINS:
+        for (Map.Entry<String, Set<Long>> entry : keyToNamespaceIds.entrySet()) {
+          if (entry.getKey().contains(normalizedKeyword)) {
+            result.addAll(entry.getValue());
+          }
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown match mode: " + matchMode);
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of distinct keys
+   */
+  public int size() {
+    return keyToNamespaceIds.size();
+  }
+
+  private String normalize(String key) {
+    return key.toLowerCase(Locale.ROOT);
+  }
+}
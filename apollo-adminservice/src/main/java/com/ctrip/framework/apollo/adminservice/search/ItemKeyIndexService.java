@@ -0,0 +1,231 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.adminservice.search;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Audit;
+import com.ctrip.framework.apollo.biz.entity.Commit;
+import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.repository.AuditRepository;
+import com.ctrip.framework.apollo.biz.repository.CommitRepository;
+import com.ctrip.framework.apollo.biz.repository.ItemRepository;
+import com.ctrip.framework.apollo.biz.utils.ConfigChangeContentBuilder;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Maintains the {@link ItemKeyIndex} of all the items in this environment, so that searching namespaces by item
+ * doesn't need to scan the item table.
+ * <ul>
+ *   <li>the index is built from the item table, and rebuilt periodically in case some changes are missed</li>
+ *   <li>between two rebuilds, the created and deleted items are applied from the new commits, so the changes made via
+ *   the other admin service instances are indexed as well</li>
+ *   <li>deleting a namespace deletes its items without commits, so the deleted namespaces are removed according to the
+ *   audits of the namespace deletions</li>
+ *   <li>it's only maintained when item.key.index.enabled is true, and dropped when it's switched off</li>
+ * </ul>
+ */
+@Service
+public class ItemKeyIndexService implements InitializingBean {
+  private static final Logger logger = LoggerFactory.getLogger(ItemKeyIndexService.class);
+  private static final int BATCH_SIZE = 500;
+
+  private final BizConfig bizConfig;
+  private final ItemRepository itemRepository;
+  private final CommitRepository commitRepository;
+  private final AuditRepository auditRepository;
+  private final ScheduledExecutorService executorService;
+
+  /**
+   * null if the index is disabled or not built yet
+   */
+  private volatile ItemKeyIndex index;
+  private long maxCommitIdScanned;
+  private long maxAuditIdScanned;
+  private long lastRebuildTime;
+
+  public ItemKeyIndexService(
+      final BizConfig bizConfig,
+      final ItemRepository itemRepository,
+      final CommitRepository commitRepository,
+      final AuditRepository auditRepository) {
+    this.bizConfig = bizConfig;
+    this.itemRepository = itemRepository;
+    this.commitRepository = commitRepository;
+    this.auditRepository = auditRepository;
+    this.executorService = Executors.newScheduledThreadPool(1, ApolloThreadFactory
+        .create("ItemKeyIndexService", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    int scanInterval = bizConfig.itemKeyIndexScanInterval();
+    executorService.scheduleWithFixedDelay(this::refresh, scanInterval, scanInterval,
+        bizConfig.itemKeyIndexIntervalTimeUnit());
+  }
+
+  /**
+   * @return the ids of the namespaces which have the matched item keys in ascending order, or null if the index is not
+   * available so the caller should fall back to the database
+   */
+  public SortedSet<Long> findNamespaceIds(String keyword, ItemKeyMatchMode matchMode) {
+    ItemKeyIndex currentIndex = index;
+    if (currentIndex == null) {
+      return null;
+    }
+    return currentIndex.search(keyword, matchMode);
+  }
+
+  /**
+   * @return true if the index is enabled but not built yet, e.g. just after startup
+   */
+  public boolean isBuilding() {
+    return index == null && bizConfig.isItemKeyIndexEnabled();
+  }
+
+  void refresh() {
+    Transaction transaction = Tracer.newTransaction("Apollo.ItemKeyIndexService", "refresh");
+    try {
+      if (!bizConfig.isItemKeyIndexEnabled()) {
+        index = null;
+      } else if (index == null || isRebuildDue()) {
+        rebuild();
+      } else {
+        scanChanges(index);
+      }
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      logger.error("Refresh item key index failed", ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private boolean isRebuildDue() {
+    long rebuildInterval = bizConfig.itemKeyIndexIntervalTimeUnit().toMillis(bizConfig.itemKeyIndexRebuildInterval());
+    return System.currentTimeMillis() - lastRebuildTime >= rebuildInterval;
+  }
+
+  private void rebuild() {
+    long start = System.currentTimeMillis();
+    // the commits created while loading the items are applied afterwards, it's fine to apply some of them twice
+    Commit latestCommit = commitRepository.findTopByOrderByIdDesc();
+    long commitIdBeforeRebuild = latestCommit == null ? 0 : latestCommit.getId();
+    Audit latestAudit = auditRepository.findTopByOrderByIdDesc();
+    long auditIdBeforeRebuild = latestAudit == null ? 0 : latestAudit.getId();
+
+    ItemKeyIndex newIndex = new ItemKeyIndex();
+    long maxItemIdScanned = 0;
+    boolean hasMore = true;
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      List<Item> items = itemRepository.findFirst500ByIdGreaterThanOrderByIdAsc(maxItemIdScanned);
+      if (CollectionUtils.isEmpty(items)) {
+        break;
+      }
+      for (Item item : items) {
+        newIndex.add(item.getKey(), item.getNamespaceId());
+      }
+      maxItemIdScanned = items.get(items.size() - 1).getId();
+      hasMore = items.size() == BATCH_SIZE;
+    }
+
+    maxCommitIdScanned = commitIdBeforeRebuild;
+    maxAuditIdScanned = auditIdBeforeRebuild;
+    scanChanges(newIndex);
+    index = newIndex;
+    lastRebuildTime = start;
+    logger.info("Item key index rebuilt with {} keys in {} ms", newIndex.size(), System.currentTimeMillis() - start);
+  }
+
+  private void scanChanges(ItemKeyIndex target) {
+    scanCommits(target);
+    scanNamespaceDeletions(target);
+  }
+
+  private void scanCommits(ItemKeyIndex target) {
+    boolean hasMore = true;
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      List<Commit> commits = commitRepository.findFirst500ByIdGreaterThanOrderByIdAsc(maxCommitIdScanned);
+      if (CollectionUtils.isEmpty(commits)) {
+        break;
+      }
+      for (Commit commit : commits) {
+        applyCommit(target, commit);
+      }
+      maxCommitIdScanned = commits.get(commits.size() - 1).getId();
+      hasMore = commits.size() == BATCH_SIZE;
+    }
+  }
+
+  private void scanNamespaceDeletions(ItemKeyIndex target) {
+    String namespaceEntityName = Namespace.class.getSimpleName();
+    String deleteOp = Audit.OP.DELETE.name();
+    boolean hasMore = true;
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      // filtered here so the scan always moves forward, even if there is no namespace deletion
+      List<Audit> audits = auditRepository.findFirst500ByIdGreaterThanOrderByIdAsc(maxAuditIdScanned);
+      if (CollectionUtils.isEmpty(audits)) {
+        break;
+      }
+      Set<Long> deletedNamespaceIds = new HashSet<>();
+      for (Audit audit : audits) {
+        if (namespaceEntityName.equals(audit.getEntityName()) && deleteOp.equals(audit.getOpName())
+            && audit.getEntityId() != null) {
+          deletedNamespaceIds.add(audit.getEntityId());
+        }
+      }
+      target.removeNamespaces(deletedNamespaceIds);
+      maxAuditIdScanned = audits.get(audits.size() - 1).getId();
+      hasMore = audits.size() == BATCH_SIZE;
+    }
+  }
+
+  private void applyCommit(ItemKeyIndex target, Commit commit) {
+    ConfigChangeContentBuilder changes;
+    try {
+      changes = ConfigChangeContentBuilder.convertJsonString(commit.getChangeSets());
+    } catch (Throwable ex) {
+      logger.warn("Parse change sets of commit {} failed, it's skipped until the next rebuild", commit.getId(), ex);
+      return;
+    }
+    if (changes == null) {
+      return;
+    }
+    // updated items keep their keys, so only the created and deleted ones matter
+    for (Item item : changes.getCreateItems()) {
+      target.add(item.getKey(), item.getNamespaceId());
+    }
+    for (Item item : changes.getDeleteItems()) {
+      target.remove(item.getKey(), item.getNamespaceId());
+    }
+  }
+}
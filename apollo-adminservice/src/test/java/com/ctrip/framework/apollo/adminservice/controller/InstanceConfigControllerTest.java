@@ -17,12 +17,14 @@
 package com.ctrip.framework.apollo.adminservice.controller;
 
 import com.ctrip.framework.apollo.biz.entity.Instance;
-import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.repository.projection.InstanceConfigSummary;
+import com.ctrip.framework.apollo.biz.repository.projection.ReleaseSummary;
 import com.ctrip.framework.apollo.biz.service.InstanceService;
 import com.ctrip.framework.apollo.biz.service.ReleaseService;
 import com.ctrip.framework.apollo.common.dto.InstanceDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDeliveryDTO;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
@@ -82,24 +84,22 @@ public class InstanceConfigControllerTest {
     String anotherAppId = "anotherAppId";
     String someCluster = "someCluster";
     String someDataCenter = "someDC";
-    String someConfigAppId = "someConfigAppId";
-    String someConfigNamespace = "someNamespace";
     String someIp = "someIp";
     Date someReleaseDeliveryTime = new Date();
     Date anotherReleaseDeliveryTime = new Date();
 
     when(releaseService.findOne(someReleaseId)).thenReturn(someRelease);
 
-    InstanceConfig someInstanceConfig = assembleInstanceConfig(someInstanceId, someConfigAppId,
-        someConfigNamespace, someReleaseKey, someReleaseDeliveryTime);
-    InstanceConfig anotherInstanceConfig = assembleInstanceConfig(anotherInstanceId,
-        someConfigAppId, someConfigNamespace, someReleaseKey, anotherReleaseDeliveryTime);
-    List<InstanceConfig> instanceConfigs = Lists.newArrayList(someInstanceConfig,
+    InstanceConfigSummary someInstanceConfig = assembleInstanceConfigSummary(someInstanceId,
+        someReleaseDeliveryTime);
+    InstanceConfigSummary anotherInstanceConfig = assembleInstanceConfigSummary(anotherInstanceId,
+        anotherReleaseDeliveryTime);
+    List<InstanceConfigSummary> instanceConfigs = Lists.newArrayList(someInstanceConfig,
         anotherInstanceConfig);
-    Page<InstanceConfig> instanceConfigPage = new PageImpl<>(instanceConfigs, pageable,
+    Page<InstanceConfigSummary> instanceConfigPage = new PageImpl<>(instanceConfigs, pageable,
         instanceConfigs.size());
 
-    when(instanceService.findActiveInstanceConfigsByReleaseKey(someReleaseKey, pageable))
+    when(instanceService.findActiveInstanceConfigSummariesByReleaseKey(someReleaseKey, pageable))
         .thenReturn(instanceConfigPage);
 
     Instance someInstance = assembleInstance(someInstanceId, someAppId,
@@ -171,17 +171,17 @@ public class InstanceConfigControllerTest {
     long anotherInstanceId = 2;
     String someInstanceConfigReleaseKey = "someInstanceConfigReleaseKey";
     String anotherInstanceConfigReleaseKey = "anotherInstanceConfigReleaseKey";
-    InstanceConfig someInstanceConfig = mock(InstanceConfig.class);
-    InstanceConfig anotherInstanceConfig = mock(InstanceConfig.class);
+    InstanceConfigSummary someInstanceConfig = mock(InstanceConfigSummary.class);
+    InstanceConfigSummary anotherInstanceConfig = mock(InstanceConfigSummary.class);
     when(someInstanceConfig.getInstanceId()).thenReturn(someInstanceId);
     when(anotherInstanceConfig.getInstanceId()).thenReturn(anotherInstanceId);
     when(someInstanceConfig.getReleaseKey()).thenReturn(someInstanceConfigReleaseKey);
     when(anotherInstanceConfig.getReleaseKey()).thenReturn(anotherInstanceConfigReleaseKey);
     when(someInstanceConfig.getReleaseDeliveryTime()).thenReturn(someReleaseDeliveryTime);
     when(anotherInstanceConfig.getReleaseDeliveryTime()).thenReturn(anotherReleaseDeliveryTime);
-    when(instanceService.findInstanceConfigsByNamespaceWithReleaseKeysNotIn(someConfigAppId,
+    when(instanceService.findInstanceConfigSummariesByNamespaceWithReleaseKeysNotIn(someConfigAppId,
         someConfigClusterName, someConfigNamespaceName, Sets.newHashSet(someReleaseKey,
-            anotherReleaseKey))).thenReturn(Lists.newArrayList(someInstanceConfig,
+            anotherReleaseKey), 0, InstanceConfigController.INSTANCE_CONFIG_BATCH_SIZE)).thenReturn(Lists.newArrayList(someInstanceConfig,
         anotherInstanceConfig));
 
     String someInstanceAppId = "someInstanceAppId";
@@ -198,11 +198,11 @@ public class InstanceConfigControllerTest {
     when(instanceService.findInstancesByIds(Sets.newHashSet(someInstanceId, anotherInstanceId)))
         .thenReturn(Lists.newArrayList(someInstance, anotherInstance));
 
-    Release someInstanceConfigRelease = new Release();
-    someInstanceConfigRelease.setReleaseKey(someInstanceConfigReleaseKey);
-    Release anotherInstanceConfigRelease = new Release();
-    anotherInstanceConfigRelease.setReleaseKey(anotherInstanceConfigReleaseKey);
-    when(releaseService.findByReleaseKeys(Sets.newHashSet(someInstanceConfigReleaseKey,
+    ReleaseSummary someInstanceConfigRelease = mock(ReleaseSummary.class);
+    when(someInstanceConfigRelease.getReleaseKey()).thenReturn(someInstanceConfigReleaseKey);
+    ReleaseSummary anotherInstanceConfigRelease = mock(ReleaseSummary.class);
+    when(anotherInstanceConfigRelease.getReleaseKey()).thenReturn(anotherInstanceConfigReleaseKey);
+    when(releaseService.findReleaseSummariesByReleaseKeys(Sets.newHashSet(someInstanceConfigReleaseKey,
         anotherInstanceConfigReleaseKey))).thenReturn(Lists.newArrayList(someInstanceConfigRelease,
         anotherInstanceConfigRelease));
 
@@ -319,10 +319,8 @@ public class InstanceConfigControllerTest {
     String someClusterName = "someClusterName";
     String someNamespaceName = "someNamespaceName";
 
-    Page<Instance> instances = new PageImpl<>(Collections.emptyList(), pageable, 2);
-
-    when(instanceService.findInstancesByNamespace(eq(someAppId), eq(someClusterName),
-        eq(someNamespaceName), any(Pageable.class))).thenReturn(instances);
+    when(instanceService.getInstanceCountByNamespace(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(2L);
 
     long result = instanceConfigController.getInstancesCountByNamespace(someAppId,
         someClusterName, someNamespaceName);
@@ -339,6 +337,54 @@ public class InstanceConfigControllerTest {
     assertEquals(instance.getDataChangeCreatedTime(), instanceDTO.getDataChangeCreatedTime());
   }
 
+  @Test
+  public void testGetReleaseDeliveryByNamespace() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someNamespaceName = "someNamespaceName";
+    String someReleaseKey = "someKey";
+    long someReleaseId = 1;
+    long releaseTime = System.currentTimeMillis() - 10000;
+
+    Release someRelease = new Release();
+    someRelease.setId(someReleaseId);
+    someRelease.setReleaseKey(someReleaseKey);
+    someRelease.setDataChangeCreatedTime(new Date(releaseTime));
+
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(someRelease);
+
+    List<Date> deliveryTimes = Lists.newArrayList();
+    for (int i = 1; i <= 100; i++) {
+      deliveryTimes.add(new Date(releaseTime + i * 10));
+    }
+    Collections.shuffle(deliveryTimes);
+    when(instanceService.findActiveReleaseDeliveryTimes(someReleaseKey)).thenReturn(deliveryTimes);
+
+    ReleaseDeliveryDTO result = instanceConfigController
+        .getReleaseDeliveryByNamespace(someAppId, someClusterName, someNamespaceName);
+
+    assertEquals(someReleaseId, result.getReleaseId());
+    assertEquals(someReleaseKey, result.getReleaseKey());
+    assertEquals(100, result.getDeliveredInstanceCount());
+    assertEquals(500, result.getP50Latency());
+    assertEquals(900, result.getP90Latency());
+    assertEquals(990, result.getP99Latency());
+    assertEquals(1000, result.getMaxLatency());
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testGetReleaseDeliveryByNamespaceWithoutRelease() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someNamespaceName = "someNamespaceName";
+
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(null);
+
+    instanceConfigController.getReleaseDeliveryByNamespace(someAppId, someClusterName, someNamespaceName);
+  }
+
   private Instance assembleInstance(long instanceId, String appId, String clusterName, String
       dataCenter, String ip) {
     Instance instance = new Instance();
@@ -352,15 +398,10 @@ public class InstanceConfigControllerTest {
     return instance;
   }
 
-  private InstanceConfig assembleInstanceConfig(long instanceId, String configAppId, String
-      configNamespaceName, String releaseKey, Date releaseDeliveryTime) {
-    InstanceConfig instanceConfig = new InstanceConfig();
-    instanceConfig.setInstanceId(instanceId);
-    instanceConfig.setConfigAppId(configAppId);
-    instanceConfig.setConfigNamespaceName(configNamespaceName);
-    instanceConfig.setReleaseKey(releaseKey);
-    instanceConfig.setDataChangeLastModifiedTime(new Date());
-    instanceConfig.setReleaseDeliveryTime(releaseDeliveryTime);
+  private InstanceConfigSummary assembleInstanceConfigSummary(long instanceId, Date releaseDeliveryTime) {
+    InstanceConfigSummary instanceConfig = mock(InstanceConfigSummary.class);
+    when(instanceConfig.getInstanceId()).thenReturn(instanceId);
+    when(instanceConfig.getReleaseDeliveryTime()).thenReturn(releaseDeliveryTime);
     return instanceConfig;
   }
 }
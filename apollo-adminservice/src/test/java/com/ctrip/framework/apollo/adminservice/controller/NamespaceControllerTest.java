@@ -17,9 +17,12 @@
 package com.ctrip.framework.apollo.adminservice.controller;
 
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceWithItemsDTO;
 import com.ctrip.framework.apollo.common.utils.InputValidator;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
 import org.springframework.web.client.HttpClientErrorException;
 import static org.hamcrest.Matchers.containsString;
 
@@ -44,4 +47,25 @@ public class NamespaceControllerTest extends AbstractControllerTest {
       Assert.assertThat(new String(e.getResponseBodyAsByteArray()), containsString(InputValidator.INVALID_CLUSTER_NAMESPACE_MESSAGE));
     }
   }
+
+  @Test
+  @Sql(scripts = "/controller/test-release.sql", executionPhase = ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/controller/cleanup.sql", executionPhase = ExecutionPhase.AFTER_TEST_METHOD)
+  public void findWithItems() {
+    NamespaceWithItemsDTO[] namespaces = restTemplate.getForObject(
+        url("/apps/{appId}/clusters/{clusterName}/namespaces-with-items"),
+        NamespaceWithItemsDTO[].class, "someAppId", "default");
+
+    Assert.assertEquals(1, namespaces.length);
+    NamespaceWithItemsDTO namespace = namespaces[0];
+    Assert.assertEquals("application", namespace.getNamespace().getNamespaceName());
+    Assert.assertEquals(3, namespace.getItems().size());
+    Assert.assertNull(namespace.getLatestRelease());
+    Assert.assertTrue(namespace.getDeletedItems().isEmpty());
+
+    namespaces = restTemplate.getForObject(
+        url("/apps/{appId}/clusters/{clusterName}/namespaces-with-items?includeDeletedItems=false"),
+        NamespaceWithItemsDTO[].class, "someAppId", "default");
+    Assert.assertNull(namespaces[0].getDeletedItems());
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.adminservice.search;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Audit;
+import com.ctrip.framework.apollo.biz.entity.Commit;
+import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.repository.AuditRepository;
+import com.ctrip.framework.apollo.biz.repository.CommitRepository;
+import com.ctrip.framework.apollo.biz.repository.ItemRepository;
+import com.ctrip.framework.apollo.biz.utils.ConfigChangeContentBuilder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ItemKeyIndexServiceTest {
+
+  @Mock
+  private BizConfig bizConfig;
+  @Mock
+  private ItemRepository itemRepository;
+  @Mock
+  private CommitRepository commitRepository;
+  @Mock
+  private AuditRepository auditRepository;
+
+  @InjectMocks
+  private ItemKeyIndexService itemKeyIndexService;
+
+  @Before
+  public void setUp() {
+    when(bizConfig.isItemKeyIndexEnabled()).thenReturn(true);
+    when(commitRepository.findTopByOrderByIdDesc()).thenReturn(commit(10, new ConfigChangeContentBuilder()));
+    when(auditRepository.findTopByOrderByIdDesc()).thenReturn(audit(20, "Item", Audit.OP.INSERT, 1L));
+    when(itemRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0)).thenReturn(Lists.newArrayList(
+        item(1, "timeout", 1), item(2, "timeout.read", 2), item(3, "timeout", 3)));
+  }
+
+  @Test
+  public void testBuildAndReplayChanges() {
+    when(bizConfig.itemKeyIndexRebuildInterval()).thenReturn(3600);
+    when(bizConfig.itemKeyIndexIntervalTimeUnit()).thenReturn(TimeUnit.SECONDS);
+    ConfigChangeContentBuilder changes = new ConfigChangeContentBuilder()
+        .createItem(item(4, "timeout.connect", 4))
+        .deleteItem(item(1, "timeout", 1));
+    when(commitRepository.findFirst500ByIdGreaterThanOrderByIdAsc(10))
+        .thenReturn(Collections.emptyList(), Lists.newArrayList(commit(11, changes)));
+    // namespace 3 is deleted, its items are deleted without commits
+    when(auditRepository.findFirst500ByIdGreaterThanOrderByIdAsc(20)).thenReturn(Collections.emptyList(),
+        Lists.newArrayList(audit(21, "Item", Audit.OP.DELETE, 1L),
+            audit(22, Namespace.class.getSimpleName(), Audit.OP.DELETE, 3L)));
+
+    assertTrue(itemKeyIndexService.isBuilding());
+    assertNull(itemKeyIndexService.findNamespaceIds("timeout", ItemKeyMatchMode.EXACT));
+
+    itemKeyIndexService.refresh();
+
+    assertFalse(itemKeyIndexService.isBuilding());
+    assertEquals(Sets.newTreeSet(Sets.newHashSet(1L, 2L, 3L)),
+        itemKeyIndexService.findNamespaceIds("timeout", ItemKeyMatchMode.PREFIX));
+
+    itemKeyIndexService.refresh();
+
+    assertEquals(Sets.newTreeSet(Sets.newHashSet(2L, 4L)),
+        itemKeyIndexService.findNamespaceIds("timeout", ItemKeyMatchMode.PREFIX));
+    assertTrue(itemKeyIndexService.findNamespaceIds("timeout", ItemKeyMatchMode.EXACT).isEmpty());
+  }
+
+  @Test
+  public void testDropIndexWhenDisabled() {
+    when(commitRepository.findFirst500ByIdGreaterThanOrderByIdAsc(10)).thenReturn(Collections.emptyList());
+    when(auditRepository.findFirst500ByIdGreaterThanOrderByIdAsc(20)).thenReturn(Collections.emptyList());
+
+    itemKeyIndexService.refresh();
+    assertEquals(3, itemKeyIndexService.findNamespaceIds("time", ItemKeyMatchMode.PREFIX).size());
+
+    when(bizConfig.isItemKeyIndexEnabled()).thenReturn(false);
+    itemKeyIndexService.refresh();
+
+    assertNull(itemKeyIndexService.findNamespaceIds("time", ItemKeyMatchMode.PREFIX));
+    assertFalse(itemKeyIndexService.isBuilding());
+  }
+
+  private Item item(long id, String key, long namespaceId) {
+    Item item = new Item();
+    item.setId(id);
+    item.setKey(key);
+    item.setNamespaceId(namespaceId);
+    return item;
+  }
+
+  private Commit commit(long id, ConfigChangeContentBuilder changes) {
+    Commit commit = new Commit();
+    commit.setId(id);
+    commit.setChangeSets(changes.build());
+    return commit;
+  }
+
+  private Audit audit(long id, String entityName, Audit.OP op, Long entityId) {
+    Audit audit = new Audit();
+    audit.setId(id);
+    audit.setEntityName(entityName);
+    audit.setOpName(op.name());
+    audit.setEntityId(entityId);
+    return audit;
+  }
+}
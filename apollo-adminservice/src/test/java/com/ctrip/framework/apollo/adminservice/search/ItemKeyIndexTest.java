@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.adminservice.search;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ItemKeyIndexTest {
+
+  private ItemKeyIndex index;
+
+  @Before
+  public void setUp() {
+    index = new ItemKeyIndex();
+    index.add("timeout", 1);
+    index.add("Timeout", 2);
+    index.add("timeout.read", 3);
+    index.add("connect.timeout", 4);
+    index.add("", 5);
+  }
+
+  @Test
+  public void testExactMatch() {
+    assertEquals(Sets.newTreeSet(Sets.newHashSet(1L, 2L)), index.search("TIMEOUT", ItemKeyMatchMode.EXACT));
+    assertTrue(index.search("time", ItemKeyMatchMode.EXACT).isEmpty());
+  }
+
+  @Test
+  public void testPrefixMatch() {
+    assertEquals(Sets.newTreeSet(Sets.newHashSet(1L, 2L, 3L)), index.search("time", ItemKeyMatchMode.PREFIX));
+  }
+
+  @Test
+  public void testContainsMatch() {
+    assertEquals(Sets.newTreeSet(Sets.newHashSet(1L, 2L, 3L, 4L)), index.search("out", ItemKeyMatchMode.CONTAINS));
+  }
+
+  @Test
+  public void testRemove() {
+    index.remove("timeout", 1);
+    index.remove("TIMEOUT.read", 3);
+    index.remove("not.exist", 1);
+
+    assertEquals(Sets.newTreeSet(Sets.newHashSet(2L)), index.search("timeout", ItemKeyMatchMode.PREFIX));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  public void testBlankKeyIsNotIndexed() {
+    assertTrue(index.search("", ItemKeyMatchMode.CONTAINS).isEmpty());
+    assertEquals(3, index.size());
+  }
+}
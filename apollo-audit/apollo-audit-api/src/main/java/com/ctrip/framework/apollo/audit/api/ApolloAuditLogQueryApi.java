@@ -95,4 +95,38 @@ public interface ApolloAuditLogQueryApi {
    */
   List<ApolloAuditLogDTO> searchLogByNameOrTypeOrOperator(String query, int page, int size);
 
-}
\ No newline at end of file
+  /**
+   * Query all AuditLogs by keyset pagination, newest first. Unlike querying by page index, the cost
+   * doesn't grow with how deep the page is.
+   *
+   * @param beforeId id of the last AuditLog of the former page, null for the first page
+   * @param size     size of a page
+   * @return List of ApolloAuditLogDTO
+   */
+  List<ApolloAuditLogDTO> queryLogsBeforeId(Long beforeId, int size);
+
+  /**
+   * Query AuditLogs by operation name and time limit by keyset pagination, newest first
+   *
+   * @param opName    operation name of querying
+   * @param startDate expect result after or equal this time
+   * @param endDate   expect result before or equal this time
+   * @param beforeId  id of the last AuditLog of the former page, null for the first page
+   * @param size      size of a page
+   * @return List of ApolloAuditLogDTO
+   */
+  List<ApolloAuditLogDTO> queryLogsByOpNameBeforeId(String opName, Date startDate, Date endDate,
+      Long beforeId, int size);
+
+  /**
+   * Search AuditLogs whose operation name or operator starts with the query-string, or whose
+   * operation type equals it, by keyset pagination, newest first.
+   *
+   * @param query    input query string, used to prefix search
+   * @param beforeId id of the last AuditLog of the former page, null for the first page
+   * @param size     size of a page
+   * @return List of ApolloAuditLogDTO
+   */
+  List<ApolloAuditLogDTO> searchLogByPrefix(String query, Long beforeId, int size);
+
+}
@@ -23,6 +23,8 @@ public class ApolloAuditProperties {
 
   private boolean enabled = false;
 
+  private final Async async = new Async();
+
   public boolean isEnabled() {
     return enabled;
   }
@@ -30,4 +32,91 @@ public class ApolloAuditProperties {
   public void setEnabled(boolean enabled) {
     this.enabled = enabled;
   }
+
+  public Async getAsync() {
+    return async;
+  }
+
+  /**
+   * Writing the audit logs and data influences in the background instead of inside the request
+   */
+  public static class Async {
+
+    private boolean enabled = false;
+
+    /**
+     * max audit records buffered in memory before the overflow policy applies
+     */
+    private int capacity = 10000;
+
+    private int batchSize = 200;
+
+    private long flushIntervalInMilli = 500;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * how long the BLOCK policy waits for free space before dropping the record
+     */
+    private long blockTimeoutInMilli = 1000;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalInMilli() {
+      return flushIntervalInMilli;
+    }
+
+    public void setFlushIntervalInMilli(long flushIntervalInMilli) {
+      this.flushIntervalInMilli = flushIntervalInMilli;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+      return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getBlockTimeoutInMilli() {
+      return blockTimeoutInMilli;
+    }
+
+    public void setBlockTimeoutInMilli(long blockTimeoutInMilli) {
+      this.blockTimeoutInMilli = blockTimeoutInMilli;
+    }
+  }
+
+  public enum OverflowPolicy {
+    /**
+     * drop the record immediately when the buffer is full
+     */
+    DROP,
+    /**
+     * make the caller wait for free space, up to the block timeout
+     */
+    BLOCK
+  }
 }
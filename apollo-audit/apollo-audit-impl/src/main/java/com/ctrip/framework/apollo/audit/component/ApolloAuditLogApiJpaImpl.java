@@ -25,21 +25,27 @@ import com.ctrip.framework.apollo.audit.context.ApolloAuditTracer;
 import com.ctrip.framework.apollo.audit.dto.ApolloAuditLogDTO;
 import com.ctrip.framework.apollo.audit.dto.ApolloAuditLogDataInfluenceDTO;
 import com.ctrip.framework.apollo.audit.dto.ApolloAuditLogDetailsDTO;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
 import com.ctrip.framework.apollo.audit.service.ApolloAuditLogDataInfluenceService;
 import com.ctrip.framework.apollo.audit.service.ApolloAuditLogService;
 import com.ctrip.framework.apollo.audit.util.ApolloAuditUtil;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class ApolloAuditLogApiJpaImpl implements ApolloAuditLogApi {
 
   private final ApolloAuditLogService logService;
   private final ApolloAuditLogDataInfluenceService dataInfluenceService;
   private final ApolloAuditTraceContext traceContext;
+  private final Map<Class<?>, DataInfluenceAccessor> accessors = new ConcurrentHashMap<>();
 
   public ApolloAuditLogApiJpaImpl(ApolloAuditLogService logService,
       ApolloAuditLogDataInfluenceService dataInfluenceService, ApolloAuditTraceContext traceContext) {
@@ -94,22 +100,17 @@ public class ApolloAuditLogApiJpaImpl implements ApolloAuditLogApi {
 
   @Override
   public void appendDataInfluences(List<Object> entities, Class<?> beanDefinition) {
-    String tableName = ApolloAuditUtil.getApolloAuditLogTableName(beanDefinition);
-    if (Objects.isNull(tableName) || tableName.equals("")) {
+    DataInfluenceAccessor accessor = accessors.computeIfAbsent(beanDefinition,
+        DataInfluenceAccessor::new);
+    if (Objects.isNull(accessor.tableName) || accessor.tableName.equals("")) {
       return;
     }
-    List<Field> dataInfluenceFields = ApolloAuditUtil.getAnnotatedFields(
-        ApolloAuditLogDataInfluenceTableField.class, beanDefinition);
-    Field idField = ApolloAuditUtil.getPersistenceIdFieldByAnnotation(beanDefinition);
     entities.forEach(e -> {
       try {
-        idField.setAccessible(true);
-        String tableId = idField.get(e).toString();
-        for (Field f : dataInfluenceFields) {
-          f.setAccessible(true);
-          String val = String.valueOf(f.get(e));
-          String fieldName = f.getAnnotation(ApolloAuditLogDataInfluenceTableField.class).fieldName();
-          appendDataInfluence(tableName, tableId, fieldName, val);
+        String tableId = accessor.idField.get(e).toString();
+        for (int i = 0; i < accessor.fields.size(); i++) {
+          String val = String.valueOf(accessor.fields.get(i).get(e));
+          appendDataInfluence(accessor.tableName, tableId, accessor.fieldNames.get(i), val);
         }
       } catch (IllegalAccessException ex) {
         throw new IllegalArgumentException("failed append data influence, "
@@ -135,11 +136,16 @@ public class ApolloAuditLogApiJpaImpl implements ApolloAuditLogApi {
 
   @Override
   public List<ApolloAuditLogDetailsDTO> queryTraceDetails(String traceId) {
+    List<ApolloAuditLog> logs = logService.findByTraceId(traceId);
+    // fetch the data influences of the whole trace at once instead of once per span
+    Map<String, List<ApolloAuditLogDataInfluence>> dataInfluencesBySpanId = dataInfluenceService
+        .findBySpanIds(logs.stream().map(ApolloAuditLog::getSpanId).collect(Collectors.toSet()))
+        .stream().collect(Collectors.groupingBy(ApolloAuditLogDataInfluence::getSpanId));
     List<ApolloAuditLogDetailsDTO> detailsDTOList = new ArrayList<>();
-    logService.findByTraceId(traceId).forEach(log -> {
+    logs.forEach(log -> {
       detailsDTOList.add(new ApolloAuditLogDetailsDTO(ApolloAuditUtil.logToDTO(log),
           ApolloAuditUtil.dataInfluenceListToDTOList(
-              dataInfluenceService.findBySpanId(log.getSpanId()))));
+              dataInfluencesBySpanId.getOrDefault(log.getSpanId(), Collections.emptyList()))));
     });
     return detailsDTOList;
   }
@@ -155,4 +161,44 @@ public class ApolloAuditLogApiJpaImpl implements ApolloAuditLogApi {
   public List<ApolloAuditLogDTO> searchLogByNameOrTypeOrOperator(String query, int page, int size) {
     return ApolloAuditUtil.logListToDTOList(logService.searchLogByNameOrTypeOrOperator(query, page, size));
   }
+
+  @Override
+  public List<ApolloAuditLogDTO> queryLogsBeforeId(Long beforeId, int size) {
+    return ApolloAuditUtil.logListToDTOList(logService.findBeforeId(beforeId, size));
+  }
+
+  @Override
+  public List<ApolloAuditLogDTO> queryLogsByOpNameBeforeId(String opName, Date startDate,
+      Date endDate, Long beforeId, int size) {
+    return ApolloAuditUtil.logListToDTOList(
+        logService.findByOpNameBeforeId(opName, startDate, endDate, beforeId, size));
+  }
+
+  @Override
+  public List<ApolloAuditLogDTO> searchLogByPrefix(String query, Long beforeId, int size) {
+    return ApolloAuditUtil.logListToDTOList(logService.searchLogByPrefix(query, beforeId, size));
+  }
+
+  /**
+   * The audited fields of a class resolved once, instead of looking them up and making them
+   * accessible for every entity
+   */
+  private static class DataInfluenceAccessor {
+
+    private final String tableName;
+    private final Field idField;
+    private final List<Field> fields = new ArrayList<>();
+    private final List<String> fieldNames = new ArrayList<>();
+
+    DataInfluenceAccessor(Class<?> beanDefinition) {
+      tableName = ApolloAuditUtil.getApolloAuditLogTableName(beanDefinition);
+      idField = ApolloAuditUtil.getPersistenceIdFieldByAnnotation(beanDefinition);
+      for (Field field : ApolloAuditUtil.getAnnotatedFields(
+          ApolloAuditLogDataInfluenceTableField.class, beanDefinition)) {
+        field.setAccessible(true);
+        fields.add(field);
+        fieldNames.add(field.getAnnotation(ApolloAuditLogDataInfluenceTableField.class).fieldName());
+      }
+    }
+  }
 }
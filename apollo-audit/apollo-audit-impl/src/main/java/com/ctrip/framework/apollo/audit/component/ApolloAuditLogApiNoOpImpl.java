@@ -74,4 +74,20 @@ public class ApolloAuditLogApiNoOpImpl implements ApolloAuditLogApi {
   public List<ApolloAuditLogDTO> searchLogByNameOrTypeOrOperator(String query, int page, int size) {
     return null;
   }
+
+  @Override
+  public List<ApolloAuditLogDTO> queryLogsBeforeId(Long beforeId, int size) {
+    return null;
+  }
+
+  @Override
+  public List<ApolloAuditLogDTO> queryLogsByOpNameBeforeId(String opName, Date startDate,
+      Date endDate, Long beforeId, int size) {
+    return null;
+  }
+
+  @Override
+  public List<ApolloAuditLogDTO> searchLogByPrefix(String query, Long beforeId, int size) {
+    return null;
+  }
 }
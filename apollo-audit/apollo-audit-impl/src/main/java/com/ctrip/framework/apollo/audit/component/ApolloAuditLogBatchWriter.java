@@ -0,0 +1,242 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.component;
+
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties;
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties.OverflowPolicy;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
+import com.ctrip.framework.apollo.audit.entity.BaseEntity;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Buffers the audit logs and data influences in a bounded queue and writes them with jdbc batch
+ * inserts from a single background thread, so the audited request doesn't pay one insert per
+ * record.
+ * <p>
+ * Records appended inside a transaction are only queued after it commits, which keeps the
+ * behavior of the synchronous writes that rolled back together with the audited operation.
+ * <p>
+ * On MySQL the batches are only sent as multi-row inserts when {@code rewriteBatchedStatements=true}
+ * is set in the jdbc url, otherwise the driver still sends one statement per row.
+ */
+public class ApolloAuditLogBatchWriter implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApolloAuditLogBatchWriter.class);
+
+  private static final String INSERT_LOG_SQL = "INSERT INTO `AuditLog` (`TraceId`, `SpanId`, "
+      + "`ParentSpanId`, `FollowsFromSpanId`, `Operator`, `OpType`, `OpName`, `Description`, "
+      + "`DataChange_CreatedTime`, `DataChange_LastTime`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_DATA_INFLUENCE_SQL = "INSERT INTO `AuditLogDataInfluence` "
+      + "(`SpanId`, `InfluenceEntityId`, `InfluenceEntityName`, `FieldName`, `FieldOldValue`, "
+      + "`FieldNewValue`, `DataChange_CreatedTime`, `DataChange_LastTime`) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final long SHUTDOWN_TIMEOUT_IN_MILLI = 10000;
+  private static final long DROP_LOG_INTERVAL = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApolloAuditProperties.Async properties;
+  private final BlockingQueue<BaseEntity> queue;
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  private volatile boolean running;
+  private Thread writerThread;
+
+  public ApolloAuditLogBatchWriter(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, ApolloAuditProperties.Async properties) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.properties = properties;
+    this.queue = new ArrayBlockingQueue<>(Math.max(properties.getCapacity(), 1));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    running = true;
+    writerThread = new Thread(this::drain, "ApolloAuditLogBatchWriter");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    running = false;
+    if (writerThread != null) {
+      writerThread.join(SHUTDOWN_TIMEOUT_IN_MILLI);
+    }
+  }
+
+  public void append(BaseEntity record) {
+    if (record.getDataChangeCreatedTime() == null) {
+      // keep the time the operation happened instead of the time the batch is written
+      record.setDataChangeCreatedTime(new Date());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()
+        && TransactionSynchronizationManager.isActualTransactionActive()) {
+      pendingInCurrentTransaction().add(record);
+      return;
+    }
+    enqueue(record);
+  }
+
+  /**
+   * @return the records waiting to be written
+   */
+  public int backlog() {
+    return queue.size();
+  }
+
+  public long written() {
+    return written.get();
+  }
+
+  public long dropped() {
+    return dropped.get();
+  }
+
+  public long failed() {
+    return failed.get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<BaseEntity> pendingInCurrentTransaction() {
+    List<BaseEntity> pending = (List<BaseEntity>) TransactionSynchronizationManager.getResource(this);
+    if (pending != null) {
+      return pending;
+    }
+    List<BaseEntity> newPending = new ArrayList<>();
+    TransactionSynchronizationManager.bindResource(this, newPending);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        newPending.forEach(ApolloAuditLogBatchWriter.this::enqueue);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(ApolloAuditLogBatchWriter.this);
+      }
+    });
+    return newPending;
+  }
+
+  private void enqueue(BaseEntity record) {
+    boolean accepted;
+    if (properties.getOverflowPolicy() == OverflowPolicy.BLOCK) {
+      try {
+        accepted = queue.offer(record, properties.getBlockTimeoutInMilli(), TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        accepted = false;
+      }
+    } else {
+      accepted = queue.offer(record);
+    }
+    if (!accepted && dropped.getAndIncrement() % DROP_LOG_INTERVAL == 0) {
+      logger.warn("Audit log buffer is full, {} records dropped so far", dropped.get());
+    }
+  }
+
+  private void drain() {
+    int batchSize = Math.max(properties.getBatchSize(), 1);
+    List<BaseEntity> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        BaseEntity first = queue.poll(properties.getFlushIntervalInMilli(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        write(batch);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  void write(List<BaseEntity> batch) {
+    List<ApolloAuditLog> logs = new ArrayList<>();
+    List<ApolloAuditLogDataInfluence> dataInfluences = new ArrayList<>();
+    for (BaseEntity record : batch) {
+      if (record instanceof ApolloAuditLog) {
+        logs.add((ApolloAuditLog) record);
+      } else if (record instanceof ApolloAuditLogDataInfluence) {
+        dataInfluences.add((ApolloAuditLogDataInfluence) record);
+      }
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        if (!logs.isEmpty()) {
+          jdbcTemplate.batchUpdate(INSERT_LOG_SQL, logs, logs.size(), (ps, log) -> {
+            Timestamp time = new Timestamp(log.getDataChangeCreatedTime().getTime());
+            ps.setString(1, log.getTraceId());
+            ps.setString(2, log.getSpanId());
+            ps.setString(3, log.getParentSpanId());
+            ps.setString(4, log.getFollowsFromSpanId());
+            ps.setString(5, log.getOperator());
+            ps.setString(6, log.getOpType());
+            ps.setString(7, log.getOpName());
+            ps.setString(8, log.getDescription());
+            ps.setTimestamp(9, time);
+            ps.setTimestamp(10, time);
+          });
+        }
+        if (!dataInfluences.isEmpty()) {
+          jdbcTemplate.batchUpdate(INSERT_DATA_INFLUENCE_SQL, dataInfluences,
+              dataInfluences.size(), (ps, influence) -> {
+                Timestamp time = new Timestamp(influence.getDataChangeCreatedTime().getTime());
+                ps.setString(1, influence.getSpanId());
+                ps.setString(2, influence.getInfluenceEntityId());
+                ps.setString(3, influence.getInfluenceEntityName());
+                ps.setString(4, influence.getFieldName());
+                ps.setString(5, influence.getFieldOldValue());
+                ps.setString(6, influence.getFieldNewValue());
+                ps.setTimestamp(7, time);
+                ps.setTimestamp(8, time);
+              });
+        }
+      });
+      written.addAndGet(batch.size());
+    } catch (Throwable ex) {
+      failed.addAndGet(batch.size());
+      logger.error("Failed to write {} audit records", batch.size(), ex);
+    }
+  }
+}
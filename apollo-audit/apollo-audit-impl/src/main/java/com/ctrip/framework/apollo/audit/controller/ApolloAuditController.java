@@ -94,4 +94,27 @@ public class ApolloAuditController {
     return logDTOList;
   }
 
+  @GetMapping("/logs/scroll")
+  @PreAuthorize(value = "@apolloAuditLogQueryApiPreAuthorizer.hasQueryPermission()")
+  public List<ApolloAuditLogDTO> scrollAuditLogs(
+      @RequestParam(value = "beforeId", required = false) Long beforeId, @RequestParam int size) {
+    return api.queryLogsBeforeId(beforeId, size);
+  }
+
+  @GetMapping("/logs/opName/scroll")
+  @PreAuthorize(value = "@apolloAuditLogQueryApiPreAuthorizer.hasQueryPermission()")
+  public List<ApolloAuditLogDTO> scrollAuditLogsByOpNameAndTime(@RequestParam String opName,
+      @RequestParam(value = "beforeId", required = false) Long beforeId, @RequestParam int size,
+      @RequestParam(value = "startDate", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss.S") Date startDate,
+      @RequestParam(value = "endDate", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss.S") Date endDate) {
+    return api.queryLogsByOpNameBeforeId(opName, startDate, endDate, beforeId, size);
+  }
+
+  @GetMapping("/logs/search")
+  @PreAuthorize(value = "@apolloAuditLogQueryApiPreAuthorizer.hasQueryPermission()")
+  public List<ApolloAuditLogDTO> searchAuditLogsByPrefix(@RequestParam String query,
+      @RequestParam(value = "beforeId", required = false) Long beforeId, @RequestParam int size) {
+    return api.searchLogByPrefix(query, beforeId, size);
+  }
+
 }
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.audit.repository;
 
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.PagingAndSortingRepository;
@@ -26,6 +27,8 @@ public interface ApolloAuditLogDataInfluenceRepository extends
 
   List<ApolloAuditLogDataInfluence> findBySpanId(String spanId);
 
+  List<ApolloAuditLogDataInfluence> findBySpanIdIn(Collection<String> spanIds);
+
   List<ApolloAuditLogDataInfluence> findByInfluenceEntityNameAndInfluenceEntityId(
       String influenceEntityName, String influenceEntityId, Pageable page);
 
@@ -35,4 +35,25 @@ public interface ApolloAuditLogRepository extends PagingAndSortingRepository<Apo
 
   List<ApolloAuditLog> findByOpNameContainingOrOpTypeContainingOrOperatorContaining(String opName,
       String opType, String operator, Pageable pageable);
+
+  List<ApolloAuditLog> findByIdLessThanOrderByIdDesc(long beforeId, Pageable pageable);
+
+  List<ApolloAuditLog> findByOpNameAndIdLessThanOrderByIdDesc(String opName, long beforeId,
+      Pageable pageable);
+
+  @Query("SELECT l FROM ApolloAuditLog l WHERE l.opName = :opName AND l.id < :beforeId"
+      + " AND l.dataChangeCreatedTime >= :startDate AND l.dataChangeCreatedTime <= :endDate"
+      + " ORDER BY l.id DESC")
+  List<ApolloAuditLog> findByOpNameAndTimeAndIdLessThan(@Param("opName") String opName,
+      @Param("startDate") Date startDate, @Param("endDate") Date endDate,
+      @Param("beforeId") long beforeId, Pageable pageable);
+
+  List<ApolloAuditLog> findByOpNameStartingWithAndIdLessThanOrderByIdDesc(String opName,
+      long beforeId, Pageable pageable);
+
+  List<ApolloAuditLog> findByOperatorStartingWithAndIdLessThanOrderByIdDesc(String operator,
+      long beforeId, Pageable pageable);
+
+  List<ApolloAuditLog> findByOpTypeAndIdLessThanOrderByIdDesc(String opType, long beforeId,
+      Pageable pageable);
 }
@@ -16,8 +16,11 @@
  */
 package com.ctrip.framework.apollo.audit.service;
 
+import com.ctrip.framework.apollo.audit.component.ApolloAuditLogBatchWriter;
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
 import com.ctrip.framework.apollo.audit.repository.ApolloAuditLogDataInfluenceRepository;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,13 +32,32 @@ import org.springframework.data.domain.Sort.Order;
 public class ApolloAuditLogDataInfluenceService {
 
   private final ApolloAuditLogDataInfluenceRepository dataInfluenceRepository;
+  private final ApolloAuditLogBatchWriter batchWriter;
 
   public ApolloAuditLogDataInfluenceService(
       ApolloAuditLogDataInfluenceRepository dataInfluenceRepository) {
+    this(dataInfluenceRepository, null);
+  }
+
+  /**
+   * @param batchWriter writes the data influences in the background when not null
+   */
+  public ApolloAuditLogDataInfluenceService(
+      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository,
+      ApolloAuditLogBatchWriter batchWriter) {
     this.dataInfluenceRepository = dataInfluenceRepository;
+    this.batchWriter = batchWriter;
   }
 
+  /**
+   * @return the saved data influence, or the given one which is not persisted yet when it's
+   * written in the background
+   */
   public ApolloAuditLogDataInfluence save(ApolloAuditLogDataInfluence dataInfluence) {
+    if (batchWriter != null) {
+      batchWriter.append(dataInfluence);
+      return dataInfluence;
+    }
     return dataInfluenceRepository.save(dataInfluence);
   }
 
@@ -43,6 +65,13 @@ public class ApolloAuditLogDataInfluenceService {
     return dataInfluenceRepository.findBySpanId(spanId);
   }
 
+  public List<ApolloAuditLogDataInfluence> findBySpanIds(Collection<String> spanIds) {
+    if (spanIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return dataInfluenceRepository.findBySpanIdIn(spanIds);
+  }
+
   public List<ApolloAuditLogDataInfluence> findByEntityNameAndEntityIdAndFieldName(
       String entityName, String entityId, String fieldName, int page, int size) {
     Pageable pageable = pageSortByTime(page, size);
@@ -16,11 +16,18 @@
  */
 package com.ctrip.framework.apollo.audit.service;
 
+import com.ctrip.framework.apollo.audit.annotation.OpType;
+import com.ctrip.framework.apollo.audit.component.ApolloAuditLogBatchWriter;
 import com.ctrip.framework.apollo.audit.context.ApolloAuditSpan;
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
 import com.ctrip.framework.apollo.audit.repository.ApolloAuditLogRepository;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -30,9 +37,19 @@ import org.springframework.data.domain.Sort.Order;
 public class ApolloAuditLogService {
 
   private final ApolloAuditLogRepository logRepository;
+  private final ApolloAuditLogBatchWriter batchWriter;
 
   public ApolloAuditLogService(ApolloAuditLogRepository logRepository) {
+    this(logRepository, null);
+  }
+
+  /**
+   * @param batchWriter writes the spans in the background when not null
+   */
+  public ApolloAuditLogService(ApolloAuditLogRepository logRepository,
+      ApolloAuditLogBatchWriter batchWriter) {
     this.logRepository = logRepository;
+    this.batchWriter = batchWriter;
   }
 
   public ApolloAuditLog save(ApolloAuditLog auditLog) {
@@ -52,6 +69,10 @@ public class ApolloAuditLogService {
         .description(span.getDescription())
         .happenedTime(new Date())
         .build();
+    if (batchWriter != null) {
+      batchWriter.append(auditLog);
+      return;
+    }
     logRepository.save(auditLog);
   }
 
@@ -82,6 +103,64 @@ public class ApolloAuditLogService {
         query, pageable);
   }
 
+  /**
+   * Keyset pagination ordered by id desc, which doesn't need to skip the rows of the former pages
+   *
+   * @param beforeId the id of the last log of the former page, null for the first page
+   */
+  public List<ApolloAuditLog> findBeforeId(Long beforeId, int size) {
+    return logRepository.findByIdLessThanOrderByIdDesc(keyOf(beforeId), PageRequest.of(0, size));
+  }
+
+  public List<ApolloAuditLog> findByOpNameBeforeId(String opName, Date startDate, Date endDate,
+      Long beforeId, int size) {
+    if (startDate == null && endDate == null) {
+      return logRepository.findByOpNameAndIdLessThanOrderByIdDesc(opName, keyOf(beforeId),
+          PageRequest.of(0, size));
+    }
+    return logRepository.findByOpNameAndTimeAndIdLessThan(opName,
+        startDate == null ? new Date(0) : startDate, endDate == null ? new Date() : endDate,
+        keyOf(beforeId), PageRequest.of(0, size));
+  }
+
+  /**
+   * Search the logs whose op name or operator starts with the query, or whose op type equals it.
+   * <p>
+   * The op name and operator conditions are ranges on IX_OpName and IX_Operator, but the matched rows are sorted by id
+   * afterwards, so a short prefix matching many rows costs a sort of all of them. The op type has no index, so it's
+   * only queried when the query is one of the {@link OpType}s, which are common enough to be found soon when walking
+   * the primary key backwards.
+   */
+  public List<ApolloAuditLog> searchLogByPrefix(String query, Long beforeId, int size) {
+    long key = keyOf(beforeId);
+    Pageable pageable = PageRequest.of(0, size);
+    Map<Long, ApolloAuditLog> merged = new TreeMap<>(Comparator.reverseOrder());
+    logRepository.findByOpNameStartingWithAndIdLessThanOrderByIdDesc(query, key, pageable)
+        .forEach(log -> merged.put(log.getId(), log));
+    logRepository.findByOperatorStartingWithAndIdLessThanOrderByIdDesc(query, key, pageable)
+        .forEach(log -> merged.put(log.getId(), log));
+    OpType opType = toOpType(query);
+    if (opType != null) {
+      logRepository.findByOpTypeAndIdLessThanOrderByIdDesc(opType.name(), key, pageable)
+          .forEach(log -> merged.put(log.getId(), log));
+    }
+    return merged.values().stream().limit(size).collect(Collectors.toList());
+  }
+
+  private OpType toOpType(String query) {
+    String normalizedQuery = query.trim().toUpperCase(Locale.ROOT);
+    for (OpType opType : OpType.values()) {
+      if (opType.name().equals(normalizedQuery)) {
+        return opType;
+      }
+    }
+    return null;
+  }
+
+  private long keyOf(Long beforeId) {
+    return beforeId == null ? Long.MAX_VALUE : beforeId;
+  }
+
   Pageable pageSortByTime(int page, int size) {
     return PageRequest.of(page, size, Sort.by(new Order(Direction.DESC, "dataChangeCreatedTime")));
   }
@@ -269,11 +269,18 @@ public class ApolloAuditLogApiJpaImplTest {
     final int dataInfluenceOfEachLog = 3;
     {
       List<ApolloAuditLog> logList = MockBeanFactory.mockAuditLogListByLength(traceDetailsLength);
+      List<ApolloAuditLogDataInfluence> dataInfluenceList = new ArrayList<>();
+      for (int i = 0; i < traceDetailsLength; i++) {
+        logList.get(i).setSpanId("span-" + i);
+        for (int j = 0; j < dataInfluenceOfEachLog; j++) {
+          ApolloAuditLogDataInfluence dataInfluence = MockBeanFactory.mockDataInfluence();
+          dataInfluence.setSpanId("span-" + i);
+          dataInfluenceList.add(dataInfluence);
+        }
+      }
       Mockito.when(logService.findByTraceId(Mockito.eq(traceId)))
           .thenReturn(logList);
-      List<ApolloAuditLogDataInfluence> dataInfluenceList =
-          MockBeanFactory.mockDataInfluenceListByLength(dataInfluenceOfEachLog);
-      Mockito.when(dataInfluenceService.findBySpanId(Mockito.any()))
+      Mockito.when(dataInfluenceService.findBySpanIds(Mockito.any()))
           .thenReturn(dataInfluenceList);
     }
 
@@ -281,11 +288,17 @@ public class ApolloAuditLogApiJpaImplTest {
 
     Mockito.verify(logService, Mockito.times(1))
         .findByTraceId(Mockito.eq(traceId));
-    Mockito.verify(dataInfluenceService, Mockito.times(3))
+    Mockito.verify(dataInfluenceService, Mockito.times(1))
+        .findBySpanIds(Mockito.argThat(spanIds -> spanIds.size() == traceDetailsLength));
+    Mockito.verify(dataInfluenceService, Mockito.never())
         .findBySpanId(Mockito.any());
 
     assertEquals(traceDetailsLength, detailsDTOList.size());
-    assertEquals(dataInfluenceOfEachLog, detailsDTOList.get(0).getDataInfluenceDTOList().size());
+    for (ApolloAuditLogDetailsDTO details : detailsDTOList) {
+      assertEquals(dataInfluenceOfEachLog, details.getDataInfluenceDTOList().size());
+      details.getDataInfluenceDTOList().forEach(
+          dto -> assertEquals(details.getLogDTO().getSpanId(), dto.getSpanId()));
+    }
   }
 
   @Test
@@ -306,4 +319,53 @@ public class ApolloAuditLogApiJpaImplTest {
             Mockito.eq(entityId), Mockito.eq(fieldName), Mockito.eq(page), Mockito.eq(size));
     assertEquals(size, dtoList.size());
   }
+
+  @Test
+  public void testQueryLogsBeforeId() {
+    final Long beforeId = 100L;
+    {
+      List<ApolloAuditLog> logList = MockBeanFactory.mockAuditLogListByLength(size);
+      Mockito.when(logService.findBeforeId(Mockito.eq(beforeId), Mockito.eq(size)))
+          .thenReturn(logList);
+    }
+
+    List<ApolloAuditLogDTO> dtoList = api.queryLogsBeforeId(beforeId, size);
+    Mockito.verify(logService, Mockito.times(1))
+        .findBeforeId(Mockito.eq(beforeId), Mockito.eq(size));
+    assertEquals(size, dtoList.size());
+  }
+
+  @Test
+  public void testQueryLogsByOpNameBeforeId() {
+    final String opName = "query-op-name";
+    final Date startDate = new Date();
+    final Date endDate = new Date();
+    final Long beforeId = 100L;
+    {
+      List<ApolloAuditLog> logList = MockBeanFactory.mockAuditLogListByLength(size);
+      Mockito.when(logService.findByOpNameBeforeId(Mockito.eq(opName), Mockito.eq(startDate),
+          Mockito.eq(endDate), Mockito.eq(beforeId), Mockito.eq(size))).thenReturn(logList);
+    }
+
+    List<ApolloAuditLogDTO> dtoList = api.queryLogsByOpNameBeforeId(opName, startDate, endDate,
+        beforeId, size);
+    Mockito.verify(logService, Mockito.times(1)).findByOpNameBeforeId(Mockito.eq(opName),
+        Mockito.eq(startDate), Mockito.eq(endDate), Mockito.eq(beforeId), Mockito.eq(size));
+    assertEquals(size, dtoList.size());
+  }
+
+  @Test
+  public void testSearchLogByPrefix() {
+    final String query = "App.";
+    {
+      List<ApolloAuditLog> logList = MockBeanFactory.mockAuditLogListByLength(size);
+      Mockito.when(logService.searchLogByPrefix(Mockito.eq(query), Mockito.isNull(),
+          Mockito.eq(size))).thenReturn(logList);
+    }
+
+    List<ApolloAuditLogDTO> dtoList = api.searchLogByPrefix(query, null, size);
+    Mockito.verify(logService, Mockito.times(1))
+        .searchLogByPrefix(Mockito.eq(query), Mockito.isNull(), Mockito.eq(size));
+    assertEquals(size, dtoList.size());
+  }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.component;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties;
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties.OverflowPolicy;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
+import com.ctrip.framework.apollo.audit.entity.BaseEntity;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+public class ApolloAuditLogBatchWriterTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private PlatformTransactionManager transactionManager;
+  private ApolloAuditProperties.Async properties;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    properties = new ApolloAuditProperties.Async();
+    properties.setCapacity(2);
+    properties.setOverflowPolicy(OverflowPolicy.DROP);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clear();
+    }
+  }
+
+  @Test
+  public void testWriteBatch() {
+    ApolloAuditLogBatchWriter writer = new ApolloAuditLogBatchWriter(jdbcTemplate,
+        transactionManager, properties);
+    List<BaseEntity> batch = Arrays.asList(ApolloAuditLog.builder().traceId("t").spanId("s")
+            .happenedTime(new Date()).build(),
+        withCreatedTime(ApolloAuditLogDataInfluence.builder().spanId("s").build()),
+        withCreatedTime(ApolloAuditLogDataInfluence.builder().spanId("s").build()));
+
+    writer.write(batch);
+
+    Mockito.verify(jdbcTemplate, Mockito.times(1)).batchUpdate(
+        Mockito.contains("`AuditLog`"), Mockito.argThat(logs -> logs.size() == 1),
+        Mockito.eq(1), Mockito.any(ParameterizedPreparedStatementSetter.class));
+    Mockito.verify(jdbcTemplate, Mockito.times(1)).batchUpdate(
+        Mockito.contains("`AuditLogDataInfluence`"),
+        Mockito.argThat(influences -> influences.size() == 2), Mockito.eq(2),
+        Mockito.any(ParameterizedPreparedStatementSetter.class));
+    Mockito.verify(transactionManager, Mockito.times(1)).commit(Mockito.any());
+    assertEquals(3, writer.written());
+    assertEquals(0, writer.failed());
+  }
+
+  @Test
+  public void testWriteBatchFailed() {
+    Mockito.when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.anyCollection(),
+            Mockito.anyInt(), Mockito.any(ParameterizedPreparedStatementSetter.class)))
+        .thenThrow(new RuntimeException("db down"));
+    ApolloAuditLogBatchWriter writer = new ApolloAuditLogBatchWriter(jdbcTemplate,
+        transactionManager, properties);
+
+    writer.write(Arrays.asList(ApolloAuditLog.builder().happenedTime(new Date()).build()));
+
+    assertEquals(0, writer.written());
+    assertEquals(1, writer.failed());
+  }
+
+  @Test
+  public void testAppendDropWhenFull() {
+    ApolloAuditLogBatchWriter writer = new ApolloAuditLogBatchWriter(jdbcTemplate,
+        transactionManager, properties);
+
+    for (int i = 0; i < 5; i++) {
+      writer.append(ApolloAuditLog.builder().build());
+    }
+
+    assertEquals(2, writer.backlog());
+    assertEquals(3, writer.dropped());
+  }
+
+  @Test
+  public void testAppendBlockTimeout() {
+    properties.setOverflowPolicy(OverflowPolicy.BLOCK);
+    properties.setBlockTimeoutInMilli(10);
+    ApolloAuditLogBatchWriter writer = new ApolloAuditLogBatchWriter(jdbcTemplate,
+        transactionManager, properties);
+
+    for (int i = 0; i < 3; i++) {
+      writer.append(ApolloAuditLog.builder().build());
+    }
+
+    assertEquals(2, writer.backlog());
+    assertEquals(1, writer.dropped());
+  }
+
+  @Test
+  public void testAppendInTransactionQueuedAfterCommit() {
+    ApolloAuditLogBatchWriter writer = new ApolloAuditLogBatchWriter(jdbcTemplate,
+        transactionManager, properties);
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    writer.append(ApolloAuditLog.builder().build());
+    writer.append(ApolloAuditLogDataInfluence.builder().build());
+    assertEquals(0, writer.backlog());
+
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(1, synchronizations.size());
+    TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+    TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+        TransactionSynchronization.STATUS_COMMITTED);
+
+    assertEquals(2, writer.backlog());
+  }
+
+  @Test
+  public void testAppendInTransactionDiscardedOnRollback() {
+    ApolloAuditLogBatchWriter writer = new ApolloAuditLogBatchWriter(jdbcTemplate,
+        transactionManager, properties);
+    TransactionSynchronizationManager.initSynchronization();
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+
+    writer.append(ApolloAuditLog.builder().build());
+    TransactionSynchronizationUtils.invokeAfterCompletion(
+        TransactionSynchronizationManager.getSynchronizations(),
+        TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertEquals(0, writer.backlog());
+  }
+
+  private static ApolloAuditLogDataInfluence withCreatedTime(ApolloAuditLogDataInfluence influence) {
+    influence.setDataChangeCreatedTime(new Date());
+    return influence;
+  }
+}
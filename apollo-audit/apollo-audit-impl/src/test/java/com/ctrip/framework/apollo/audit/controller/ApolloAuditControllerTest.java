@@ -155,5 +155,71 @@ public class ApolloAuditControllerTest {
             Mockito.eq(fieldName), Mockito.eq(page), Mockito.eq(size));
   }
 
+  @Test
+  public void testScrollAuditLogs() throws Exception {
+    final long beforeId = 100L;
+    {
+      List<ApolloAuditLogDTO> mockLogDTOList = MockBeanFactory.mockAuditLogDTOListByLength(size);
+      Mockito.when(api.queryLogsBeforeId(Mockito.eq(beforeId), Mockito.eq(size)))
+          .thenReturn(mockLogDTOList);
+    }
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/apollo/audit/logs/scroll")
+            .param("beforeId", String.valueOf(beforeId))
+            .param("size", String.valueOf(size)))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$").isArray())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(size));
+
+    Mockito.verify(api, Mockito.times(1)).queryLogsBeforeId(Mockito.eq(beforeId), Mockito.eq(size));
+  }
+
+  @Test
+  public void testScrollAuditLogsFirstPage() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.get("/apollo/audit/logs/scroll")
+            .param("size", String.valueOf(size)))
+        .andExpect(MockMvcResultMatchers.status().isOk());
+
+    Mockito.verify(api, Mockito.times(1)).queryLogsBeforeId(Mockito.isNull(), Mockito.eq(size));
+  }
 
+  @Test
+  public void testScrollAuditLogsByOpName() throws Exception {
+    final String opName = "query-op-name";
+    final long beforeId = 100L;
+    {
+      List<ApolloAuditLogDTO> mockLogDTOList = MockBeanFactory.mockAuditLogDTOListByLength(size);
+      Mockito.when(api.queryLogsByOpNameBeforeId(Mockito.eq(opName), Mockito.isNull(),
+          Mockito.isNull(), Mockito.eq(beforeId), Mockito.eq(size))).thenReturn(mockLogDTOList);
+    }
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/apollo/audit/logs/opName/scroll")
+            .param("opName", opName)
+            .param("beforeId", String.valueOf(beforeId))
+            .param("size", String.valueOf(size)))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(size));
+
+    Mockito.verify(api, Mockito.times(1)).queryLogsByOpNameBeforeId(Mockito.eq(opName),
+        Mockito.isNull(), Mockito.isNull(), Mockito.eq(beforeId), Mockito.eq(size));
+  }
+
+  @Test
+  public void testSearchAuditLogsByPrefix() throws Exception {
+    final String query = "App.";
+    {
+      List<ApolloAuditLogDTO> mockLogDTOList = MockBeanFactory.mockAuditLogDTOListByLength(size);
+      Mockito.when(api.searchLogByPrefix(Mockito.eq(query), Mockito.isNull(), Mockito.eq(size)))
+          .thenReturn(mockLogDTOList);
+    }
+
+    mockMvc.perform(MockMvcRequestBuilders.get("/apollo/audit/logs/search")
+            .param("query", query)
+            .param("size", String.valueOf(size)))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(size));
+
+    Mockito.verify(api, Mockito.times(1))
+        .searchLogByPrefix(Mockito.eq(query), Mockito.isNull(), Mockito.eq(size));
+  }
 }
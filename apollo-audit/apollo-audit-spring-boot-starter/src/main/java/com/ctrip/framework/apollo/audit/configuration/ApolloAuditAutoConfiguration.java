@@ -21,6 +21,7 @@ import com.ctrip.framework.apollo.audit.ApolloAuditRegistrar;
 import com.ctrip.framework.apollo.audit.aop.ApolloAuditSpanAspect;
 import com.ctrip.framework.apollo.audit.api.ApolloAuditLogApi;
 import com.ctrip.framework.apollo.audit.component.ApolloAuditHttpInterceptor;
+import com.ctrip.framework.apollo.audit.component.ApolloAuditLogBatchWriter;
 import com.ctrip.framework.apollo.audit.component.ApolloAuditLogApiJpaImpl;
 import com.ctrip.framework.apollo.audit.context.ApolloAuditTraceContext;
 import com.ctrip.framework.apollo.audit.controller.ApolloAuditController;
@@ -33,14 +34,22 @@ import com.ctrip.framework.apollo.audit.spi.ApolloAuditLogQueryApiPreAuthorizer;
 import com.ctrip.framework.apollo.audit.spi.ApolloAuditOperatorSupplier;
 import com.ctrip.framework.apollo.audit.spi.defaultimpl.ApolloAuditLogQueryApiDefaultPreAuthorizer;
 import com.ctrip.framework.apollo.audit.spi.defaultimpl.ApolloAuditOperatorDefaultSupplier;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 @EnableConfigurationProperties(ApolloAuditProperties.class)
@@ -57,15 +66,26 @@ public class ApolloAuditAutoConfiguration {
     logger.info("ApolloAuditAutoConfigure initializing...");
   }
 
+  @Bean
+  @ConditionalOnProperty(prefix = "apollo.audit.log.async", name = "enabled", havingValue = "true")
+  public ApolloAuditLogBatchWriter apolloAuditLogBatchWriter(DataSource dataSource,
+      PlatformTransactionManager transactionManager) {
+    return new ApolloAuditLogBatchWriter(new JdbcTemplate(dataSource), transactionManager,
+        apolloAuditProperties.getAsync());
+  }
+
   @Bean
   public ApolloAuditLogDataInfluenceService apolloAuditLogDataInfluenceService(
-      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository) {
-    return new ApolloAuditLogDataInfluenceService(dataInfluenceRepository);
+      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository,
+      ObjectProvider<ApolloAuditLogBatchWriter> batchWriter) {
+    return new ApolloAuditLogDataInfluenceService(dataInfluenceRepository,
+        batchWriter.getIfAvailable());
   }
 
   @Bean
-  public ApolloAuditLogService apolloAuditLogService(ApolloAuditLogRepository logRepository) {
-    return new ApolloAuditLogService(logRepository);
+  public ApolloAuditLogService apolloAuditLogService(ApolloAuditLogRepository logRepository,
+      ObjectProvider<ApolloAuditLogBatchWriter> batchWriter) {
+    return new ApolloAuditLogService(logRepository, batchWriter.getIfAvailable());
   }
 
   @Bean
@@ -114,4 +134,31 @@ public class ApolloAuditAutoConfiguration {
       ApolloAuditLogApi api) {
     return new ApolloAuditLogDataInfluenceEventListener(api);
   }
+
+  @Configuration
+  @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+  @ConditionalOnProperty(prefix = "apollo.audit.log.async", name = "enabled", havingValue = "true")
+  static class ApolloAuditLogBatchWriterMetricsConfiguration {
+
+    @Bean
+    public MeterBinder apolloAuditLogBatchWriterMeterBinder(ApolloAuditLogBatchWriter batchWriter) {
+      return registry -> {
+        Gauge.builder("apollo.audit.async.backlog", batchWriter, ApolloAuditLogBatchWriter::backlog)
+            .description("audit records waiting to be written")
+            .register(registry);
+        FunctionCounter.builder("apollo.audit.async.records", batchWriter,
+                ApolloAuditLogBatchWriter::written)
+            .tag("result", "written")
+            .register(registry);
+        FunctionCounter.builder("apollo.audit.async.records", batchWriter,
+                ApolloAuditLogBatchWriter::dropped)
+            .tag("result", "dropped")
+            .register(registry);
+        FunctionCounter.builder("apollo.audit.async.records", batchWriter,
+                ApolloAuditLogBatchWriter::failed)
+            .tag("result", "failed")
+            .register(registry);
+      };
+    }
+  }
 }
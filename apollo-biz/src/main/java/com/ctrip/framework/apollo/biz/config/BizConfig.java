@@ -47,7 +47,20 @@ public class BizConfig extends RefreshableConfig {
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH = 100;
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI = 100;//100ms
   private static final int DEFAULT_LONG_POLLING_TIMEOUT = 60; //60s
+  private static final int DEFAULT_NOTIFICATION_STREAM_TIMEOUT = 600; //600s
+  private static final int DEFAULT_NOTIFICATION_STREAM_HEARTBEAT_INTERVAL = 30; //30s
   public static final int DEFAULT_RELEASE_HISTORY_RETENTION_SIZE = -1;
+  private static final int DEFAULT_INSTANCE_RETENTION_SCAN_INTERVAL = 10; //10 minutes
+  private static final int DEFAULT_INSTANCE_RETENTION_BATCH_SIZE = 500;
+  private static final int DEFAULT_ITEM_KEY_INDEX_SCAN_INTERVAL = 1; //1s
+  private static final int DEFAULT_ITEM_KEY_INDEX_REBUILD_INTERVAL = 3600; //3600s
+  private static final int DEFAULT_LONG_POLLING_REBALANCE_INTERVAL = 30; //30s
+  private static final int DEFAULT_LONG_POLLING_REBALANCE_OVERLOAD_PERCENT = 120; //120% of the average
+  private static final int DEFAULT_LONG_POLLING_REBALANCE_SHED_PERCENT = 50; //50% of the excess
+  private static final int DEFAULT_LONG_POLLING_REBALANCE_MAX_SHED = 200;
+  private static final int DEFAULT_CONFIG_SERVICE_ROUTING_INSTANCE_COUNT = 0; //all instances
+  private static final int DEFAULT_CONFIG_SERVICE_ROUTING_OVERLOAD_PERCENT = 150; //150% of the average
+  private static final int DEFAULT_CONFIG_SERVICE_ROUTING_CPU_THRESHOLD_PERCENT = 85; //85%
 
   private static final Gson GSON = new Gson();
 
@@ -89,6 +102,29 @@ public class BizConfig extends RefreshableConfig {
     return 1000 * checkInt(timeout, 1, 90, DEFAULT_LONG_POLLING_TIMEOUT);
   }
 
+  public long notificationStreamTimeoutInMilli() {
+    int timeout = getIntProperty("apollo.notification-stream.timeout", DEFAULT_NOTIFICATION_STREAM_TIMEOUT);
+    return 1000L * checkInt(timeout, 10, Integer.MAX_VALUE, DEFAULT_NOTIFICATION_STREAM_TIMEOUT);
+  }
+
+  public int notificationStreamHeartbeatInterval() {
+    int interval = getIntProperty("apollo.notification-stream.heartbeat.interval",
+        DEFAULT_NOTIFICATION_STREAM_HEARTBEAT_INTERVAL);
+    return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_NOTIFICATION_STREAM_HEARTBEAT_INTERVAL);
+  }
+
+  public TimeUnit notificationStreamHeartbeatIntervalTimeUnit() {
+    return TimeUnit.SECONDS;
+  }
+
+  /**
+   * Whether to log one tracer event per watched key when long polling requests are registered, completed or timeout,
+   * which is useful for troubleshooting but costs a lot when there are many clients
+   */
+  public boolean isLongPollingWatchedKeysTracingEnabled() {
+    return getBooleanProperty("apollo.long-polling.watched-keys-tracing.enabled", true);
+  }
+
   public int itemKeyLengthLimit() {
     int limit = getIntProperty("item.key.length.limit", DEFAULT_ITEM_KEY_LENGTH);
     return checkInt(limit, 5, Integer.MAX_VALUE, DEFAULT_ITEM_KEY_LENGTH);
@@ -177,6 +213,28 @@ public class BizConfig extends RefreshableConfig {
         .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
   }
 
+  /**
+   * Whether to purge the instances and instance configs which are not active any more, the active instance count
+   * of each namespace is also answered from the summary maintained along with the purge when enabled
+   */
+  public boolean isInstanceRetentionEnabled() {
+    return getBooleanProperty("apollo.instance.retention.enabled", false);
+  }
+
+  public int instanceRetentionScanInterval() {
+    int interval = getIntProperty("apollo.instance.retention.scan.interval", DEFAULT_INSTANCE_RETENTION_SCAN_INTERVAL);
+    return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_INSTANCE_RETENTION_SCAN_INTERVAL);
+  }
+
+  public TimeUnit instanceRetentionScanIntervalTimeUnit() {
+    return TimeUnit.MINUTES;
+  }
+
+  public int instanceRetentionBatchSize() {
+    int batchSize = getIntProperty("apollo.instance.retention.batch.size", DEFAULT_INSTANCE_RETENTION_BATCH_SIZE);
+    return checkInt(batchSize, 1, 5000, DEFAULT_INSTANCE_RETENTION_BATCH_SIZE);
+  }
+
   public int releaseMessageCacheScanInterval() {
     int interval = getIntProperty("apollo.release-message-cache-scan.interval", DEFAULT_RELEASE_MESSAGE_CACHE_SCAN_INTERVAL);
     return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_CACHE_SCAN_INTERVAL);
@@ -201,6 +259,98 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(interval, 10, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI);
   }
 
+  /**
+   * Whether the admin service keeps an in memory index of item keys for searching namespaces by item
+   */
+  public boolean isItemKeyIndexEnabled() {
+    return getBooleanProperty("item.key.index.enabled", false);
+  }
+
+  public int itemKeyIndexScanInterval() {
+    int interval = getIntProperty("apollo.item-key-index-scan.interval", DEFAULT_ITEM_KEY_INDEX_SCAN_INTERVAL);
+    return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_ITEM_KEY_INDEX_SCAN_INTERVAL);
+  }
+
+  public int itemKeyIndexRebuildInterval() {
+    int interval = getIntProperty("apollo.item-key-index-rebuild.interval", DEFAULT_ITEM_KEY_INDEX_REBUILD_INTERVAL);
+    return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_ITEM_KEY_INDEX_REBUILD_INTERVAL);
+  }
+
+  public TimeUnit itemKeyIndexIntervalTimeUnit() {
+    return TimeUnit.SECONDS;
+  }
+
+  /**
+   * Whether an overloaded config service completes some of its long polling requests early, so the clients
+   * reconnect to the less loaded config services
+   */
+  public boolean isLongPollingRebalanceEnabled() {
+    return getBooleanProperty("long-polling.rebalance.enabled", false);
+  }
+
+  public int longPollingRebalanceInterval() {
+    int interval = getIntProperty("long-polling.rebalance.interval", DEFAULT_LONG_POLLING_REBALANCE_INTERVAL);
+    return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_LONG_POLLING_REBALANCE_INTERVAL);
+  }
+
+  public TimeUnit longPollingRebalanceIntervalTimeUnit() {
+    return TimeUnit.SECONDS;
+  }
+
+  /**
+   * A config service starts shedding when its notification connections exceed this percent of the average
+   */
+  public int longPollingRebalanceOverloadPercent() {
+    int percent = getIntProperty("long-polling.rebalance.overload.percent",
+        DEFAULT_LONG_POLLING_REBALANCE_OVERLOAD_PERCENT);
+    return checkInt(percent, 100, Integer.MAX_VALUE, DEFAULT_LONG_POLLING_REBALANCE_OVERLOAD_PERCENT);
+  }
+
+  /**
+   * How many percent of the connections above the average are shed in one round
+   */
+  public int longPollingRebalanceShedPercent() {
+    int percent = getIntProperty("long-polling.rebalance.shed.percent", DEFAULT_LONG_POLLING_REBALANCE_SHED_PERCENT);
+    return checkInt(percent, 1, 100, DEFAULT_LONG_POLLING_REBALANCE_SHED_PERCENT);
+  }
+
+  public int longPollingRebalanceMaxShed() {
+    int max = getIntProperty("long-polling.rebalance.max-shed", DEFAULT_LONG_POLLING_REBALANCE_MAX_SHED);
+    return checkInt(max, 1, Integer.MAX_VALUE, DEFAULT_LONG_POLLING_REBALANCE_MAX_SHED);
+  }
+
+  /**
+   * Whether the meta service orders the config services by client affinity and load instead of returning them as is
+   */
+  public boolean isConfigServiceRoutingEnabled() {
+    return getBooleanProperty("config-service.routing.enabled", false);
+  }
+
+  /**
+   * How many of the ordered config services are returned to the clients, 0 means all of them
+   */
+  public int configServiceRoutingInstanceCount() {
+    int count = getIntProperty("config-service.routing.instance.count", DEFAULT_CONFIG_SERVICE_ROUTING_INSTANCE_COUNT);
+    return checkInt(count, 0, Integer.MAX_VALUE, DEFAULT_CONFIG_SERVICE_ROUTING_INSTANCE_COUNT);
+  }
+
+  /**
+   * A config service is overloaded when its notification connections exceed this percent of the average
+   */
+  public int configServiceRoutingOverloadPercent() {
+    int percent = getIntProperty("config-service.routing.overload.percent", DEFAULT_CONFIG_SERVICE_ROUTING_OVERLOAD_PERCENT);
+    return checkInt(percent, 100, Integer.MAX_VALUE, DEFAULT_CONFIG_SERVICE_ROUTING_OVERLOAD_PERCENT);
+  }
+
+  /**
+   * A config service is overloaded when its process cpu usage reaches this percent
+   */
+  public int configServiceRoutingCpuThresholdPercent() {
+    int percent = getIntProperty("config-service.routing.cpu-threshold.percent",
+        DEFAULT_CONFIG_SERVICE_ROUTING_CPU_THRESHOLD_PERCENT);
+    return checkInt(percent, 1, 100, DEFAULT_CONFIG_SERVICE_ROUTING_CPU_THRESHOLD_PERCENT);
+  }
+
   public boolean isConfigServiceCacheEnabled() {
     return getBooleanProperty("config-service.cache.enabled", false);
   }
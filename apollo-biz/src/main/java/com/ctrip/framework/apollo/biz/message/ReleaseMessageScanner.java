@@ -17,6 +17,9 @@
 package com.ctrip.framework.apollo.biz.message;
 
 import com.google.common.collect.Maps;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +48,8 @@ import com.google.common.collect.Lists;
 public class ReleaseMessageScanner implements InitializingBean {
   private static final Logger logger = LoggerFactory.getLogger(ReleaseMessageScanner.class);
   private static final int missingReleaseMessageMaxAge = 10; // hardcoded to 10, could be configured via BizConfig if necessary
+  private static final String SCAN_LAG = "apollo.release-message.scan.lag";
+  private static final String DISPATCH_DURATION = "apollo.release-message.dispatch.duration";
   private final BizConfig bizConfig;
   private final ReleaseMessageRepository releaseMessageRepository;
   private int databaseScanInterval;
@@ -52,11 +57,22 @@ public class ReleaseMessageScanner implements InitializingBean {
   private final ScheduledExecutorService executorService;
   private final Map<Long, Integer> missingReleaseMessages; // missing release message id => age counter
   private long maxIdScanned;
+  private final Timer scanLag;
+  private final Timer dispatchDuration;
 
   public ReleaseMessageScanner(final BizConfig bizConfig,
-      final ReleaseMessageRepository releaseMessageRepository) {
+      final ReleaseMessageRepository releaseMessageRepository,
+      final MeterRegistry meterRegistry) {
     this.bizConfig = bizConfig;
     this.releaseMessageRepository = releaseMessageRepository;
+    scanLag = Timer.builder(SCAN_LAG)
+        .description("time from release message creation to being scanned")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    dispatchDuration = Timer.builder(DISPATCH_DURATION)
+        .description("time to dispatch a release message to all the listeners")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
     listeners = Lists.newCopyOnWriteArrayList();
     executorService = Executors.newScheduledThreadPool(1, ApolloThreadFactory
         .create("ReleaseMessageScanner", true));
@@ -177,6 +193,8 @@ public class ReleaseMessageScanner implements InitializingBean {
    */
   private void fireMessageScanned(Iterable<ReleaseMessage> messages) {
     for (ReleaseMessage message : messages) {
+      recordScanLag(message);
+      long start = System.nanoTime();
       for (ReleaseMessageListener listener : listeners) {
         try {
           listener.handleMessage(message, Topics.APOLLO_RELEASE_TOPIC);
@@ -185,6 +203,16 @@ public class ReleaseMessageScanner implements InitializingBean {
           logger.error("Failed to invoke message listener {}", listener.getClass(), ex);
         }
       }
+      dispatchDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
   }
+
+  private void recordScanLag(ReleaseMessage message) {
+    Date createdTime = message.getDataChangeLastModifiedTime();
+    if (createdTime == null) {
+      return;
+    }
+    // clocks of admin service and config service may drift a little
+    scanLag.record(Math.max(System.currentTimeMillis() - createdTime.getTime(), 0), TimeUnit.MILLISECONDS);
+  }
 }
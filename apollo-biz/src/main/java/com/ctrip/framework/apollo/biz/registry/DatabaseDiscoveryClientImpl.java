@@ -67,6 +67,9 @@ public class DatabaseDiscoveryClientImpl implements DatabaseDiscoveryClient {
     registration.setServiceName(serviceRegistry.getServiceName());
     registration.setUri(serviceRegistry.getUri());
     registration.setCluster(serviceRegistry.getCluster());
+    if (serviceRegistry.getMetadata() != null) {
+      registration.setMetadata(serviceRegistry.getMetadata());
+    }
     return registration;
   }
 
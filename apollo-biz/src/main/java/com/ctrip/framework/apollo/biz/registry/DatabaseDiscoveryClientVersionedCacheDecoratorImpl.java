@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.registry;
+
+import com.ctrip.framework.apollo.biz.service.ServiceRegistryService;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Like {@link DatabaseDiscoveryClientMemoryCacheDecoratorImpl}, but only read the version of each service in the
+ * sync task, and reload the instances when the version changes or the full sync interval passes.
+ * <p>
+ * Instances are added and removed by {@link DatabaseServiceRegistryVersionedImpl} and the cleanup of the expired
+ * instances, which both increase the version. The full sync picks up the metadata changes and the instances
+ * expired before the cleanup.
+ */
+public class DatabaseDiscoveryClientVersionedCacheDecoratorImpl implements DatabaseDiscoveryClient {
+
+  private static final Logger log = LoggerFactory.getLogger(
+      DatabaseDiscoveryClientVersionedCacheDecoratorImpl.class
+  );
+
+  private static final long SYNC_TASK_PERIOD_IN_SECOND = 5;
+
+  private final DatabaseDiscoveryClient delegate;
+
+  private final ServiceRegistryService serviceRegistryService;
+
+  private final long fullSyncIntervalInMillis;
+
+  private final Map<String, VersionedInstances> serviceName2VersionedInstances = new ConcurrentHashMap<>(8);
+
+  private volatile ScheduledExecutorService scheduledExecutorService;
+
+  public DatabaseDiscoveryClientVersionedCacheDecoratorImpl(
+      DatabaseDiscoveryClient delegate,
+      ServiceRegistryService serviceRegistryService,
+      long fullSyncIntervalInSecond) {
+    this.delegate = delegate;
+    this.serviceRegistryService = serviceRegistryService;
+    this.fullSyncIntervalInMillis = TimeUnit.SECONDS.toMillis(fullSyncIntervalInSecond);
+  }
+
+  public void init() {
+    this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory
+            .create("DatabaseDiscoveryWithVersionedCache", true)
+    );
+    scheduledExecutorService.scheduleAtFixedRate(this::updateCacheTask,
+        SYNC_TASK_PERIOD_IN_SECOND, SYNC_TASK_PERIOD_IN_SECOND, TimeUnit.SECONDS);
+
+    // load them for init
+    try {
+      this.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+    } catch (Throwable t) {
+      log.error("fail to get instances of service name {}", ServiceNameConsts.APOLLO_CONFIGSERVICE, t);
+    }
+    try {
+      this.getInstances(ServiceNameConsts.APOLLO_ADMINSERVICE);
+    } catch (Throwable t) {
+      log.error("fail to get instances of service name {}", ServiceNameConsts.APOLLO_ADMINSERVICE, t);
+    }
+  }
+
+  void updateCacheTask() {
+    for (String serviceName : this.serviceName2VersionedInstances.keySet()) {
+      try {
+        VersionedInstances cached = this.serviceName2VersionedInstances.get(serviceName);
+        long version = this.serviceRegistryService.findVersion(serviceName);
+        if (cached != null && cached.version == version
+            && System.currentTimeMillis() - cached.loadTime < this.fullSyncIntervalInMillis) {
+          continue;
+        }
+        this.serviceName2VersionedInstances.put(serviceName, this.load(serviceName, version));
+      } catch (Throwable t) {
+        log.error("fail to read service instances of {} from database", serviceName, t);
+      }
+    }
+  }
+
+  VersionedInstances readFromDatabase(String serviceName) {
+    return this.load(serviceName, this.serviceRegistryService.findVersion(serviceName));
+  }
+
+  /**
+   * the version is read before the instances, so a change in between is reloaded by the next sync
+   */
+  private VersionedInstances load(String serviceName, long version) {
+    return new VersionedInstances(version, System.currentTimeMillis(), this.delegate.getInstances(serviceName));
+  }
+
+  /**
+   * never throw {@link Throwable} once loaded, read from memory cache
+   */
+  @Override
+  public List<ServiceInstance> getInstances(String serviceName) {
+    VersionedInstances versionedInstances =
+        this.serviceName2VersionedInstances.computeIfAbsent(serviceName, this::readFromDatabase);
+    return versionedInstances == null ? Collections.emptyList() : versionedInstances.instances;
+  }
+
+  static class VersionedInstances {
+
+    private final long version;
+
+    private final long loadTime;
+
+    private final List<ServiceInstance> instances;
+
+    VersionedInstances(long version, long loadTime, List<ServiceInstance> instances) {
+      this.version = version;
+      this.loadTime = loadTime;
+      this.instances = instances;
+    }
+  }
+}
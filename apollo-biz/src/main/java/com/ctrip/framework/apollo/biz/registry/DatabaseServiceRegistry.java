@@ -26,6 +26,13 @@ public interface DatabaseServiceRegistry {
    */
   void register(ServiceInstance instance);
 
+  /**
+   * keep an instance healthy in database, same as {@link #register(ServiceInstance)} by default
+   */
+  default void heartbeat(ServiceInstance instance) {
+    register(instance);
+  }
+
   /**
    * remove an instance from database
    */
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.registry;
+
+import com.ctrip.framework.apollo.biz.entity.ServiceRegistry;
+import com.ctrip.framework.apollo.biz.service.ServiceRegistryService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep the version of the instances up to date for {@link DatabaseDiscoveryClientVersionedCacheDecoratorImpl},
+ * and send most of the heartbeats as a single update of the last modified time.
+ * <p>
+ * The metadata is only written by a full heartbeat, which is sent every full heartbeat interval or when the
+ * lightweight one finds the instance is gone. So the metadata read by the other instances may be one full heartbeat
+ * interval plus the discovery cache time old, unless the heartbeat runner calls {@link #register(ServiceInstance)}
+ * because a {@link ServiceInstanceMetadataContributor} reports a material change.
+ */
+public class DatabaseServiceRegistryVersionedImpl implements DatabaseServiceRegistry {
+
+  private final ServiceRegistryService serviceRegistryService;
+
+  private final long fullHeartbeatIntervalInMillis;
+
+  /**
+   * service name + uri -> the time of the last full heartbeat
+   */
+  private final Map<String, Long> lastFullHeartbeatTimes = new ConcurrentHashMap<>(4);
+
+  public DatabaseServiceRegistryVersionedImpl(
+      ServiceRegistryService serviceRegistryService,
+      long fullHeartbeatIntervalInSecond) {
+    this.serviceRegistryService = serviceRegistryService;
+    this.fullHeartbeatIntervalInMillis = TimeUnit.SECONDS.toMillis(fullHeartbeatIntervalInSecond);
+  }
+
+  @Override
+  public void register(ServiceInstance instance) {
+    ServiceRegistry serviceRegistry = DatabaseServiceRegistryImpl.convert(instance);
+    this.serviceRegistryService.saveAndIncreaseVersion(serviceRegistry);
+    this.lastFullHeartbeatTimes.put(key(serviceRegistry), System.currentTimeMillis());
+  }
+
+  @Override
+  public void heartbeat(ServiceInstance instance) {
+    ServiceRegistry serviceRegistry = DatabaseServiceRegistryImpl.convert(instance);
+    Long lastFullHeartbeatTime = this.lastFullHeartbeatTimes.get(key(serviceRegistry));
+    if (lastFullHeartbeatTime != null
+        && System.currentTimeMillis() - lastFullHeartbeatTime < this.fullHeartbeatIntervalInMillis
+        && this.serviceRegistryService.refreshLastModifiedTime(serviceRegistry.getServiceName(),
+        serviceRegistry.getUri())) {
+      return;
+    }
+    this.register(instance);
+  }
+
+  @Override
+  public void deregister(ServiceInstance instance) {
+    ServiceRegistry serviceRegistry = DatabaseServiceRegistryImpl.convert(instance);
+    this.lastFullHeartbeatTimes.remove(key(serviceRegistry));
+    this.serviceRegistryService.deleteAndIncreaseVersion(serviceRegistry);
+  }
+
+  private static String key(ServiceRegistry serviceRegistry) {
+    return serviceRegistry.getServiceName() + serviceRegistry.getUri();
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.registry;
+
+import java.util.Map;
+
+/**
+ * Refresh the metadata of the current instance before each heartbeat, so runtime states like the load
+ * could be shared with the other instances through the registry.
+ */
+public interface ServiceInstanceMetadataContributor {
+
+  /**
+   * A lightweight heartbeat of {@link DatabaseServiceRegistryVersionedImpl} doesn't write the metadata, so a
+   * contributor should tell when the metadata changes materially, then it's written by a full heartbeat with the
+   * version increased instead of waiting for the next full heartbeat interval.
+   *
+   * @param metadata the metadata of the current instance, which is sent with the heartbeat
+   * @return true if the metadata changed materially since the last time this contributor returned true
+   */
+  boolean contribute(Map<String, String> metadata);
+}
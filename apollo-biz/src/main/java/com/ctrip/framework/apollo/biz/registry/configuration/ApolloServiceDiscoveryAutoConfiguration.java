@@ -20,6 +20,7 @@ import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
 import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClientAlwaysAddSelfInstanceDecoratorImpl;
 import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClientImpl;
 import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClientMemoryCacheDecoratorImpl;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClientVersionedCacheDecoratorImpl;
 import com.ctrip.framework.apollo.biz.registry.ServiceInstance;
 import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryClearApplicationRunner;
 import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceDiscoveryProperties;
@@ -48,6 +49,19 @@ public class ApolloServiceDiscoveryAutoConfiguration {
     return decorator;
   }
 
+  private static DatabaseDiscoveryClient wrapVersionedCache(
+      DatabaseDiscoveryClient discoveryClient,
+      ServiceRegistryService serviceRegistryService,
+      ApolloServiceDiscoveryProperties discoveryProperties
+  ) {
+    DatabaseDiscoveryClientVersionedCacheDecoratorImpl decorator
+        = new DatabaseDiscoveryClientVersionedCacheDecoratorImpl(
+            discoveryClient, serviceRegistryService, discoveryProperties.getFullSyncIntervalInSecond()
+    );
+    decorator.init();
+    return decorator;
+  }
+
   private static DatabaseDiscoveryClient wrapAlwaysAddSelfInstance(
       DatabaseDiscoveryClient discoveryClient,
       ServiceInstance selfInstance
@@ -67,6 +81,12 @@ public class ApolloServiceDiscoveryAutoConfiguration {
     DatabaseDiscoveryClient discoveryClient = new DatabaseDiscoveryClientImpl(
         serviceRegistryService, discoveryProperties, selfServiceInstance.getCluster()
     );
+    if (discoveryProperties.isVersioned()) {
+      return wrapVersionedCache(
+          wrapAlwaysAddSelfInstance(discoveryClient, selfServiceInstance),
+          serviceRegistryService, discoveryProperties
+      );
+    }
     return wrapMemoryCache(
         wrapAlwaysAddSelfInstance(discoveryClient, selfServiceInstance)
     );
@@ -75,8 +95,13 @@ public class ApolloServiceDiscoveryAutoConfiguration {
   @Bean
   @ConditionalOnMissingBean
   public ApolloServiceRegistryClearApplicationRunner apolloServiceRegistryClearApplicationRunner(
-      ServiceRegistryService serviceRegistryService
+      ServiceRegistryService serviceRegistryService,
+      DatabaseDiscoveryClient discoveryClient,
+      ServiceInstance selfServiceInstance,
+      ApolloServiceDiscoveryProperties discoveryProperties
   ) {
-    return new ApolloServiceRegistryClearApplicationRunner(serviceRegistryService);
+    return new ApolloServiceRegistryClearApplicationRunner(
+        serviceRegistryService, discoveryClient, selfServiceInstance, discoveryProperties
+    );
   }
 }
@@ -18,11 +18,16 @@ package com.ctrip.framework.apollo.biz.registry.configuration;
 
 import com.ctrip.framework.apollo.biz.registry.DatabaseServiceRegistry;
 import com.ctrip.framework.apollo.biz.registry.DatabaseServiceRegistryImpl;
+import com.ctrip.framework.apollo.biz.registry.DatabaseServiceRegistryVersionedImpl;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstanceMetadataContributor;
 import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryDeregisterApplicationListener;
 import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryHeartbeatApplicationRunner;
 import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryProperties;
 import com.ctrip.framework.apollo.biz.repository.ServiceRegistryRepository;
+import com.ctrip.framework.apollo.biz.repository.ServiceRegistryVersionRepository;
 import com.ctrip.framework.apollo.biz.service.ServiceRegistryService;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -36,15 +41,22 @@ public class ApolloServiceRegistryAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  public ServiceRegistryService registryService(ServiceRegistryRepository repository) {
-    return new ServiceRegistryService(repository);
+  public ServiceRegistryService registryService(ServiceRegistryRepository repository,
+      ServiceRegistryVersionRepository versionRepository) {
+    return new ServiceRegistryService(repository, versionRepository);
   }
 
   @Bean
   @ConditionalOnMissingBean
   public DatabaseServiceRegistry databaseServiceRegistry(
-      ServiceRegistryService serviceRegistryService
+      ServiceRegistryService serviceRegistryService,
+      ApolloServiceRegistryProperties registration
   ) {
+    if (registration.isVersioned()) {
+      return new DatabaseServiceRegistryVersionedImpl(
+          serviceRegistryService, registration.getFullHeartbeatIntervalInSecond()
+      );
+    }
     return new DatabaseServiceRegistryImpl(serviceRegistryService);
   }
 
@@ -52,9 +64,11 @@ public class ApolloServiceRegistryAutoConfiguration {
   @ConditionalOnMissingBean
   public ApolloServiceRegistryHeartbeatApplicationRunner apolloServiceRegistryHeartbeatApplicationRunner(
       ApolloServiceRegistryProperties registration,
-      DatabaseServiceRegistry serviceRegistry
+      DatabaseServiceRegistry serviceRegistry,
+      ObjectProvider<ServiceInstanceMetadataContributor> metadataContributors
   ) {
-    return new ApolloServiceRegistryHeartbeatApplicationRunner(registration, serviceRegistry);
+    return new ApolloServiceRegistryHeartbeatApplicationRunner(registration, serviceRegistry,
+        metadataContributors.orderedStream().collect(Collectors.toList()));
   }
 
   @Bean
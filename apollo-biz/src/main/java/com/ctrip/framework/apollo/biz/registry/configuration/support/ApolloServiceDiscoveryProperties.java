@@ -42,6 +42,20 @@ public class ApolloServiceDiscoveryProperties {
    */
   private long healthCheckIntervalInSecond = 61;
 
+  /**
+   * only reload the instances when the version of the registry changes, and let a single instance of each
+   * service and cluster clear the expired instances, requires the table ServiceRegistryVersion.
+   *
+   * @see ApolloServiceRegistryProperties#isVersioned()
+   */
+  private boolean versioned = false;
+
+  /**
+   * reload the instances in this interval even if the version doesn't change when {@link #versioned},
+   * to pick up the metadata changes
+   */
+  private long fullSyncIntervalInSecond = 60;
+
   public long getHealthCheckIntervalInSecond() {
     return healthCheckIntervalInSecond;
   }
@@ -50,6 +64,22 @@ public class ApolloServiceDiscoveryProperties {
     this.healthCheckIntervalInSecond = healthCheckIntervalInSecond;
   }
 
+  public boolean isVersioned() {
+    return versioned;
+  }
+
+  public void setVersioned(boolean versioned) {
+    this.versioned = versioned;
+  }
+
+  public long getFullSyncIntervalInSecond() {
+    return fullSyncIntervalInSecond;
+  }
+
+  public void setFullSyncIntervalInSecond(long fullSyncIntervalInSecond) {
+    this.fullSyncIntervalInSecond = fullSyncIntervalInSecond;
+  }
+
   public boolean isEnabled() {
     return enabled;
   }
@@ -17,10 +17,14 @@
 package com.ctrip.framework.apollo.biz.registry.configuration.support;
 
 import com.ctrip.framework.apollo.biz.entity.ServiceRegistry;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstance;
 import com.ctrip.framework.apollo.biz.service.ServiceRegistryService;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import java.net.URI;
 import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -31,6 +35,9 @@ import org.springframework.boot.ApplicationRunner;
 
 /**
  * clear the unhealthy instances.
+ * <p>
+ * When {@link ApolloServiceDiscoveryProperties#isVersioned()}, the expired instances are also cleared soon after
+ * they expire by a single elected instance, so the readers notice them by the version change.
  */
 public class ApolloServiceRegistryClearApplicationRunner
   implements ApplicationRunner {
@@ -44,11 +51,25 @@ public class ApolloServiceRegistryClearApplicationRunner
   private final ScheduledExecutorService instanceClearScheduledExecutorService;
 
 
+  private static final long EXPIRED_CLEAR_PERIOD_IN_SECOND = 10;
+
   private final ServiceRegistryService serviceRegistryService;
 
+  private final DatabaseDiscoveryClient discoveryClient;
+
+  private final ServiceInstance selfInstance;
+
+  private final ApolloServiceDiscoveryProperties discoveryProperties;
+
   public ApolloServiceRegistryClearApplicationRunner(
-      ServiceRegistryService serviceRegistryService) {
+      ServiceRegistryService serviceRegistryService,
+      DatabaseDiscoveryClient discoveryClient,
+      ServiceInstance selfInstance,
+      ApolloServiceDiscoveryProperties discoveryProperties) {
     this.serviceRegistryService = serviceRegistryService;
+    this.discoveryClient = discoveryClient;
+    this.selfInstance = selfInstance;
+    this.discoveryProperties = discoveryProperties;
     this.instanceClearScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
         ApolloThreadFactory.create("ApolloRegistryServerClearInstances", true)
     );
@@ -69,8 +90,49 @@ public class ApolloServiceRegistryClearApplicationRunner
     }
   }
 
+  /**
+   * clear the instances of the same service and cluster which expired, only by the elected instance
+   */
+  void clearExpiredInstances() {
+    try {
+      if (!this.isElected()) {
+        return;
+      }
+      List<ServiceRegistry> serviceRegistryListDeleted =
+          this.serviceRegistryService.deleteExpiredAndIncreaseVersion(
+              this.selfInstance.getServiceName(),
+              this.selfInstance.getCluster(),
+              Duration.ofSeconds(this.discoveryProperties.getHealthCheckIntervalInSecond())
+          );
+      if (!serviceRegistryListDeleted.isEmpty()) {
+        log.info("clear {} expired instances of '{}', cluster '{}'", serviceRegistryListDeleted.size(),
+            this.selfInstance.getServiceName(), this.selfInstance.getCluster());
+      }
+    } catch (Throwable t) {
+      log.error("fail to clear expired instances by scheduled task", t);
+    }
+  }
+
+  /**
+   * the healthy instance with the smallest uri is elected, all the instances of the same service and cluster
+   * agree on it without coordination since they discover the same instances
+   */
+  boolean isElected() {
+    URI elected = null;
+    for (ServiceInstance instance : this.discoveryClient.getInstances(this.selfInstance.getServiceName())) {
+      if (elected == null || instance.getUri().toString().compareTo(elected.toString()) < 0) {
+        elected = instance.getUri();
+      }
+    }
+    return Objects.equals(this.selfInstance.getUri(), elected);
+  }
+
   @Override
   public void run(ApplicationArguments args) throws Exception {
     this.instanceClearScheduledExecutorService.scheduleAtFixedRate(this::clearUnhealthyInstances, 0, 1, TimeUnit.DAYS);
+    if (this.discoveryProperties.isVersioned()) {
+      this.instanceClearScheduledExecutorService.scheduleAtFixedRate(this::clearExpiredInstances,
+          EXPIRED_CLEAR_PERIOD_IN_SECOND, EXPIRED_CLEAR_PERIOD_IN_SECOND, TimeUnit.SECONDS);
+    }
   }
 }
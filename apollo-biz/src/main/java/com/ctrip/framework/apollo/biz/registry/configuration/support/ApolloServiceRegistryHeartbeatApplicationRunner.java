@@ -17,7 +17,10 @@
 package com.ctrip.framework.apollo.biz.registry.configuration.support;
 
 import com.ctrip.framework.apollo.biz.registry.DatabaseServiceRegistry;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstanceMetadataContributor;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -39,6 +42,8 @@ public class ApolloServiceRegistryHeartbeatApplicationRunner
 
   private final DatabaseServiceRegistry serviceRegistry;
 
+  private final List<ServiceInstanceMetadataContributor> metadataContributors;
+
   /**
    * for {@link #heartbeat()}
    */
@@ -47,9 +52,18 @@ public class ApolloServiceRegistryHeartbeatApplicationRunner
   public ApolloServiceRegistryHeartbeatApplicationRunner(
       ApolloServiceRegistryProperties registration,
       DatabaseServiceRegistry serviceRegistry
+  ) {
+    this(registration, serviceRegistry, Collections.emptyList());
+  }
+
+  public ApolloServiceRegistryHeartbeatApplicationRunner(
+      ApolloServiceRegistryProperties registration,
+      DatabaseServiceRegistry serviceRegistry,
+      List<ServiceInstanceMetadataContributor> metadataContributors
   ) {
     this.registration = registration;
     this.serviceRegistry = serviceRegistry;
+    this.metadataContributors = metadataContributors;
     this.heartbeatScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
         ApolloThreadFactory.create("ApolloServiceRegistryHeartBeat", true)
     );
@@ -71,8 +85,21 @@ public class ApolloServiceRegistryHeartbeatApplicationRunner
   }
 
   private void heartbeat() {
+    boolean metadataChanged = false;
+    for (ServiceInstanceMetadataContributor contributor : this.metadataContributors) {
+      try {
+        metadataChanged |= contributor.contribute(this.registration.getMetadata());
+      } catch (Throwable t) {
+        log.warn("fail to refresh metadata by {}", contributor.getClass().getName(), t);
+      }
+    }
     try {
-      this.serviceRegistry.register(this.registration);
+      if (metadataChanged) {
+        // write the metadata and increase the version, so the other instances could see it soon
+        this.serviceRegistry.register(this.registration);
+      } else {
+        this.serviceRegistry.heartbeat(this.registration);
+      }
     } catch (Throwable t) {
       log.error("fail to send heartbeat by scheduled task", t);
     }
@@ -66,6 +66,19 @@ public class ApolloServiceRegistryProperties implements ServiceInstance {
    */
   private long heartbeatIntervalInSecond = 10;
 
+  /**
+   * increase the version of the registry when an instance is added or removed, and send most of the heartbeats
+   * as a lightweight update of the last modified time, requires the table ServiceRegistryVersion.
+   *
+   * @see ApolloServiceDiscoveryProperties#isVersioned()
+   */
+  private boolean versioned = false;
+
+  /**
+   * full heartbeat, which writes the metadata too, interval in second when {@link #versioned}
+   */
+  private long fullHeartbeatIntervalInSecond = 60;
+
   @Autowired
   private PropertyResolver propertyResolver;
 
@@ -143,4 +156,20 @@ public class ApolloServiceRegistryProperties implements ServiceInstance {
   public void setHeartbeatIntervalInSecond(long heartbeatIntervalInSecond) {
     this.heartbeatIntervalInSecond = heartbeatIntervalInSecond;
   }
+
+  public boolean isVersioned() {
+    return versioned;
+  }
+
+  public void setVersioned(boolean versioned) {
+    this.versioned = versioned;
+  }
+
+  public long getFullHeartbeatIntervalInSecond() {
+    return fullHeartbeatIntervalInSecond;
+  }
+
+  public void setFullHeartbeatIntervalInSecond(long fullHeartbeatIntervalInSecond) {
+    this.fullHeartbeatIntervalInSecond = fullHeartbeatIntervalInSecond;
+  }
 }
@@ -32,4 +32,8 @@ public interface AuditRepository extends PagingAndSortingRepository<Audit, Long>
   @Query("SELECT a from Audit a WHERE a.dataChangeCreatedBy = :owner AND a.entityName =:entity AND a.opName = :op")
   List<Audit> findAudits(@Param("owner") String owner, @Param("entity") String entity,
       @Param("op") String op);
+
+  List<Audit> findFirst500ByIdGreaterThanOrderByIdAsc(long id);
+
+  Audit findTopByOrderByIdDesc();
 }
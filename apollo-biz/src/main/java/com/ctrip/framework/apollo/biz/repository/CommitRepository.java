@@ -38,5 +38,9 @@ public interface CommitRepository extends PagingAndSortingRepository<Commit, Lon
   @Query("update Commit set IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?4 where AppId=?1 and ClusterName=?2 and NamespaceName = ?3 and IsDeleted = false")
   int batchDelete(String appId, String clusterName, String namespaceName, String operator);
 
+  List<Commit> findFirst500ByIdGreaterThanOrderByIdAsc(long id);
+
+  Commit findTopByOrderByIdDesc();
+
   List<Commit> findByAppIdAndClusterNameAndNamespaceNameAndChangeSetsLikeOrderByIdDesc(String appId, String clusterName, String namespaceName,String changeSets, Pageable page);
 }
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.biz.repository;
 
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
+import com.ctrip.framework.apollo.biz.repository.projection.InstanceConfigSummary;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -34,14 +35,47 @@ public interface InstanceConfigRepository extends PagingAndSortingRepository<Ins
   InstanceConfig findByInstanceIdAndConfigAppIdAndConfigNamespaceName(long instanceId, String
       configAppId, String configNamespaceName);
 
-  Page<InstanceConfig> findByReleaseKeyAndDataChangeLastModifiedTimeAfter(String releaseKey, Date
-      validDate, Pageable pageable);
+  @Query(value = "select ic.id as id, ic.instanceId as instanceId, ic.releaseKey as releaseKey, "
+      + "ic.releaseDeliveryTime as releaseDeliveryTime, ic.dataChangeLastModifiedTime as dataChangeLastModifiedTime "
+      + "from InstanceConfig ic where ic.releaseKey = :releaseKey and ic.dataChangeLastModifiedTime > :validDate",
+      countQuery = "select count(ic) from InstanceConfig ic where ic.releaseKey = :releaseKey "
+          + "and ic.dataChangeLastModifiedTime > :validDate")
+  Page<InstanceConfigSummary> findInstanceConfigSummariesByReleaseKey(@Param("releaseKey") String releaseKey,
+      @Param("validDate") Date validDate, Pageable pageable);
 
   Page<InstanceConfig> findByConfigAppIdAndConfigClusterNameAndConfigNamespaceNameAndDataChangeLastModifiedTimeAfter(
       String appId, String clusterName, String namespaceName, Date validDate, Pageable pageable);
 
-  List<InstanceConfig> findByConfigAppIdAndConfigClusterNameAndConfigNamespaceNameAndDataChangeLastModifiedTimeAfterAndReleaseKeyNotIn(
-      String appId, String clusterName, String namespaceName, Date validDate, Set<String> releaseKey);
+  @Query("select ic.id as id, ic.instanceId as instanceId, ic.releaseKey as releaseKey, "
+      + "ic.releaseDeliveryTime as releaseDeliveryTime, ic.dataChangeLastModifiedTime as dataChangeLastModifiedTime "
+      + "from InstanceConfig ic "
+      + "where ic.configAppId = :appId and ic.configClusterName = :clusterName and ic.configNamespaceName = :namespaceName "
+      + "and ic.dataChangeLastModifiedTime > :validDate and ic.releaseKey not in :releaseKeys and ic.id > :afterId "
+      + "order by ic.id asc")
+  List<InstanceConfigSummary> findInstanceConfigSummariesByNamespaceAndReleaseKeyNotIn(
+      @Param("appId") String appId, @Param("clusterName") String clusterName,
+      @Param("namespaceName") String namespaceName, @Param("validDate") Date validDate,
+      @Param("releaseKeys") Set<String> releaseKeys, @Param("afterId") long afterId, Pageable pageable);
+
+  @Query("select ic.releaseDeliveryTime from InstanceConfig ic where ic.releaseKey = :releaseKey "
+      + "and ic.dataChangeLastModifiedTime > :validDate")
+  List<Date> findReleaseDeliveryTimesByReleaseKey(@Param("releaseKey") String releaseKey,
+      @Param("validDate") Date validDate);
+
+  long countByConfigAppIdAndConfigClusterNameAndConfigNamespaceName(String appId, String clusterName,
+      String namespaceName);
+
+  long countByConfigAppIdAndConfigClusterNameAndConfigNamespaceNameAndDataChangeLastModifiedTimeAfter(
+      String appId, String clusterName, String namespaceName, Date validDate);
+
+  List<InstanceConfig> findByDataChangeLastModifiedTimeBeforeOrderByIdAsc(Date validDate, Pageable pageable);
+
+  /**
+   * The last modified time is checked again in case the instance config is refreshed after it's loaded
+   */
+  @Modifying
+  @Query("delete from InstanceConfig ic where ic.id in :ids and ic.dataChangeLastModifiedTime < :validDate")
+  int deleteStaleByIds(@Param("ids") List<Long> ids, @Param("validDate") Date validDate);
 
   @Modifying
   @Query("delete from InstanceConfig  where ConfigAppId=?1 and ConfigClusterName=?2 and ConfigNamespaceName = ?3")
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.repository;
+
+import com.ctrip.framework.apollo.biz.entity.InstanceNamespaceSummary;
+
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
+public interface InstanceNamespaceSummaryRepository extends
+    PagingAndSortingRepository<InstanceNamespaceSummary, Long> {
+
+  InstanceNamespaceSummary findByConfigAppIdAndConfigClusterNameAndConfigNamespaceName(String configAppId,
+      String configClusterName, String configNamespaceName);
+
+  @Modifying
+  @Query("update InstanceNamespaceSummary s set s.instanceCount = s.instanceCount + :delta "
+      + "where s.configAppId = :appId and s.configClusterName = :clusterName and s.configNamespaceName = :namespaceName")
+  int increaseInstanceCount(@Param("appId") String appId, @Param("clusterName") String clusterName,
+      @Param("namespaceName") String namespaceName, @Param("delta") long delta);
+
+  List<InstanceNamespaceSummary> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  /**
+   * Recount the summary from the instance configs. The summary row is locked while counting, so the increments made
+   * meanwhile are applied after the recount instead of being overwritten.
+   */
+  @Modifying(clearAutomatically = true)
+  @Query(value = "UPDATE `InstanceNamespaceSummary` SET `InstanceCount` = (SELECT COUNT(1) FROM `InstanceConfig` c "
+      + "WHERE c.`ConfigAppId` = :appId AND c.`ConfigClusterName` = :clusterName "
+      + "AND c.`ConfigNamespaceName` = :namespaceName) WHERE `ConfigAppId` = :appId "
+      + "AND `ConfigClusterName` = :clusterName AND `ConfigNamespaceName` = :namespaceName", nativeQuery = true)
+  int recountInstanceCount(@Param("appId") String appId, @Param("clusterName") String clusterName,
+      @Param("namespaceName") String namespaceName);
+
+  @Modifying
+  @Query("delete from InstanceNamespaceSummary where ConfigAppId=?1 and ConfigClusterName=?2 and ConfigNamespaceName = ?3")
+  int batchDelete(String appId, String clusterName, String namespaceName);
+}
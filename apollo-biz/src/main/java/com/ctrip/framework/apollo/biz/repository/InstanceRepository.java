@@ -18,8 +18,27 @@ package com.ctrip.framework.apollo.biz.repository;
 
 import com.ctrip.framework.apollo.biz.entity.Instance;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
 
 public interface InstanceRepository extends PagingAndSortingRepository<Instance, Long> {
   Instance findByAppIdAndClusterNameAndDataCenterAndIp(String appId, String clusterName, String dataCenter, String ip);
+
+  @Query("select i.id from Instance i where i.dataChangeLastModifiedTime < :validDate and not exists "
+      + "(select ic.id from InstanceConfig ic where ic.instanceId = i.id) order by i.id")
+  List<Long> findStaleInstanceIds(@Param("validDate") Date validDate, Pageable pageable);
+
+  /**
+   * Instance configs are checked again in case the instance is used after it's loaded
+   */
+  @Modifying
+  @Query("delete from Instance i where i.id in :ids and not exists "
+      + "(select ic.id from InstanceConfig ic where ic.instanceId = i.id)")
+  int deleteStaleByIds(@Param("ids") List<Long> ids);
 }
@@ -39,6 +39,8 @@ public interface ItemRepository extends PagingAndSortingRepository<Item, Long> {
 
   Page<Item> findByKey(String key, Pageable pageable);
 
+  List<Item> findFirst500ByIdGreaterThanOrderByIdAsc(long id);
+
   Page<Item> findByNamespaceId(Long namespaceId, Pageable pageable);
   
   Item findFirst1ByNamespaceIdOrderByLineNumDesc(Long namespaceId);
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.biz.repository;
 
 import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.repository.projection.ReleaseSummary;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
@@ -47,6 +48,13 @@ public interface ReleaseRepository extends PagingAndSortingRepository<Release, L
 
   List<Release> findByIdIn(Set<Long> releaseIds);
 
+  @Query("select r.id as id, r.releaseKey as releaseKey, r.name as name, r.appId as appId, "
+      + "r.clusterName as clusterName, r.namespaceName as namespaceName, r.comment as comment, "
+      + "r.isAbandoned as abandoned, r.dataChangeCreatedBy as dataChangeCreatedBy, "
+      + "r.dataChangeCreatedTime as dataChangeCreatedTime, r.dataChangeLastModifiedBy as dataChangeLastModifiedBy, "
+      + "r.dataChangeLastModifiedTime as dataChangeLastModifiedTime from Release r where r.releaseKey in :releaseKeys")
+  List<ReleaseSummary> findReleaseSummariesByReleaseKeyIn(@Param("releaseKeys") Set<String> releaseKeys);
+
   @Modifying
   @Query("update Release set IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?4 where AppId=?1 and ClusterName=?2 and NamespaceName = ?3 and IsDeleted = false")
   int batchDelete(String appId, String clusterName, String namespaceName, String operator);
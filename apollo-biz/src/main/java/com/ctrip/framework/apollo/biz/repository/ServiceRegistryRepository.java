@@ -19,6 +19,8 @@ package com.ctrip.framework.apollo.biz.repository;
 import com.ctrip.framework.apollo.biz.entity.ServiceRegistry;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 public interface ServiceRegistryRepository extends PagingAndSortingRepository<ServiceRegistry, Long> {
@@ -32,4 +34,12 @@ public interface ServiceRegistryRepository extends PagingAndSortingRepository<Se
   List<ServiceRegistry> deleteByDataChangeLastModifiedTimeLessThan(LocalDateTime localDateTime);
 
   int deleteByServiceNameAndUri(String serviceName, String uri);
+
+  List<ServiceRegistry> deleteByServiceNameAndClusterAndDataChangeLastModifiedTimeLessThan(
+      String serviceName, String cluster, LocalDateTime localDateTime
+  );
+
+  @Modifying
+  @Query("update ServiceRegistry r set r.dataChangeLastModifiedTime = ?3 where r.serviceName = ?1 and r.uri = ?2")
+  int updateLastModifiedTime(String serviceName, String uri, LocalDateTime time);
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.repository;
+
+import com.ctrip.framework.apollo.biz.entity.ServiceRegistryVersion;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+public interface ServiceRegistryVersionRepository extends PagingAndSortingRepository<ServiceRegistryVersion, Long> {
+
+  ServiceRegistryVersion findByServiceName(String serviceName);
+
+  @Modifying(clearAutomatically = true)
+  @Query("update ServiceRegistryVersion v set v.version = v.version + 1, v.dataChangeLastModifiedTime = ?2 "
+      + "where v.serviceName = ?1")
+  int increaseVersion(String serviceName, LocalDateTime time);
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.repository.projection;
+
+import java.util.Date;
+
+/**
+ * Release without the configurations, which could be very large and are not needed when only the release
+ * itself is to be displayed
+ */
+public interface ReleaseSummary {
+
+  long getId();
+
+  String getReleaseKey();
+
+  String getName();
+
+  String getAppId();
+
+  String getClusterName();
+
+  String getNamespaceName();
+
+  String getComment();
+
+  boolean isAbandoned();
+
+  String getDataChangeCreatedBy();
+
+  Date getDataChangeCreatedTime();
+
+  String getDataChangeLastModifiedBy();
+
+  Date getDataChangeLastModifiedTime();
+}
@@ -17,8 +17,13 @@
 package com.ctrip.framework.apollo.biz.service;
 
 import com.ctrip.framework.apollo.biz.entity.Commit;
+import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.repository.CommitRepository;
+import com.ctrip.framework.apollo.biz.utils.ConfigChangeContentBuilder;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.stream.Collectors;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -59,6 +64,29 @@ public class CommitService {
             appId, clusterName, namespaceName, lastModifiedTime, page);
   }
 
+  /**
+   * find the items deleted since the given time
+   *
+   * @param lastModifiedTime all the deleted items are returned if it's null
+   */
+  public List<Item> findDeletedItems(String appId, String clusterName, String namespaceName,
+      Date lastModifiedTime) {
+    List<Commit> commits;
+    if (lastModifiedTime != null) {
+      commits = find(appId, clusterName, namespaceName, lastModifiedTime, null);
+    } else {
+      commits = find(appId, clusterName, namespaceName, null);
+    }
+
+    if (commits == null) {
+      return Collections.emptyList();
+    }
+    return commits.stream()
+        .map(commit -> ConfigChangeContentBuilder.convertJsonString(commit.getChangeSets()).getDeleteItems())
+        .flatMap(Collection::stream)
+        .collect(Collectors.toList());
+  }
+
   public List<Commit> findByKey(String appId, String clusterName, String namespaceName, String key,Pageable page){
     String queryKey = "\"key\":\""+ key +"\"";
     return commitRepository.findByAppIdAndClusterNameAndNamespaceNameAndChangeSetsLikeOrderByIdDesc(appId, clusterName, namespaceName, "%"+ queryKey + "%", page);
@@ -16,21 +16,34 @@
  */
 package com.ctrip.framework.apollo.biz.service;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
+import com.ctrip.framework.apollo.biz.entity.InstanceNamespaceSummary;
 import com.ctrip.framework.apollo.biz.repository.InstanceConfigRepository;
+import com.ctrip.framework.apollo.biz.repository.InstanceNamespaceSummaryRepository;
 import com.ctrip.framework.apollo.biz.repository.InstanceRepository;
+import com.ctrip.framework.apollo.biz.repository.projection.InstanceConfigSummary;
+import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import java.util.Map;
 import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -43,14 +56,26 @@ import java.util.stream.Collectors;
  */
 @Service
 public class InstanceService {
+  private static final Logger logger = LoggerFactory.getLogger(InstanceService.class);
+  private static final int FIND_INSTANCES_BATCH_SIZE = 500;
+  private static final String TRACER_EVENT_SUMMARY_DRIFT = "Apollo.InstanceNamespaceSummary.Drift";
   private final InstanceRepository instanceRepository;
   private final InstanceConfigRepository instanceConfigRepository;
+  private final InstanceNamespaceSummaryRepository instanceNamespaceSummaryRepository;
+  private final BizConfig bizConfig;
+  private final TransactionTemplate transactionTemplate;
 
   public InstanceService(
       final InstanceRepository instanceRepository,
-      final InstanceConfigRepository instanceConfigRepository) {
+      final InstanceConfigRepository instanceConfigRepository,
+      final InstanceNamespaceSummaryRepository instanceNamespaceSummaryRepository,
+      final BizConfig bizConfig,
+      final TransactionTemplate transactionTemplate) {
     this.instanceRepository = instanceRepository;
     this.instanceConfigRepository = instanceConfigRepository;
+    this.instanceNamespaceSummaryRepository = instanceNamespaceSummaryRepository;
+    this.bizConfig = bizConfig;
+    this.transactionTemplate = transactionTemplate;
   }
 
   public Instance findInstance(String appId, String clusterName, String dataCenter, String ip) {
@@ -59,8 +84,15 @@ public class InstanceService {
   }
 
   public List<Instance> findInstancesByIds(Set<Long> instanceIds) {
-    Iterable<Instance> instances = instanceRepository.findAllById(instanceIds);
-    return Lists.newArrayList(instances);
+    if (instanceIds.size() <= FIND_INSTANCES_BATCH_SIZE) {
+      return Lists.newArrayList(instanceRepository.findAllById(instanceIds));
+    }
+    // avoid a huge in clause when there are lots of instances
+    List<Instance> instances = Lists.newArrayListWithCapacity(instanceIds.size());
+    for (List<Long> batch : Iterables.partition(instanceIds, FIND_INSTANCES_BATCH_SIZE)) {
+      Iterables.addAll(instances, instanceRepository.findAllById(batch));
+    }
+    return instances;
   }
 
   @Transactional
@@ -77,10 +109,15 @@ public class InstanceService {
             instanceId, configAppId, configNamespaceName);
   }
 
-  public Page<InstanceConfig> findActiveInstanceConfigsByReleaseKey(String releaseKey, Pageable
-      pageable) {
-    return instanceConfigRepository.findByReleaseKeyAndDataChangeLastModifiedTimeAfter(releaseKey,
-            getValidInstanceConfigDate(), pageable);
+  public Page<InstanceConfigSummary> findActiveInstanceConfigSummariesByReleaseKey(String releaseKey,
+      Pageable pageable) {
+    return instanceConfigRepository.findInstanceConfigSummariesByReleaseKey(releaseKey,
+        getValidInstanceConfigDate(), pageable);
+  }
+
+  public List<Date> findActiveReleaseDeliveryTimes(String releaseKey) {
+    return instanceConfigRepository.findReleaseDeliveryTimesByReleaseKey(releaseKey,
+        getValidInstanceConfigDate());
   }
 
   public Page<Instance> findInstancesByNamespace(String appId, String clusterName, String
@@ -99,6 +136,143 @@ public class InstanceService {
     return new PageImpl<>(instances, pageable, instanceConfigs.getTotalElements());
   }
 
+  /**
+   * The summary keeps the number of all the instance configs of the namespace, which equals the active ones only when
+   * the stale instance configs are purged, so it's used when the instance retention is enabled
+   */
+  public long getInstanceCountByNamespace(String appId, String clusterName, String namespaceName) {
+    if (!bizConfig.isInstanceRetentionEnabled()) {
+      return instanceConfigRepository
+          .countByConfigAppIdAndConfigClusterNameAndConfigNamespaceNameAndDataChangeLastModifiedTimeAfter(appId,
+              clusterName, namespaceName, getValidInstanceConfigDate());
+    }
+
+    InstanceNamespaceSummary summary = instanceNamespaceSummaryRepository
+        .findByConfigAppIdAndConfigClusterNameAndConfigNamespaceName(appId, clusterName, namespaceName);
+    if (summary == null) {
+      summary = createInstanceNamespaceSummary(appId, clusterName, namespaceName);
+    } else if (summary.getInstanceCount() < 0) {
+      logger.warn("Instance count of {}+{}+{} drifted to {}, recount it", appId, clusterName, namespaceName,
+          summary.getInstanceCount());
+      summary = recountInstanceNamespaceSummary(appId, clusterName, namespaceName);
+    }
+
+    return summary == null ? 0 : summary.getInstanceCount();
+  }
+
+  /**
+   * The summary is created with 0 first, so the increments made after that are kept, and then recounted to include
+   * the instance configs created before
+   */
+  private InstanceNamespaceSummary createInstanceNamespaceSummary(String appId, String clusterName,
+      String namespaceName) {
+    InstanceNamespaceSummary summary = new InstanceNamespaceSummary();
+    summary.setConfigAppId(appId);
+    summary.setConfigClusterName(clusterName);
+    summary.setConfigNamespaceName(namespaceName);
+    summary.setInstanceCount(0);
+
+    try {
+      instanceNamespaceSummaryRepository.save(summary);
+    } catch (DataIntegrityViolationException ex) {
+      //concurrent creation, recount the one exists
+    }
+    return recountInstanceNamespaceSummary(appId, clusterName, namespaceName);
+  }
+
+  private InstanceNamespaceSummary recountInstanceNamespaceSummary(String appId, String clusterName,
+      String namespaceName) {
+    transactionTemplate.executeWithoutResult(status -> instanceNamespaceSummaryRepository
+        .recountInstanceCount(appId, clusterName, namespaceName));
+    return instanceNamespaceSummaryRepository
+        .findByConfigAppIdAndConfigClusterNameAndConfigNamespaceName(appId, clusterName, namespaceName);
+  }
+
+  /**
+   * Check a batch of summaries against the instance configs and recount the drifted ones. The increments are not
+   * atomic with the instance config writes, e.g. an instance config created by a config service which failed to
+   * increase the summary afterwards is never counted, so the drift is repaired here.
+   *
+   * @return the id of the last summary checked, or 0 if there is no summary after the given id
+   */
+  public long reconcileInstanceNamespaceSummaries(long afterId, int batchSize) {
+    List<InstanceNamespaceSummary> summaries = instanceNamespaceSummaryRepository
+        .findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, batchSize));
+    if (CollectionUtils.isEmpty(summaries)) {
+      return 0;
+    }
+
+    for (InstanceNamespaceSummary summary : summaries) {
+      long instanceCount = instanceConfigRepository.countByConfigAppIdAndConfigClusterNameAndConfigNamespaceName(
+          summary.getConfigAppId(), summary.getConfigClusterName(), summary.getConfigNamespaceName());
+      if (instanceCount != summary.getInstanceCount()) {
+        Tracer.logEvent(TRACER_EVENT_SUMMARY_DRIFT, String.format("%s+%s+%s", summary.getConfigAppId(),
+            summary.getConfigClusterName(), summary.getConfigNamespaceName()));
+        recountInstanceNamespaceSummary(summary.getConfigAppId(), summary.getConfigClusterName(),
+            summary.getConfigNamespaceName());
+      }
+    }
+
+    return summaries.get(summaries.size() - 1).getId();
+  }
+
+  /**
+   * The summary is created lazily with the real count when it's queried, so nothing needs to be done if it doesn't exist
+   */
+  @Transactional
+  public void increaseInstanceCount(String appId, String clusterName, String namespaceName, long delta) {
+    instanceNamespaceSummaryRepository.increaseInstanceCount(appId, clusterName, namespaceName, delta);
+  }
+
+  /**
+   * Purge a batch of instance configs which are not active any more and update the summaries accordingly
+   *
+   * @return the number of instance configs purged in this batch, less than the batch size means no more to purge
+   */
+  @Transactional
+  public int purgeStaleInstanceConfigs(int batchSize) {
+    Date validDate = getValidInstanceConfigDate();
+    List<InstanceConfig> staleInstanceConfigs = instanceConfigRepository
+        .findByDataChangeLastModifiedTimeBeforeOrderByIdAsc(validDate, PageRequest.of(0, batchSize));
+    if (CollectionUtils.isEmpty(staleInstanceConfigs)) {
+      return 0;
+    }
+
+    Map<List<String>, List<Long>> staleIdsByNamespace = staleInstanceConfigs.stream().collect(
+        Collectors.groupingBy(instanceConfig -> Arrays.asList(instanceConfig.getConfigAppId(),
+            instanceConfig.getConfigClusterName(), instanceConfig.getConfigNamespaceName()),
+            Collectors.mapping(InstanceConfig::getId, Collectors.toList())));
+
+    int purged = 0;
+    for (Map.Entry<List<String>, List<Long>> entry : staleIdsByNamespace.entrySet()) {
+      int deleted = instanceConfigRepository.deleteStaleByIds(entry.getValue(), validDate);
+      if (deleted > 0) {
+        purged += deleted;
+        List<String> namespace = entry.getKey();
+        instanceNamespaceSummaryRepository.increaseInstanceCount(namespace.get(0), namespace.get(1),
+            namespace.get(2), -deleted);
+      }
+    }
+
+    return purged;
+  }
+
+  /**
+   * Purge a batch of instances which have no instance configs left
+   *
+   * @return the number of instances purged in this batch, less than the batch size means no more to purge
+   */
+  @Transactional
+  public int purgeStaleInstances(int batchSize) {
+    List<Long> staleInstanceIds = instanceRepository.findStaleInstanceIds(getValidInstanceConfigDate(),
+        PageRequest.of(0, batchSize));
+    if (CollectionUtils.isEmpty(staleInstanceIds)) {
+      return 0;
+    }
+
+    return instanceRepository.deleteStaleByIds(staleInstanceIds);
+  }
+
   public Page<Instance> findInstancesByNamespaceAndInstanceAppId(String instanceAppId, String
       appId, String clusterName, String
                                                                      namespaceName, Pageable
@@ -135,15 +309,15 @@ public class InstanceService {
     return new PageImpl<>(instances, pageable, instanceIdResult.getTotalElements());
   }
 
-  public List<InstanceConfig> findInstanceConfigsByNamespaceWithReleaseKeysNotIn(String appId,
-                                                                                 String clusterName,
-                                                                                 String
-                                                                                     namespaceName,
-                                                                                 Set<String>
-                                                                                     releaseKeysNotIn) {
-    List<InstanceConfig> instanceConfigs = instanceConfigRepository.
-        findByConfigAppIdAndConfigClusterNameAndConfigNamespaceNameAndDataChangeLastModifiedTimeAfterAndReleaseKeyNotIn(appId, clusterName,
-            namespaceName, getValidInstanceConfigDate(), releaseKeysNotIn);
+  /**
+   * @param afterId only the instance configs with larger ids are returned, ordered by id, so that all of them could
+   * be loaded in batches
+   */
+  public List<InstanceConfigSummary> findInstanceConfigSummariesByNamespaceWithReleaseKeysNotIn(String appId,
+      String clusterName, String namespaceName, Set<String> releaseKeysNotIn, long afterId, int limit) {
+    List<InstanceConfigSummary> instanceConfigs = instanceConfigRepository
+        .findInstanceConfigSummariesByNamespaceAndReleaseKeyNotIn(appId, clusterName, namespaceName,
+            getValidInstanceConfigDate(), releaseKeysNotIn, afterId, PageRequest.of(0, limit));
 
     if (CollectionUtils.isEmpty(instanceConfigs)) {
       return Collections.emptyList();
@@ -187,6 +361,7 @@ public class InstanceService {
 
   @Transactional
   public int batchDeleteInstanceConfig(String configAppId, String configClusterName, String configNamespaceName){
+    instanceNamespaceSummaryRepository.batchDelete(configAppId, configClusterName, configNamespaceName);
     return instanceConfigRepository.batchDelete(configAppId, configClusterName, configNamespaceName);
   }
 }
@@ -121,6 +121,13 @@ public class NamespaceService {
     return new PageImpl<>(namespaceRepository.findByIdIn(namespaceIds));
   }
 
+  public List<Namespace> findByIds(Set<Long> namespaceIds) {
+    if (namespaceIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return namespaceRepository.findByIdIn(namespaceIds);
+  }
+
   public Namespace findPublicNamespaceForAssociatedNamespace(String clusterName, String namespaceName) {
     AppNamespace appNamespace = appNamespaceService.findPublicNamespaceByName(namespaceName);
     if (appNamespace == null) {
@@ -24,6 +24,7 @@ import com.ctrip.framework.apollo.biz.entity.NamespaceLock;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.entity.ReleaseHistory;
 import com.ctrip.framework.apollo.biz.repository.ReleaseRepository;
+import com.ctrip.framework.apollo.biz.repository.projection.ReleaseSummary;
 import com.ctrip.framework.apollo.biz.utils.ReleaseKeyGenerator;
 import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.constants.ReleaseOperation;
@@ -119,6 +120,16 @@ public class ReleaseService {
     return releaseRepository.findByReleaseKeyIn(releaseKeys);
   }
 
+  /**
+   * Same as {@link #findByReleaseKeys(Set)} but without loading the configurations
+   */
+  public List<ReleaseSummary> findReleaseSummariesByReleaseKeys(Set<String> releaseKeys) {
+    if (CollectionUtils.isEmpty(releaseKeys)) {
+      return Collections.emptyList();
+    }
+    return releaseRepository.findReleaseSummariesByReleaseKeyIn(releaseKeys);
+  }
+
   public Release findLatestActiveRelease(Namespace namespace) {
     return findLatestActiveRelease(namespace.getAppId(),
                                    namespace.getClusterName(), namespace.getNamespaceName());
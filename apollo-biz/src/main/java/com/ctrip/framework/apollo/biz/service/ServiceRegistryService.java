@@ -17,18 +17,25 @@
 package com.ctrip.framework.apollo.biz.service;
 
 import com.ctrip.framework.apollo.biz.entity.ServiceRegistry;
+import com.ctrip.framework.apollo.biz.entity.ServiceRegistryVersion;
 import com.ctrip.framework.apollo.biz.repository.ServiceRegistryRepository;
+import com.ctrip.framework.apollo.biz.repository.ServiceRegistryVersionRepository;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import org.springframework.transaction.annotation.Transactional;
 
 public class ServiceRegistryService {
 
   private final ServiceRegistryRepository repository;
 
-  public ServiceRegistryService(ServiceRegistryRepository repository) {
+  private final ServiceRegistryVersionRepository versionRepository;
+
+  public ServiceRegistryService(ServiceRegistryRepository repository,
+      ServiceRegistryVersionRepository versionRepository) {
     this.repository = repository;
+    this.versionRepository = versionRepository;
   }
 
   public ServiceRegistry saveIfNotExistByServiceNameAndUri(ServiceRegistry serviceRegistry) {
@@ -66,4 +73,75 @@ public class ServiceRegistryService {
     LocalDateTime time = LocalDateTime.now().minus(duration);
     return this.repository.deleteByDataChangeLastModifiedTimeLessThan(time);
   }
+
+  /**
+   * same as {@link #saveIfNotExistByServiceNameAndUri(ServiceRegistry)}, and increase the version of the service
+   * if the instance is new or moved to another cluster
+   */
+  @Transactional
+  public ServiceRegistry saveAndIncreaseVersion(ServiceRegistry serviceRegistry) {
+    ServiceRegistry serviceRegistrySaved = this.repository.findByServiceNameAndUri(serviceRegistry.getServiceName(), serviceRegistry.getUri());
+    boolean changed = serviceRegistrySaved == null
+        || !Objects.equals(serviceRegistrySaved.getCluster(), serviceRegistry.getCluster());
+    ServiceRegistry result = this.saveIfNotExistByServiceNameAndUri(serviceRegistry);
+    if (changed) {
+      this.increaseVersion(serviceRegistry.getServiceName());
+    }
+    return result;
+  }
+
+  @Transactional
+  public void deleteAndIncreaseVersion(ServiceRegistry serviceRegistry) {
+    int deleted = this.repository.deleteByServiceNameAndUri(
+        serviceRegistry.getServiceName(), serviceRegistry.getUri()
+    );
+    if (deleted > 0) {
+      this.increaseVersion(serviceRegistry.getServiceName());
+    }
+  }
+
+  /**
+   * a lightweight heartbeat which only touches the last modified time
+   *
+   * @return false if the instance doesn't exist, e.g. it's cleared as unhealthy
+   */
+  @Transactional
+  public boolean refreshLastModifiedTime(String serviceName, String uri) {
+    return this.repository.updateLastModifiedTime(serviceName, uri, LocalDateTime.now()) > 0;
+  }
+
+  /**
+   * clear the instances of a service in a cluster which didn't send heartbeat since the duration
+   */
+  @Transactional
+  public List<ServiceRegistry> deleteExpiredAndIncreaseVersion(String serviceName, String cluster,
+      Duration duration) {
+    LocalDateTime time = LocalDateTime.now().minus(duration);
+    List<ServiceRegistry> deleted =
+        this.repository.deleteByServiceNameAndClusterAndDataChangeLastModifiedTimeLessThan(serviceName, cluster, time);
+    if (!deleted.isEmpty()) {
+      this.increaseVersion(serviceName);
+    }
+    return deleted;
+  }
+
+  /**
+   * @return 0 if the instances of the service are never changed
+   */
+  public long findVersion(String serviceName) {
+    ServiceRegistryVersion version = this.versionRepository.findByServiceName(serviceName);
+    return version == null ? 0 : version.getVersion();
+  }
+
+  private void increaseVersion(String serviceName) {
+    if (this.versionRepository.increaseVersion(serviceName, LocalDateTime.now()) > 0) {
+      return;
+    }
+    // the first change of the service, if another instance creates it concurrently, the unique key fails this
+    // transaction and the caller retries with the next heartbeat
+    ServiceRegistryVersion version = new ServiceRegistryVersion();
+    version.setServiceName(serviceName);
+    version.setVersion(1);
+    this.versionRepository.save(version);
+  }
 }
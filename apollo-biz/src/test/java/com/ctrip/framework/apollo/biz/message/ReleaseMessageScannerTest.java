@@ -25,6 +25,7 @@ import com.ctrip.framework.apollo.biz.AbstractUnitTest;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.ArrayList;
 import org.awaitility.Awaitility;
 import org.junit.Before;
@@ -51,7 +52,8 @@ public class ReleaseMessageScannerTest extends AbstractUnitTest {
 
   @Before
   public void setUp() throws Exception {
-    releaseMessageScanner = new ReleaseMessageScanner(bizConfig, releaseMessageRepository);
+    releaseMessageScanner = new ReleaseMessageScanner(bizConfig, releaseMessageRepository,
+        new SimpleMeterRegistry());
     databaseScanInterval = 100; //100 ms
     when(bizConfig.releaseMessageScanIntervalInMilli()).thenReturn(databaseScanInterval);
     releaseMessageScanner.afterPropertiesSet();
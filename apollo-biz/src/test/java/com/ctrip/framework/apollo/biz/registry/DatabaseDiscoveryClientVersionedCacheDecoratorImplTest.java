@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.registry;
+
+import static com.ctrip.framework.apollo.biz.registry.ServiceInstanceFactory.newServiceInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ctrip.framework.apollo.biz.service.ServiceRegistryService;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class DatabaseDiscoveryClientVersionedCacheDecoratorImplTest {
+
+  @Test
+  void updateCacheTask_empty() {
+    DatabaseDiscoveryClient client = Mockito.mock(DatabaseDiscoveryClient.class);
+    ServiceRegistryService serviceRegistryService = Mockito.mock(ServiceRegistryService.class);
+    DatabaseDiscoveryClientVersionedCacheDecoratorImpl decorator
+        = new DatabaseDiscoveryClientVersionedCacheDecoratorImpl(client, serviceRegistryService, 60);
+    decorator.updateCacheTask();
+
+    Mockito.verify(client, Mockito.never()).getInstances(Mockito.any());
+    Mockito.verify(serviceRegistryService, Mockito.never()).findVersion(Mockito.any());
+  }
+
+  @Test
+  void updateCacheTask_reload_only_when_version_changed() {
+    final String serviceName = "a-service";
+    DatabaseDiscoveryClient client = Mockito.mock(DatabaseDiscoveryClient.class);
+    ServiceRegistryService serviceRegistryService = Mockito.mock(ServiceRegistryService.class);
+    Mockito.when(serviceRegistryService.findVersion(serviceName)).thenReturn(1L);
+    Mockito.when(client.getInstances(serviceName))
+        .thenReturn(
+            Arrays.asList(
+                newServiceInstance(serviceName, "http://10.240.34.56:8080/", "beijing"),
+                newServiceInstance(serviceName, "http://10.240.34.56:8081/", "beijing")
+            )
+        );
+    DatabaseDiscoveryClientVersionedCacheDecoratorImpl decorator
+        = new DatabaseDiscoveryClientVersionedCacheDecoratorImpl(client, serviceRegistryService, 60);
+    assertEquals(2, decorator.getInstances(serviceName).size());
+
+    // version not changed
+    decorator.updateCacheTask();
+    decorator.updateCacheTask();
+    Mockito.verify(client, Mockito.times(1)).getInstances(serviceName);
+
+    // instances in database are changed
+    Mockito.when(serviceRegistryService.findVersion(serviceName)).thenReturn(2L);
+    Mockito.when(client.getInstances(serviceName))
+        .thenReturn(
+            Collections.singletonList(
+                newServiceInstance(serviceName, "http://10.240.34.56:8080/", "beijing")
+            )
+        );
+    decorator.updateCacheTask();
+
+    assertEquals(1, decorator.getInstances(serviceName).size());
+    Mockito.verify(client, Mockito.times(2)).getInstances(serviceName);
+    Mockito.verify(serviceRegistryService, Mockito.times(4)).findVersion(serviceName);
+  }
+
+  @Test
+  void updateCacheTask_reload_after_full_sync_interval() {
+    final String serviceName = "a-service";
+    DatabaseDiscoveryClient client = Mockito.mock(DatabaseDiscoveryClient.class);
+    ServiceRegistryService serviceRegistryService = Mockito.mock(ServiceRegistryService.class);
+    Mockito.when(client.getInstances(serviceName))
+        .thenReturn(
+            Collections.singletonList(
+                newServiceInstance(serviceName, "http://10.240.34.56:8080/", "beijing")
+            )
+        );
+    DatabaseDiscoveryClientVersionedCacheDecoratorImpl decorator
+        = new DatabaseDiscoveryClientVersionedCacheDecoratorImpl(client, serviceRegistryService, 0);
+    assertEquals(1, decorator.getInstances(serviceName).size());
+
+    decorator.updateCacheTask();
+
+    Mockito.verify(client, Mockito.times(2)).getInstances(serviceName);
+  }
+
+  @Test
+  void updateCacheTask_keep_cache_when_database_crash() {
+    final String serviceName = "a-service";
+    DatabaseDiscoveryClient client = Mockito.mock(DatabaseDiscoveryClient.class);
+    ServiceRegistryService serviceRegistryService = Mockito.mock(ServiceRegistryService.class);
+    Mockito.when(client.getInstances(serviceName))
+        .thenReturn(
+            Collections.singletonList(
+                newServiceInstance(serviceName, "http://10.240.34.56:8080/", "beijing")
+            )
+        );
+    DatabaseDiscoveryClientVersionedCacheDecoratorImpl decorator
+        = new DatabaseDiscoveryClientVersionedCacheDecoratorImpl(client, serviceRegistryService, 60);
+    assertEquals(1, decorator.getInstances(serviceName).size());
+
+    // database crash
+    Mockito.when(serviceRegistryService.findVersion(serviceName))
+        .thenThrow(OutOfMemoryError.class);
+    decorator.updateCacheTask();
+
+    assertEquals(1, decorator.getInstances(serviceName).size());
+  }
+}
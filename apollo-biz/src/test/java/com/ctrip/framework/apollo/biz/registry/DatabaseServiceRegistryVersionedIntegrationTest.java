@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.registry;
+
+import static com.ctrip.framework.apollo.biz.registry.ServiceInstanceFactory.newServiceInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
+import com.ctrip.framework.apollo.biz.entity.ServiceRegistry;
+import com.ctrip.framework.apollo.biz.registry.configuration.ApolloServiceDiscoveryAutoConfiguration;
+import com.ctrip.framework.apollo.biz.registry.configuration.ApolloServiceRegistryAutoConfiguration;
+import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryClearApplicationRunner;
+import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryProperties;
+import com.ctrip.framework.apollo.biz.repository.ServiceRegistryRepository;
+import com.ctrip.framework.apollo.biz.service.ServiceRegistryService;
+import java.time.LocalDateTime;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(
+    properties = {
+        "apollo.service.registry.enabled=true",
+        "apollo.service.registry.cluster=default",
+        "apollo.service.registry.versioned=true",
+        "apollo.service.discovery.enabled=true",
+        "apollo.service.discovery.versioned=true",
+        "spring.application.name=for-test-service",
+        "server.port=10000",
+    }
+)
+@ContextConfiguration(classes = {
+    ApolloServiceRegistryAutoConfiguration.class,
+    ApolloServiceDiscoveryAutoConfiguration.class,
+})
+public class DatabaseServiceRegistryVersionedIntegrationTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private DatabaseServiceRegistry serviceRegistry;
+
+  @Autowired
+  private ServiceRegistryService serviceRegistryService;
+
+  @Autowired
+  private ServiceRegistryRepository repository;
+
+  @Autowired
+  private ApolloServiceRegistryProperties registration;
+
+  @Autowired
+  private ApolloServiceRegistryClearApplicationRunner runner;
+
+  @Test
+  public void increaseVersionOnlyWhenInstancesChange() {
+    final String serviceName = "v-service";
+    ServiceInstance instance = newServiceInstance(serviceName, "http://10.240.11.22:8080/", "default");
+    assertEquals(0, serviceRegistryService.findVersion(serviceName));
+
+    serviceRegistry.register(instance);
+    assertEquals(1, serviceRegistryService.findVersion(serviceName));
+
+    // lightweight heartbeat and re-register don't change the instances
+    serviceRegistry.heartbeat(instance);
+    serviceRegistry.register(instance);
+    assertEquals(1, serviceRegistryService.findVersion(serviceName));
+
+    serviceRegistry.deregister(instance);
+    assertEquals(2, serviceRegistryService.findVersion(serviceName));
+    assertNull(repository.findByServiceNameAndUri(serviceName, instance.getUri().toString()));
+
+    // register again on heartbeat
+    serviceRegistry.heartbeat(instance);
+    assertEquals(3, serviceRegistryService.findVersion(serviceName));
+  }
+
+  @Test
+  public void clearExpiredInstancesByElectedInstance() {
+    final String serviceName = registration.getServiceName();
+    final String expiredUri = "http://10.240.33.44:9090/";
+    LocalDateTime expiredTime = LocalDateTime.now().minusMinutes(5);
+    ServiceRegistry expired = new ServiceRegistry();
+    expired.setServiceName(serviceName);
+    expired.setCluster(registration.getCluster());
+    expired.setUri(expiredUri);
+    expired.setDataChangeCreatedTime(expiredTime);
+    expired.setDataChangeLastModifiedTime(expiredTime);
+    repository.save(expired);
+    long version = serviceRegistryService.findVersion(serviceName);
+
+    // the expired one is not discovered, so self is the only instance
+    assertTrue(runner.isElected());
+
+    runner.clearExpiredInstances();
+
+    assertNull(repository.findByServiceNameAndUri(serviceName, expiredUri));
+    assertEquals(version + 1, serviceRegistryService.findVersion(serviceName));
+  }
+}
@@ -19,7 +19,10 @@ package com.ctrip.framework.apollo.biz.repository;
 import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
+import com.ctrip.framework.apollo.biz.repository.projection.InstanceConfigSummary;
+import com.google.common.collect.Sets;
 import java.util.Date;
+import java.util.List;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -28,6 +31,8 @@ import org.springframework.test.annotation.Rollback;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 /**
  * Created by kezhenxu94 at 2019/1/18 15:33.
@@ -70,4 +75,33 @@ public class InstanceConfigRepositoryTest extends AbstractIntegrationTest {
     );
     assertThat(ids.getContent(), hasSize(5));
   }
+
+  @Rollback
+  @Test
+  public void shouldFindSummariesByNamespaceAndReleaseKeyNotIn() {
+    for (int i = 0; i < 5; i++) {
+      Instance instance = new Instance();
+      instance.setAppId("appId");
+      instanceRepository.save(instance);
+
+      final InstanceConfig instanceConfig = new InstanceConfig();
+      instanceConfig.setConfigAppId("appId");
+      instanceConfig.setInstanceId(instance.getId());
+      instanceConfig.setConfigClusterName("cluster");
+      instanceConfig.setConfigNamespaceName("namespace");
+      instanceConfig.setReleaseKey(i < 2 ? "latestReleaseKey" : "oldReleaseKey");
+      instanceConfig.setReleaseDeliveryTime(new Date());
+      instanceConfigRepository.save(instanceConfig);
+    }
+
+    List<InstanceConfigSummary> summaries = instanceConfigRepository
+        .findInstanceConfigSummariesByNamespaceAndReleaseKeyNotIn("appId", "cluster", "namespace",
+            new Date(0), Sets.newHashSet("latestReleaseKey"), 0, PageRequest.of(0, 10));
+
+    assertThat(summaries, hasSize(3));
+    for (InstanceConfigSummary summary : summaries) {
+      assertEquals("oldReleaseKey", summary.getReleaseKey());
+      assertNotNull(summary.getReleaseDeliveryTime());
+    }
+  }
 }
@@ -22,6 +22,9 @@ import com.google.common.collect.Sets;
 import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
+import com.ctrip.framework.apollo.biz.entity.InstanceNamespaceSummary;
+import com.ctrip.framework.apollo.biz.repository.InstanceNamespaceSummaryRepository;
+import com.ctrip.framework.apollo.biz.repository.projection.InstanceConfigSummary;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +41,7 @@ import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 /**
@@ -46,6 +50,8 @@ import static org.junit.Assert.assertNull;
 public class InstanceServiceTest extends AbstractIntegrationTest {
   @Autowired
   private InstanceService instanceService;
+  @Autowired
+  private InstanceNamespaceSummaryRepository instanceNamespaceSummaryRepository;
 
   @Test
   @Rollback
@@ -147,8 +153,8 @@ public class InstanceServiceTest extends AbstractIntegrationTest {
     prepareInstanceConfigForInstance(anotherInstanceId, someConfigAppId, someConfigClusterName,
         someConfigNamespaceName, someReleaseKey, someInvalidDate);
 
-    Page<InstanceConfig> validInstanceConfigs = instanceService
-        .findActiveInstanceConfigsByReleaseKey(someReleaseKey, pageable);
+    Page<InstanceConfigSummary> validInstanceConfigs = instanceService
+        .findActiveInstanceConfigSummariesByReleaseKey(someReleaseKey, pageable);
 
     assertEquals(1, validInstanceConfigs.getContent().size());
     assertEquals(someInstanceId, validInstanceConfigs.getContent().get(0).getInstanceId());
@@ -224,7 +230,7 @@ public class InstanceServiceTest extends AbstractIntegrationTest {
 
   @Test
   @Rollback
-  public void testFindInstanceConfigsByNamespaceWithReleaseKeysNotIn() throws Exception {
+  public void testFindInstanceConfigSummariesByNamespaceWithReleaseKeysNotIn() throws Exception {
     long someInstanceId = 1;
     long anotherInstanceId = 2;
     long yetAnotherInstanceId = 3;
@@ -245,12 +251,121 @@ public class InstanceServiceTest extends AbstractIntegrationTest {
     prepareInstanceConfigForInstance(yetAnotherInstanceId, someConfigAppId, someConfigClusterName,
         someConfigNamespaceName, anotherReleaseKey, someValidDate);
 
-    List<InstanceConfig> instanceConfigs = instanceService
-        .findInstanceConfigsByNamespaceWithReleaseKeysNotIn(someConfigAppId,
+    List<InstanceConfigSummary> instanceConfigs = instanceService
+        .findInstanceConfigSummariesByNamespaceWithReleaseKeysNotIn(someConfigAppId,
+            someConfigClusterName, someConfigNamespaceName, Sets.newHashSet(anotherReleaseKey,
+                yetAnotherReleaseKey), 0, 1);
+
+    assertEquals(1, instanceConfigs.size());
+    assertEquals(someInstanceConfig.getId(), instanceConfigs.get(0).getId());
+    assertEquals(someInstanceId, instanceConfigs.get(0).getInstanceId());
+
+    instanceConfigs = instanceService
+        .findInstanceConfigSummariesByNamespaceWithReleaseKeysNotIn(someConfigAppId,
             someConfigClusterName, someConfigNamespaceName, Sets.newHashSet(anotherReleaseKey,
-                yetAnotherReleaseKey));
+                yetAnotherReleaseKey), instanceConfigs.get(0).getId(), 10);
+
+    assertEquals(1, instanceConfigs.size());
+    assertEquals(anotherInstanceConfig.getId(), instanceConfigs.get(0).getId());
+    assertEquals(anotherInstanceId, instanceConfigs.get(0).getInstanceId());
+  }
+
+  @Test
+  @Rollback
+  public void testGetInstanceCountByNamespace() throws Exception {
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    Date someValidDate = new Date();
+
+    Calendar calendar = Calendar.getInstance();
+    calendar.add(Calendar.DATE, -2);
+    Date someInvalidDate = calendar.getTime();
+
+    prepareInstanceConfigForInstance(1, someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someValidDate);
+    prepareInstanceConfigForInstance(2, someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someValidDate);
+    prepareInstanceConfigForInstance(3, someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someInvalidDate);
+
+    assertEquals(2, instanceService.getInstanceCountByNamespace(someConfigAppId,
+        someConfigClusterName, someConfigNamespaceName));
+  }
+
+  @Test
+  @Rollback
+  public void testPurgeStaleInstanceConfigsAndInstances() throws Exception {
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    Date someValidDate = new Date();
+
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someDataCenter = "someDataCenter";
+    String someIp = "someIp";
+    String anotherIp = "anotherIp";
+
+    Calendar calendar = Calendar.getInstance();
+    calendar.add(Calendar.DATE, -2);
+    Date someInvalidDate = calendar.getTime();
+
+    Instance someInstance = assembleInstance(someAppId, someClusterName, someDataCenter, someIp);
+    someInstance.setDataChangeCreatedTime(someInvalidDate);
+    someInstance = instanceService.createInstance(someInstance);
+    Instance anotherInstance = assembleInstance(someAppId, someClusterName, someDataCenter, anotherIp);
+    anotherInstance.setDataChangeCreatedTime(someInvalidDate);
+    anotherInstance = instanceService.createInstance(anotherInstance);
+
+    prepareInstanceConfigForInstance(someInstance.getId(), someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someValidDate);
+    prepareInstanceConfigForInstance(anotherInstance.getId(), someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someInvalidDate);
+
+    assertEquals(1, instanceService.purgeStaleInstanceConfigs(10));
+    assertEquals(0, instanceService.purgeStaleInstanceConfigs(10));
+
+    assertNotNull(instanceService.findInstanceConfig(someInstance.getId(), someConfigAppId,
+        someConfigNamespaceName));
+    assertNull(instanceService.findInstanceConfig(anotherInstance.getId(), someConfigAppId,
+        someConfigNamespaceName));
+
+    assertEquals(1, instanceService.purgeStaleInstances(10));
+    assertEquals(0, instanceService.purgeStaleInstances(10));
+
+    assertNotNull(instanceService.findInstance(someAppId, someClusterName, someDataCenter, someIp));
+    assertNull(instanceService.findInstance(someAppId, someClusterName, someDataCenter, anotherIp));
+  }
+
+  @Test
+  @Rollback
+  public void testReconcileInstanceNamespaceSummaries() throws Exception {
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    Date someValidDate = new Date();
+
+    prepareInstanceConfigForInstance(1, someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someValidDate);
+    prepareInstanceConfigForInstance(2, someConfigAppId, someConfigClusterName,
+        someConfigNamespaceName, someReleaseKey, someValidDate);
 
-    assertEquals(Lists.newArrayList(someInstanceConfig, anotherInstanceConfig), instanceConfigs);
+    // the increment of an instance config is lost
+    InstanceNamespaceSummary summary = new InstanceNamespaceSummary();
+    summary.setConfigAppId(someConfigAppId);
+    summary.setConfigClusterName(someConfigClusterName);
+    summary.setConfigNamespaceName(someConfigNamespaceName);
+    summary.setInstanceCount(1);
+    summary = instanceNamespaceSummaryRepository.save(summary);
+
+    assertEquals(summary.getId(), instanceService.reconcileInstanceNamespaceSummaries(summary.getId() - 1, 10));
+    assertEquals(2, instanceNamespaceSummaryRepository.findByConfigAppIdAndConfigClusterNameAndConfigNamespaceName(
+        someConfigAppId, someConfigClusterName, someConfigNamespaceName).getInstanceCount());
+    assertEquals(0, instanceService.reconcileInstanceNamespaceSummaries(summary.getId(), 10));
   }
 
   private InstanceConfig prepareInstanceConfigForInstance(long instanceId, String configAppId,
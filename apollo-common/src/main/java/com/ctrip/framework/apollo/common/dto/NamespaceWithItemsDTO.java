@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.common.dto;
+
+import java.util.List;
+
+/**
+ * A namespace together with what is needed to render it in portal, i.e. its items, the items
+ * deleted since the latest release and the latest release itself
+ */
+public class NamespaceWithItemsDTO {
+  private NamespaceDTO namespace;
+  private List<ItemDTO> items;
+  /**
+   * null if the deleted items are not requested
+   */
+  private List<ItemDTO> deletedItems;
+  /**
+   * null if the namespace is never released
+   */
+  private ReleaseDTO latestRelease;
+
+  public NamespaceDTO getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(NamespaceDTO namespace) {
+    this.namespace = namespace;
+  }
+
+  public List<ItemDTO> getItems() {
+    return items;
+  }
+
+  public void setItems(List<ItemDTO> items) {
+    this.items = items;
+  }
+
+  public List<ItemDTO> getDeletedItems() {
+    return deletedItems;
+  }
+
+  public void setDeletedItems(List<ItemDTO> deletedItems) {
+    this.deletedItems = deletedItems;
+  }
+
+  public ReleaseDTO getLatestRelease() {
+    return latestRelease;
+  }
+
+  public void setLatestRelease(ReleaseDTO latestRelease) {
+    this.latestRelease = latestRelease;
+  }
+}
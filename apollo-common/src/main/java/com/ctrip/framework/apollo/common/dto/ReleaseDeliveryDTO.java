@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.common.dto;
+
+import java.util.Date;
+
+/**
+ * Delivery latency of a release, i.e. the time from the release being published to the instances
+ * receiving it, all latencies are in milliseconds
+ */
+public class ReleaseDeliveryDTO {
+  private long releaseId;
+  private String releaseKey;
+  private Date releaseTime;
+  private int deliveredInstanceCount;
+  private long p50Latency;
+  private long p90Latency;
+  private long p99Latency;
+  private long maxLatency;
+
+  public long getReleaseId() {
+    return releaseId;
+  }
+
+  public void setReleaseId(long releaseId) {
+    this.releaseId = releaseId;
+  }
+
+  public String getReleaseKey() {
+    return releaseKey;
+  }
+
+  public void setReleaseKey(String releaseKey) {
+    this.releaseKey = releaseKey;
+  }
+
+  public Date getReleaseTime() {
+    return releaseTime;
+  }
+
+  public void setReleaseTime(Date releaseTime) {
+    this.releaseTime = releaseTime;
+  }
+
+  public int getDeliveredInstanceCount() {
+    return deliveredInstanceCount;
+  }
+
+  public void setDeliveredInstanceCount(int deliveredInstanceCount) {
+    this.deliveredInstanceCount = deliveredInstanceCount;
+  }
+
+  public long getP50Latency() {
+    return p50Latency;
+  }
+
+  public void setP50Latency(long p50Latency) {
+    this.p50Latency = p50Latency;
+  }
+
+  public long getP90Latency() {
+    return p90Latency;
+  }
+
+  public void setP90Latency(long p90Latency) {
+    this.p90Latency = p90Latency;
+  }
+
+  public long getP99Latency() {
+    return p99Latency;
+  }
+
+  public void setP99Latency(long p99Latency) {
+    this.p99Latency = p99Latency;
+  }
+
+  public long getMaxLatency() {
+    return maxLatency;
+  }
+
+  public void setMaxLatency(long maxLatency) {
+    this.maxLatency = maxLatency;
+  }
+}
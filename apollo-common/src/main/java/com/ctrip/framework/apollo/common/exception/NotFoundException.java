@@ -56,6 +56,10 @@ public class NotFoundException extends AbstractApolloHttpException {
     return new NotFoundException("release not found for releaseId:%s", releaseId);
   }
 
+  public static NotFoundException latestReleaseNotFound(String appId, String clusterName, String namespaceName) {
+    return new NotFoundException("latest release not found for appId:%s clusterName:%s namespaceName:%s", appId, clusterName, namespaceName);
+  }
+
   public static NotFoundException clusterNotFound(String appId, String clusterName) {
     return new NotFoundException("cluster not found for appId:%s clusterName:%s", appId, clusterName);
   }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.common.utils;
+
+import com.ctrip.framework.apollo.common.exception.BeanUtilsException;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Method handle based accessors used by {@link BeanUtils}. The reflective lookups are done once per
+ * class (or class pair), and the resolved handles are reused by every later call.
+ */
+final class BeanAccessors {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<MethodHandle>() {
+    @Override
+    protected MethodHandle computeValue(Class<?> type) {
+      try {
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        ReflectionUtils.makeAccessible(constructor);
+        return LOOKUP.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+      } catch (ReflectiveOperationException e) {
+        throw new BeanUtilsException(e);
+      }
+    }
+  };
+
+  private static final ClassValue<ConcurrentMap<Class<?>, PropertyCopier>> COPIERS =
+      new ClassValue<ConcurrentMap<Class<?>, PropertyCopier>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, PropertyCopier> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private static final ClassValue<ConcurrentMap<String, FieldAccessor>> FIELDS =
+      new ClassValue<ConcurrentMap<String, FieldAccessor>>() {
+        @Override
+        protected ConcurrentMap<String, FieldAccessor> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private BeanAccessors() {
+  }
+
+  static <T> T newInstance(Class<T> clazz) {
+    try {
+      Object instance = CONSTRUCTORS.get(clazz).invokeExact();
+      return clazz.cast(instance);
+    } catch (BeanUtilsException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new BeanUtilsException(e);
+    }
+  }
+
+  static PropertyCopier copier(Class<?> sourceClass, Class<?> targetClass) {
+    return COPIERS.get(sourceClass).computeIfAbsent(targetClass,
+        type -> new PropertyCopier(sourceClass, type));
+  }
+
+  /**
+   * @return the accessor of the field declared in the class or its super classes, or null if there
+   * is no such field
+   */
+  static FieldAccessor field(Class<?> clazz, String fieldName) {
+    ConcurrentMap<String, FieldAccessor> fields = FIELDS.get(clazz);
+    FieldAccessor accessor = fields.get(fieldName);
+    if (accessor != null) {
+      return accessor;
+    }
+    Field field = deepFindField(clazz, fieldName);
+    if (field == null) {
+      return null;
+    }
+    accessor = new FieldAccessor(field);
+    FieldAccessor existing = fields.putIfAbsent(fieldName, accessor);
+    return existing == null ? accessor : existing;
+  }
+
+  private static Field deepFindField(Class<?> clazz, String fieldName) {
+    while (clazz != null && clazz != Object.class) {
+      try {
+        return clazz.getDeclaredField(fieldName);
+      } catch (NoSuchFieldException e) {
+        clazz = clazz.getSuperclass();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Copies the properties which are readable in the source class and writable in the target class,
+   * following the same matching rules as Spring's {@code BeanUtils.copyProperties}.
+   */
+  static final class PropertyCopier {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<MethodHandle> getters = new ArrayList<>();
+    private final List<MethodHandle> setters = new ArrayList<>();
+
+    private PropertyCopier(Class<?> sourceClass, Class<?> targetClass) {
+      for (PropertyDescriptor targetPd : org.springframework.beans.BeanUtils.getPropertyDescriptors(targetClass)) {
+        Method writeMethod = targetPd.getWriteMethod();
+        if (writeMethod == null) {
+          continue;
+        }
+        PropertyDescriptor sourcePd =
+            org.springframework.beans.BeanUtils.getPropertyDescriptor(sourceClass, targetPd.getName());
+        Method readMethod = sourcePd == null ? null : sourcePd.getReadMethod();
+        if (readMethod == null || !isAssignable(readMethod, writeMethod)) {
+          continue;
+        }
+        ReflectionUtils.makeAccessible(readMethod);
+        ReflectionUtils.makeAccessible(writeMethod);
+        try {
+          getters.add(LOOKUP.unreflect(readMethod).asType(GETTER_TYPE));
+          setters.add(LOOKUP.unreflect(writeMethod).asType(SETTER_TYPE));
+        } catch (IllegalAccessException e) {
+          throw new BeanUtilsException(e);
+        }
+        names.add(targetPd.getName());
+      }
+    }
+
+    void copy(Object source, Object target, boolean ignoreNullValue, Collection<String> ignoreProperties) {
+      try {
+        for (int i = 0; i < names.size(); i++) {
+          if (!ignoreProperties.isEmpty() && ignoreProperties.contains(names.get(i))) {
+            continue;
+          }
+          Object value = getters.get(i).invokeExact(source);
+          if (value == null && ignoreNullValue) {
+            continue;
+          }
+          setters.get(i).invokeExact(target, value);
+        }
+      } catch (Throwable e) {
+        throw new BeanUtilsException(e);
+      }
+    }
+
+    private static boolean isAssignable(Method readMethod, Method writeMethod) {
+      ResolvableType sourceType = ResolvableType.forMethodReturnType(readMethod);
+      ResolvableType targetType = ResolvableType.forMethodParameter(writeMethod, 0);
+      if (sourceType.hasUnresolvableGenerics() || targetType.hasUnresolvableGenerics()) {
+        return ClassUtils.isAssignable(writeMethod.getParameterTypes()[0], readMethod.getReturnType());
+      }
+      return targetType.isAssignableFrom(sourceType);
+    }
+  }
+
+  static final class FieldAccessor {
+
+    private final Field field;
+    private final MethodHandle getter;
+    /**
+     * created on first write, since most fields are only read, e.g. by {@link BeanUtils#mapByKey}
+     */
+    private volatile MethodHandle setter;
+
+    private FieldAccessor(Field field) {
+      ReflectionUtils.makeAccessible(field);
+      this.field = field;
+      try {
+        getter = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+      } catch (IllegalAccessException e) {
+        throw new BeanUtilsException(e);
+      }
+    }
+
+    Object get(Object obj) {
+      try {
+        return getter.invokeExact(obj);
+      } catch (Throwable e) {
+        throw new BeanUtilsException(e);
+      }
+    }
+
+    void set(Object obj, Object value) {
+      try {
+        MethodHandle handle = setter;
+        if (handle == null) {
+          handle = LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+          setter = handle;
+        }
+        handle.invokeExact(obj, value);
+      } catch (Throwable e) {
+        throw new BeanUtilsException(e);
+      }
+    }
+  }
+}
@@ -18,13 +18,10 @@ package com.ctrip.framework.apollo.common.utils;
 
 import com.ctrip.framework.apollo.common.exception.BeanUtilsException;
 
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.util.CollectionUtils;
 
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -54,7 +51,8 @@ public class BeanUtils {
   }
 
   /**
-   * 封装{@link org.springframework.beans.BeanUtils#copyProperties}，惯用与直接将转换结果返回
+   * 按{@link org.springframework.beans.BeanUtils#copyProperties}的规则复制非空属性，惯用与直接将转换结果返回。
+   * 属性的读写方法按类对解析一次并缓存
    *
    * <pre>
    *      UserBean userBean = new UserBean("username");
@@ -65,31 +63,11 @@ public class BeanUtils {
     if (src == null) {
       return null;
     }
-    T instance;
-    try {
-      instance = clazz.newInstance();
-    } catch (Exception e) {
-      throw new BeanUtilsException(e);
-    }
-    org.springframework.beans.BeanUtils.copyProperties(src, instance, getNullPropertyNames(src));
+    T instance = BeanAccessors.newInstance(clazz);
+    BeanAccessors.copier(src.getClass(), clazz).copy(src, instance, true, Collections.emptySet());
     return instance;
   }
 
-  private static String[] getNullPropertyNames(Object source) {
-    final BeanWrapper src = new BeanWrapperImpl(source);
-    PropertyDescriptor[] pds = src.getPropertyDescriptors();
-
-    Set<String> emptyNames = new HashSet<>();
-    for (PropertyDescriptor pd : pds) {
-      Object srcValue = src.getPropertyValue(pd.getName());
-      if (srcValue == null) {
-          emptyNames.add(pd.getName());
-      }
-    }
-    String[] result = new String[emptyNames.size()];
-    return emptyNames.toArray(result);
-  }
-
   /**
    * 用于将一个列表转换为列表中的对象的某个属性映射到列表中的对象
    *
@@ -107,12 +85,7 @@ public class BeanUtils {
       return map;
     }
     try {
-      Class<?> clazz = list.get(0).getClass();
-      Field field = deepFindField(clazz, key);
-      if (field == null) {
-          throw new IllegalArgumentException("Could not find the key");
-      }
-      field.setAccessible(true);
+      BeanAccessors.FieldAccessor field = findField(list.get(0).getClass(), key);
       for (Object o : list) {
         map.put((K) field.get(o), (V) o);
       }
@@ -137,16 +110,10 @@ public class BeanUtils {
       return map;
     }
     try {
-      Class<?> clazz = list.get(0).getClass();
-      Field field = deepFindField(clazz, key);
-      if (field == null) {
-          throw new IllegalArgumentException("Could not find the key");
-      }
-      field.setAccessible(true);
+      BeanAccessors.FieldAccessor field = findField(list.get(0).getClass(), key);
       for (Object o : list) {
         K k = (K) field.get(o);
-        map.computeIfAbsent(k, k1 -> new ArrayList<>());
-        map.get(k).add((V) o);
+        map.computeIfAbsent(k, k1 -> new ArrayList<>()).add((V) o);
       }
     } catch (Exception e) {
       throw new BeanUtilsException(e);
@@ -169,12 +136,7 @@ public class BeanUtils {
       return set;
     }
     try {
-      Class<?> clazz = list.get(0).getClass();
-      Field field = deepFindField(clazz, key);
-      if (field == null) {
-          throw new IllegalArgumentException("Could not find the key");
-      }
-      field.setAccessible(true);
+      BeanAccessors.FieldAccessor field = findField(list.get(0).getClass(), key);
       for (Object o : list) {
         set.add((K)field.get(o));
       }
@@ -185,17 +147,10 @@ public class BeanUtils {
   }
 
 
-  private static Field deepFindField(Class<?> clazz, String key) {
-    Field field = null;
-    while (!clazz.getName().equals(Object.class.getName())) {
-      try {
-        field = clazz.getDeclaredField(key);
-        if (field != null) {
-          break;
-        }
-      } catch (Exception e) {
-        clazz = clazz.getSuperclass();
-      }
+  private static BeanAccessors.FieldAccessor findField(Class<?> clazz, String key) {
+    BeanAccessors.FieldAccessor field = BeanAccessors.field(clazz, key);
+    if (field == null) {
+      throw new IllegalArgumentException("Could not find the key");
     }
     return field;
   }
@@ -205,9 +160,8 @@ public class BeanUtils {
    */
   public static Object getProperty(Object obj, String fieldName) {
     try {
-      Field field = deepFindField(obj.getClass(), fieldName);
+      BeanAccessors.FieldAccessor field = BeanAccessors.field(obj.getClass(), fieldName);
       if (field != null) {
-        field.setAccessible(true);
         return field.get(obj);
       }
     } catch (Exception e) {
@@ -221,9 +175,8 @@ public class BeanUtils {
    */
   public static void setProperty(Object obj, String fieldName, Object value) {
     try {
-      Field field = deepFindField(obj.getClass(), fieldName);
+      BeanAccessors.FieldAccessor field = BeanAccessors.field(obj.getClass(), fieldName);
       if (field != null) {
-        field.setAccessible(true);
         field.set(obj, value);
       }
     } catch (Exception e) {
@@ -237,7 +190,8 @@ public class BeanUtils {
    * @param target
    */
   public static void copyProperties(Object source, Object target, String... ignoreProperties) {
-    org.springframework.beans.BeanUtils.copyProperties(source, target, ignoreProperties);
+    BeanAccessors.copier(source.getClass(), target.getClass())
+        .copy(source, target, false, ignoreProperties == null ? Collections.emptySet() : Arrays.asList(ignoreProperties));
   }
 
   /**
@@ -247,8 +201,10 @@ public class BeanUtils {
    * @param target
    */
   public static void copyEntityProperties(Object source, Object target) {
-    org.springframework.beans.BeanUtils.copyProperties(source, target, COPY_IGNORED_PROPERTIES);
+    BeanAccessors.copier(source.getClass(), target.getClass())
+        .copy(source, target, false, COPY_IGNORED_PROPERTIES);
   }
 
-  private static final String[] COPY_IGNORED_PROPERTIES = {"id", "dataChangeCreatedBy", "dataChangeCreatedTime", "dataChangeLastModifiedTime"};
+  private static final Set<String> COPY_IGNORED_PROPERTIES = new HashSet<>(
+      Arrays.asList("id", "dataChangeCreatedBy", "dataChangeCreatedTime", "dataChangeLastModifiedTime"));
 }
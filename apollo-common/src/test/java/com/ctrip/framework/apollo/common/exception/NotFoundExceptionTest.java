@@ -62,6 +62,9 @@ public class NotFoundExceptionTest {
   public void testReleaseNotFoundException() {
     NotFoundException exception = NotFoundException.releaseNotFound(66);
     assertEquals(exception.getMessage(), "release not found for releaseId:66");
+
+    exception = NotFoundException.latestReleaseNotFound(appId, clusterName, namespaceName);
+    assertEquals(exception.getMessage(), "latest release not found for appId:app-1001 clusterName:test namespaceName:application");
   }
 
   @Test
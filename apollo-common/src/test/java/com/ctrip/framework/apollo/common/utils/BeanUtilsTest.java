@@ -14,15 +14,18 @@
  */
 package com.ctrip.framework.apollo.common.utils;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.MockitoJUnitRunner;
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.exception.BeanUtilsException;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -123,4 +126,59 @@ public class BeanUtilsTest {
     assertNull(BeanUtils.getProperty(new KeyClass(), "keys"));
   }
 
+  @Test
+  public void testTransformIgnoresNullProperties() {
+    ItemDTO source = new ItemDTO("someKey", null, "someComment", 2);
+    source.setId(1);
+    source.setType(3);
+
+    ItemDTO target = BeanUtils.transform(ItemDTO.class, source);
+
+    assertEquals(1, target.getId());
+    assertEquals("someKey", target.getKey());
+    assertNull(target.getValue());
+    assertEquals("someComment", target.getComment());
+    assertEquals(2, target.getLineNum());
+    assertEquals(3, target.getType());
+  }
+
+  @Test
+  public void testCopyEntityProperties() {
+    ItemDTO source = new ItemDTO("someKey", null, "someComment", 2);
+    source.setId(1);
+    source.setDataChangeCreatedBy("someCreator");
+    source.setDataChangeLastModifiedBy("someModifier");
+    ItemDTO target = new ItemDTO("anotherKey", "anotherValue", "", 1);
+
+    BeanUtils.copyEntityProperties(source, target);
+
+    assertEquals(0, target.getId());
+    assertNull(target.getDataChangeCreatedBy());
+    assertEquals("someModifier", target.getDataChangeLastModifiedBy());
+    assertEquals("someKey", target.getKey());
+    assertNull(target.getValue());
+    assertEquals(2, target.getLineNum());
+  }
+
+  @Test
+  public void testCopyPropertiesWithIgnoredProperties() {
+    ItemDTO source = new ItemDTO("someKey", "someValue", "someComment", 2);
+    ItemDTO target = new ItemDTO("anotherKey", "anotherValue", "", 1);
+
+    BeanUtils.copyProperties(source, target, "value", "lineNum");
+
+    assertEquals("someKey", target.getKey());
+    assertEquals("anotherValue", target.getValue());
+    assertEquals("someComment", target.getComment());
+    assertEquals(1, target.getLineNum());
+  }
+
+  @Test
+  public void testGetAndSetPropertyOfExistingValue() {
+    KeyClass keyClass = new KeyClass();
+    BeanUtils.setProperty(keyClass, "keys", "value");
+    assertEquals("value", BeanUtils.getProperty(keyClass, "keys"));
+    assertEquals("value", BeanUtils.mapByKey("keys", Collections.singletonList(keyClass)).keySet().iterator().next());
+  }
+
 }
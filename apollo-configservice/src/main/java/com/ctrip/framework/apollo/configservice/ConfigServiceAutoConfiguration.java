@@ -32,6 +32,7 @@ import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigServiceWithCache;
 import com.ctrip.framework.apollo.configservice.service.config.DefaultConfigService;
 import com.ctrip.framework.apollo.configservice.util.AccessKeyUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -99,6 +100,7 @@ public class ConfigServiceAutoConfiguration {
     private final ConfigService configService;
     private final BizConfig bizConfig;
     private final ReleaseMessageRepository releaseMessageRepository;
+    private final MeterRegistry meterRegistry;
 
     public MessageScannerConfiguration(
         final NotificationController notificationController,
@@ -108,7 +110,8 @@ public class ConfigServiceAutoConfiguration {
         final ReleaseMessageServiceWithCache releaseMessageServiceWithCache,
         final ConfigService configService,
         final BizConfig bizConfig,
-        final ReleaseMessageRepository releaseMessageRepository) {
+        final ReleaseMessageRepository releaseMessageRepository,
+        final MeterRegistry meterRegistry) {
       this.notificationController = notificationController;
       this.configFileController = configFileController;
       this.notificationControllerV2 = notificationControllerV2;
@@ -117,12 +120,13 @@ public class ConfigServiceAutoConfiguration {
       this.configService = configService;
       this.bizConfig = bizConfig;
       this.releaseMessageRepository = releaseMessageRepository;
+      this.meterRegistry = meterRegistry;
     }
 
     @Bean
     public ReleaseMessageScanner releaseMessageScanner() {
       ReleaseMessageScanner releaseMessageScanner = new ReleaseMessageScanner(bizConfig,
-          releaseMessageRepository);
+          releaseMessageRepository, meterRegistry);
       //0. handle release message cache
       releaseMessageScanner.addMessageListener(releaseMessageServiceWithCache);
       //1. handle gray release rule
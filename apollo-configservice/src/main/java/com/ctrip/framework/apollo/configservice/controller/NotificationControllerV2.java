@@ -23,10 +23,12 @@ import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
 import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import com.ctrip.framework.apollo.configservice.metrics.NotificationMetrics;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.configservice.wrapper.SseEmitterWrapper;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
@@ -44,6 +46,7 @@ import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -51,6 +54,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.lang.reflect.Type;
 import java.util.Collection;
@@ -60,7 +64,9 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 /**
@@ -72,12 +78,18 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
   private static final Logger logger = LoggerFactory.getLogger(NotificationControllerV2.class);
   private final Multimap<String, DeferredResultWrapper> deferredResults =
       Multimaps.synchronizedSetMultimap(TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+  private final Multimap<String, SseEmitterWrapper> streamSubscribers =
+      Multimaps.synchronizedSetMultimap(TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+  private final Set<SseEmitterWrapper> streamConnections = Sets.newConcurrentHashSet();
+  private final Set<DeferredResultWrapper> longPollConnections = Sets.newConcurrentHashSet();
 
   private static final Type notificationsTypeReference =
       new TypeToken<List<ApolloConfigNotification>>() {
       }.getType();
 
   private final ExecutorService largeNotificationBatchExecutorService;
+  private final ScheduledExecutorService streamHeartbeatExecutorService;
+  private final AtomicBoolean streamHeartbeatStarted = new AtomicBoolean(false);
 
   private final WatchKeysUtil watchKeysUtil;
   private final ReleaseMessageServiceWithCache releaseMessageService;
@@ -85,6 +97,7 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
   private final NamespaceUtil namespaceUtil;
   private final Gson gson;
   private final BizConfig bizConfig;
+  private final NotificationMetrics notificationMetrics;
 
   public NotificationControllerV2(
       final WatchKeysUtil watchKeysUtil,
@@ -92,15 +105,19 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       final EntityManagerUtil entityManagerUtil,
       final NamespaceUtil namespaceUtil,
       final Gson gson,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig,
+      final NotificationMetrics notificationMetrics) {
     largeNotificationBatchExecutorService = Executors.newSingleThreadExecutor(ApolloThreadFactory.create
         ("NotificationControllerV2", true));
+    streamHeartbeatExecutorService = Executors.newSingleThreadScheduledExecutor(ApolloThreadFactory.create
+        ("NotificationControllerV2Heartbeat", true));
     this.watchKeysUtil = watchKeysUtil;
     this.releaseMessageService = releaseMessageService;
     this.entityManagerUtil = entityManagerUtil;
     this.namespaceUtil = namespaceUtil;
     this.gson = gson;
     this.bizConfig = bizConfig;
+    this.notificationMetrics = notificationMetrics;
   }
 
   @GetMapping
@@ -110,24 +127,8 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       @RequestParam(value = "notifications") String notificationsAsString,
       @RequestParam(value = "dataCenter", required = false) String dataCenter,
       @RequestParam(value = "ip", required = false) String clientIp) {
-    List<ApolloConfigNotification> notifications = null;
-
-    try {
-      notifications =
-          gson.fromJson(notificationsAsString, notificationsTypeReference);
-    } catch (Throwable ex) {
-      Tracer.logError(ex);
-    }
-
-    if (CollectionUtils.isEmpty(notifications)) {
-      throw BadRequestException.invalidNotificationsFormat(notificationsAsString);
-    }
-
-    Map<String, ApolloConfigNotification> filteredNotifications = filterNotifications(appId, notifications);
-
-    if (CollectionUtils.isEmpty(filteredNotifications)) {
-      throw BadRequestException.invalidNotificationsFormat(notificationsAsString);
-    }
+    Map<String, ApolloConfigNotification> filteredNotifications =
+        parseNotifications(appId, notificationsAsString);
 
     DeferredResultWrapper deferredResultWrapper = new DeferredResultWrapper(bizConfig.longPollingTimeoutInMilli());
     Set<String> namespaces = Sets.newHashSetWithExpectedSize(filteredNotifications.size());
@@ -153,14 +154,19 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
      * If the check before setting deferredResult,it may receive a notification the next time
      * when method handleMessage is executed between check and set deferredResult.
      */
-    deferredResultWrapper
-          .onTimeout(() -> logWatchedKeys(watchedKeys, "Apollo.LongPoll.TimeOutKeys"));
+    AtomicBoolean timeout = new AtomicBoolean(false);
+    deferredResultWrapper.onTimeout(() -> {
+      timeout.set(true);
+      logWatchedKeys(watchedKeys, "Apollo.LongPoll.TimeOutKeys");
+    });
 
     deferredResultWrapper.onCompletion(() -> {
       //unregister all keys
       for (String key : watchedKeys) {
         deferredResults.remove(key, deferredResultWrapper);
       }
+      longPollConnections.remove(deferredResultWrapper);
+      notificationMetrics.longPollingFinished(timeout.get());
       logWatchedKeys(watchedKeys, "Apollo.LongPoll.CompletedKeys");
     });
 
@@ -168,6 +174,8 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
     for (String key : watchedKeys) {
       this.deferredResults.put(key, deferredResultWrapper);
     }
+    longPollConnections.add(deferredResultWrapper);
+    notificationMetrics.longPollingRegistered();
 
     logWatchedKeys(watchedKeys, "Apollo.LongPoll.RegisteredKeys");
     logger.debug("Listening {} from appId: {}, cluster: {}, namespace: {}, datacenter: {}",
@@ -198,6 +206,149 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
     return deferredResultWrapper.getResult();
   }
 
+  /**
+   * Streaming variant of {@link #pollNotification}: the client stays registered across many changes and
+   * receives every new notification as a server-sent event, so it doesn't need to re-issue the request
+   * after each change. The notification ids passed in are the resume point, anything newer is pushed
+   * right after registration.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamNotification(
+      @RequestParam(value = "appId") String appId,
+      @RequestParam(value = "cluster") String cluster,
+      @RequestParam(value = "notifications") String notificationsAsString,
+      @RequestParam(value = "dataCenter", required = false) String dataCenter,
+      @RequestParam(value = "ip", required = false) String clientIp) {
+    Map<String, ApolloConfigNotification> filteredNotifications =
+        parseNotifications(appId, notificationsAsString);
+
+    Set<String> namespaces = Sets.newHashSetWithExpectedSize(filteredNotifications.size());
+    Map<String, Long> clientSideNotifications = Maps.newHashMapWithExpectedSize(filteredNotifications.size());
+
+    for (Map.Entry<String, ApolloConfigNotification> notificationEntry : filteredNotifications.entrySet()) {
+      namespaces.add(notificationEntry.getKey());
+      clientSideNotifications.put(notificationEntry.getKey(), notificationEntry.getValue().getNotificationId());
+    }
+
+    SseEmitterWrapper sseEmitterWrapper =
+        new SseEmitterWrapper(bizConfig.notificationStreamTimeoutInMilli(), clientSideNotifications);
+
+    for (Map.Entry<String, ApolloConfigNotification> notificationEntry : filteredNotifications.entrySet()) {
+      String normalizedNamespace = notificationEntry.getKey();
+      ApolloConfigNotification notification = notificationEntry.getValue();
+      if (!Objects.equals(notification.getNamespaceName(), normalizedNamespace)) {
+        sseEmitterWrapper.recordNamespaceNameNormalizedResult(notification.getNamespaceName(), normalizedNamespace);
+      }
+    }
+
+    Multimap<String, String> watchedKeysMap =
+        watchKeysUtil.assembleAllWatchKeys(appId, cluster, namespaces, dataCenter);
+
+    Set<String> watchedKeys = Sets.newHashSet(watchedKeysMap.values());
+
+    // same as long polling, register before the check so that no release message is missed
+    sseEmitterWrapper.onTimeout(sseEmitterWrapper::close);
+    sseEmitterWrapper.onError(sseEmitterWrapper::close);
+    sseEmitterWrapper.onCompletion(() -> {
+      //unregister all keys
+      for (String key : watchedKeys) {
+        streamSubscribers.remove(key, sseEmitterWrapper);
+      }
+      if (streamConnections.remove(sseEmitterWrapper)) {
+        notificationMetrics.streamClosed();
+      }
+      logWatchedKeys(watchedKeys, "Apollo.NotificationStream.CompletedKeys");
+    });
+
+    //register all keys
+    for (String key : watchedKeys) {
+      this.streamSubscribers.put(key, sseEmitterWrapper);
+    }
+    streamConnections.add(sseEmitterWrapper);
+    notificationMetrics.streamOpened();
+    startStreamHeartbeatIfNecessary();
+
+    logWatchedKeys(watchedKeys, "Apollo.NotificationStream.RegisteredKeys");
+    logger.debug("Streaming {} from appId: {}, cluster: {}, namespace: {}, datacenter: {}",
+        watchedKeys, appId, cluster, namespaces, dataCenter);
+
+    List<ReleaseMessage> latestReleaseMessages =
+        releaseMessageService.findLatestReleaseMessagesGroupByMessages(watchedKeys);
+
+    // the connection is held even longer than long polling, so release the db connection right away
+    entityManagerUtil.closeEntityManager();
+
+    List<ApolloConfigNotification> newNotifications =
+        getApolloConfigNotifications(namespaces, clientSideNotifications, watchedKeysMap,
+            latestReleaseMessages);
+
+    if (!CollectionUtils.isEmpty(newNotifications)) {
+      sseEmitterWrapper.send(newNotifications);
+    }
+
+    return sseEmitterWrapper.getEmitter();
+  }
+
+  /**
+   * Complete some of the pending long polling requests with 304, the clients then poll again and may pick
+   * another config service
+   *
+   * @return the number of requests actually completed
+   */
+  public int shedLongPolls(int count) {
+    int shed = 0;
+    for (DeferredResultWrapper longPollConnection : longPollConnections) {
+      if (shed >= count) {
+        break;
+      }
+      if (longPollConnections.remove(longPollConnection) && longPollConnection.setNotModified()) {
+        shed++;
+      }
+    }
+    return shed;
+  }
+
+  private Map<String, ApolloConfigNotification> parseNotifications(String appId, String notificationsAsString) {
+    List<ApolloConfigNotification> notifications = null;
+
+    try {
+      notifications =
+          gson.fromJson(notificationsAsString, notificationsTypeReference);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+    }
+
+    if (CollectionUtils.isEmpty(notifications)) {
+      throw BadRequestException.invalidNotificationsFormat(notificationsAsString);
+    }
+
+    Map<String, ApolloConfigNotification> filteredNotifications = filterNotifications(appId, notifications);
+
+    if (CollectionUtils.isEmpty(filteredNotifications)) {
+      throw BadRequestException.invalidNotificationsFormat(notificationsAsString);
+    }
+    return filteredNotifications;
+  }
+
+  private void startStreamHeartbeatIfNecessary() {
+    if (!streamHeartbeatStarted.compareAndSet(false, true)) {
+      return;
+    }
+    int interval = bizConfig.notificationStreamHeartbeatInterval();
+    streamHeartbeatExecutorService.scheduleWithFixedDelay(this::sendStreamHeartbeats, interval, interval,
+        bizConfig.notificationStreamHeartbeatIntervalTimeUnit());
+  }
+
+  private void sendStreamHeartbeats() {
+    try {
+      for (SseEmitterWrapper streamConnection : Lists.newArrayList(streamConnections)) {
+        streamConnection.heartbeat();
+      }
+    } catch (Throwable ex) {
+      logger.error("Send notification stream heartbeats failed", ex);
+    }
+  }
+
   private Map<String, ApolloConfigNotification> filterNotifications(String appId,
                                                                     List<ApolloConfigNotification> notifications) {
     Map<String, ApolloConfigNotification> filteredNotifications = Maps.newHashMap();
@@ -274,6 +425,8 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       return;
     }
 
+    notifyStreamSubscribers(message, content, changedNamespace);
+
     if (!deferredResults.containsKey(content)) {
       return;
     }
@@ -289,6 +442,7 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       largeNotificationBatchExecutorService.submit(() -> {
         logger.debug("Async notify {} clients for key {} with batch {}", results.size(), content,
             bizConfig.releaseMessageNotificationBatch());
+        long start = System.nanoTime();
         for (int i = 0; i < results.size(); i++) {
           if (i > 0 && i % bizConfig.releaseMessageNotificationBatch() == 0) {
             try {
@@ -300,18 +454,58 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
           logger.debug("Async notify {}", results.get(i));
           results.get(i).setResult(configNotification);
         }
+        notificationMetrics.longPollingFanOut(results.size(), System.nanoTime() - start);
+        notificationMetrics.releaseMessageNotified(message.getDataChangeLastModifiedTime());
       });
       return;
     }
 
     logger.debug("Notify {} clients for key {}", results.size(), content);
 
+    long start = System.nanoTime();
     for (DeferredResultWrapper result : results) {
       result.setResult(configNotification);
     }
+    notificationMetrics.longPollingFanOut(results.size(), System.nanoTime() - start);
+    notificationMetrics.releaseMessageNotified(message.getDataChangeLastModifiedTime());
     logger.debug("Notification completed");
   }
 
+  private void notifyStreamSubscribers(ReleaseMessage message, String content, String changedNamespace) {
+    if (!streamSubscribers.containsKey(content)) {
+      return;
+    }
+
+    //create a new list to avoid ConcurrentModificationException
+    List<SseEmitterWrapper> subscribers = Lists.newArrayList(streamSubscribers.get(content));
+
+    ApolloConfigNotification configNotification = new ApolloConfigNotification(changedNamespace, message.getId());
+    configNotification.addMessage(content, message.getId());
+
+    //writing to the connections is blocking io, so do it async if too many clients
+    if (subscribers.size() > bizConfig.releaseMessageNotificationBatch()) {
+      largeNotificationBatchExecutorService.submit(() -> {
+        logger.debug("Async stream {} clients for key {}", subscribers.size(), content);
+        doNotifyStreamSubscribers(message, subscribers, configNotification);
+      });
+      return;
+    }
+
+    logger.debug("Stream {} clients for key {}", subscribers.size(), content);
+
+    doNotifyStreamSubscribers(message, subscribers, configNotification);
+  }
+
+  private void doNotifyStreamSubscribers(ReleaseMessage message, List<SseEmitterWrapper> subscribers,
+      ApolloConfigNotification configNotification) {
+    long start = System.nanoTime();
+    for (SseEmitterWrapper subscriber : subscribers) {
+      subscriber.send(configNotification);
+    }
+    notificationMetrics.streamFanOut(subscribers.size(), System.nanoTime() - start);
+    notificationMetrics.releaseMessageNotified(message.getDataChangeLastModifiedTime());
+  }
+
   private static final Function<String, String> retrieveNamespaceFromReleaseMessage =
       releaseMessage -> {
         if (Strings.isNullOrEmpty(releaseMessage)) {
@@ -325,6 +519,9 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
       };
 
   private void logWatchedKeys(Set<String> watchedKeys, String eventName) {
+    if (!bizConfig.isLongPollingWatchedKeysTracingEnabled()) {
+      return;
+    }
     for (String watchedKey : watchedKeys) {
       Tracer.logEvent(eventName, watchedKey);
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.metrics;
+
+import com.ctrip.framework.apollo.biz.registry.ServiceInstanceMetadataContributor;
+import com.ctrip.framework.apollo.metaservice.service.ConfigServiceLoad;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * Report the notification connections and cpu usage of this instance with the registry heartbeat, so the
+ * meta service could route the clients to the less loaded config services.
+ * <p>
+ * The load is only written to the registry by a full heartbeat, so a change larger than
+ * {@link #CONNECTIONS_CHANGE_PERCENT} of the connections (at least {@link #MIN_CONNECTIONS_CHANGE}) or
+ * {@link #CPU_CHANGE} of the cpu usage is reported as material to have it published in the next heartbeat.
+ */
+@Component
+public class ConfigServiceLoadReporter implements ServiceInstanceMetadataContributor {
+
+  static final int CONNECTIONS_CHANGE_PERCENT = 20;
+  static final int MIN_CONNECTIONS_CHANGE = 50;
+  static final double CPU_CHANGE = 0.2;
+
+  private final NotificationMetrics notificationMetrics;
+  private final OperatingSystemMXBean operatingSystem;
+  /**
+   * the load last reported as a material change
+   */
+  private ConfigServiceLoad lastPublishedLoad;
+
+  public ConfigServiceLoadReporter(final NotificationMetrics notificationMetrics) {
+    this(notificationMetrics, ManagementFactory.getOperatingSystemMXBean());
+  }
+
+  ConfigServiceLoadReporter(NotificationMetrics notificationMetrics,
+      OperatingSystemMXBean operatingSystem) {
+    this.notificationMetrics = notificationMetrics;
+    this.operatingSystem = operatingSystem;
+  }
+
+  @Override
+  public boolean contribute(Map<String, String> metadata) {
+    ConfigServiceLoad load = new ConfigServiceLoad(notificationMetrics.activeConnections(),
+        notificationMetrics.activeLongPolls(), cpuUsage(), System.currentTimeMillis());
+    load.writeTo(metadata);
+    if (lastPublishedLoad == null) {
+      // the first heartbeat is a full one
+      lastPublishedLoad = load;
+      return false;
+    }
+    if (!changedMaterially(lastPublishedLoad, load)) {
+      return false;
+    }
+    lastPublishedLoad = load;
+    return true;
+  }
+
+  private static boolean changedMaterially(ConfigServiceLoad previous, ConfigServiceLoad current) {
+    int connectionsChange = Math.abs(current.getConnections() - previous.getConnections());
+    if (connectionsChange >= Math.max(MIN_CONNECTIONS_CHANGE,
+        previous.getConnections() * CONNECTIONS_CHANGE_PERCENT / 100)) {
+      return true;
+    }
+    // cpu usage is negative if unknown
+    return previous.getCpu() >= 0 && current.getCpu() >= 0
+        && Math.abs(current.getCpu() - previous.getCpu()) >= CPU_CHANGE;
+  }
+
+  /**
+   * @return process cpu usage between 0 and 1, or the system load average per processor if not supported
+   */
+  double cpuUsage() {
+    if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+      double processCpuLoad = ((com.sun.management.OperatingSystemMXBean) operatingSystem).getProcessCpuLoad();
+      if (processCpuLoad >= 0) {
+        return processCpuLoad;
+      }
+    }
+    double loadAverage = operatingSystem.getSystemLoadAverage();
+    if (loadAverage < 0) {
+      return -1;
+    }
+    return Math.min(1, loadAverage / operatingSystem.getAvailableProcessors());
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the notification (long polling and streaming) channels
+ */
+@Component
+public class NotificationMetrics {
+
+  private static final String LONG_POLLING_ACTIVE = "apollo.notification.long-polling.active";
+  private static final String LONG_POLLING_REGISTRATIONS = "apollo.notification.long-polling.registrations";
+  private static final String LONG_POLLING_RESULTS = "apollo.notification.long-polling.results";
+  private static final String LONG_POLLING_SHED = "apollo.notification.long-polling.shed";
+  private static final String STREAM_ACTIVE = "apollo.notification.stream.active";
+  private static final String FAN_OUT_SIZE = "apollo.notification.fan-out.size";
+  private static final String FAN_OUT_DURATION = "apollo.notification.fan-out.duration";
+  private static final String MESSAGE_LATENCY = "apollo.notification.release-message.latency";
+  private static final String CHANNEL_LONG_POLLING = "long-polling";
+  private static final String CHANNEL_STREAM = "stream";
+
+  private final AtomicInteger activeLongPolls = new AtomicInteger();
+  private final AtomicInteger activeStreams = new AtomicInteger();
+
+  private final Counter longPollingRegistrations;
+  private final Counter longPollingTimeouts;
+  private final Counter longPollingCompleted;
+  private final Counter longPollingShed;
+  private final DistributionSummary longPollingFanOutSize;
+  private final Timer longPollingFanOutDuration;
+  private final DistributionSummary streamFanOutSize;
+  private final Timer streamFanOutDuration;
+  private final Timer messageLatency;
+
+  public NotificationMetrics(final MeterRegistry meterRegistry) {
+    Gauge.builder(LONG_POLLING_ACTIVE, activeLongPolls, AtomicInteger::get)
+        .description("concurrent long polling requests")
+        .register(meterRegistry);
+    Gauge.builder(STREAM_ACTIVE, activeStreams, AtomicInteger::get)
+        .description("concurrent notification stream connections")
+        .register(meterRegistry);
+    longPollingRegistrations = Counter.builder(LONG_POLLING_REGISTRATIONS)
+        .description("long polling requests registered")
+        .register(meterRegistry);
+    longPollingTimeouts = Counter.builder(LONG_POLLING_RESULTS)
+        .tag("result", "timeout")
+        .register(meterRegistry);
+    longPollingCompleted = Counter.builder(LONG_POLLING_RESULTS)
+        .tag("result", "completed")
+        .register(meterRegistry);
+    longPollingShed = Counter.builder(LONG_POLLING_SHED)
+        .description("long polling requests completed early to rebalance the clients")
+        .register(meterRegistry);
+    longPollingFanOutSize = fanOutSize(meterRegistry, CHANNEL_LONG_POLLING);
+    longPollingFanOutDuration = fanOutDuration(meterRegistry, CHANNEL_LONG_POLLING);
+    streamFanOutSize = fanOutSize(meterRegistry, CHANNEL_STREAM);
+    streamFanOutDuration = fanOutDuration(meterRegistry, CHANNEL_STREAM);
+    messageLatency = Timer.builder(MESSAGE_LATENCY)
+        .description("time from release message creation to client notification")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+
+  public void longPollingRegistered() {
+    longPollingRegistrations.increment();
+    activeLongPolls.incrementAndGet();
+  }
+
+  /**
+   * Invoked when a long polling request finishes, no matter it's timeout or not
+   *
+   * @param timeout whether the request is finished by timeout
+   */
+  public void longPollingFinished(boolean timeout) {
+    activeLongPolls.decrementAndGet();
+    if (timeout) {
+      longPollingTimeouts.increment();
+    } else {
+      longPollingCompleted.increment();
+    }
+  }
+
+  public void longPollingShed(int count) {
+    longPollingShed.increment(count);
+  }
+
+  public void streamOpened() {
+    activeStreams.incrementAndGet();
+  }
+
+  public void streamClosed() {
+    activeStreams.decrementAndGet();
+  }
+
+  /**
+   * @return the long polling requests and stream connections currently held by this instance
+   */
+  public int activeConnections() {
+    return activeLongPolls.get() + activeStreams.get();
+  }
+
+  /**
+   * @return the long polling requests currently held by this instance
+   */
+  public int activeLongPolls() {
+    return activeLongPolls.get();
+  }
+
+  public void longPollingFanOut(int clients, long durationInNanos) {
+    longPollingFanOutSize.record(clients);
+    longPollingFanOutDuration.record(durationInNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void streamFanOut(int clients, long durationInNanos) {
+    streamFanOutSize.record(clients);
+    streamFanOutDuration.record(durationInNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void releaseMessageNotified(Date releaseMessageCreatedTime) {
+    if (releaseMessageCreatedTime == null) {
+      return;
+    }
+    long latency = System.currentTimeMillis() - releaseMessageCreatedTime.getTime();
+    // clocks of admin service and config service may drift a little
+    messageLatency.record(Math.max(latency, 0), TimeUnit.MILLISECONDS);
+  }
+
+  private static DistributionSummary fanOutSize(MeterRegistry meterRegistry, String channel) {
+    return DistributionSummary.builder(FAN_OUT_SIZE)
+        .description("clients notified per release message")
+        .tag("channel", channel)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+
+  private static Timer fanOutDuration(MeterRegistry meterRegistry, String channel) {
+    return Timer.builder(FAN_OUT_DURATION)
+        .description("time to notify all the clients of a release message")
+        .tag("channel", channel)
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstance;
+import com.ctrip.framework.apollo.configservice.controller.NotificationControllerV2;
+import com.ctrip.framework.apollo.configservice.metrics.NotificationMetrics;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.metaservice.service.ConfigServiceLoad;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.collect.Maps;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+/**
+ * Clients keep polling the same config service until it fails, so the config services added by a scale-out stay
+ * idle while the old ones hold most of the connections. When enabled, this instance compares its long polling
+ * requests with the ones its peers report through the database registry, and if it's overloaded, completes
+ * some of them with 304 so those clients poll again through the discovery. Stream connections are not counted
+ * since they can't be shed.
+ * <p>
+ * The loads in the registry are refreshed by the full heartbeats only, so after a shed, the next round is skipped
+ * until every peer has reported a newer load, otherwise the same excess would be shed again.
+ */
+@Service
+public class LongPollingRebalancer implements InitializingBean {
+  private static final Logger logger = LoggerFactory.getLogger(LongPollingRebalancer.class);
+
+  private final BizConfig bizConfig;
+  private final NotificationControllerV2 notificationController;
+  private final NotificationMetrics notificationMetrics;
+  private final ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClient;
+  private final ObjectProvider<ServiceInstance> selfInstance;
+  private final ScheduledExecutorService scheduledExecutorService;
+  /**
+   * peer uri -> the report time of its load when this instance shed last time
+   */
+  private volatile Map<String, Long> peerReportTimesOfLastShed = Collections.emptyMap();
+
+  public LongPollingRebalancer(
+      final BizConfig bizConfig,
+      final NotificationControllerV2 notificationController,
+      final NotificationMetrics notificationMetrics,
+      final ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClient,
+      final ObjectProvider<ServiceInstance> selfInstance) {
+    this.bizConfig = bizConfig;
+    this.notificationController = notificationController;
+    this.notificationMetrics = notificationMetrics;
+    this.databaseDiscoveryClient = databaseDiscoveryClient;
+    this.selfInstance = selfInstance;
+    scheduledExecutorService = Executors.newScheduledThreadPool(1, ApolloThreadFactory
+        .create("LongPollingRebalancer", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    int interval = bizConfig.longPollingRebalanceInterval();
+    scheduledExecutorService.scheduleWithFixedDelay(() -> {
+      Transaction transaction = Tracer.newTransaction("Apollo.LongPollingRebalancer", "rebalance");
+      try {
+        rebalance();
+        transaction.setStatus(Transaction.SUCCESS);
+      } catch (Throwable ex) {
+        transaction.setStatus(ex);
+        logger.error("Rebalance long polling requests failed", ex);
+      } finally {
+        transaction.complete();
+      }
+    }, interval, interval, bizConfig.longPollingRebalanceIntervalTimeUnit());
+  }
+
+  /**
+   * @return the number of long polling requests shed
+   */
+  int rebalance() {
+    if (!bizConfig.isLongPollingRebalanceEnabled()) {
+      return 0;
+    }
+    Map<String, ConfigServiceLoad> peerLoads = findPeerLoads();
+    if (peerLoads.isEmpty()) {
+      // no peer to compare with
+      return 0;
+    }
+    if (!peerLoadsRefreshedSinceLastShed(peerLoads)) {
+      Tracer.logEvent("Apollo.LongPoll.Shed.Skipped", "stale peer loads");
+      return 0;
+    }
+    int toShed = longPollsToShed(peerLoads);
+    if (toShed <= 0) {
+      return 0;
+    }
+    int shed = notificationController.shedLongPolls(toShed);
+    if (shed > 0) {
+      Map<String, Long> peerReportTimes = Maps.newHashMapWithExpectedSize(peerLoads.size());
+      peerLoads.forEach((uri, load) -> peerReportTimes.put(uri, load.getReportTime()));
+      peerReportTimesOfLastShed = peerReportTimes;
+      notificationMetrics.longPollingShed(shed);
+      Tracer.logEvent("Apollo.LongPoll.Shed", String.valueOf(shed));
+      logger.info("Shed {} long polling requests to rebalance the clients", shed);
+    }
+    return shed;
+  }
+
+  /**
+   * @return peer uri -> load, excluding the peers not reporting their loads
+   */
+  private Map<String, ConfigServiceLoad> findPeerLoads() {
+    DatabaseDiscoveryClient discoveryClient = databaseDiscoveryClient.getIfAvailable();
+    ServiceInstance self = selfInstance.getIfAvailable();
+    if (discoveryClient == null || self == null) {
+      return Collections.emptyMap();
+    }
+
+    Map<String, ConfigServiceLoad> peerLoads = Maps.newHashMap();
+    for (ServiceInstance instance : discoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE)) {
+      if (Objects.equals(self.getUri(), instance.getUri())) {
+        continue;
+      }
+      ConfigServiceLoad load = ConfigServiceLoad.fromMetadata(instance.getMetadata());
+      if (load != null) {
+        peerLoads.put(instance.getUri().toString(), load);
+      }
+    }
+    return peerLoads;
+  }
+
+  private boolean peerLoadsRefreshedSinceLastShed(Map<String, ConfigServiceLoad> peerLoads) {
+    Map<String, Long> lastReportTimes = peerReportTimesOfLastShed;
+    for (Map.Entry<String, ConfigServiceLoad> entry : peerLoads.entrySet()) {
+      long reportTime = entry.getValue().getReportTime();
+      // the peers not reporting the time are not waited for
+      if (reportTime >= 0 && Objects.equals(lastReportTimes.get(entry.getKey()), reportTime)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int longPollsToShed(Map<String, ConfigServiceLoad> peerLoads) {
+    int longPolls = notificationMetrics.activeLongPolls();
+    long totalLongPolls = longPolls;
+    for (ConfigServiceLoad load : peerLoads.values()) {
+      totalLongPolls += load.getLongPolls();
+    }
+
+    double average = (double) totalLongPolls / (peerLoads.size() + 1);
+    if (longPolls <= average * bizConfig.longPollingRebalanceOverloadPercent() / 100) {
+      return 0;
+    }
+    int excess = (int) Math.ceil((longPolls - average) * bizConfig.longPollingRebalanceShedPercent() / 100);
+    return Math.min(excess, bizConfig.longPollingRebalanceMaxShed());
+  }
+}
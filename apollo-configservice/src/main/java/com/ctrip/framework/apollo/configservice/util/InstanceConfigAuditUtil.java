@@ -105,6 +105,7 @@ public class InstanceConfigAuditUtil implements InitializingBean {
         .getConfigAppId(), auditModel.getConfigNamespace());
 
     if (instanceConfig != null) {
+      String previousConfigClusterName = instanceConfig.getConfigClusterName();
       if (!Objects.equals(instanceConfig.getReleaseKey(), auditModel.getReleaseKey())) {
         instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
         instanceConfig.setReleaseKey(auditModel.getReleaseKey());
@@ -118,6 +119,13 @@ public class InstanceConfigAuditUtil implements InitializingBean {
       //last modified time is updated each day
       instanceConfig.setDataChangeLastModifiedTime(auditModel.getOfferTime());
       instanceService.updateInstanceConfig(instanceConfig);
+      //the instance switched to another cluster, e.g. the cluster specific release is created or deleted
+      if (!Objects.equals(previousConfigClusterName, instanceConfig.getConfigClusterName())) {
+        instanceService.increaseInstanceCount(instanceConfig.getConfigAppId(), previousConfigClusterName,
+            instanceConfig.getConfigNamespaceName(), -1);
+        instanceService.increaseInstanceCount(instanceConfig.getConfigAppId(),
+            instanceConfig.getConfigClusterName(), instanceConfig.getConfigNamespaceName(), 1);
+      }
       return;
     }
 
@@ -132,6 +140,8 @@ public class InstanceConfigAuditUtil implements InitializingBean {
 
     try {
       instanceService.createInstanceConfig(instanceConfig);
+      instanceService.increaseInstanceCount(auditModel.getConfigAppId(), auditModel.getConfigClusterName(),
+          auditModel.getConfigNamespace(), 1);
     } catch (DataIntegrityViolationException ex) {
       //concurrent insertion, safe to ignore
     }
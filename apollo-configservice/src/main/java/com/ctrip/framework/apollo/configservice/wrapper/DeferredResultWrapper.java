@@ -78,6 +78,15 @@ public class DeferredResultWrapper implements Comparable<DeferredResultWrapper>
     result.setResult(new ResponseEntity<>(notifications, HttpStatus.OK));
   }
 
+  /**
+   * Complete the request as if there is no change, so the client polls again, probably on another config service
+   *
+   * @return false if the request is already completed
+   */
+  public boolean setNotModified() {
+    return result.setResult(NOT_MODIFIED_RESPONSE_LIST);
+  }
+
   public DeferredResult<ResponseEntity<List<ApolloConfigNotification>>> getResult() {
     return result;
   }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Wraps a long lived server-sent events connection, which stays registered across many changes
+ * instead of being completed by the first notification like {@link DeferredResultWrapper}.
+ */
+public class SseEmitterWrapper implements Comparable<SseEmitterWrapper> {
+  private static final String NOTIFICATION_EVENT_NAME = "notification";
+  private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+  private final SseEmitter emitter;
+  /**
+   * normalized namespace name -> latest notification id known by the client
+   */
+  private final Map<String, Long> notificationIds;
+  private Map<String, String> normalizedNamespaceNameToOriginalNamespaceName;
+  private volatile boolean closed;
+
+  public SseEmitterWrapper(long timeoutInMilli, Map<String, Long> clientSideNotifications) {
+    emitter = new SseEmitter(timeoutInMilli);
+    notificationIds = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    notificationIds.putAll(clientSideNotifications);
+  }
+
+  public void recordNamespaceNameNormalizedResult(String originalNamespaceName, String normalizedNamespaceName) {
+    if (normalizedNamespaceNameToOriginalNamespaceName == null) {
+      normalizedNamespaceNameToOriginalNamespaceName = Maps.newHashMap();
+    }
+    normalizedNamespaceNameToOriginalNamespaceName.put(normalizedNamespaceName, originalNamespaceName);
+  }
+
+  public void onTimeout(Runnable timeoutCallback) {
+    emitter.onTimeout(timeoutCallback);
+  }
+
+  public void onCompletion(Runnable completionCallback) {
+    emitter.onCompletion(completionCallback);
+  }
+
+  public void onError(Runnable errorCallback) {
+    emitter.onError(throwable -> errorCallback.run());
+  }
+
+  public void send(ApolloConfigNotification notification) {
+    send(Lists.newArrayList(notification));
+  }
+
+  /**
+   * Push the notifications which are newer than what the client already knows, so the catch up
+   * check and the release message fan-out could race without sending duplicates.
+   *
+   * @return false if the connection is broken and should be unregistered
+   */
+  public boolean send(List<ApolloConfigNotification> notifications) {
+    if (closed) {
+      return false;
+    }
+    List<ApolloConfigNotification> newNotifications = Lists.newArrayListWithCapacity(notifications.size());
+    long eventId = 0;
+    synchronized (notificationIds) {
+      for (ApolloConfigNotification notification : notifications) {
+        Long knownId = notificationIds.get(notification.getNamespaceName());
+        if (knownId != null && knownId >= notification.getNotificationId()) {
+          continue;
+        }
+        notificationIds.put(notification.getNamespaceName(), notification.getNotificationId());
+        newNotifications.add(copyWithOriginalNamespaceName(notification));
+        eventId = Math.max(eventId, notification.getNotificationId());
+      }
+    }
+    if (newNotifications.isEmpty()) {
+      return true;
+    }
+
+    try {
+      emitter.send(SseEmitter.event()
+          .id(String.valueOf(eventId))
+          .name(NOTIFICATION_EVENT_NAME)
+          .data(newNotifications, MediaType.APPLICATION_JSON));
+      return true;
+    } catch (IOException | IllegalStateException ex) {
+      close();
+      return false;
+    }
+  }
+
+  /**
+   * @return false if the connection is broken and should be unregistered
+   */
+  public boolean heartbeat() {
+    if (closed) {
+      return false;
+    }
+    try {
+      emitter.send(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+      return true;
+    } catch (IOException | IllegalStateException ex) {
+      close();
+      return false;
+    }
+  }
+
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    emitter.complete();
+  }
+
+  public SseEmitter getEmitter() {
+    return emitter;
+  }
+
+  /**
+   * The namespace name is used as a key in client side, so we have to return the original one instead of the correct one
+   */
+  private ApolloConfigNotification copyWithOriginalNamespaceName(ApolloConfigNotification notification) {
+    String namespaceName = notification.getNamespaceName();
+    if (normalizedNamespaceNameToOriginalNamespaceName != null
+        && normalizedNamespaceNameToOriginalNamespaceName.containsKey(namespaceName)) {
+      namespaceName = normalizedNamespaceNameToOriginalNamespaceName.get(namespaceName);
+    }
+    ApolloConfigNotification copy = new ApolloConfigNotification(namespaceName, notification.getNotificationId());
+    copy.setMessages(notification.getMessages());
+    return copy;
+  }
+
+  @Override
+  public int compareTo(@NonNull SseEmitterWrapper sseEmitterWrapper) {
+    return Integer.compare(this.hashCode(), sseEmitterWrapper.hashCode());
+  }
+}
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.metaservice.controller;
 
 import com.ctrip.framework.apollo.core.ServiceNameConsts;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.metaservice.service.ConfigServiceRouter;
 import com.ctrip.framework.apollo.metaservice.service.DiscoveryService;
 import java.util.Collections;
 import java.util.List;
@@ -30,9 +31,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class ServiceController {
 
   private final DiscoveryService discoveryService;
+  private final ConfigServiceRouter configServiceRouter;
 
-  public ServiceController(final DiscoveryService discoveryService) {
+  public ServiceController(final DiscoveryService discoveryService,
+      final ConfigServiceRouter configServiceRouter) {
     this.discoveryService = discoveryService;
+    this.configServiceRouter = configServiceRouter;
   }
 
   /**
@@ -48,7 +52,8 @@ public class ServiceController {
   public List<ServiceDTO> getConfigService(
       @RequestParam(value = "appId", defaultValue = "") String appId,
       @RequestParam(value = "ip", required = false) String clientIp) {
-    return discoveryService.getServiceInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+    return configServiceRouter.route(
+        discoveryService.getServiceInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE), appId, clientIp);
   }
 
   @RequestMapping("/admin")
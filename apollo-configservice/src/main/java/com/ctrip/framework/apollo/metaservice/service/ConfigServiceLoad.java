@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.metaservice.service;
+
+import com.google.common.base.Strings;
+import java.util.Map;
+
+/**
+ * The load of a config service instance, which is reported through the metadata of the registry
+ */
+public class ConfigServiceLoad {
+
+  public static final String CONNECTIONS_METADATA_KEY = "apollo.load.connections";
+  public static final String LONG_POLLS_METADATA_KEY = "apollo.load.long-polls";
+  public static final String CPU_METADATA_KEY = "apollo.load.cpu";
+  public static final String REPORT_TIME_METADATA_KEY = "apollo.load.time";
+
+  /**
+   * long polling requests and stream connections
+   */
+  private final int connections;
+  private final int longPolls;
+  /**
+   * process cpu usage between 0 and 1, negative if unknown
+   */
+  private final double cpu;
+  /**
+   * the time in millis of the reporter when the load is measured, negative if unknown
+   */
+  private final long reportTime;
+
+  public ConfigServiceLoad(int connections, int longPolls, double cpu, long reportTime) {
+    this.connections = connections;
+    this.longPolls = longPolls;
+    this.cpu = cpu;
+    this.reportTime = reportTime;
+  }
+
+  /**
+   * @return null if the instance doesn't report its load, e.g. it's an old version
+   */
+  public static ConfigServiceLoad fromMetadata(Map<String, String> metadata) {
+    if (metadata == null) {
+      return null;
+    }
+    String connections = metadata.get(CONNECTIONS_METADATA_KEY);
+    if (Strings.isNullOrEmpty(connections)) {
+      return null;
+    }
+    try {
+      String longPolls = metadata.get(LONG_POLLS_METADATA_KEY);
+      String cpu = metadata.get(CPU_METADATA_KEY);
+      String reportTime = metadata.get(REPORT_TIME_METADATA_KEY);
+      return new ConfigServiceLoad(Integer.parseInt(connections),
+          Strings.isNullOrEmpty(longPolls) ? Integer.parseInt(connections) : Integer.parseInt(longPolls),
+          Strings.isNullOrEmpty(cpu) ? -1 : Double.parseDouble(cpu),
+          Strings.isNullOrEmpty(reportTime) ? -1 : Long.parseLong(reportTime));
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  public void writeTo(Map<String, String> metadata) {
+    metadata.put(CONNECTIONS_METADATA_KEY, String.valueOf(connections));
+    metadata.put(LONG_POLLS_METADATA_KEY, String.valueOf(longPolls));
+    metadata.put(CPU_METADATA_KEY, String.valueOf(Math.round(cpu * 100) / 100.0));
+    metadata.put(REPORT_TIME_METADATA_KEY, String.valueOf(reportTime));
+  }
+
+  public int getConnections() {
+    return connections;
+  }
+
+  public int getLongPolls() {
+    return longPolls;
+  }
+
+  public double getCpu() {
+    return cpu;
+  }
+
+  public long getReportTime() {
+    return reportTime;
+  }
+}
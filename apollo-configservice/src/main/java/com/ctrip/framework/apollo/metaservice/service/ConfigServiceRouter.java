@@ -0,0 +1,140 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.metaservice.service;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstance;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Order the config services for a client, so that:
+ * <ul>
+ *   <li>the same app is routed to the same config services (rendezvous hashing on appId, or ip if appId is
+ *   absent), which keeps the config cache of each config service small and hot</li>
+ *   <li>the overloaded config services are moved to the tail, load is read from the registry metadata reported by
+ *   {@link com.ctrip.framework.apollo.configservice.metrics.ConfigServiceLoadReporter}, so it's only available
+ *   with the database discovery</li>
+ * </ul>
+ * Clients may shuffle the returned instances, so the instance count could be limited to make the preference
+ * effective.
+ */
+@Component
+public class ConfigServiceRouter {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private final BizConfig bizConfig;
+  private final ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClient;
+
+  public ConfigServiceRouter(final BizConfig bizConfig,
+      final ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClient) {
+    this.bizConfig = bizConfig;
+    this.databaseDiscoveryClient = databaseDiscoveryClient;
+  }
+
+  public List<ServiceDTO> route(List<ServiceDTO> services, String appId, String clientIp) {
+    if (!bizConfig.isConfigServiceRoutingEnabled() || services == null || services.size() <= 1) {
+      return services;
+    }
+
+    String routingKey = Strings.isNullOrEmpty(appId) ? clientIp : appId;
+    Map<String, ConfigServiceLoad> loads = findLoads();
+    double connectionLimit = connectionLimit(services, loads);
+    double cpuLimit = bizConfig.configServiceRoutingCpuThresholdPercent() / 100.0;
+
+    Comparator<ServiceDTO> comparator = Comparator.comparing(
+        service -> isOverloaded(loads.get(service.getHomepageUrl()), connectionLimit, cpuLimit));
+    if (!Strings.isNullOrEmpty(routingKey)) {
+      comparator = comparator.thenComparing(Comparator.comparingLong(
+          (ServiceDTO service) -> score(routingKey, service)).reversed());
+    }
+
+    // stable sort, so the original order is kept if there is no routing key
+    List<ServiceDTO> ordered = services.stream().sorted(comparator).collect(Collectors.toList());
+
+    int instanceCount = bizConfig.configServiceRoutingInstanceCount();
+    if (instanceCount > 0 && instanceCount < ordered.size()) {
+      return ordered.subList(0, instanceCount);
+    }
+    return ordered;
+  }
+
+  private Map<String, ConfigServiceLoad> findLoads() {
+    DatabaseDiscoveryClient discoveryClient = databaseDiscoveryClient.getIfAvailable();
+    if (discoveryClient == null) {
+      return Collections.emptyMap();
+    }
+    List<ServiceInstance> instances = discoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+    Map<String, ConfigServiceLoad> loads = Maps.newHashMapWithExpectedSize(instances.size());
+    for (ServiceInstance instance : instances) {
+      ConfigServiceLoad load = ConfigServiceLoad.fromMetadata(instance.getMetadata());
+      if (load != null) {
+        loads.put(instance.getUri().toString(), load);
+      }
+    }
+    return loads;
+  }
+
+  /**
+   * @return the connections above which a config service is considered overloaded, compared with the average of
+   * the candidates which report their load
+   */
+  private double connectionLimit(List<ServiceDTO> services, Map<String, ConfigServiceLoad> loads) {
+    long totalConnections = 0;
+    int reported = 0;
+    for (ServiceDTO service : services) {
+      ConfigServiceLoad load = loads.get(service.getHomepageUrl());
+      if (load != null) {
+        totalConnections += load.getConnections();
+        reported++;
+      }
+    }
+    if (reported <= 1 || totalConnections == 0) {
+      return Double.MAX_VALUE;
+    }
+    return (double) totalConnections / reported * bizConfig.configServiceRoutingOverloadPercent() / 100;
+  }
+
+  private boolean isOverloaded(ConfigServiceLoad load, double connectionLimit, double cpuLimit) {
+    if (load == null) {
+      return false;
+    }
+    return load.getConnections() > connectionLimit || load.getCpu() >= cpuLimit;
+  }
+
+  private long score(String routingKey, ServiceDTO service) {
+    return HASH_FUNCTION.newHasher()
+        .putString(routingKey, StandardCharsets.UTF_8)
+        .putString(service.getInstanceId() == null ? service.getHomepageUrl() : service.getInstanceId(),
+            StandardCharsets.UTF_8)
+        .hash().asLong();
+  }
+}
@@ -20,10 +20,12 @@ import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
+import com.ctrip.framework.apollo.configservice.metrics.NotificationMetrics;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.configservice.wrapper.SseEmitterWrapper;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
@@ -33,6 +35,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.gson.Gson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -42,9 +45,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -85,7 +90,8 @@ public class NotificationControllerV2Test {
   public void setUp() throws Exception {
     gson = new Gson();
     controller = new NotificationControllerV2(
-        watchKeysUtil, releaseMessageService, entityManagerUtil, namespaceUtil, gson, bizConfig
+        watchKeysUtil, releaseMessageService, entityManagerUtil, namespaceUtil, gson, bizConfig,
+        new NotificationMetrics(new SimpleMeterRegistry())
     );
 
     when(bizConfig.releaseMessageNotificationBatch()).thenReturn(100);
@@ -164,6 +170,40 @@ public class NotificationControllerV2Test {
     assertWatchKeys(watchKeysMap, deferredResult);
   }
 
+  @Test
+  public void testShedLongPolls() throws Exception {
+    Multimap<String, String> watchKeysMap =
+        assembleMultiMap(defaultNamespace, Lists.newArrayList("someKey"));
+
+    String notificationAsString =
+        transformApolloConfigNotificationsToString(defaultNamespace, someNotificationId);
+
+    when(watchKeysUtil
+        .assembleAllWatchKeys(someAppId, someCluster, Sets.newHashSet(defaultNamespace),
+            someDataCenter)).thenReturn(
+        watchKeysMap);
+
+    DeferredResult<ResponseEntity<List<ApolloConfigNotification>>> someResult =
+        controller.pollNotification(someAppId, someCluster, notificationAsString, someDataCenter, someClientIp);
+    DeferredResult<ResponseEntity<List<ApolloConfigNotification>>> anotherResult =
+        controller.pollNotification(someAppId, someCluster, notificationAsString, someDataCenter, someClientIp);
+
+    assertEquals(1, controller.shedLongPolls(1));
+
+    DeferredResult<ResponseEntity<List<ApolloConfigNotification>>> shedResult =
+        someResult.hasResult() ? someResult : anotherResult;
+    DeferredResult<ResponseEntity<List<ApolloConfigNotification>>> pendingResult =
+        someResult.hasResult() ? anotherResult : someResult;
+    ResponseEntity<List<ApolloConfigNotification>> response =
+        (ResponseEntity<List<ApolloConfigNotification>>) shedResult.getResult();
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertFalse(pendingResult.hasResult());
+
+    assertEquals(1, controller.shedLongPolls(5));
+    assertTrue(pendingResult.hasResult());
+    assertEquals(0, controller.shedLongPolls(5));
+  }
+
 
   @Test
   public void testPollNotificationWithMultipleNamespaces() throws Exception {
@@ -313,6 +353,63 @@ public class NotificationControllerV2Test {
     assertEquals(someId, notificationMessages.get(anotherWatchKey).longValue());
   }
 
+  @Test
+  public void testStreamNotificationAndHandleMessage() throws Exception {
+    String someWatchKey = "someKey";
+    String anotherWatchKey = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
+        .join(someAppId, someCluster, somePublicNamespace);
+
+    Multimap<String, String> watchKeysMap =
+        assembleMultiMap(defaultNamespace, Lists.newArrayList(someWatchKey));
+    watchKeysMap
+        .putAll(assembleMultiMap(somePublicNamespace, Lists.newArrayList(anotherWatchKey)));
+
+    when(watchKeysUtil
+        .assembleAllWatchKeys(someAppId, someCluster,
+            Sets.newHashSet(defaultNamespace, somePublicNamespace), someDataCenter)).thenReturn(
+        watchKeysMap);
+    when(bizConfig.notificationStreamTimeoutInMilli()).thenReturn(TimeUnit.MINUTES.toMillis(10));
+    when(bizConfig.notificationStreamHeartbeatInterval()).thenReturn(30);
+    when(bizConfig.notificationStreamHeartbeatIntervalTimeUnit()).thenReturn(TimeUnit.SECONDS);
+
+    String notificationAsString =
+        transformApolloConfigNotificationsToString(defaultNamespace, someNotificationId,
+            somePublicNamespace, someNotificationId);
+
+    SseEmitter emitter = controller
+        .streamNotification(someAppId, someCluster, notificationAsString, someDataCenter,
+            someClientIp);
+
+    Multimap<String, SseEmitterWrapper> streamSubscribers =
+        (Multimap<String, SseEmitterWrapper>) ReflectionTestUtils.getField(controller, "streamSubscribers");
+
+    assertEquals(watchKeysMap.size(), streamSubscribers.size());
+    SseEmitterWrapper subscriber = streamSubscribers.get(anotherWatchKey).iterator().next();
+    assertSame(emitter, subscriber.getEmitter());
+
+    Map<String, Long> notificationIds =
+        (Map<String, Long>) ReflectionTestUtils.getField(subscriber, "notificationIds");
+
+    long someId = someNotificationId + 1;
+    ReleaseMessage someReleaseMessage = new ReleaseMessage(anotherWatchKey);
+    someReleaseMessage.setId(someId);
+
+    controller.handleMessage(someReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    // the connection stays registered after the notification
+    assertEquals(watchKeysMap.size(), streamSubscribers.size());
+    assertEquals(someId, notificationIds.get(somePublicNamespace).longValue());
+    assertEquals(someNotificationId, notificationIds.get(defaultNamespace).longValue());
+
+    long anotherId = someId + 1;
+    ReleaseMessage anotherReleaseMessage = new ReleaseMessage(anotherWatchKey);
+    anotherReleaseMessage.setId(anotherId);
+
+    controller.handleMessage(anotherReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    assertEquals(anotherId, notificationIds.get(somePublicNamespace).longValue());
+  }
+
   @Test
   public void testPollNotificationWithHandleMessageInBatch() throws Exception {
     String someWatchKey = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
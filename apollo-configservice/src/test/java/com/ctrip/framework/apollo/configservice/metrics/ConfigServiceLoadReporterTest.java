@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.metaservice.service.ConfigServiceLoad;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigServiceLoadReporterTest {
+  private NotificationMetrics notificationMetrics;
+  private OperatingSystemMXBean operatingSystem;
+  private ConfigServiceLoadReporter reporter;
+
+  @Before
+  public void setUp() throws Exception {
+    notificationMetrics = new NotificationMetrics(new SimpleMeterRegistry());
+    operatingSystem = mock(OperatingSystemMXBean.class);
+    when(operatingSystem.getAvailableProcessors()).thenReturn(4);
+    when(operatingSystem.getSystemLoadAverage()).thenReturn(1.0);
+    reporter = new ConfigServiceLoadReporter(notificationMetrics, operatingSystem);
+  }
+
+  @Test
+  public void testContribute() throws Exception {
+    Map<String, String> metadata = new HashMap<>();
+    registerLongPolls(100);
+
+    assertFalse(reporter.contribute(metadata));
+    assertEquals(100, ConfigServiceLoad.fromMetadata(metadata).getConnections());
+    assertEquals(0.25, ConfigServiceLoad.fromMetadata(metadata).getCpu(), 0.001);
+
+    // not material, but the metadata is still refreshed
+    registerLongPolls(49);
+    assertFalse(reporter.contribute(metadata));
+    assertEquals(149, ConfigServiceLoad.fromMetadata(metadata).getConnections());
+
+    registerLongPolls(1);
+    assertTrue(reporter.contribute(metadata));
+
+    // compared with the last published one
+    assertFalse(reporter.contribute(metadata));
+
+    when(operatingSystem.getSystemLoadAverage()).thenReturn(2.0);
+    assertTrue(reporter.contribute(metadata));
+  }
+
+  private void registerLongPolls(int count) {
+    for (int i = 0; i < count; i++) {
+      notificationMetrics.longPollingRegistered();
+    }
+  }
+}
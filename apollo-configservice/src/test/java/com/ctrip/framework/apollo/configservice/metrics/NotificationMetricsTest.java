@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NotificationMetricsTest {
+  private SimpleMeterRegistry meterRegistry;
+  private NotificationMetrics notificationMetrics;
+
+  @Before
+  public void setUp() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    notificationMetrics = new NotificationMetrics(meterRegistry);
+  }
+
+  @Test
+  public void testLongPolling() throws Exception {
+    notificationMetrics.longPollingRegistered();
+    notificationMetrics.longPollingRegistered();
+    notificationMetrics.longPollingRegistered();
+
+    assertEquals(3, meterRegistry.get("apollo.notification.long-polling.active").gauge().value(), 0);
+
+    notificationMetrics.longPollingFinished(true);
+    notificationMetrics.longPollingFinished(false);
+
+    assertEquals(1, meterRegistry.get("apollo.notification.long-polling.active").gauge().value(), 0);
+    assertEquals(3, meterRegistry.get("apollo.notification.long-polling.registrations").counter().count(), 0);
+    assertEquals(1, meterRegistry.get("apollo.notification.long-polling.results").tag("result", "timeout")
+        .counter().count(), 0);
+    assertEquals(1, meterRegistry.get("apollo.notification.long-polling.results").tag("result", "completed")
+        .counter().count(), 0);
+  }
+
+  @Test
+  public void testFanOut() throws Exception {
+    notificationMetrics.longPollingFanOut(10, TimeUnit.MILLISECONDS.toNanos(5));
+    notificationMetrics.streamFanOut(20, TimeUnit.MILLISECONDS.toNanos(5));
+    notificationMetrics.releaseMessageNotified(new Date(System.currentTimeMillis() - 1000));
+    notificationMetrics.releaseMessageNotified(null);
+
+    assertEquals(10, meterRegistry.get("apollo.notification.fan-out.size").tag("channel", "long-polling")
+        .summary().totalAmount(), 0);
+    assertEquals(20, meterRegistry.get("apollo.notification.fan-out.size").tag("channel", "stream")
+        .summary().totalAmount(), 0);
+    assertEquals(1, meterRegistry.get("apollo.notification.release-message.latency").timer().count());
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstance;
+import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryProperties;
+import com.ctrip.framework.apollo.configservice.controller.NotificationControllerV2;
+import com.ctrip.framework.apollo.configservice.metrics.NotificationMetrics;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.metaservice.service.ConfigServiceLoad;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongPollingRebalancerTest {
+
+  private static final String SELF_URL = "http://10.0.0.1:8080/";
+
+  @Mock
+  private BizConfig bizConfig;
+  @Mock
+  private NotificationControllerV2 notificationController;
+  @Mock
+  private ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClientProvider;
+  @Mock
+  private DatabaseDiscoveryClient databaseDiscoveryClient;
+  @Mock
+  private ObjectProvider<ServiceInstance> selfInstanceProvider;
+
+  private SimpleMeterRegistry meterRegistry;
+  private NotificationMetrics notificationMetrics;
+
+  private LongPollingRebalancer longPollingRebalancer;
+
+  @Before
+  public void setUp() throws Exception {
+    meterRegistry = new SimpleMeterRegistry();
+    notificationMetrics = new NotificationMetrics(meterRegistry);
+    longPollingRebalancer = new LongPollingRebalancer(bizConfig, notificationController, notificationMetrics,
+        databaseDiscoveryClientProvider, selfInstanceProvider);
+  }
+
+  @Test
+  public void testRebalanceDisabled() {
+    assertEquals(0, longPollingRebalancer.rebalance());
+
+    verify(notificationController, never()).shedLongPolls(anyInt());
+  }
+
+  @Test
+  public void testRebalanceOverloaded() {
+    when(bizConfig.isLongPollingRebalanceEnabled()).thenReturn(true);
+    when(bizConfig.longPollingRebalanceOverloadPercent()).thenReturn(120);
+    when(bizConfig.longPollingRebalanceShedPercent()).thenReturn(50);
+    when(bizConfig.longPollingRebalanceMaxShed()).thenReturn(200);
+    registerLongPolls(300);
+    // the stale load reported by self is ignored
+    mockInstances(instance(SELF_URL, 1000), instance("http://10.0.0.2:8080/", 100),
+        instance("http://10.0.0.3:8080/", 200));
+    when(notificationController.shedLongPolls(50)).thenReturn(50);
+
+    // average is 200, so half of the excess 100 is shed
+    assertEquals(50, longPollingRebalancer.rebalance());
+    assertEquals(50, meterRegistry.counter("apollo.notification.long-polling.shed").count(), 0.001);
+  }
+
+  @Test
+  public void testRebalanceWithMaxShed() {
+    when(bizConfig.isLongPollingRebalanceEnabled()).thenReturn(true);
+    when(bizConfig.longPollingRebalanceOverloadPercent()).thenReturn(120);
+    when(bizConfig.longPollingRebalanceShedPercent()).thenReturn(100);
+    when(bizConfig.longPollingRebalanceMaxShed()).thenReturn(10);
+    registerLongPolls(300);
+    mockInstances(instance("http://10.0.0.2:8080/", 0));
+    when(notificationController.shedLongPolls(10)).thenReturn(10);
+
+    assertEquals(10, longPollingRebalancer.rebalance());
+  }
+
+  @Test
+  public void testRebalanceNotOverloaded() {
+    when(bizConfig.isLongPollingRebalanceEnabled()).thenReturn(true);
+    when(bizConfig.longPollingRebalanceOverloadPercent()).thenReturn(120);
+    registerLongPolls(110);
+    mockInstances(instance("http://10.0.0.2:8080/", 100));
+
+    assertEquals(0, longPollingRebalancer.rebalance());
+
+    verify(notificationController, never()).shedLongPolls(anyInt());
+  }
+
+  @Test
+  public void testRebalanceIgnoresStreams() {
+    when(bizConfig.isLongPollingRebalanceEnabled()).thenReturn(true);
+    when(bizConfig.longPollingRebalanceOverloadPercent()).thenReturn(120);
+    registerLongPolls(100);
+    for (int i = 0; i < 200; i++) {
+      notificationMetrics.streamOpened();
+    }
+    mockInstances(instance("http://10.0.0.2:8080/", 100));
+
+    assertEquals(0, longPollingRebalancer.rebalance());
+
+    verify(notificationController, never()).shedLongPolls(anyInt());
+  }
+
+  @Test
+  public void testRebalanceSkippedUntilPeerLoadsRefreshed() {
+    when(bizConfig.isLongPollingRebalanceEnabled()).thenReturn(true);
+    when(bizConfig.longPollingRebalanceOverloadPercent()).thenReturn(120);
+    when(bizConfig.longPollingRebalanceShedPercent()).thenReturn(100);
+    when(bizConfig.longPollingRebalanceMaxShed()).thenReturn(10);
+    registerLongPolls(300);
+    mockInstances(instance("http://10.0.0.2:8080/", 0, 1000L), instance("http://10.0.0.3:8080/", 0, 1000L));
+    when(notificationController.shedLongPolls(10)).thenReturn(10);
+
+    assertEquals(10, longPollingRebalancer.rebalance());
+    assertEquals(0, longPollingRebalancer.rebalance());
+
+    // only one of the peers reported a new load
+    mockInstances(instance("http://10.0.0.2:8080/", 5, 2000L), instance("http://10.0.0.3:8080/", 0, 1000L));
+    assertEquals(0, longPollingRebalancer.rebalance());
+
+    mockInstances(instance("http://10.0.0.2:8080/", 5, 2000L), instance("http://10.0.0.3:8080/", 5, 2000L));
+    assertEquals(10, longPollingRebalancer.rebalance());
+
+    verify(notificationController, times(2)).shedLongPolls(10);
+  }
+
+  @Test
+  public void testRebalanceWithoutPeerLoad() {
+    when(bizConfig.isLongPollingRebalanceEnabled()).thenReturn(true);
+    registerLongPolls(100);
+    mockInstances(instance("http://10.0.0.2:8080/", null));
+
+    assertEquals(0, longPollingRebalancer.rebalance());
+
+    verify(notificationController, never()).shedLongPolls(anyInt());
+  }
+
+  private void registerLongPolls(int count) {
+    for (int i = 0; i < count; i++) {
+      notificationMetrics.longPollingRegistered();
+    }
+  }
+
+  private void mockInstances(ServiceInstance... instances) {
+    when(databaseDiscoveryClientProvider.getIfAvailable()).thenReturn(databaseDiscoveryClient);
+    when(selfInstanceProvider.getIfAvailable()).thenReturn(instance(SELF_URL, null));
+    when(databaseDiscoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE))
+        .thenReturn(Lists.newArrayList(instances));
+  }
+
+  private static ServiceInstance instance(String url, int longPolls) {
+    return instance(url, longPolls, 1000L);
+  }
+
+  private static ServiceInstance instance(String url, int longPolls, long reportTime) {
+    Map<String, String> metadata = new HashMap<>();
+    new ConfigServiceLoad(longPolls, longPolls, 0.5, reportTime).writeTo(metadata);
+    return instance(url, metadata);
+  }
+
+  private static ServiceInstance instance(String url, Map<String, String> metadata) {
+    ApolloServiceRegistryProperties instance = new ApolloServiceRegistryProperties();
+    instance.setServiceName(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+    instance.setUri(url);
+    instance.setMetadata(metadata);
+    return instance;
+  }
+}
@@ -102,6 +102,8 @@ public class InstanceConfigAuditUtilTest {
     verify(instanceService, times(1)).findInstanceConfig(someInstanceId, someConfigAppId,
         someConfigNamespace);
     verify(instanceService, times(1)).createInstanceConfig(any(InstanceConfig.class));
+    verify(instanceService, times(1)).increaseInstanceCount(someConfigAppId, someConfigClusterName,
+        someConfigNamespace, 1);
   }
 
 
@@ -19,8 +19,11 @@ package com.ctrip.framework.apollo.metaservice.controller;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.when;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
 import com.ctrip.framework.apollo.core.ServiceNameConsts;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.metaservice.service.ConfigServiceRouter;
 import com.ctrip.framework.apollo.metaservice.service.DiscoveryService;
 import java.util.List;
 import org.junit.Before;
@@ -28,6 +31,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServiceControllerTest {
@@ -35,6 +39,12 @@ public class ServiceControllerTest {
   @Mock
   private DiscoveryService discoveryService;
 
+  @Mock
+  private BizConfig bizConfig;
+
+  @Mock
+  private ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClient;
+
   @Mock
   private List<ServiceDTO> someServices;
 
@@ -42,7 +52,8 @@ public class ServiceControllerTest {
 
   @Before
   public void setUp() throws Exception {
-    serviceController = new ServiceController(discoveryService);
+    serviceController = new ServiceController(discoveryService,
+        new ConfigServiceRouter(bizConfig, databaseDiscoveryClient));
   }
 
   @Test
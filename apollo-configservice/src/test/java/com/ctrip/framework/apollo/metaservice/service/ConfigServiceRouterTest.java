@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.metaservice.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.registry.DatabaseDiscoveryClient;
+import com.ctrip.framework.apollo.biz.registry.ServiceInstance;
+import com.ctrip.framework.apollo.biz.registry.configuration.support.ApolloServiceRegistryProperties;
+import com.ctrip.framework.apollo.core.ServiceNameConsts;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.google.common.collect.Lists;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigServiceRouterTest {
+
+  private static final String SOME_URL = "http://10.0.0.1:8080/";
+  private static final String ANOTHER_URL = "http://10.0.0.2:8080/";
+  private static final String YET_ANOTHER_URL = "http://10.0.0.3:8080/";
+
+  @Mock
+  private BizConfig bizConfig;
+  @Mock
+  private ObjectProvider<DatabaseDiscoveryClient> databaseDiscoveryClientProvider;
+  @Mock
+  private DatabaseDiscoveryClient databaseDiscoveryClient;
+
+  private List<ServiceDTO> someServices;
+
+  private ConfigServiceRouter configServiceRouter;
+
+  @Before
+  public void setUp() throws Exception {
+    someServices = Lists.newArrayList(service(SOME_URL), service(ANOTHER_URL), service(YET_ANOTHER_URL));
+    configServiceRouter = new ConfigServiceRouter(bizConfig, databaseDiscoveryClientProvider);
+  }
+
+  @Test
+  public void testRouteDisabled() {
+    assertSame(someServices, configServiceRouter.route(someServices, "someAppId", "someIp"));
+  }
+
+  @Test
+  public void testRouteWithSameAppId() {
+    enableRouting(0);
+
+    List<ServiceDTO> result = configServiceRouter.route(someServices, "someAppId", "someIp");
+
+    assertEquals(someServices.size(), result.size());
+    assertEquals(urls(result), urls(configServiceRouter.route(Lists.reverse(someServices), "someAppId",
+        "anotherIp")));
+  }
+
+  @Test
+  public void testRouteSpreadsApps() {
+    enableRouting(1);
+
+    Set<String> preferredUrls = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      preferredUrls.add(configServiceRouter.route(someServices, "someAppId" + i, null).get(0).getHomepageUrl());
+    }
+
+    assertEquals(someServices.size(), preferredUrls.size());
+  }
+
+  @Test
+  public void testRouteByIpWithoutAppId() {
+    enableRouting(0);
+
+    assertEquals(urls(configServiceRouter.route(someServices, "", "someIp")),
+        urls(configServiceRouter.route(Lists.reverse(someServices), null, "someIp")));
+  }
+
+  @Test
+  public void testRouteWithoutRoutingKey() {
+    enableRouting(0);
+
+    assertEquals(urls(someServices), urls(configServiceRouter.route(someServices, "", null)));
+  }
+
+  @Test
+  public void testRouteWithInstanceCount() {
+    enableRouting(2);
+
+    List<ServiceDTO> result = configServiceRouter.route(someServices, "someAppId", null);
+
+    assertEquals(2, result.size());
+  }
+
+  @Test
+  public void testRouteMovesOverloadedServicesToTail() {
+    enableRouting(0);
+    String preferredUrl = configServiceRouter.route(someServices, "someAppId", null).get(0).getHomepageUrl();
+
+    Map<String, ServiceInstance> instances = new HashMap<>();
+    for (ServiceDTO service : someServices) {
+      instances.put(service.getHomepageUrl(), instance(service.getHomepageUrl(), 100, 0.2));
+    }
+    instances.put(preferredUrl, instance(preferredUrl, 1000, 0.2));
+    mockInstances(Lists.newArrayList(instances.values()));
+
+    List<ServiceDTO> result = configServiceRouter.route(someServices, "someAppId", null);
+
+    assertEquals(preferredUrl, result.get(result.size() - 1).getHomepageUrl());
+  }
+
+  @Test
+  public void testRouteMovesBusyCpuServicesToTail() {
+    enableRouting(0);
+    String preferredUrl = configServiceRouter.route(someServices, "someAppId", null).get(0).getHomepageUrl();
+
+    mockInstances(Lists.newArrayList(instance(preferredUrl, 100, 0.9)));
+
+    List<ServiceDTO> result = configServiceRouter.route(someServices, "someAppId", null);
+
+    assertEquals(preferredUrl, result.get(result.size() - 1).getHomepageUrl());
+    assertNotEquals(preferredUrl, result.get(0).getHomepageUrl());
+  }
+
+  @Test
+  public void testRouteIgnoresInstancesWithoutLoad() {
+    enableRouting(0);
+    List<String> expected = urls(configServiceRouter.route(someServices, "someAppId", null));
+
+    mockInstances(Lists.newArrayList(instance(SOME_URL, null), instance(ANOTHER_URL, null)));
+
+    assertEquals(expected, urls(configServiceRouter.route(someServices, "someAppId", null)));
+  }
+
+  private void enableRouting(int instanceCount) {
+    when(bizConfig.isConfigServiceRoutingEnabled()).thenReturn(true);
+    when(bizConfig.configServiceRoutingInstanceCount()).thenReturn(instanceCount);
+    when(bizConfig.configServiceRoutingCpuThresholdPercent()).thenReturn(85);
+    lenient().when(bizConfig.configServiceRoutingOverloadPercent()).thenReturn(150);
+  }
+
+  private void mockInstances(List<ServiceInstance> instances) {
+    when(databaseDiscoveryClientProvider.getIfAvailable()).thenReturn(databaseDiscoveryClient);
+    when(databaseDiscoveryClient.getInstances(ServiceNameConsts.APOLLO_CONFIGSERVICE)).thenReturn(instances);
+  }
+
+  private static ServiceInstance instance(String url, int connections, double cpu) {
+    Map<String, String> metadata = new HashMap<>();
+    new ConfigServiceLoad(connections, connections, cpu, System.currentTimeMillis()).writeTo(metadata);
+    return instance(url, metadata);
+  }
+
+  private static ServiceInstance instance(String url, Map<String, String> metadata) {
+    ApolloServiceRegistryProperties instance = new ApolloServiceRegistryProperties();
+    instance.setServiceName(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+    instance.setUri(url);
+    instance.setMetadata(metadata);
+    return instance;
+  }
+
+  private static ServiceDTO service(String url) {
+    ServiceDTO service = new ServiceDTO();
+    service.setAppName(ServiceNameConsts.APOLLO_CONFIGSERVICE);
+    service.setInstanceId(url);
+    service.setHomepageUrl(url);
+    return service;
+  }
+
+  private static List<String> urls(List<ServiceDTO> services) {
+    return services.stream().map(ServiceDTO::getHomepageUrl).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.repository;
+
+import com.ctrip.framework.apollo.openapi.entity.ConsumerAudit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Audits are written on every open api call, so they are inserted with jdbc batches instead of
+ * {@link ConsumerAuditRepository#saveAll(Iterable)}, which inserts one by one because of the identity ids.
+ * <p>
+ * MySQL Connector/J only sends a batch as a multi-row insert when {@code rewriteBatchedStatements=true} is set in
+ * the jdbc url, as the deployment guide suggests, otherwise it still sends the rows one statement each.
+ */
+public class ConsumerAuditRepositoryImpl implements ConsumerAuditRepositoryCustom {
+
+  private static final String INSERT_SQL = "INSERT INTO `ConsumerAudit` (`ConsumerId`, `Uri`, `Method`, "
+      + "`DataChange_CreatedTime`, `DataChange_LastTime`) VALUES (?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ConsumerAuditRepositoryImpl(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void batchInsert(List<ConsumerAudit> consumerAudits) {
+    if (consumerAudits.isEmpty()) {
+      return;
+    }
+    Date now = new Date();
+    jdbcTemplate.batchUpdate(INSERT_SQL, consumerAudits, consumerAudits.size(), (ps, audit) -> {
+      Date createdTime = audit.getDataChangeCreatedTime() == null ? now : audit.getDataChangeCreatedTime();
+      Date lastModifiedTime = audit.getDataChangeLastModifiedTime() == null ? createdTime
+          : audit.getDataChangeLastModifiedTime();
+      ps.setLong(1, audit.getConsumerId());
+      ps.setString(2, audit.getUri());
+      ps.setString(3, audit.getMethod());
+      ps.setTimestamp(4, new Timestamp(createdTime.getTime()));
+      ps.setTimestamp(5, new Timestamp(lastModifiedTime.getTime()));
+    });
+  }
+}
@@ -22,6 +22,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -45,4 +46,10 @@ public interface ConsumerRoleRepository extends PagingAndSortingRepository<Consu
   @Modifying
   @Query("UPDATE ConsumerRole SET IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?2 WHERE RoleId in ?1 and IsDeleted = false")
   Integer batchDeleteByRoleIds(List<Long> roleIds, String operator);
+
+  /**
+   * the latest modified time of the consumer roles, including the deleted ones
+   */
+  @Query(value = "SELECT MAX(`DataChange_LastTime`) FROM `ConsumerRole`", nativeQuery = true)
+  Date findLatestModifiedTime();
 }
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.openapi.repository;
 
 import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 import java.util.Date;
@@ -35,4 +36,10 @@ public interface ConsumerTokenRepository extends PagingAndSortingRepository<Cons
   ConsumerToken findTopByTokenAndExpiresAfter(String token, Date validDate);
 
   ConsumerToken findByConsumerId(Long consumerId);
+
+  /**
+   * the latest modified time of the tokens, including the deleted ones
+   */
+  @Query(value = "SELECT MAX(`DataChange_LastTime`) FROM `ConsumerToken`", nativeQuery = true)
+  Date findLatestModifiedTime();
 }
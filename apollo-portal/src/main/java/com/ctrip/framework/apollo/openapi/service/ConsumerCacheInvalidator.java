@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.service;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.ctrip.framework.apollo.portal.service.RolePermissionService;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clears the open api token, consumer permission and user permission caches when the consumer and role tables are
+ * changed by other portal instances, the changes made by this instance clear the caches right away.
+ */
+@Component
+public class ConsumerCacheInvalidator {
+  private static final Logger logger = LoggerFactory.getLogger(ConsumerCacheInvalidator.class);
+
+  private final ConsumerTokenRepository consumerTokenRepository;
+  private final ConsumerRoleRepository consumerRoleRepository;
+  private final RolePermissionRepository rolePermissionRepository;
+  private final UserRoleRepository userRoleRepository;
+  private final ConsumerService consumerService;
+  private final ConsumerRolePermissionService consumerRolePermissionService;
+  private final RolePermissionService rolePermissionService;
+  private final PortalConfig portalConfig;
+
+  private final ModifiedTimes consumerModifiedTimes = new ModifiedTimes();
+  private final ModifiedTimes userModifiedTimes = new ModifiedTimes();
+  private ScheduledExecutorService scanService;
+
+  public ConsumerCacheInvalidator(
+      final ConsumerTokenRepository consumerTokenRepository,
+      final ConsumerRoleRepository consumerRoleRepository,
+      final RolePermissionRepository rolePermissionRepository,
+      final UserRoleRepository userRoleRepository,
+      final ConsumerService consumerService,
+      final ConsumerRolePermissionService consumerRolePermissionService,
+      final RolePermissionService rolePermissionService,
+      final PortalConfig portalConfig) {
+    this.consumerTokenRepository = consumerTokenRepository;
+    this.consumerRoleRepository = consumerRoleRepository;
+    this.rolePermissionRepository = rolePermissionRepository;
+    this.userRoleRepository = userRoleRepository;
+    this.consumerService = consumerService;
+    this.consumerRolePermissionService = consumerRolePermissionService;
+    this.rolePermissionService = rolePermissionService;
+    this.portalConfig = portalConfig;
+  }
+
+  /**
+   * The scan keeps running even if the caches are disabled, as the user permission cache could be enabled at runtime
+   */
+  @PostConstruct
+  public void init() {
+    int interval = portalConfig.openApiConsumerCacheScanIntervalSeconds();
+    scanService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ConsumerCacheInvalidator", true));
+    scanService.scheduleWithFixedDelay(() -> {
+      try {
+        scan();
+      } catch (Throwable ex) {
+        logger.error("Scan consumer changes failed", ex);
+        Tracer.logError("Scan consumer changes failed", ex);
+      }
+    }, 0, interval, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (scanService != null) {
+      scanService.shutdownNow();
+    }
+  }
+
+  void scan() {
+    // the deleted rows are included, so deletions move the modified times as well
+    Date rolePermissionModifiedTime = rolePermissionRepository.findLatestModifiedTime();
+    if (consumerModifiedTimes.update(Arrays.asList(
+        consumerTokenRepository.findLatestModifiedTime(),
+        consumerRoleRepository.findLatestModifiedTime(),
+        rolePermissionModifiedTime))) {
+      consumerService.invalidateConsumerTokens(null);
+      consumerRolePermissionService.invalidateConsumerPermissions(null);
+    }
+    if (userModifiedTimes.update(Arrays.asList(
+        userRoleRepository.findLatestModifiedTime(),
+        rolePermissionModifiedTime))) {
+      rolePermissionService.invalidateUserPermissions();
+    }
+  }
+
+  private static class ModifiedTimes {
+    private List<Date> lastModifiedTimes;
+    private boolean recheck;
+
+    /**
+     * @return whether the caches should be cleared
+     */
+    boolean update(List<Date> modifiedTimes) {
+      boolean changed = lastModifiedTimes != null && !modifiedTimes.equals(lastModifiedTimes);
+      boolean invalidate = changed || recheck;
+      // changes made later within the same second keep the modified times, so clear the caches once more
+      recheck = changed;
+      lastModifiedTimes = modifiedTimes;
+      return invalidate;
+    }
+  }
+}
@@ -18,13 +18,18 @@ package com.ctrip.framework.apollo.openapi.service;
 
 import com.ctrip.framework.apollo.openapi.entity.ConsumerRole;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
-import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.component.ExpiringCache;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.po.RolePermission;
 import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
 import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.util.RoleUtils;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -34,47 +39,69 @@ import java.util.stream.Collectors;
  */
 @Service
 public class ConsumerRolePermissionService {
+  private static final String CACHE_NAME = "openapi.consumer.permissions";
+  private static final int MAX_CACHED_CONSUMERS = 10000;
+
   private final PermissionRepository permissionRepository;
   private final ConsumerRoleRepository consumerRoleRepository;
   private final RolePermissionRepository rolePermissionRepository;
+  /**
+   * consumerId -> the permissions of the consumer, see {@link RoleUtils#buildPermissionKey(String, String)}
+   */
+  private final ExpiringCache<Long, Set<String>> consumerPermissionCache;
 
   public ConsumerRolePermissionService(
       final PermissionRepository permissionRepository,
       final ConsumerRoleRepository consumerRoleRepository,
-      final RolePermissionRepository rolePermissionRepository) {
+      final RolePermissionRepository rolePermissionRepository,
+      final PortalConfig portalConfig,
+      final MeterRegistry meterRegistry) {
     this.permissionRepository = permissionRepository;
     this.consumerRoleRepository = consumerRoleRepository;
     this.rolePermissionRepository = rolePermissionRepository;
+    this.consumerPermissionCache = new ExpiringCache<>(portalConfig::openApiConsumerCacheExpireSeconds,
+        MAX_CACHED_CONSUMERS, meterRegistry, CACHE_NAME);
   }
 
   /**
    * Check whether user has the permission
    */
   public boolean consumerHasPermission(long consumerId, String permissionType, String targetId) {
-    Permission permission =
-        permissionRepository.findTopByPermissionTypeAndTargetId(permissionType, targetId);
-    if (permission == null) {
-      return false;
+    return consumerPermissionCache.get(consumerId, this::loadConsumerPermissions)
+        .contains(RoleUtils.buildPermissionKey(permissionType, targetId));
+  }
+
+  /**
+   * Invalidate the cached permissions, e.g. after the roles of the consumer are changed
+   *
+   * @param consumerId the consumer whose roles are changed, null to invalidate all the consumers
+   */
+  public void invalidateConsumerPermissions(Long consumerId) {
+    if (consumerId == null) {
+      consumerPermissionCache.invalidateAll();
+    } else {
+      consumerPermissionCache.invalidate(consumerId);
     }
+  }
 
+  private Set<String> loadConsumerPermissions(long consumerId) {
     List<ConsumerRole> consumerRoles = consumerRoleRepository.findByConsumerId(consumerId);
     if (CollectionUtils.isEmpty(consumerRoles)) {
-      return false;
+      return Collections.emptySet();
     }
 
     Set<Long> roleIds =
         consumerRoles.stream().map(ConsumerRole::getRoleId).collect(Collectors.toSet());
     List<RolePermission> rolePermissions = rolePermissionRepository.findByRoleIdIn(roleIds);
     if (CollectionUtils.isEmpty(rolePermissions)) {
-      return false;
-    }
-
-    for (RolePermission rolePermission : rolePermissions) {
-      if (rolePermission.getPermissionId() == permission.getId()) {
-        return true;
-      }
+      return Collections.emptySet();
     }
 
-    return false;
+    Set<Long> permissionIds =
+        rolePermissions.stream().map(RolePermission::getPermissionId).collect(Collectors.toSet());
+    Set<String> permissions = Sets.newHashSet();
+    permissionRepository.findAllById(permissionIds).forEach(permission -> permissions.add(
+        RoleUtils.buildPermissionKey(permission.getPermissionType(), permission.getTargetId())));
+    return permissions;
   }
 }
@@ -28,6 +28,7 @@ import com.ctrip.framework.apollo.openapi.repository.ConsumerAuditRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
+import com.ctrip.framework.apollo.portal.component.ExpiringCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.Role;
@@ -41,10 +42,13 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Objects;
+import java.util.Optional;
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -65,6 +69,8 @@ public class ConsumerService {
 
   private static final FastDateFormat TIMESTAMP_FORMAT = FastDateFormat.getInstance("yyyyMMddHHmmss");
   private static final Joiner KEY_JOINER = Joiner.on("|");
+  private static final String TOKEN_CACHE_NAME = "openapi.consumer.tokens";
+  private static final int MAX_CACHED_TOKENS = 10000;
 
   private final UserInfoHolder userInfoHolder;
   private final ConsumerTokenRepository consumerTokenRepository;
@@ -75,6 +81,11 @@ public class ConsumerService {
   private final RolePermissionService rolePermissionService;
   private final UserService userService;
   private final RoleRepository roleRepository;
+  private final ConsumerRolePermissionService consumerRolePermissionService;
+  /**
+   * token -> the consumer token, empty for the tokens not found so that invalid tokens don't hit the database either
+   */
+  private final ExpiringCache<String, Optional<ConsumerToken>> consumerTokenCache;
 
   public ConsumerService(
       final UserInfoHolder userInfoHolder,
@@ -85,7 +96,9 @@ public class ConsumerService {
       final PortalConfig portalConfig,
       final RolePermissionService rolePermissionService,
       final UserService userService,
-      final RoleRepository roleRepository) {
+      final RoleRepository roleRepository,
+      final ConsumerRolePermissionService consumerRolePermissionService,
+      final MeterRegistry meterRegistry) {
     this.userInfoHolder = userInfoHolder;
     this.consumerTokenRepository = consumerTokenRepository;
     this.consumerRepository = consumerRepository;
@@ -95,6 +108,9 @@ public class ConsumerService {
     this.rolePermissionService = rolePermissionService;
     this.userService = userService;
     this.roleRepository = roleRepository;
+    this.consumerRolePermissionService = consumerRolePermissionService;
+    this.consumerTokenCache = new ExpiringCache<>(portalConfig::openApiConsumerCacheExpireSeconds,
+        MAX_CACHED_TOKENS, meterRegistry, TOKEN_CACHE_NAME);
   }
 
 
@@ -125,6 +141,7 @@ public class ConsumerService {
 
     ConsumerToken consumerToken = generateConsumerToken(consumer, expires);
     consumerToken.setId(0);
+    invalidateConsumerTokens(consumerToken.getToken());
 
     return consumerTokenRepository.save(consumerToken);
   }
@@ -142,9 +159,25 @@ public class ConsumerService {
     if (Strings.isNullOrEmpty(token)) {
       return null;
     }
-    ConsumerToken consumerToken = consumerTokenRepository.findTopByTokenAndExpiresAfter(token,
-                                                                                        new Date());
-    return consumerToken == null ? null : consumerToken.getConsumerId();
+    Date now = new Date();
+    Optional<ConsumerToken> consumerToken = consumerTokenCache.get(token,
+        key -> Optional.ofNullable(consumerTokenRepository.findTopByTokenAndExpiresAfter(key, now)));
+    // the token may expire while it's cached
+    return consumerToken.filter(cached -> cached.getExpires().after(now))
+        .map(ConsumerToken::getConsumerId).orElse(null);
+  }
+
+  /**
+   * Invalidate the cached tokens, e.g. after the token is changed
+   *
+   * @param token the token changed, null to invalidate all the tokens
+   */
+  public void invalidateConsumerTokens(String token) {
+    if (token == null) {
+      consumerTokenCache.invalidateAll();
+    } else {
+      consumerTokenCache.invalidate(token);
+    }
   }
 
   public Consumer getConsumerByConsumerId(long consumerId) {
@@ -188,6 +221,7 @@ public class ConsumerService {
 
     ConsumerRole createdModifyConsumerRole = consumerRoleRepository.save(namespaceModifyConsumerRole);
     ConsumerRole createdReleaseConsumerRole = consumerRoleRepository.save(namespaceReleaseConsumerRole);
+    consumerRolePermissionService.invalidateConsumerPermissions(consumerId);
 
     return Arrays.asList(createdModifyConsumerRole, createdReleaseConsumerRole);
   }
@@ -271,7 +305,9 @@ public class ConsumerService {
 
     String operator = userInfoHolder.getUser().getUserId();
     ConsumerRole consumerRole = createConsumerRole(consumerId, roleId, operator);
-    return consumerRoleRepository.save(consumerRole);
+    ConsumerRole createdConsumerRole = consumerRoleRepository.save(consumerRole);
+    consumerRolePermissionService.invalidateConsumerPermissions(consumerId);
+    return createdConsumerRole;
   }
 
 
@@ -300,17 +336,20 @@ public class ConsumerService {
 
     String operator = userInfoHolder.getUser().getUserId();
     ConsumerRole consumerRole = createConsumerRole(consumerId, roleId, operator);
-    return consumerRoleRepository.save(consumerRole);
+    ConsumerRole createdConsumerRole = consumerRoleRepository.save(consumerRole);
+    consumerRolePermissionService.invalidateConsumerPermissions(consumerId);
+    return createdConsumerRole;
   }
 
   @Transactional
   public void createConsumerAudits(Iterable<ConsumerAudit> consumerAudits) {
-    consumerAuditRepository.saveAll(consumerAudits);
+    consumerAuditRepository.batchInsert(Lists.newArrayList(consumerAudits));
   }
 
   @Transactional
   public ConsumerToken createConsumerToken(ConsumerToken entity) {
     entity.setId(0); //for protection
+    invalidateConsumerTokens(entity.getToken());
 
     return consumerTokenRepository.save(entity);
   }
@@ -428,7 +467,9 @@ public class ConsumerService {
 
     if (Objects.nonNull(consumerToken)) {
       consumerTokenRepository.delete(consumerToken);
+      invalidateConsumerTokens(consumerToken.getToken());
     }
+    consumerRolePermissionService.invalidateConsumerPermissions(consumerId);
   }
 
 }
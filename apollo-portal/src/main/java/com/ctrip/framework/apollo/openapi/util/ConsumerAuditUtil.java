@@ -19,10 +19,18 @@ package com.ctrip.framework.apollo.openapi.util;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.openapi.entity.ConsumerAudit;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Queues;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Service;
 
@@ -34,29 +42,67 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Queues the audits of the open api calls and writes them with jdbc batches from a few writer threads.
+ * <ul>
+ *   <li>the batches grow with the backlog, so the writers catch up with bursts in fewer round trips</li>
+ *   <li>when the queue is full the request waits a little for room before its audit is dropped</li>
+ * </ul>
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 @Service
-public class ConsumerAuditUtil implements InitializingBean {
-  private static final int CONSUMER_AUDIT_MAX_SIZE = 10000;
-  private final BlockingQueue<ConsumerAudit> audits = Queues.newLinkedBlockingQueue(CONSUMER_AUDIT_MAX_SIZE);
-  private final ExecutorService auditExecutorService;
-  private final AtomicBoolean auditStopped;
+public class ConsumerAuditUtil implements InitializingBean, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(ConsumerAuditUtil.class);
+  private static final String AUDITS = "apollo.openapi.audits";
+  private static final String BACKLOG = "apollo.openapi.audits.backlog";
   private static final int BATCH_SIZE = 100;
+  private static final long SHUTDOWN_TIMEOUT_IN_MILLI = 10000;
+  private static final long DROP_LOG_INTERVAL = 1000;
 
   // ConsumerAuditUtilTest used reflection to set BATCH_TIMEOUT and BATCH_TIMEUNIT, so without `final` now
   private static long BATCH_TIMEOUT = 5; 
   private static TimeUnit BATCH_TIMEUNIT = TimeUnit.SECONDS;
 
+  private final BlockingQueue<ConsumerAudit> audits;
+  private final ExecutorService auditExecutorService;
+  private final AtomicBoolean auditStopped;
+  private final int writers;
+  private final int maxBatchSize;
+  private final long offerTimeoutInMilli;
+  private final AtomicLong queued = new AtomicLong();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
   private final ConsumerService consumerService;
 
-  public ConsumerAuditUtil(final ConsumerService consumerService) {
+  public ConsumerAuditUtil(final ConsumerService consumerService, final PortalConfig portalConfig,
+      final MeterRegistry meterRegistry) {
     this.consumerService = consumerService;
-    auditExecutorService = Executors.newSingleThreadExecutor(
+    audits = Queues.newLinkedBlockingQueue(portalConfig.openApiAuditQueueCapacity());
+    writers = portalConfig.openApiAuditWriters();
+    maxBatchSize = portalConfig.openApiAuditMaxBatchSize();
+    offerTimeoutInMilli = portalConfig.openApiAuditOfferTimeoutMillis();
+    auditExecutorService = Executors.newFixedThreadPool(writers,
         ApolloThreadFactory.create("ConsumerAuditUtil", true));
     auditStopped = new AtomicBoolean(false);
+
+    Gauge.builder(BACKLOG, audits, BlockingQueue::size)
+        .description("open api audits waiting to be written")
+        .register(meterRegistry);
+    registerCounter(meterRegistry, "queued", queued);
+    registerCounter(meterRegistry, "written", written);
+    registerCounter(meterRegistry, "dropped", dropped);
+    registerCounter(meterRegistry, "failed", failed);
+  }
+
+  private static void registerCounter(MeterRegistry meterRegistry, String result, AtomicLong count) {
+    FunctionCounter.builder(AUDITS, count, AtomicLong::get)
+        .tag("result", result)
+        .register(meterRegistry);
   }
 
   public boolean audit(HttpServletRequest request, long consumerId) {
@@ -77,28 +123,100 @@ public class ConsumerAuditUtil implements InitializingBean {
     consumerAudit.setDataChangeCreatedTime(now);
     consumerAudit.setDataChangeLastModifiedTime(now);
 
-    //throw away audits if exceeds the max size
-    return this.audits.offer(consumerAudit);
+    return enqueue(consumerAudit);
+  }
+
+  private boolean enqueue(ConsumerAudit consumerAudit) {
+    boolean offered;
+    if (offerTimeoutInMilli > 0) {
+      try {
+        offered = audits.offer(consumerAudit, offerTimeoutInMilli, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        offered = false;
+      }
+    } else {
+      offered = audits.offer(consumerAudit);
+    }
+
+    if (offered) {
+      queued.incrementAndGet();
+      return true;
+    }
+    //throw away audits if the writers can't catch up
+    if (dropped.incrementAndGet() % DROP_LOG_INTERVAL == 1) {
+      logger.warn("Open api audit queue is full, {} audits dropped so far", dropped.get());
+    }
+    return false;
   }
 
   @Override
   public void afterPropertiesSet() throws Exception {
-    auditExecutorService.submit(() -> {
-      while (!auditStopped.get() && !Thread.currentThread().isInterrupted()) {
-        List<ConsumerAudit> toAudit = Lists.newArrayList();
-        try {
-          Queues.drain(audits, toAudit, BATCH_SIZE, BATCH_TIMEOUT, BATCH_TIMEUNIT);
-          if (!toAudit.isEmpty()) {
-            consumerService.createConsumerAudits(toAudit);
+    for (int i = 0; i < writers; i++) {
+      auditExecutorService.submit(() -> {
+        while (!auditStopped.get() && !Thread.currentThread().isInterrupted()) {
+          List<ConsumerAudit> toAudit = Lists.newArrayList();
+          try {
+            Queues.drain(audits, toAudit, batchSize(), BATCH_TIMEOUT, BATCH_TIMEUNIT);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
           }
-        } catch (Throwable ex) {
-          Tracer.logError(ex);
+          write(toAudit);
         }
-      }
-    });
+      });
+    }
+  }
+
+  /**
+   * Each writer takes its share of the backlog, at least {@link #BATCH_SIZE} and at most the configured max batch size
+   */
+  int batchSize() {
+    return Math.max(BATCH_SIZE, Math.min(maxBatchSize, audits.size() / writers));
+  }
+
+  private void write(List<ConsumerAudit> toAudit) {
+    if (toAudit.isEmpty()) {
+      return;
+    }
+    try {
+      consumerService.createConsumerAudits(toAudit);
+      written.addAndGet(toAudit.size());
+    } catch (Throwable ex) {
+      failed.addAndGet(toAudit.size());
+      Tracer.logError(ex);
+    }
   }
 
   public void stopAudit() {
     auditStopped.set(true);
   }
+
+  /**
+   * Stop the writers and write the audits left in the queue
+   */
+  @Override
+  public void destroy() throws Exception {
+    stopAudit();
+    auditExecutorService.shutdown();
+    if (!auditExecutorService.awaitTermination(SHUTDOWN_TIMEOUT_IN_MILLI, TimeUnit.MILLISECONDS)) {
+      auditExecutorService.shutdownNow();
+    }
+    List<ConsumerAudit> rest = Lists.newArrayList();
+    audits.drainTo(rest);
+    for (List<ConsumerAudit> batch : Iterables.partition(rest, maxBatchSize)) {
+      write(batch);
+    }
+  }
+
+  long queued() {
+    return queued.get();
+  }
+
+  long written() {
+    return written.get();
+  }
+
+  long dropped() {
+    return dropped.get();
+  }
 }
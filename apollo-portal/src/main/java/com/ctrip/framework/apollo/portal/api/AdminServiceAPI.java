@@ -95,11 +95,19 @@ public class AdminServiceAPI {
       return Arrays.asList(namespaceDTOs);
     }
 
-    public PageDTO<NamespaceDTO> findByItem(Env env, String itemKey, int page, int size) {
+    public List<NamespaceWithItemsDTO> findNamespacesWithItems(String appId, Env env, String clusterName,
+        boolean includeDeletedItems) {
+      NamespaceWithItemsDTO[] namespaces = restTemplate.get(env,
+          "apps/{appId}/clusters/{clusterName}/namespaces-with-items?includeDeletedItems={includeDeletedItems}",
+          NamespaceWithItemsDTO[].class, appId, clusterName, includeDeletedItems);
+      return Arrays.asList(namespaces);
+    }
+
+    public PageDTO<NamespaceDTO> findByItem(Env env, String itemKey, String matchMode, int page, int size) {
       ResponseEntity<PageDTO<NamespaceDTO>>
           entity =
-          restTemplate.get(env, "/namespaces/find-by-item?itemKey={itemKey}&page={page}&size={size}",
-                           namespacePageDTO, itemKey, page, size);
+          restTemplate.get(env, "/namespaces/find-by-item?itemKey={itemKey}&matchMode={matchMode}&page={page}&size={size}",
+                           namespacePageDTO, itemKey, matchMode, page, size);
       return entity.getBody();
     }
 
@@ -518,6 +526,13 @@ public class AdminServiceAPI {
       }
       return count;
     }
+
+    public ReleaseDeliveryDTO getReleaseDeliveryByNamespace(String appId, Env env, String clusterName,
+        String namespaceName) {
+      return restTemplate.get(env,
+          "/instances/by-namespace/release-delivery?appId={appId}&clusterName={clusterName}&namespaceName={namespaceName}",
+          ReleaseDeliveryDTO.class, appId, clusterName, namespaceName);
+    }
   }
 
   @Service
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.environment.Env;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the latency and health of each admin service instance, so the portal prefers the faster ones and stops
+ * waiting on the broken ones
+ */
+@Component
+public class AdminServiceLoadBalancer {
+
+  private static final String LATENCY = "apollo.portal.admin-service.latency";
+  private static final String HEDGED_REQUESTS = "apollo.portal.admin-service.hedged-requests";
+  private static final String EJECTIONS = "apollo.portal.admin-service.ejections";
+  private static final double EWMA_ALPHA = 0.3;
+  private static final int LATENCY_SAMPLE_SIZE = 128;
+  private static final int MIN_LATENCY_SAMPLES_TO_HEDGE = 20;
+  private static final double HEDGE_DELAY_PERCENTILE = 0.95;
+
+  /**
+   * admin service homepage url -> stats
+   */
+  private final ConcurrentMap<String, NodeStats> nodeStats = Maps.newConcurrentMap();
+  private final ConcurrentMap<Env, LatencySamples> latencySamples = Maps.newConcurrentMap();
+
+  private final PortalConfig portalConfig;
+  private final MeterRegistry meterRegistry;
+
+  public AdminServiceLoadBalancer(final PortalConfig portalConfig, final MeterRegistry meterRegistry) {
+    this.portalConfig = portalConfig;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Order the admin services to try. The ejected ones are moved to the end so they are still tried when all the others
+   * fail, and the faster one of the first two candidates is tried first (power of two choices), the list is shuffled by
+   * {@link AdminServiceAddressLocator} already.
+   */
+  public List<ServiceDTO> order(List<ServiceDTO> services) {
+    long now = System.currentTimeMillis();
+    List<ServiceDTO> available = Lists.newArrayListWithCapacity(services.size());
+    List<ServiceDTO> ejected = Lists.newArrayList();
+    for (ServiceDTO service : services) {
+      NodeStats stats = nodeStats.get(service.getHomepageUrl());
+      if (stats != null && stats.isEjected(now)) {
+        ejected.add(service);
+      } else {
+        available.add(service);
+      }
+    }
+
+    if (available.size() > 1 && latencyOf(available.get(1)) < latencyOf(available.get(0))) {
+      Collections.swap(available, 0, 1);
+    }
+    available.addAll(ejected);
+
+    return available;
+  }
+
+  public void recordSuccess(Env env, ServiceDTO service, long latencyInNanos) {
+    statsOf(service).success(latencyInNanos);
+    latencySamples.computeIfAbsent(env, key -> new LatencySamples()).add(latencyInNanos);
+    latencyTimer(env, "success").record(latencyInNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Record connection failures and timeouts, which mean the admin service is unhealthy
+   */
+  public void recordFailure(Env env, ServiceDTO service, long latencyInNanos) {
+    boolean ejected = statsOf(service).failure(portalConfig.outlierEjectionConsecutiveFailures(),
+        portalConfig.outlierEjectionDuration());
+    if (ejected) {
+      Counter.builder(EJECTIONS).tag("env", env.getName()).register(meterRegistry).increment();
+    }
+    latencyTimer(env, "failure").record(latencyInNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordHedgedRequest(Env env) {
+    Counter.builder(HEDGED_REQUESTS).tag("env", env.getName()).register(meterRegistry).increment();
+  }
+
+  /**
+   * @return the delay before sending the hedged request, or -1 if there are not enough samples to decide
+   */
+  public long hedgeDelayInMillis(Env env) {
+    LatencySamples samples = latencySamples.get(env);
+    if (samples == null) {
+      return -1;
+    }
+    long percentile = samples.percentile(HEDGE_DELAY_PERCENTILE, MIN_LATENCY_SAMPLES_TO_HEDGE);
+    if (percentile < 0) {
+      return -1;
+    }
+    return Math.max(TimeUnit.NANOSECONDS.toMillis(percentile), portalConfig.hedgedRequestMinDelay());
+  }
+
+  private double latencyOf(ServiceDTO service) {
+    NodeStats stats = nodeStats.get(service.getHomepageUrl());
+    // give the new ones a chance
+    return stats == null ? 0 : stats.ewmaLatency();
+  }
+
+  private NodeStats statsOf(ServiceDTO service) {
+    return nodeStats.computeIfAbsent(service.getHomepageUrl(), key -> new NodeStats());
+  }
+
+  private Timer latencyTimer(Env env, String result) {
+    return Timer.builder(LATENCY)
+        .tag("env", env.getName())
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private static class NodeStats {
+    private double ewmaLatency;
+    private int consecutiveFailures;
+    private long ejectedUntil;
+
+    synchronized void success(long latencyInNanos) {
+      ewmaLatency = ewmaLatency == 0 ? latencyInNanos : EWMA_ALPHA * latencyInNanos + (1 - EWMA_ALPHA) * ewmaLatency;
+      consecutiveFailures = 0;
+    }
+
+    /**
+     * @return whether the node is ejected by this failure
+     */
+    synchronized boolean failure(int maxConsecutiveFailures, long ejectionDurationInMillis) {
+      if (++consecutiveFailures < maxConsecutiveFailures) {
+        return false;
+      }
+      consecutiveFailures = 0;
+      ejectedUntil = System.currentTimeMillis() + ejectionDurationInMillis;
+      return true;
+    }
+
+    synchronized double ewmaLatency() {
+      return ewmaLatency;
+    }
+
+    synchronized boolean isEjected(long now) {
+      return ejectedUntil > now;
+    }
+  }
+
+  private static class LatencySamples {
+    private final long[] samples = new long[LATENCY_SAMPLE_SIZE];
+    private int next;
+    private int size;
+
+    synchronized void add(long latencyInNanos) {
+      samples[next] = latencyInNanos;
+      next = (next + 1) % LATENCY_SAMPLE_SIZE;
+      size = Math.min(size + 1, LATENCY_SAMPLE_SIZE);
+    }
+
+    synchronized long percentile(double percentile, int minSamples) {
+      if (size < minSamples) {
+        return -1;
+      }
+      long[] sorted = Arrays.copyOf(samples, size);
+      Arrays.sort(sorted);
+      return sorted[Math.max((int) Math.ceil(percentile * size) - 1, 0)];
+    }
+  }
+}
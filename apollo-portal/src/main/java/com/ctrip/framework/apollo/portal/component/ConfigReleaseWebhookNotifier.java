@@ -16,58 +16,105 @@
  */
 package com.ctrip.framework.apollo.portal.component;
 
-import javax.annotation.PostConstruct;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Locale;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import com.google.common.base.Strings;
+
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.ReleaseHistoryBO;
 import com.ctrip.framework.apollo.portal.environment.Env;
 
 /**
  * publish webHook
+ * <p>
+ * The webhook servers are called with a rest template of their own, so a slow webhook server neither waits for
+ * the admin service timeouts nor holds the connections to the admin services.
+ * <p>
+ * The notification is a POST which the webhook server may have handled even if it failed, so only the failures
+ * before the request is sent and the 5xx/429 responses are retried, see {@link #isRetryable(Throwable)}. Each
+ * notification carries an {@link #IDEMPOTENCY_KEY_HEADER} which stays the same when retried, so the webhook
+ * servers could drop the duplicates.
  *
  * @author HuangSheng
  */
 @Component
 public class ConfigReleaseWebhookNotifier {
 
-  private static final Logger logger = LoggerFactory.getLogger(ConfigReleaseWebhookNotifier.class);
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
-  private final RestTemplateFactory restTemplateFactory;
+  private final HttpMessageConverters httpMessageConverters;
+  private final PortalConfig portalConfig;
 
   private RestTemplate restTemplate;
+  private int restTemplateTimeout;
 
-  public ConfigReleaseWebhookNotifier(RestTemplateFactory restTemplateFactory) {
-    this.restTemplateFactory = restTemplateFactory;
+  public ConfigReleaseWebhookNotifier(HttpMessageConverters httpMessageConverters, PortalConfig portalConfig) {
+    this.httpMessageConverters = httpMessageConverters;
+    this.portalConfig = portalConfig;
   }
 
-  @PostConstruct
-  public void init() {
-    // init restTemplate
-    restTemplate = restTemplateFactory.getObject();
+  /**
+   * Notify one webhook server
+   *
+   * @throws org.springframework.web.client.RestClientException if the webhook server failed or timed out
+   */
+  public void notify(String webHookUrl, Env env, ReleaseHistoryBO releaseHistory) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+    headers.set(IDEMPOTENCY_KEY_HEADER, env + "-" + releaseHistory.getId());
+    HttpEntity<ReleaseHistoryBO> entity = new HttpEntity<>(releaseHistory, headers);
+    String url = webHookUrl + "?env={env}";
+    restTemplate().postForObject(url, entity, String.class, env);
   }
 
-  public void notify(String[] webHookUrls, Env env, ReleaseHistoryBO releaseHistory) {
-    if (webHookUrls == null) {
-      return;
+  /**
+   * @return true if the webhook server didn't receive the notification, or asked to send it again later
+   */
+  public static boolean isRetryable(Throwable ex) {
+    if (ex instanceof HttpStatusCodeException) {
+      int status = ((HttpStatusCodeException) ex).getRawStatusCode();
+      return status >= 500 || status == 429;
+    }
+    if (!(ex instanceof ResourceAccessException)) {
+      return false;
     }
+    Throwable cause = ex.getCause();
+    if (cause instanceof SocketTimeoutException) {
+      // a read timeout means the webhook server may have handled it
+      return Strings.nullToEmpty(cause.getMessage()).toLowerCase(Locale.ROOT).startsWith("connect timed out");
+    }
+    return cause instanceof ConnectException || cause instanceof NoRouteToHostException
+        || cause instanceof UnknownHostException;
+  }
 
-    for (String webHookUrl : webHookUrls) {
-      HttpHeaders headers = new HttpHeaders();
-      headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
-      HttpEntity entity = new HttpEntity(releaseHistory, headers);
-      String url = webHookUrl + "?env={env}";
-      try {
-        restTemplate.postForObject(url, entity, String.class, env);
-      } catch (Exception e) {
-        logger.error("Notify webHook server failed, env: {}, webHook server url:{}", env, url, e);
-      }
+  /**
+   * rebuilt when the timeout is changed, so changing it doesn't need a restart
+   */
+  private synchronized RestTemplate restTemplate() {
+    int timeout = portalConfig.webHookTimeout();
+    if (restTemplate == null || restTemplateTimeout != timeout) {
+      SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+      requestFactory.setConnectTimeout(timeout);
+      requestFactory.setReadTimeout(timeout);
+      RestTemplate template = new RestTemplate(httpMessageConverters.getConverters());
+      template.setRequestFactory(requestFactory);
+      restTemplate = template;
+      restTemplateTimeout = timeout;
     }
+    return restTemplate;
   }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the writes of syncing namespaces on a pool shared by all the sync requests. Unlike {@link FanOutExecutor}, the
+ * writes share no deadline and are never cancelled once started, since an interrupted write may have been applied by
+ * the admin service already. Each write is still bounded by the timeouts of the admin service calls.
+ */
+@Component
+public class ConfigSyncExecutor {
+
+  private static final String QUEUE_SIZE = "apollo.portal.config-sync.queue.size";
+  private static final String ACTIVE_THREADS = "apollo.portal.config-sync.active";
+
+  private final ThreadPoolExecutor executor;
+
+  public ConfigSyncExecutor(final PortalConfig portalConfig, final MeterRegistry meterRegistry) {
+    int poolSize = portalConfig.configSyncPoolSize();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        ApolloThreadFactory.create("ConfigSyncExecutor", true));
+    this.executor.allowCoreThreadTimeOut(true);
+
+    Gauge.builder(QUEUE_SIZE, executor, pool -> pool.getQueue().size())
+        .description("namespace sync tasks waiting for a thread")
+        .register(meterRegistry);
+    Gauge.builder(ACTIVE_THREADS, executor, ThreadPoolExecutor::getActiveCount)
+        .description("namespace sync threads running tasks")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @return the futures of the tasks in the same order, the caller waits for them
+   */
+  public <T> List<Future<T>> submitAll(List<? extends Callable<T>> tasks) {
+    List<Future<T>> futures = Lists.newArrayListWithCapacity(tasks.size());
+    for (Callable<T> task : tasks) {
+      futures.add(executor.submit(task));
+    }
+    return futures;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.ForwardingCache;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A cache whose expiration is read from the portal config on each access, so it could be changed at runtime, e.g. set
+ * to 0 to disable the cache, and the cache is rebuilt when it's changed.
+ * <p>
+ * The changed entries are invalidated now and again after the transaction commits, so the values loaded concurrently
+ * before the commit are not kept.
+ */
+public class ExpiringCache<K, V> {
+
+  private final IntSupplier expireSeconds;
+  private final long maximumSize;
+  private final MeterRegistry meterRegistry;
+  private final String name;
+  private volatile Cache<K, V> cache;
+  private volatile int cacheExpireSeconds;
+  /**
+   * the view of the current cache for the metrics, which keep a weak reference of it
+   */
+  private Cache<K, V> monitoredCache;
+
+  public ExpiringCache(IntSupplier expireSeconds, long maximumSize) {
+    this(expireSeconds, maximumSize, null, null);
+  }
+
+  /**
+   * @param meterRegistry the registry of the cache metrics, null to not monitor the cache, the metrics are
+   *                      registered once the cache is enabled
+   */
+  public ExpiringCache(IntSupplier expireSeconds, long maximumSize, MeterRegistry meterRegistry, String name) {
+    this.expireSeconds = expireSeconds;
+    this.maximumSize = maximumSize;
+    this.meterRegistry = meterRegistry;
+    this.name = name;
+  }
+
+  /**
+   * @param loader loads the value not cached, which should not be null
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    Cache<K, V> current = cache();
+    if (current == null) {
+      return loader.apply(key);
+    }
+    V value = current.getIfPresent(key);
+    if (value == null) {
+      value = loader.apply(key);
+      current.put(key, value);
+    }
+    return value;
+  }
+
+  public void invalidate(K key) {
+    runInvalidation(current -> current.invalidate(key));
+  }
+
+  public void invalidateAll(Collection<? extends K> keys) {
+    Set<K> toInvalidate = Sets.newHashSet(keys);
+    runInvalidation(current -> current.invalidateAll(toInvalidate));
+  }
+
+  public void invalidateAll() {
+    runInvalidation(current -> current.invalidateAll());
+  }
+
+  private void runInvalidation(Consumer<Cache<K, V>> invalidation) {
+    Cache<K, V> current = cache;
+    if (current == null) {
+      return;
+    }
+    invalidation.accept(current);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          Cache<K, V> committed = cache;
+          if (committed != null) {
+            invalidation.accept(committed);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * @return the cache of the current expiration, null if the cache is disabled
+   */
+  private Cache<K, V> cache() {
+    int expiration = expireSeconds.getAsInt();
+    if (expiration != cacheExpireSeconds) {
+      synchronized (this) {
+        if (expiration != cacheExpireSeconds) {
+          cache = expiration > 0 ? CacheBuilder.newBuilder()
+              .expireAfterWrite(expiration, TimeUnit.SECONDS)
+              .maximumSize(maximumSize)
+              .recordStats()
+              .<K, V>build() : null;
+          cacheExpireSeconds = expiration;
+          if (cache != null && meterRegistry != null && monitoredCache == null) {
+            monitor();
+          }
+        }
+      }
+    }
+    return cache;
+  }
+
+  private void monitor() {
+    Cache<K, V> disabled = CacheBuilder.newBuilder().maximumSize(0).<K, V>build();
+    monitoredCache = new ForwardingCache<K, V>() {
+      @Override
+      protected Cache<K, V> delegate() {
+        Cache<K, V> current = cache;
+        return current == null ? disabled : current;
+      }
+    };
+    GuavaCacheMetrics.monitor(meterRegistry, monitoredCache, name);
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the sub tasks of a request, e.g. loading the namespaces of a cluster one by one, on a bounded pool shared by all
+ * the requests.
+ * <ul>
+ *   <li>each request could only have a limited number of tasks running or queued, so a few huge requests can't take
+ *   all the threads from the others</li>
+ *   <li>the tasks of a request share one deadline, the unfinished ones are cancelled when it's reached or the request
+ *   thread is interrupted</li>
+ *   <li>the tasks are run by the request thread itself when the queue is full</li>
+ * </ul>
+ */
+@Component
+public class FanOutExecutor {
+
+  private static final Logger logger = LoggerFactory.getLogger(FanOutExecutor.class);
+  private static final String QUEUE_SIZE = "apollo.portal.fan-out.queue.size";
+  private static final String ACTIVE_THREADS = "apollo.portal.fan-out.active";
+  private static final String WAIT_TIME = "apollo.portal.fan-out.wait";
+  private static final String REJECTED = "apollo.portal.fan-out.rejected";
+  private static final String TIMEOUTS = "apollo.portal.fan-out.timeouts";
+
+  private final PortalConfig portalConfig;
+  private final MeterRegistry meterRegistry;
+  private final ThreadPoolExecutor executor;
+
+  public FanOutExecutor(final PortalConfig portalConfig, final MeterRegistry meterRegistry) {
+    this.portalConfig = portalConfig;
+    this.meterRegistry = meterRegistry;
+    int poolSize = portalConfig.fanOutPoolSize();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(portalConfig.fanOutQueueCapacity()),
+        ApolloThreadFactory.create("FanOutExecutor", true), new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+
+    Gauge.builder(QUEUE_SIZE, executor, pool -> pool.getQueue().size())
+        .description("fan-out tasks waiting for a thread")
+        .register(meterRegistry);
+    Gauge.builder(ACTIVE_THREADS, executor, ThreadPoolExecutor::getActiveCount)
+        .description("fan-out threads running tasks")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Run the tasks and wait for all of them to finish, or the deadline to be reached.
+   *
+   * @param name the name of the tasks for metrics, e.g. the caller's method
+   * @return the futures of the tasks in the same order, all of them are done, the unfinished tasks are cancelled
+   * @throws InterruptedException if interrupted while waiting, the unfinished tasks are cancelled as well
+   */
+  public <T> List<Future<T>> invokeAll(String name, List<? extends Callable<T>> tasks) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(portalConfig.fanOutTimeout());
+    Semaphore permits = new Semaphore(portalConfig.fanOutConcurrencyPerRequest());
+    Timer waitTimer = Timer.builder(WAIT_TIME).tag("task", name).register(meterRegistry);
+
+    List<FutureTask<T>> futureTasks = Lists.newArrayListWithCapacity(tasks.size());
+    for (Callable<T> task : tasks) {
+      futureTasks.add(new FutureTask<>(task));
+    }
+    List<Future<T>> futures = Lists.newArrayList(futureTasks);
+
+    boolean done = false;
+    try {
+      for (FutureTask<T> futureTask : futureTasks) {
+        if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+          return futures;
+        }
+        submit(name, futureTask, permits, waitTimer);
+      }
+
+      for (Future<T> future : futures) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return futures;
+        }
+        try {
+          future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | CancellationException ex) {
+          // the caller handles it with the future
+        } catch (TimeoutException ex) {
+          return futures;
+        }
+      }
+      done = true;
+      return futures;
+    } finally {
+      if (!done) {
+        cancel(name, futures);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> void submit(String name, FutureTask<T> future, Semaphore permits, Timer waitTimer) {
+    long submitTime = System.nanoTime();
+    try {
+      executor.execute(() -> {
+        waitTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+        try {
+          future.run();
+        } finally {
+          permits.release();
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      // the pool is saturated, so slow down the caller instead of queueing more
+      Counter.builder(REJECTED).tag("task", name).register(meterRegistry).increment();
+      try {
+        future.run();
+      } finally {
+        permits.release();
+      }
+    }
+  }
+
+  private <T> void cancel(String name, List<Future<T>> futures) {
+    int cancelled = 0;
+    for (Future<T> future : futures) {
+      if (!future.isDone() && future.cancel(true)) {
+        cancelled++;
+      }
+    }
+    if (cancelled > 0) {
+      Counter.builder(TIMEOUTS).tag("task", name).register(meterRegistry).increment();
+      logger.warn("{} fan-out tasks of {} are cancelled as the deadline is reached or the request is interrupted",
+          cancelled, name);
+    }
+  }
+}
@@ -18,13 +18,10 @@ package com.ctrip.framework.apollo.portal.component;
 
 import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
-import com.ctrip.framework.apollo.common.utils.BeanUtils;
-import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.ctrip.framework.apollo.portal.util.ItemIndexUtils;
 
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -34,11 +31,8 @@ public class ItemsComparator {
 
 
   public ItemChangeSets compareIgnoreBlankAndCommentItem(long baseNamespaceId, List<ItemDTO> baseItems, List<ItemDTO> targetItems){
-    List<ItemDTO> filteredSourceItems = filterBlankAndCommentItem(baseItems);
-    List<ItemDTO> filteredTargetItems = filterBlankAndCommentItem(targetItems);
-
-    Map<String, ItemDTO> sourceItemMap = BeanUtils.mapByKey("key", filteredSourceItems);
-    Map<String, ItemDTO> targetItemMap = BeanUtils.mapByKey("key", filteredTargetItems);
+    Map<String, ItemDTO> sourceItemMap = ItemIndexUtils.indexNormalItemsByKey(baseItems);
+    Map<String, ItemDTO> targetItemMap = ItemIndexUtils.indexNormalItemsByKey(targetItems);
 
     ItemChangeSets changeSets = new ItemChangeSets();
 
@@ -71,23 +65,6 @@ public class ItemsComparator {
     return changeSets;
   }
 
-  private List<ItemDTO> filterBlankAndCommentItem(List<ItemDTO> items){
-
-    List<ItemDTO> result = new LinkedList<>();
-
-    if (CollectionUtils.isEmpty(items)){
-      return result;
-    }
-
-    for (ItemDTO item: items){
-      if (!StringUtils.isEmpty(item.getKey())){
-        result.add(item);
-      }
-    }
-
-    return result;
-  }
-
   private ItemDTO copyItem(ItemDTO sourceItem){
     ItemDTO copiedItem = new ItemDTO();
     copiedItem.setKey(sourceItem.getKey());
@@ -24,6 +24,13 @@ import com.ctrip.framework.apollo.portal.service.RolePermissionService;
 import com.ctrip.framework.apollo.portal.service.SystemRoleManagerService;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.portal.util.RoleUtils;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Component;
 
 @Component("permissionValidator")
@@ -140,6 +147,57 @@ public class PermissionValidator {
     return !isAppAdmin(appId) && !hasOperateNamespacePermission(appId, namespaceName, env);
   }
 
+  /**
+   * Batch version of {@link #shouldHideConfigToCurrentUser(String, String, String)}, which checks the permissions
+   * of all the namespaces at once
+   *
+   * @return the namespace names whose configs should be hidden
+   */
+  public Set<String> findConfigHiddenNamespaces(String appId, String env, Collection<String> namespaceNames) {
+    if (namespaceNames.isEmpty() || !portalConfig.isConfigViewMemberOnly(env) || isAppAdmin(appId)) {
+      return Collections.emptySet();
+    }
+
+    Set<String> publicNamespaceNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    appNamespaceService.findByAppId(appId).stream().filter(AppNamespace::isPublic)
+        .forEach(appNamespace -> publicNamespaceNames.add(appNamespace.getName()));
+
+    List<String> candidates = namespaceNames.stream()
+        .filter(namespaceName -> !publicNamespaceNames.contains(namespaceName))
+        .collect(Collectors.toList());
+    if (candidates.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Set<String> targetIds = Sets.newHashSet();
+    for (String namespaceName : candidates) {
+      targetIds.add(RoleUtils.buildNamespaceTargetId(appId, namespaceName));
+      targetIds.add(RoleUtils.buildNamespaceTargetId(appId, namespaceName, env));
+    }
+    String userId = userInfoHolder.getUser().getUserId();
+    Set<String> permittedTargetIds = Sets.union(
+        rolePermissionService.userHasPermissions(userId, PermissionType.MODIFY_NAMESPACE, targetIds),
+        rolePermissionService.userHasPermissions(userId, PermissionType.RELEASE_NAMESPACE, targetIds));
+
+    return candidates.stream()
+        .filter(namespaceName -> !permittedTargetIds.contains(RoleUtils.buildNamespaceTargetId(appId, namespaceName))
+            && !permittedTargetIds.contains(RoleUtils.buildNamespaceTargetId(appId, namespaceName, env)))
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Batch version of {@link #isAppAdmin(String)}
+   *
+   * @return the app ids which the current user is admin of
+   */
+  public Set<String> findAppAdminAppIds(Collection<String> appIds) {
+    if (isSuperAdmin()) {
+      return Sets.newHashSet(appIds);
+    }
+    return rolePermissionService.userHasPermissions(userInfoHolder.getUser().getUserId(),
+        PermissionType.ASSIGN_ROLE, appIds);
+  }
+
   public boolean hasCreateApplicationPermission() {
     return hasCreateApplicationPermission(userInfoHolder.getUser().getUserId());
   }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Delivers the notifications of config publishes, e.g. calling a webhook server or sending an email.
+ * <ul>
+ *   <li>each channel has a bounded pool of its own, so a slow webhook server doesn't delay the emails and mq
+ *   messages, and each webhook url is a separate notification</li>
+ *   <li>failed notifications are retried with exponential backoff by a scheduler instead of sleeping in the
+ *   channel threads, unless the failure is not retryable for the channel, e.g. a webhook server timed out reading
+ *   the request</li>
+ *   <li>notifications beyond the queue capacity of a channel are dropped</li>
+ * </ul>
+ */
+@Component
+public class PublishNotificationDispatcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(PublishNotificationDispatcher.class);
+  private static final String QUEUE_SIZE = "apollo.portal.publish-notification.queue.size";
+  private static final String QUEUE_DELAY = "apollo.portal.publish-notification.queue.delay";
+  private static final String DELIVERY = "apollo.portal.publish-notification.delivery";
+  private static final String RETRIES = "apollo.portal.publish-notification.retries";
+  private static final String DROPPED = "apollo.portal.publish-notification.dropped";
+  private static final long MAX_RETRY_BACKOFF_IN_MILLI = 5 * 60 * 1000;
+
+  public enum Channel {
+    WEBHOOK, EMAIL, MQ;
+
+    String tag() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private final PortalConfig portalConfig;
+  private final MeterRegistry meterRegistry;
+  private final Map<Channel, ThreadPoolExecutor> executors = new EnumMap<>(Channel.class);
+  private final ScheduledExecutorService retryScheduler;
+
+  public PublishNotificationDispatcher(final PortalConfig portalConfig, final MeterRegistry meterRegistry) {
+    this.portalConfig = portalConfig;
+    this.meterRegistry = meterRegistry;
+    int poolSize = portalConfig.publishNotificationPoolSize();
+    for (Channel channel : Channel.values()) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(portalConfig.publishNotificationQueueCapacity()),
+          ApolloThreadFactory.create("PublishNotification-" + channel.tag(), true),
+          new ThreadPoolExecutor.AbortPolicy());
+      executor.allowCoreThreadTimeOut(true);
+      executors.put(channel, executor);
+      Gauge.builder(QUEUE_SIZE, executor, pool -> pool.getQueue().size())
+          .description("publish notifications waiting for a thread")
+          .tag("channel", channel.tag())
+          .register(meterRegistry);
+    }
+    retryScheduler = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("PublishNotificationRetry", true));
+  }
+
+  /**
+   * Deliver the notification asynchronously
+   *
+   * @param target what is notified, for logging, e.g. the webhook url
+   * @param delivery throws exception if the notification should be retried
+   */
+  public void dispatch(Channel channel, String target, Runnable delivery) {
+    dispatch(channel, target, delivery, ex -> true);
+  }
+
+  /**
+   * Deliver the notification asynchronously
+   *
+   * @param target what is notified, for logging, e.g. the webhook url
+   * @param delivery throws exception if the notification failed
+   * @param retryable whether the failure of the delivery should be retried
+   */
+  public void dispatch(Channel channel, String target, Runnable delivery, Predicate<Throwable> retryable) {
+    submit(new Notification(channel, target, delivery, retryable));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    retryScheduler.shutdownNow();
+    executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+  }
+
+  private void submit(Notification notification) {
+    notification.submitTime = System.nanoTime();
+    try {
+      executors.get(notification.channel).execute(notification);
+    } catch (RejectedExecutionException ex) {
+      Counter.builder(DROPPED).tag("channel", notification.channel.tag()).register(meterRegistry).increment();
+      logger.warn("Publish notification dropped as the {} queue is full, target: {}", notification.channel.tag(),
+          notification.target);
+      Tracer.logError(String.format("Publish notification dropped, channel: %s, target: %s",
+          notification.channel.tag(), notification.target), ex);
+    }
+  }
+
+  private void retry(Notification notification, long backoffInMilli) {
+    Counter.builder(RETRIES).tag("channel", notification.channel.tag()).register(meterRegistry).increment();
+    try {
+      retryScheduler.schedule(() -> submit(notification), backoffInMilli, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ex) {
+      // shutting down
+    }
+  }
+
+  private void recordDelivery(Notification notification, String result) {
+    Timer.builder(DELIVERY)
+        .description("time from dispatching a publish notification to its delivery, including the retries")
+        .tag("channel", notification.channel.tag())
+        .tag("result", result)
+        .register(meterRegistry)
+        .record(System.nanoTime() - notification.dispatchTime, TimeUnit.NANOSECONDS);
+  }
+
+  private class Notification implements Runnable {
+
+    private final Channel channel;
+    private final String target;
+    private final Runnable delivery;
+    private final Predicate<Throwable> retryable;
+    private final long dispatchTime = System.nanoTime();
+    private volatile long submitTime;
+    private int attempts;
+
+    Notification(Channel channel, String target, Runnable delivery, Predicate<Throwable> retryable) {
+      this.channel = channel;
+      this.target = target;
+      this.delivery = delivery;
+      this.retryable = retryable;
+    }
+
+    @Override
+    public void run() {
+      Timer.builder(QUEUE_DELAY).tag("channel", channel.tag()).register(meterRegistry)
+          .record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+      attempts++;
+      try {
+        delivery.run();
+        recordDelivery(this, "success");
+      } catch (Throwable ex) {
+        int maxRetries = portalConfig.publishNotificationMaxRetries();
+        if (attempts <= maxRetries && retryable.test(ex)) {
+          long backoff = Math.min((long) portalConfig.publishNotificationRetryBackoff() << (attempts - 1),
+              MAX_RETRY_BACKOFF_IN_MILLI);
+          logger.warn("Publish notification failed, will retry in {} ms, channel: {}, target: {}, attempts: {}",
+              backoff, channel.tag(), target, attempts, ex);
+          retry(this, backoff);
+          return;
+        }
+        recordDelivery(this, "failure");
+        logger.error("Publish notification failed, channel: {}, target: {}, attempts: {}", channel.tag(), target,
+            attempts, ex);
+        Tracer.logError(String.format("Publish notification failed, channel: %s, target: %s", channel.tag(),
+            target), ex);
+      }
+    }
+  }
+}
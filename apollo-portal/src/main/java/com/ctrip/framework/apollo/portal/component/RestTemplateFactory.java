@@ -18,8 +18,14 @@ package com.ctrip.framework.apollo.portal.component;
 
 import com.ctrip.framework.apollo.audit.component.ApolloAuditHttpInterceptor;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
@@ -27,23 +33,30 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.concurrent.TimeUnit;
 
 @Component
-public class RestTemplateFactory implements FactoryBean<RestTemplate>, InitializingBean {
+public class RestTemplateFactory implements FactoryBean<RestTemplate>, InitializingBean, DisposableBean {
+
+  private static final String CONNECTION_POOL_NAME = "admin-service";
 
   private final HttpMessageConverters httpMessageConverters;
   private final PortalConfig portalConfig;
   private final ApolloAuditHttpInterceptor apolloAuditHttpInterceptor;
+  private final MeterRegistry meterRegistry;
 
   private RestTemplate restTemplate;
+  private CloseableHttpClient httpClient;
 
   public RestTemplateFactory(final HttpMessageConverters httpMessageConverters,
-      final PortalConfig portalConfig, final ApolloAuditHttpInterceptor apolloAuditHttpInterceptor) {
+      final PortalConfig portalConfig, final ApolloAuditHttpInterceptor apolloAuditHttpInterceptor,
+      final MeterRegistry meterRegistry) {
     this.httpMessageConverters = httpMessageConverters;
     this.portalConfig = portalConfig;
     this.apolloAuditHttpInterceptor = apolloAuditHttpInterceptor;
+    this.meterRegistry = meterRegistry;
   }
 
   public RestTemplate getObject() {
@@ -59,8 +72,23 @@ public class RestTemplateFactory implements FactoryBean<RestTemplate>, Initializ
   }
 
   public void afterPropertiesSet() throws UnsupportedEncodingException {
-    CloseableHttpClient httpClient = HttpClientBuilder.create()
-        .setConnectionTimeToLive(portalConfig.connectionTimeToLive(), TimeUnit.MILLISECONDS)
+    // the default pool only allows 2 connections per admin service instance, which serializes the fan-out requests
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+        portalConfig.connectionTimeToLive(), TimeUnit.MILLISECONDS);
+    connectionManager.setMaxTotal(portalConfig.connectionPoolMaxTotal());
+    connectionManager.setDefaultMaxPerRoute(portalConfig.connectionPoolMaxPerRoute());
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CONNECTION_POOL_NAME, Tags.empty())
+        .bindTo(meterRegistry);
+
+    long keepAlive = portalConfig.connectionKeepAlive();
+    httpClient = HttpClientBuilder.create()
+        .setConnectionManager(connectionManager)
+        .setKeepAliveStrategy((response, context) -> {
+          long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+          return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+        })
+        .evictExpiredConnections()
+        .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
         .build();
 
     restTemplate = new RestTemplate(httpMessageConverters.getConverters());
@@ -73,5 +101,11 @@ public class RestTemplateFactory implements FactoryBean<RestTemplate>, Initializ
     restTemplate.getInterceptors().add(apolloAuditHttpInterceptor);
   }
 
+  @Override
+  public void destroy() throws IOException {
+    if (httpClient != null) {
+      httpClient.close();
+    }
+  }
 
 }
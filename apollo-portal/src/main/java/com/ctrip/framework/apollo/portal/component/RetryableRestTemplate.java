@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.portal.component;
 
 import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.constant.TracerEventType;
 import com.ctrip.framework.apollo.portal.environment.Env;
@@ -30,24 +31,42 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.HttpHostConnectException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.web.util.UriTemplateHandler;
 
@@ -66,6 +85,7 @@ public class RetryableRestTemplate {
    * Admin service access tokens in "PortalDB.ServerConfig"
    */
   private static final Type ACCESS_TOKENS = new TypeToken<Map<String, String>>(){}.getType();
+  private static final int HEDGED_REQUEST_MAX_THREADS = 64;
 
   private RestTemplate restTemplate;
 
@@ -73,6 +93,8 @@ public class RetryableRestTemplate {
   private final AdminServiceAddressLocator adminServiceAddressLocator;
   private final PortalMetaDomainService portalMetaDomainService;
   private final PortalConfig portalConfig;
+  private final AdminServiceLoadBalancer adminServiceLoadBalancer;
+  private final ExecutorService hedgedRequestExecutorService;
   private volatile String lastAdminServiceAccessTokens;
   private volatile Map<Env, String> adminServiceAccessTokenMap;
 
@@ -80,12 +102,16 @@ public class RetryableRestTemplate {
       final @Lazy RestTemplateFactory restTemplateFactory,
       final @Lazy AdminServiceAddressLocator adminServiceAddressLocator,
       final PortalMetaDomainService portalMetaDomainService,
-      final PortalConfig portalConfig
+      final PortalConfig portalConfig,
+      final AdminServiceLoadBalancer adminServiceLoadBalancer
   ) {
     this.restTemplateFactory = restTemplateFactory;
     this.adminServiceAddressLocator = adminServiceAddressLocator;
     this.portalMetaDomainService = portalMetaDomainService;
     this.portalConfig = portalConfig;
+    this.adminServiceLoadBalancer = adminServiceLoadBalancer;
+    this.hedgedRequestExecutorService = new ThreadPoolExecutor(0, HEDGED_REQUEST_MAX_THREADS, 60L, TimeUnit.SECONDS,
+        new SynchronousQueue<>(), ApolloThreadFactory.create("RetryableRestTemplate", true));
   }
 
 
@@ -94,6 +120,11 @@ public class RetryableRestTemplate {
     restTemplate = restTemplateFactory.getObject();
   }
 
+  @PreDestroy
+  private void preDestroy() {
+    hedgedRequestExecutorService.shutdown();
+  }
+
   public <T> T get(Env env, String path, Class<T> responseType, Object... urlVariables)
       throws RestClientException {
     return execute(HttpMethod.GET, env, path, null, responseType, urlVariables);
@@ -132,35 +163,10 @@ public class RetryableRestTemplate {
 
     List<ServiceDTO> services = getAdminServices(env, ct);
     HttpHeaders extraHeaders = assembleExtraHeaders(env);
+    String relativePath = path;
 
-    for (ServiceDTO serviceDTO : services) {
-      try {
-
-        T result = doExecute(method, extraHeaders, serviceDTO, path, request, responseType, uriVariables);
-
-        ct.setStatus(Transaction.SUCCESS);
-        ct.complete();
-        return result;
-      } catch (Throwable t) {
-        logger.error("Http request failed, uri: {}, method: {}", uri, method, t);
-        Tracer.logError(t);
-        if (canRetry(t, method)) {
-          Tracer.logEvent(TracerEventType.API_RETRY, uri);
-        } else {//biz exception rethrow
-          ct.setStatus(t);
-          ct.complete();
-          throw t;
-        }
-      }
-    }
-
-    //all admin server down
-    ServiceException e =
-        new ServiceException(String.format("Admin servers are unresponsive. meta server address: %s, admin servers: %s",
-                portalMetaDomainService.getDomain(env), services));
-    ct.setStatus(e);
-    ct.complete();
-    throw e;
+    return executeWithRetry(method, env, uri, ct, services,
+        serviceDTO -> doExecute(method, extraHeaders, serviceDTO, relativePath, request, responseType, uriVariables));
   }
 
   private <T> ResponseEntity<T> exchangeGet(Env env, String path, ParameterizedTypeReference<T> reference,
@@ -175,27 +181,53 @@ public class RetryableRestTemplate {
 
     List<ServiceDTO> services = getAdminServices(env, ct);
     HttpEntity<Void> entity = new HttpEntity<>(assembleExtraHeaders(env));
+    String relativePath = path;
+
+    return executeWithRetry(HttpMethod.GET, env, uri, ct, services,
+        serviceDTO -> restTemplate.exchange(parseHost(serviceDTO) + relativePath, HttpMethod.GET, entity, reference,
+            uriVariables));
+  }
+
+  private <T> T executeWithRetry(HttpMethod method, Env env, String uri, Transaction ct, List<ServiceDTO> services,
+                                 Function<ServiceDTO, T> request) {
+    List<ServiceDTO> candidates = adminServiceLoadBalancer.order(services);
+    int attempted = 0;
+
+    if (method == HttpMethod.GET && candidates.size() > 1 && portalConfig.isHedgedRequestEnabled()) {
+      HedgedAttempt<T> hedgedAttempt;
+      try {
+        hedgedAttempt = executeHedged(env, uri, candidates, request);
+      } catch (Throwable t) {
+        ct.setStatus(t);
+        ct.complete();
+        throw t;
+      }
+      if (hedgedAttempt.completed) {
+        ct.setStatus(Transaction.SUCCESS);
+        ct.complete();
+        return hedgedAttempt.result;
+      }
+      attempted = hedgedAttempt.attempted;
+    }
 
-    for (ServiceDTO serviceDTO : services) {
+    for (ServiceDTO serviceDTO : candidates.subList(attempted, candidates.size())) {
       try {
 
-        ResponseEntity<T> result =
-            restTemplate.exchange(parseHost(serviceDTO) + path, HttpMethod.GET, entity, reference, uriVariables);
+        T result = executeAndRecord(env, method, serviceDTO, request);
 
         ct.setStatus(Transaction.SUCCESS);
         ct.complete();
         return result;
       } catch (Throwable t) {
-        logger.error("Http request failed, uri: {}, method: {}", uri, HttpMethod.GET, t);
+        logger.error("Http request failed, uri: {}, method: {}", uri, method, t);
         Tracer.logError(t);
-        if (canRetry(t, HttpMethod.GET)) {
+        if (canRetry(t, method)) {
           Tracer.logEvent(TracerEventType.API_RETRY, uri);
-        } else {// biz exception rethrow
+        } else {//biz exception rethrow
           ct.setStatus(t);
           ct.complete();
           throw t;
         }
-
       }
     }
 
@@ -206,7 +238,126 @@ public class RetryableRestTemplate {
     ct.setStatus(e);
     ct.complete();
     throw e;
+  }
 
+  /**
+   * Send the GET request to the first admin service, and send it to the second one as well if the first one doesn't
+   * respond within the delay, whichever succeeds first wins, and the other one is cancelled.
+   */
+  private <T> HedgedAttempt<T> executeHedged(Env env, String uri, List<ServiceDTO> candidates,
+                                             Function<ServiceDTO, T> request) {
+    long hedgeDelay = adminServiceLoadBalancer.hedgeDelayInMillis(env);
+    if (hedgeDelay < 0) {
+      return HedgedAttempt.attempted(0);
+    }
+
+    CompletionService<T> completionService = new ExecutorCompletionService<>(hedgedRequestExecutorService);
+    List<Future<T>> futures = new ArrayList<>(2);
+    if (!trySubmit(completionService, futures, env, candidates.get(0), request)) {
+      return HedgedAttempt.attempted(0);
+    }
+    int submitted = 1;
+
+    try {
+      Future<T> completed = completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+      if (completed == null && trySubmit(completionService, futures, env, candidates.get(1), request)) {
+        submitted++;
+        adminServiceLoadBalancer.recordHedgedRequest(env);
+        Tracer.logEvent(TracerEventType.API_HEDGE, uri);
+      }
+
+      for (int finished = 0; finished < submitted; finished++) {
+        if (completed == null) {
+          completed = completionService.take();
+        }
+        try {
+          return HedgedAttempt.completed(completed.get());
+        } catch (ExecutionException ex) {
+          Throwable t = ex.getCause();
+          logger.error("Http request failed, uri: {}, method: {}", uri, HttpMethod.GET, t);
+          Tracer.logError(t);
+          if (!canRetry(t, HttpMethod.GET)) {
+            throw propagate(t);
+          }
+          Tracer.logEvent(TracerEventType.API_RETRY, uri);
+        }
+        completed = null;
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ServiceException("Interrupted while waiting for admin servers", ex);
+    } finally {
+      // the response of the loser is not needed any more
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    return HedgedAttempt.attempted(submitted);
+  }
+
+  private <T> boolean trySubmit(CompletionService<T> completionService, List<Future<T>> futures, Env env,
+                                ServiceDTO serviceDTO, Function<ServiceDTO, T> request) {
+    try {
+      futures.add(completionService.submit(
+          withCallerContext(() -> executeAndRecord(env, HttpMethod.GET, serviceDTO, request))));
+      return true;
+    } catch (RejectedExecutionException ex) {
+      // too many requests in flight, fall back to the sequential requests
+      return false;
+    }
+  }
+
+  /**
+   * The hedged requests are sent from the pool threads, so the thread bound context of the caller is carried over,
+   * e.g. the audit tracer in the request attributes whose trace headers are sent to the admin services, the current
+   * user and the logging context.
+   */
+  private static <T> Callable<T> withCallerContext(Callable<T> task) {
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+    return () -> {
+      RequestContextHolder.setRequestAttributes(requestAttributes);
+      SecurityContextHolder.setContext(securityContext);
+      if (mdcContext != null) {
+        MDC.setContextMap(mdcContext);
+      }
+      try {
+        return task.call();
+      } finally {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+        MDC.clear();
+      }
+    };
+  }
+
+  private <T> T executeAndRecord(Env env, HttpMethod method, ServiceDTO serviceDTO, Function<ServiceDTO, T> request) {
+    long start = System.nanoTime();
+    try {
+      T result = request.apply(serviceDTO);
+      adminServiceLoadBalancer.recordSuccess(env, serviceDTO, System.nanoTime() - start);
+      return result;
+    } catch (RuntimeException ex) {
+      if (isServiceUnavailable(ex)) {
+        adminServiceLoadBalancer.recordFailure(env, serviceDTO, System.nanoTime() - start);
+      } else {
+        // the admin service works, it's a biz exception
+        adminServiceLoadBalancer.recordSuccess(env, serviceDTO, System.nanoTime() - start);
+      }
+      throw ex;
+    }
+  }
+
+  private RuntimeException propagate(Throwable t) {
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return new ServiceException(t.getMessage(), (Exception) t);
   }
 
   private HttpHeaders assembleExtraHeaders(Env env) {
@@ -306,16 +457,44 @@ public class RetryableRestTemplate {
     return homepageUrl.endsWith("/") ? homepageUrl : homepageUrl + "/";
   }
 
+  private boolean isServiceUnavailable(Throwable e) {
+    Throwable nestedException = e.getCause();
+    return nestedException instanceof SocketTimeoutException
+           || nestedException instanceof HttpHostConnectException
+           || nestedException instanceof ConnectTimeoutException;
+  }
+
   //post,delete,put请求在admin server处理超时情况下不重试
   private boolean canRetry(Throwable e, HttpMethod method) {
-    Throwable nestedException = e.getCause();
     if (method == HttpMethod.GET) {
-      return nestedException instanceof SocketTimeoutException
-             || nestedException instanceof HttpHostConnectException
-             || nestedException instanceof ConnectTimeoutException;
+      return isServiceUnavailable(e);
     }
+    Throwable nestedException = e.getCause();
     return nestedException instanceof HttpHostConnectException
            || nestedException instanceof ConnectTimeoutException;
   }
 
+  private static class HedgedAttempt<T> {
+    private final boolean completed;
+    private final T result;
+    /**
+     * the number of candidates tried when not completed
+     */
+    private final int attempted;
+
+    private HedgedAttempt(boolean completed, T result, int attempted) {
+      this.completed = completed;
+      this.result = result;
+      this.attempted = attempted;
+    }
+
+    static <T> HedgedAttempt<T> completed(T result) {
+      return new HedgedAttempt<>(true, result, 0);
+    }
+
+    static <T> HedgedAttempt<T> attempted(int attempted) {
+      return new HedgedAttempt<>(false, null, attempted);
+    }
+  }
+
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
+import com.ctrip.framework.apollo.portal.spi.UserService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the users loaded from the {@link UserService}, whichever implementation it is, for showing their display
+ * names. The users not found are cached as well, so they don't hit the user directory on every page load either.
+ * <p>
+ * The users resolved during a portal request are also kept in the request, so they are loaded at most once per request
+ * even when the cache is disabled, and the users missing from both are loaded with one
+ * {@link UserService#findByUserIds(List)} call.
+ */
+@Component
+public class UserInfoCache {
+
+  private static final String CACHE_NAME = "portal.user.infos";
+  private static final String REQUEST_ATTRIBUTE = UserInfoCache.class.getName() + ".USERS";
+
+  private final UserService userService;
+  /**
+   * userId -> the user, empty for the users not found
+   */
+  private final Cache<String, Optional<UserInfo>> userInfoCache;
+
+  public UserInfoCache(final UserService userService, final PortalConfig portalConfig,
+      final MeterRegistry meterRegistry) {
+    this.userService = userService;
+    int expireSeconds = portalConfig.userInfoCacheExpireSeconds();
+    if (expireSeconds > 0) {
+      this.userInfoCache = CacheBuilder.newBuilder()
+          .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+          .maximumSize(portalConfig.userInfoCacheMaxSize())
+          .recordStats()
+          .build();
+      GuavaCacheMetrics.monitor(meterRegistry, userInfoCache, CACHE_NAME);
+    } else {
+      this.userInfoCache = null;
+    }
+  }
+
+  /**
+   * @return userId -> the user, the users not found are not included
+   */
+  public Map<String, UserInfo> findByUserIds(Collection<String> userIds) {
+    if (CollectionUtils.isEmpty(userIds)) {
+      return Maps.newHashMap();
+    }
+    Map<String, UserInfo> users = Maps.newHashMapWithExpectedSize(userIds.size());
+    Map<String, Optional<UserInfo>> requestUsers = requestUsers();
+
+    Set<String> toLoad = Sets.newLinkedHashSet();
+    for (String userId : userIds) {
+      Optional<UserInfo> user = requestUsers == null ? null : requestUsers.get(userId);
+      if (user == null && userInfoCache != null) {
+        user = userInfoCache.getIfPresent(userId);
+      }
+      if (user == null) {
+        toLoad.add(userId);
+      } else {
+        user.ifPresent(userInfo -> users.put(userId, userInfo));
+      }
+    }
+
+    Map<String, Optional<UserInfo>> loaded = load(Lists.newArrayList(toLoad));
+    loaded.forEach((userId, user) -> user.ifPresent(userInfo -> users.put(userId, userInfo)));
+    if (requestUsers != null) {
+      requestUsers.putAll(loaded);
+    }
+    if (userInfoCache != null) {
+      userInfoCache.putAll(loaded);
+    }
+    return users;
+  }
+
+  /**
+   * Invalidate the cached user, e.g. after the user is updated on this portal instance
+   */
+  public void invalidate(String userId) {
+    if (userInfoCache != null) {
+      userInfoCache.invalidate(userId);
+    }
+    Map<String, Optional<UserInfo>> requestUsers = requestUsers();
+    if (requestUsers != null) {
+      requestUsers.remove(userId);
+    }
+  }
+
+  private Map<String, Optional<UserInfo>> load(List<String> userIds) {
+    if (userIds.isEmpty()) {
+      return Maps.newHashMap();
+    }
+    Map<String, Optional<UserInfo>> loaded = Maps.newHashMapWithExpectedSize(userIds.size());
+    for (String userId : userIds) {
+      loaded.put(userId, Optional.empty());
+    }
+    List<UserInfo> users = userService.findByUserIds(userIds);
+    if (users != null) {
+      for (UserInfo user : users) {
+        if (user != null && user.getUserId() != null) {
+          loaded.put(user.getUserId(), Optional.of(user));
+        }
+      }
+    }
+    return loaded;
+  }
+
+  /**
+   * @return the users resolved in the current portal request, null if not in a request thread
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Optional<UserInfo>> requestUsers() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return null;
+    }
+    Map<String, Optional<UserInfo>> users =
+        (Map<String, Optional<UserInfo>>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (users == null) {
+      users = new ConcurrentHashMap<>();
+      attributes.setAttribute(REQUEST_ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+    }
+    return users;
+  }
+}
@@ -31,6 +31,7 @@ import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -56,6 +57,8 @@ public class PortalConfig extends RefreshableConfig {
       "1q2w", "2w3e", "3e4r", "5t6y", "abcd", "qwer", "asdf", "zxcv"
   );
 
+  private static final Set<String> SEARCH_BY_ITEM_MATCH_MODES = Sets.newHashSet("EXACT", "PREFIX", "CONTAINS");
+
   /**
    * meta servers config in "PortalDB.ServerConfig"
    */
@@ -173,6 +176,236 @@ public class PortalConfig extends RefreshableConfig {
     return getIntProperty("api.connectionTimeToLive", -1);
   }
 
+  public int connectionPoolMaxTotal() {
+    int maxTotal = getIntProperty("api.connectionPoolMaxTotal", 200);
+    return checkInt(maxTotal, 1, Integer.MAX_VALUE, 200);
+  }
+
+  /**
+   * Each admin service instance is a route, so this is the max connections to one admin service instance
+   */
+  public int connectionPoolMaxPerRoute() {
+    int maxPerRoute = getIntProperty("api.connectionPoolMaxPerRoute", 50);
+    return checkInt(maxPerRoute, 1, Integer.MAX_VALUE, 50);
+  }
+
+  /**
+   * Keep alive time of the connections when the admin service doesn't tell, idle connections are evicted after that
+   * as well, should be shorter than the keep alive timeout of the admin service
+   */
+  public int connectionKeepAlive() {
+    int keepAlive = getIntProperty("api.connectionKeepAlive", 15000);
+    return checkInt(keepAlive, 1000, Integer.MAX_VALUE, 15000);
+  }
+
+  /**
+   * Whether to send the same GET request to another admin service when the first one is slower than most of the
+   * recent requests
+   */
+  public boolean isHedgedRequestEnabled() {
+    return getBooleanProperty("api.hedgedRequestEnabled", false);
+  }
+
+  public int hedgedRequestMinDelay() {
+    int minDelay = getIntProperty("api.hedgedRequestMinDelay", 50);
+    return checkInt(minDelay, 1, Integer.MAX_VALUE, 50);
+  }
+
+  /**
+   * An admin service is moved to the end of the candidates after this number of consecutive connection failures or
+   * timeouts
+   */
+  public int outlierEjectionConsecutiveFailures() {
+    int failures = getIntProperty("api.outlierEjectionConsecutiveFailures", 3);
+    return checkInt(failures, 1, Integer.MAX_VALUE, 3);
+  }
+
+  public int outlierEjectionDuration() {
+    int duration = getIntProperty("api.outlierEjectionDuration", 30000);
+    return checkInt(duration, 1000, Integer.MAX_VALUE, 30000);
+  }
+
+  /**
+   * Threads shared by all the requests to load data from admin services in parallel, e.g. loading the namespaces of a
+   * cluster one by one
+   */
+  public int fanOutPoolSize() {
+    int defaultPoolSize = Runtime.getRuntime().availableProcessors() * 2;
+    int poolSize = getIntProperty("api.fanOutPoolSize", defaultPoolSize);
+    return checkInt(poolSize, 1, Integer.MAX_VALUE, defaultPoolSize);
+  }
+
+  /**
+   * Tasks waiting for the fan-out threads, more tasks are run by the request threads themselves
+   */
+  public int fanOutQueueCapacity() {
+    int capacity = getIntProperty("api.fanOutQueueCapacity", 1000);
+    return checkInt(capacity, 1, Integer.MAX_VALUE, 1000);
+  }
+
+  /**
+   * Max fan-out tasks of one request running or queued at the same time, so a few huge requests can't take all the
+   * fan-out threads
+   */
+  public int fanOutConcurrencyPerRequest() {
+    int concurrency = getIntProperty("api.fanOutConcurrencyPerRequest", 8);
+    return checkInt(concurrency, 1, Integer.MAX_VALUE, 8);
+  }
+
+  /**
+   * Deadline of all the fan-out tasks of one request, the unfinished ones are cancelled after that
+   */
+  public int fanOutTimeout() {
+    int timeout = getIntProperty("api.fanOutTimeout", 30000);
+    return checkInt(timeout, 100, Integer.MAX_VALUE, 30000);
+  }
+
+  /**
+   * Threads loading the configs from admin services when exporting all the configs, shared by all the exports and
+   * created by the first export after startup
+   */
+  public int configExportConcurrency() {
+    int concurrency = getIntProperty("config.export.concurrency", 8);
+    return checkInt(concurrency, 1, 64, 8);
+  }
+
+  /**
+   * Threads pushing the configs to admin services when importing configs from a zip file
+   */
+  public int configImportConcurrency() {
+    int concurrency = getIntProperty("config.import.concurrency", 8);
+    return checkInt(concurrency, 1, 64, 8);
+  }
+
+  /**
+   * Namespaces of the same environment compared or synced at the same time, so syncing to many clusters doesn't
+   * overload one environment's admin services
+   */
+  public int configSyncConcurrencyPerEnv() {
+    int concurrency = getIntProperty("config.sync.concurrencyPerEnv", 4);
+    return checkInt(concurrency, 1, 64, 4);
+  }
+
+  /**
+   * Threads pushing the synced namespaces to admin services, shared by all the sync requests
+   */
+  public int configSyncPoolSize() {
+    int poolSize = getIntProperty("config.sync.poolSize", 16);
+    return checkInt(poolSize, 1, 256, 16);
+  }
+
+  /**
+   * How long the permissions of a user are cached, 0 to disable the cache. Role changes made on this portal
+   * instance take effect immediately, the ones made on other instances take effect after the next scan, see
+   * {@link #openApiConsumerCacheScanIntervalSeconds()}.
+   */
+  public int permissionCacheExpireSeconds() {
+    int expireSeconds = getIntProperty("permission.cache.expireSeconds", 10);
+    return checkInt(expireSeconds, 0, 3600, 10);
+  }
+
+  /**
+   * How long the open api tokens and consumer permissions are cached, 0 to disable the cache
+   */
+  public int openApiConsumerCacheExpireSeconds() {
+    int expireSeconds = getIntProperty("openapi.consumer.cache.expireSeconds", 60);
+    return checkInt(expireSeconds, 0, 3600, 60);
+  }
+
+  /**
+   * How often the consumer and role tables are checked for changes made on other portal instances, which then clear
+   * the open api token, consumer permission and user permission caches
+   */
+  public int openApiConsumerCacheScanIntervalSeconds() {
+    int interval = getIntProperty("openapi.consumer.cache.scanIntervalSeconds", 5);
+    return checkInt(interval, 1, 300, 5);
+  }
+
+  /**
+   * Open api audits waiting to be written
+   */
+  public int openApiAuditQueueCapacity() {
+    int capacity = getIntProperty("openapi.audit.queue.capacity", 10000);
+    return checkInt(capacity, 100, 1000000, 10000);
+  }
+
+  /**
+   * How long an open api request waits for room in the audit queue before its audit is dropped, 0 to drop it
+   * right away
+   */
+  public int openApiAuditOfferTimeoutMillis() {
+    int timeout = getIntProperty("openapi.audit.queue.offerTimeoutMillis", 100);
+    return checkInt(timeout, 0, 10000, 100);
+  }
+
+  /**
+   * Threads writing the open api audits to the database
+   */
+  public int openApiAuditWriters() {
+    int writers = getIntProperty("openapi.audit.writers", 2);
+    return checkInt(writers, 1, 16, 2);
+  }
+
+  /**
+   * The most audits written in one batch, the batches grow up to it as the backlog grows
+   */
+  public int openApiAuditMaxBatchSize() {
+    int batchSize = getIntProperty("openapi.audit.batch.maxSize", 1000);
+    return checkInt(batchSize, 100, 10000, 1000);
+  }
+
+  /**
+   * How long the users loaded for showing their display names are cached, 0 to disable the cache
+   */
+  public int userInfoCacheExpireSeconds() {
+    int expireSeconds = getIntProperty("user.info.cache.expireSeconds", 300);
+    return checkInt(expireSeconds, 0, 86400, 300);
+  }
+
+  public int userInfoCacheMaxSize() {
+    int maxSize = getIntProperty("user.info.cache.maxSize", 10000);
+    return checkInt(maxSize, 1, 1000000, 10000);
+  }
+
+  /**
+   * Threads of each publish notification channel, i.e. webhook, email and mq
+   */
+  public int publishNotificationPoolSize() {
+    int poolSize = getIntProperty("config.release.notification.poolSize", 2);
+    return checkInt(poolSize, 1, 32, 2);
+  }
+
+  /**
+   * Notifications of each channel waiting for a thread, the ones beyond are dropped
+   */
+  public int publishNotificationQueueCapacity() {
+    int capacity = getIntProperty("config.release.notification.queueCapacity", 1000);
+    return checkInt(capacity, 1, 100000, 1000);
+  }
+
+  /**
+   * How many times a failed notification is retried, 0 to not retry
+   */
+  public int publishNotificationMaxRetries() {
+    int retries = getIntProperty("config.release.notification.maxRetries", 3);
+    return checkInt(retries, 0, 10, 3);
+  }
+
+  /**
+   * Delay before the first retry of a failed notification, doubled for each further retry
+   */
+  public int publishNotificationRetryBackoff() {
+    int backoff = getIntProperty("config.release.notification.retryBackoff", 1000);
+    return checkInt(backoff, 100, 60000, 1000);
+  }
+
+  int checkInt(int value, int min, int max, int defaultValue) {
+    if (value >= min && value <= max) {
+      return value;
+    }
+    return defaultValue;
+  }
+
   public List<Organization> organizations() {
 
     String organizations = getValue("organizations");
@@ -283,9 +516,27 @@ public class PortalConfig extends RefreshableConfig {
     return getArrayProperty("config.release.webhook.service.url", null);
   }
 
+  /**
+   * Connect and read timeout of calling each webhook url, so a slow endpoint only holds one notification thread
+   * for a bounded time
+   */
+  public int webHookTimeout() {
+    int timeout = getIntProperty("config.release.webhook.timeout", 3000);
+    return checkInt(timeout, 100, 60000, 3000);
+  }
+
   public boolean supportSearchByItem() {
     return getBooleanProperty("searchByItem.switch", true);
   }
+
+  /**
+   * How the item keys are matched when searching by item: EXACT, PREFIX or CONTAINS. PREFIX and CONTAINS require the
+   * item key index to be enabled in the admin services.
+   */
+  public String searchByItemMatchMode() {
+    String matchMode = getValue("searchByItem.matchMode", "EXACT").trim().toUpperCase(Locale.ROOT);
+    return SEARCH_BY_ITEM_MATCH_MODES.contains(matchMode) ? matchMode : "EXACT";
+  }
   
   public List<String> getUserPasswordNotAllowList() {
     String[] value = getArrayProperty("apollo.portal.auth.user-password-not-allow-list", null);
@@ -19,13 +19,12 @@ package com.ctrip.framework.apollo.portal.component.txtresolver;
 import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
-import com.ctrip.framework.apollo.common.utils.BeanUtils;
+import com.ctrip.framework.apollo.portal.util.ItemIndexUtils;
 
 import com.google.common.base.Strings;
 import org.springframework.stereotype.Component;
 
 import javax.validation.constraints.NotNull;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -45,24 +44,23 @@ public class PropertyResolver implements ConfigTextResolver {
   @Override
   public ItemChangeSets resolve(long namespaceId, String configText, List<ItemDTO> baseItems) {
 
-    Map<Integer, ItemDTO> oldLineNumMapItem = BeanUtils.mapByKey("lineNum", baseItems);
-    Map<String, ItemDTO> oldKeyMapItem = BeanUtils.mapByKey("key", baseItems);
-
-    //remove comment and blank item map.
-    oldKeyMapItem.remove("");
+    Map<Integer, ItemDTO> oldLineNumMapItem = ItemIndexUtils.indexByLineNum(baseItems);
+    //comment and blank items are matched by line number instead of key
+    Map<String, ItemDTO> oldKeyMapItem = ItemIndexUtils.indexNormalItemsByKey(baseItems);
 
     String[] newItems = configText.split(ITEM_SEPARATOR);
+    //trimmed lines, use for delete blank and comment item
+    String[] newLines = new String[newItems.length];
+    Set<String> keys = new HashSet<>();
     Set<String> repeatKeys = new HashSet<>();
-    if (isHasRepeatKey(newItems, repeatKeys)) {
-      throw new BadRequestException("Config text has repeated keys: %s, please check your input.", repeatKeys);
-    }
 
     ItemChangeSets changeSets = new ItemChangeSets();
-    Map<Integer, String> newLineNumMapItem = new HashMap<>();//use for delete blank and comment item
-    int lineCounter = 1;
-    for (String newItem : newItems) {
-      newItem = newItem.trim();
-      newLineNumMapItem.put(lineCounter, newItem);
+    //resolve the text in one pass, the changes are dropped if there are repeated keys
+    for (int i = 0; i < newItems.length; i++) {
+      int lineCounter = i + 1;
+      String newItem = newItems[i].trim();
+      newLines[i] = newItem;
+      checkKeyValue(newItems[i], lineCounter, keys, repeatKeys);
       ItemDTO oldItemByLine = oldLineNumMapItem.get(lineCounter);
 
       //comment item
@@ -79,34 +77,33 @@ public class PropertyResolver implements ConfigTextResolver {
       } else {
         handleNormalLine(namespaceId, oldKeyMapItem, newItem, lineCounter, changeSets);
       }
+    }
 
-      lineCounter++;
+    if (!repeatKeys.isEmpty()) {
+      throw new BadRequestException("Config text has repeated keys: %s, please check your input.", repeatKeys);
     }
 
-    deleteCommentAndBlankItem(oldLineNumMapItem, newLineNumMapItem, changeSets);
+    deleteCommentAndBlankItem(oldLineNumMapItem, newLines, changeSets);
     deleteNormalKVItem(oldKeyMapItem, changeSets);
 
     return changeSets;
   }
 
-  private boolean isHasRepeatKey(String[] newItems, @NotNull Set<String> repeatKeys) {
-    Set<String> keys = new HashSet<>();
-    int lineCounter = 1;
-    for (String item : newItems) {
-      if (!isCommentItem(item) && !isBlankItem(item)) {
-        String[] kv = parseKeyValueFromItem(item);
-        if (kv != null) {
-          String key = kv[0].toLowerCase();
-          if(!keys.add(key)){
-            repeatKeys.add(key);
-          }
-        } else {
-          throw new BadRequestException("line:" + lineCounter + " key value must separate by '='");
-        }
-      }
-      lineCounter++;
+  /**
+   * the raw line is checked, so a line like " #a" is not treated as a comment here
+   */
+  private void checkKeyValue(String item, int lineCounter, Set<String> keys, @NotNull Set<String> repeatKeys) {
+    if (isCommentItem(item) || isBlankItem(item)) {
+      return;
+    }
+    int kvSeparator = item.indexOf(KV_SEPARATOR);
+    if (kvSeparator == -1) {
+      throw new BadRequestException("line:" + lineCounter + " key value must separate by '='");
+    }
+    String key = item.substring(0, kvSeparator).trim().toLowerCase();
+    if (!keys.add(key)) {
+      repeatKeys.add(key);
     }
-    return !repeatKeys.isEmpty();
   }
 
   private String[] parseKeyValueFromItem(String item) {
@@ -184,13 +181,13 @@ public class PropertyResolver implements ConfigTextResolver {
   }
 
   private void deleteCommentAndBlankItem(Map<Integer, ItemDTO> oldLineNumMapItem,
-                                         Map<Integer, String> newLineNumMapItem,
+                                         String[] newLines,
                                          ItemChangeSets changeSets) {
 
     for (Map.Entry<Integer, ItemDTO> entry : oldLineNumMapItem.entrySet()) {
       int lineNum = entry.getKey();
       ItemDTO oldItem = entry.getValue();
-      String newItem = newLineNumMapItem.get(lineNum);
+      String newItem = lineNum >= 1 && lineNum <= newLines.length ? newLines[lineNum - 1] : null;
 
       //1. old is blank by now is not
       //2.old is comment by now is not exist or modified
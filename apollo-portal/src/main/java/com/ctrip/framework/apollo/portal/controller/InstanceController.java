@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.portal.controller;
 
 import com.ctrip.framework.apollo.common.dto.InstanceDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDeliveryDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.entity.vo.Number;
@@ -73,6 +74,14 @@ public class InstanceController {
         return ResponseEntity.ok(new Number(count));
     }
 
+    @GetMapping("/envs/{env}/instances/by-namespace/release-delivery")
+    public ReleaseDeliveryDTO getReleaseDeliveryByNamespace(@PathVariable String env, @RequestParam String appId,
+                                                            @RequestParam String clusterName,
+                                                            @RequestParam String namespaceName) {
+
+        return instanceService.getReleaseDeliveryByNamespace(Env.valueOf(env), appId, clusterName, namespaceName);
+    }
+
     @GetMapping("/envs/{env}/instances/by-namespace-and-releases-not-in")
     public List<InstanceDTO> getByReleasesNotIn(@PathVariable String env, @RequestParam String appId,
                                                 @RequestParam String clusterName, @RequestParam String namespaceName,
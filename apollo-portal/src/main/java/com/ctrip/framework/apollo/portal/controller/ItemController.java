@@ -20,6 +20,7 @@ import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
@@ -27,6 +28,7 @@ import com.ctrip.framework.apollo.portal.component.PermissionValidator;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceSyncModel;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceTextModel;
 import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs;
+import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs.SyncResult;
 import com.ctrip.framework.apollo.portal.entity.vo.NamespaceIdentifier;
 import com.ctrip.framework.apollo.portal.service.ItemService;
 import com.ctrip.framework.apollo.portal.service.NamespaceService;
@@ -47,8 +49,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
@@ -212,7 +217,18 @@ public class ItemController {
       }
     }
     if (hasPermission) {
-      configService.syncItems(model.getSyncToNamespaces(), model.getSyncItems());
+      List<ItemDiffs> results = configService.syncItems(model.getSyncToNamespaces(), model.getSyncItems());
+      Map<SyncResult, List<String>> failures = results.stream().filter(ItemDiffs::isFailed)
+          .collect(Collectors.groupingBy(ItemDiffs::getSyncResult, () -> new EnumMap<>(SyncResult.class),
+              Collectors.mapping(ItemDiffs::getExtInfo, Collectors.toList())));
+      if (!failures.isEmpty()) {
+        int failed = failures.values().stream().mapToInt(List::size).sum();
+        throw new ServiceException("Sync to %s of %s namespaces didn't succeed, the others succeeded. "
+            + "Failed (not applied): %s, not attempted: %s, outcome unknown (may be applied): %s", failed,
+            results.size(), failures.getOrDefault(SyncResult.FAILED, Collections.emptyList()),
+            failures.getOrDefault(SyncResult.NOT_ATTEMPTED, Collections.emptyList()),
+            failures.getOrDefault(SyncResult.UNKNOWN, Collections.emptyList()));
+      }
       return ResponseEntity.status(HttpStatus.OK).build();
     }
     throw new AccessDeniedException(String.format("You don't have the permission to modify environment: %s", envNoPermission));
@@ -110,8 +110,11 @@ public class NamespaceController {
 
     List<NamespaceBO> namespaceBOs = namespaceService.findNamespaceBOs(appId, Env.valueOf(env), clusterName);
 
+    Set<String> hiddenNamespaces = permissionValidator.findConfigHiddenNamespaces(appId, env,
+        namespaceBOs.stream().map(namespaceBO -> namespaceBO.getBaseInfo().getNamespaceName())
+            .collect(Collectors.toList()));
     for (NamespaceBO namespaceBO : namespaceBOs) {
-      if (permissionValidator.shouldHideConfigToCurrentUser(appId, env, namespaceBO.getBaseInfo().getNamespaceName())) {
+      if (hiddenNamespaces.contains(namespaceBO.getBaseInfo().getNamespaceName())) {
         namespaceBO.hideItems();
       }
     }
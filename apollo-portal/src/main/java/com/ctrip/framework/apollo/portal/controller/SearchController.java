@@ -21,12 +21,16 @@ import com.google.common.collect.Lists;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
 import com.ctrip.framework.apollo.common.entity.App;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.service.AppService;
 import com.ctrip.framework.apollo.portal.service.NamespaceService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -34,6 +38,10 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -42,19 +50,24 @@ import java.util.concurrent.atomic.AtomicLong;
 @RestController("/app")
 public class SearchController {
 
+  private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+
   private AppService       appService;
   private PortalSettings   portalSettings;
   private NamespaceService namespaceService;
   private PortalConfig     portalConfig;
+  private FanOutExecutor   fanOutExecutor;
 
   public SearchController(final AppService appService,
                           final PortalSettings portalSettings,
                           final PortalConfig portalConfig,
-                          final NamespaceService namespaceService) {
+                          final NamespaceService namespaceService,
+                          final FanOutExecutor fanOutExecutor) {
     this.appService = appService;
     this.portalConfig = portalConfig;
     this.portalSettings = portalSettings;
     this.namespaceService = namespaceService;
+    this.fanOutExecutor = fanOutExecutor;
   }
 
   @GetMapping("/apps/search/by-appid-or-name")
@@ -89,10 +102,37 @@ public class SearchController {
 
     List<Env> activeEnvs = portalSettings.getActiveEnvs();
 
-    activeEnvs.forEach(env -> {
-      PageDTO<NamespaceDTO> namespacePage = namespaceService.findNamespacesByItem(env, itemKey, pageable);
-      if (!namespacePage.hasContent()) {
-        return;
+    //query the envs concurrently, an unavailable env doesn't fail the whole search
+    List<Callable<PageDTO<NamespaceDTO>>> tasks = Lists.newArrayListWithCapacity(activeEnvs.size());
+    for (Env env : activeEnvs) {
+      tasks.add(() -> namespaceService.findNamespacesByItem(env, itemKey, pageable));
+    }
+    List<Future<PageDTO<NamespaceDTO>>> futures;
+    try {
+      futures = fanOutExecutor.invokeAll("searchByItem", tasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceException("Search by item is interrupted", e);
+    }
+
+    Exception lastFailure = null;
+    int failedEnvs = 0;
+    for (int i = 0; i < activeEnvs.size(); i++) {
+      Env env = activeEnvs.get(i);
+      PageDTO<NamespaceDTO> namespacePage;
+      try {
+        namespacePage = futures.get(i).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ServiceException("Search by item is interrupted", e);
+      } catch (ExecutionException | CancellationException e) {
+        logger.warn("Search by item {} in env {} failed", itemKey, env, e);
+        lastFailure = e;
+        failedEnvs++;
+        continue;
+      }
+      if (namespacePage == null || !namespacePage.hasContent()) {
+        continue;
       }
 
       long currentEnvNSTotal = namespacePage.getTotal();
@@ -114,7 +154,12 @@ public class SearchController {
 
         result.add(app);
       });
-    });
+    }
+
+    // empty results would be misleading if no env could be searched
+    if (failedEnvs > 0 && failedEnvs == activeEnvs.size()) {
+      throw new ServiceException("Search by item failed in all the environments", lastFailure);
+    }
 
     return new PageDTO<>(result, pageable, maxTotal.get());
   }
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.portal.controller;
 
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.ctrip.framework.apollo.portal.component.UserInfoCache;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.UserPO;
 import com.ctrip.framework.apollo.portal.spi.LogoutHandler;
@@ -46,16 +47,19 @@ public class UserInfoController {
   private final LogoutHandler logoutHandler;
   private final UserService userService;
   private final AuthUserPasswordChecker passwordChecker;
+  private final UserInfoCache userInfoCache;
 
   public UserInfoController(
       final UserInfoHolder userInfoHolder,
       final LogoutHandler logoutHandler,
       final UserService userService,
-      final AuthUserPasswordChecker passwordChecker) {
+      final AuthUserPasswordChecker passwordChecker,
+      final UserInfoCache userInfoCache) {
     this.userInfoHolder = userInfoHolder;
     this.logoutHandler = logoutHandler;
     this.userService = userService;
     this.passwordChecker = passwordChecker;
+    this.userInfoCache = userInfoCache;
   }
 
   @PreAuthorize(value = "@permissionValidator.isSuperAdmin()")
@@ -78,6 +82,7 @@ public class UserInfoController {
       } else {
         ((SpringSecurityUserService) userService).update(user);
       }
+      userInfoCache.invalidate(user.getUsername());
     } else {
       throw new UnsupportedOperationException("Create or update user operation is unsupported");
     }
@@ -88,6 +93,7 @@ public class UserInfoController {
   public void changeUserEnabled(@RequestBody UserPO user) {
     if (userService instanceof SpringSecurityUserService) {
       ((SpringSecurityUserService) userService).changeEnabled(user);
+      userInfoCache.invalidate(user.getUsername());
     } else {
       throw new UnsupportedOperationException("change user enabled is unsupported");
     }
@@ -19,9 +19,32 @@ package com.ctrip.framework.apollo.portal.entity.vo;
 import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 
 public class ItemDiffs {
+
+  /**
+   * Result of syncing the diffs to the namespace
+   */
+  public enum SyncResult {
+    APPLIED,
+    /**
+     * rejected by the admin service, or the admin service is unreachable, nothing is applied
+     */
+    FAILED,
+    /**
+     * not sent to the admin service as the sync is stopped
+     */
+    NOT_ATTEMPTED,
+    /**
+     * the admin service didn't respond in time, the diffs may or may not be applied
+     */
+    UNKNOWN
+  }
+
   private NamespaceIdentifier namespace;
   private ItemChangeSets diffs;
   private String extInfo;
+  private boolean failed;
+  private long costInMillis;
+  private SyncResult syncResult;
 
   public ItemDiffs(NamespaceIdentifier namespace) {
     this.namespace = namespace;
@@ -50,4 +73,28 @@ public class ItemDiffs {
   public void setExtInfo(String extInfo) {
     this.extInfo = extInfo;
   }
+
+  public boolean isFailed() {
+    return failed;
+  }
+
+  public void setFailed(boolean failed) {
+    this.failed = failed;
+  }
+
+  public long getCostInMillis() {
+    return costInMillis;
+  }
+
+  public void setCostInMillis(long costInMillis) {
+    this.costInMillis = costInMillis;
+  }
+
+  public SyncResult getSyncResult() {
+    return syncResult;
+  }
+
+  public void setSyncResult(SyncResult syncResult) {
+    this.syncResult = syncResult;
+  }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.entity.vo;
+
+/**
+ * The result of importing a namespace from a zip file
+ */
+public class NamespaceImportResult {
+
+  public enum Status {
+    IMPORTED,
+    /**
+     * the namespace has items already, and the conflict namespaces are ignored
+     */
+    SKIPPED,
+    FAILED
+  }
+
+  private NamespaceIdentifier namespace;
+  private Status status;
+  private int createdItems;
+  private int updatedItems;
+  private String message;
+
+  public NamespaceImportResult(NamespaceIdentifier namespace) {
+    this.namespace = namespace;
+  }
+
+  public NamespaceIdentifier getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(NamespaceIdentifier namespace) {
+    this.namespace = namespace;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public int getCreatedItems() {
+    return createdItems;
+  }
+
+  public void setCreatedItems(int createdItems) {
+    this.createdItems = createdItems;
+  }
+
+  public int getUpdatedItems() {
+    return updatedItems;
+  }
+
+  public void setUpdatedItems(int updatedItems) {
+    this.updatedItems = updatedItems;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  @Override
+  public String toString() {
+    return "NamespaceImportResult{" +
+        "namespace=" + namespace +
+        ", status=" + status +
+        ", createdItems=" + createdItems +
+        ", updatedItems=" + updatedItems +
+        ", message='" + message + '\'' +
+        '}';
+  }
+}
@@ -18,6 +18,8 @@ package com.ctrip.framework.apollo.portal.listener;
 
 import com.ctrip.framework.apollo.common.constants.ReleaseOperation;
 import com.ctrip.framework.apollo.portal.component.ConfigReleaseWebhookNotifier;
+import com.ctrip.framework.apollo.portal.component.PublishNotificationDispatcher;
+import com.ctrip.framework.apollo.portal.component.PublishNotificationDispatcher.Channel;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
@@ -50,6 +52,7 @@ public class ConfigPublishListener {
   private final PortalConfig portalConfig;
   private final MQService mqService;
   private final ConfigReleaseWebhookNotifier configReleaseWebhookNotifier;
+  private final PublishNotificationDispatcher publishNotificationDispatcher;
 
   private ExecutorService executorService;
 
@@ -62,7 +65,8 @@ public class ConfigPublishListener {
       final MergeEmailBuilder mergeEmailBuilder,
       final PortalConfig portalConfig,
       final MQService mqService,
-      final ConfigReleaseWebhookNotifier configReleaseWebhookNotifier) {
+      final ConfigReleaseWebhookNotifier configReleaseWebhookNotifier,
+      final PublishNotificationDispatcher publishNotificationDispatcher) {
     this.releaseHistoryService = releaseHistoryService;
     this.emailService = emailService;
     this.normalPublishEmailBuilder = normalPublishEmailBuilder;
@@ -72,6 +76,7 @@ public class ConfigPublishListener {
     this.portalConfig = portalConfig;
     this.mqService = mqService;
     this.configReleaseWebhookNotifier = configReleaseWebhookNotifier;
+    this.publishNotificationDispatcher = publishNotificationDispatcher;
   }
 
   @PostConstruct
@@ -85,6 +90,10 @@ public class ConfigPublishListener {
   }
 
 
+  /**
+   * Loads the release history and hands the notifications over to the {@link PublishNotificationDispatcher}, which
+   * delivers them on the pools of their channels
+   */
   private class ConfigPublishNotifyTask implements Runnable {
 
     private final ConfigPublishEvent.ConfigPublishInfo publishInfo;
@@ -129,7 +138,7 @@ public class ConfigPublishListener {
     }
 
     /**
-    * webhook send
+    * webhook send, each url is notified separately so a slow one doesn't delay the others
     *
     * @param releaseHistory {@link ReleaseHistoryBO}
     */
@@ -141,7 +150,11 @@ public class ConfigPublishListener {
         return;
       }
 
-      configReleaseWebhookNotifier.notify(webHookUrls, env, releaseHistory);
+      for (String webHookUrl : webHookUrls) {
+        publishNotificationDispatcher.dispatch(Channel.WEBHOOK, webHookUrl,
+            () -> configReleaseWebhookNotifier.notify(webHookUrl, env, releaseHistory),
+            ConfigReleaseWebhookNotifier::isRetryable);
+      }
     }
 
     private void sendPublishEmail(ReleaseHistoryBO releaseHistory) {
@@ -153,20 +166,28 @@ public class ConfigPublishListener {
 
       int realOperation = releaseHistory.getOperation();
 
-      Email email = null;
-      try {
-        email = buildEmail(env, releaseHistory, realOperation);
-      } catch (Throwable e) {
-        Tracer.logError("build email failed.", e);
-      }
+      publishNotificationDispatcher.dispatch(Channel.EMAIL, releaseTarget(releaseHistory), () -> {
+        Email email = null;
+        try {
+          email = buildEmail(env, releaseHistory, realOperation);
+        } catch (Throwable e) {
+          Tracer.logError("build email failed.", e);
+        }
 
-      if (email != null) {
-        emailService.send(email);
-      }
+        if (email != null) {
+          emailService.send(email);
+        }
+      }, emailService::isRetryable);
     }
 
     private void sendPublishMsg(ReleaseHistoryBO releaseHistory) {
-      mqService.sendPublishMsg(publishInfo.getEnv(), releaseHistory);
+      publishNotificationDispatcher.dispatch(Channel.MQ, releaseTarget(releaseHistory),
+          () -> mqService.sendPublishMsg(publishInfo.getEnv(), releaseHistory), mqService::isRetryable);
+    }
+
+    private String releaseTarget(ReleaseHistoryBO releaseHistory) {
+      return String.format("%s %s+%s+%s", publishInfo.getEnv(), releaseHistory.getAppId(),
+          releaseHistory.getClusterName(), releaseHistory.getNamespaceName());
     }
 
     private Email buildEmail(Env env, ReleaseHistoryBO releaseHistory, int operation) {
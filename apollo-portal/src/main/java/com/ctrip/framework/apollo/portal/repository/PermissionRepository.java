@@ -40,6 +40,12 @@ public interface PermissionRepository extends PagingAndSortingRepository<Permiss
   List<Permission> findByPermissionTypeInAndTargetId(Collection<String> permissionTypes,
                                                      String targetId);
 
+  /**
+   * find permissions by permission type and targetIds
+   */
+  List<Permission> findByPermissionTypeAndTargetIdIn(String permissionType,
+                                                     Collection<String> targetIds);
+
   @Query("SELECT p.id from Permission p where p.targetId like ?1 or p.targetId like CONCAT(?1, '+%')")
   List<Long> findPermissionIdsByAppId(String appId);
 
@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -48,4 +49,9 @@ public interface UserRoleRepository extends PagingAndSortingRepository<UserRole,
   @Query("UPDATE UserRole SET IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?2 WHERE RoleId in ?1 and IsDeleted = false")
   Integer batchDeleteByRoleIds(List<Long> roleIds, String operator);
 
+  /**
+   * the latest modified time of the user roles, including the deleted ones
+   */
+  @Query(value = "SELECT MAX(`DataChange_LastTime`) FROM `UserRole`", nativeQuery = true)
+  Date findLatestModifiedTime();
 }
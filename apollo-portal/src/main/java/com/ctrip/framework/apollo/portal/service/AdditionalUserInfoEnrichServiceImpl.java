@@ -16,17 +16,16 @@
  */
 package com.ctrip.framework.apollo.portal.service;
 
+import com.ctrip.framework.apollo.portal.component.UserInfoCache;
 import com.ctrip.framework.apollo.portal.enricher.AdditionalUserInfoEnricher;
 import com.ctrip.framework.apollo.portal.enricher.adapter.UserInfoEnrichedAdapter;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
-import com.ctrip.framework.apollo.portal.spi.UserService;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -37,14 +36,14 @@ import org.springframework.util.StringUtils;
 @Service
 public class AdditionalUserInfoEnrichServiceImpl implements AdditionalUserInfoEnrichService {
 
-  private final UserService userService;
+  private final UserInfoCache userInfoCache;
 
   private final List<AdditionalUserInfoEnricher> enricherList;
 
   public AdditionalUserInfoEnrichServiceImpl(
-      UserService userService,
+      UserInfoCache userInfoCache,
       List<AdditionalUserInfoEnricher> enricherList) {
-    this.userService = userService;
+    this.userInfoCache = userInfoCache;
     this.enricherList = enricherList;
   }
 
@@ -65,12 +64,10 @@ public class AdditionalUserInfoEnrichServiceImpl implements AdditionalUserInfoEn
     if (CollectionUtils.isEmpty(userIdSet)) {
       return;
     }
-    List<UserInfo> userInfoList = this.userService.findByUserIds(new ArrayList<>(userIdSet));
-    if (CollectionUtils.isEmpty(userInfoList)) {
+    Map<String, UserInfo> userInfoMap = this.userInfoCache.findByUserIds(userIdSet);
+    if (CollectionUtils.isEmpty(userInfoMap)) {
       return;
     }
-    Map<String, UserInfo> userInfoMap = userInfoList.stream()
-        .collect(Collectors.toMap(UserInfo::getUserId, Function.identity()));
     for (UserInfoEnrichedAdapter adapter : adapterList) {
       for (AdditionalUserInfoEnricher enricher : this.enricherList) {
         enricher.enrichAdditionalUserInfo(adapter, userInfoMap);
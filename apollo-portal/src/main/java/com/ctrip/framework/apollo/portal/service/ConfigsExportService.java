@@ -24,8 +24,10 @@ import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.portal.component.PermissionValidator;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.ConfigBO;
 import com.ctrip.framework.apollo.portal.entity.bo.NamespaceBO;
 import com.ctrip.framework.apollo.portal.environment.Env;
@@ -37,15 +39,28 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import javax.annotation.PreDestroy;
+
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -54,6 +69,16 @@ public class ConfigsExportService {
 
   private static final Logger logger = LoggerFactory.getLogger(ConfigsExportService.class);
 
+  /**
+   * files waiting to be written to the zip per export thread, the export threads are blocked when it's full
+   */
+  private static final int PENDING_FILES_PER_THREAD = 16;
+  private static final int PROGRESS_LOG_INTERVAL = 100;
+  /**
+   * lanes of the exports waiting for a thread per export thread, the exports beyond it are rejected
+   */
+  private static final int QUEUED_LANES_PER_THREAD = 4;
+
   private final Gson gson = new Gson();
 
   private final AppService appService;
@@ -68,19 +93,29 @@ public class ConfigsExportService {
 
   private final PermissionValidator permissionValidator;
 
+  private final PortalConfig portalConfig;
+
+  /**
+   * shared by all the exports, so the concurrent exports don't multiply the load on the admin services, created by
+   * the first export with the concurrency configured at that time
+   */
+  private volatile ThreadPoolExecutor exportExecutor;
+
   public ConfigsExportService(
       AppService appService,
       ClusterService clusterService,
       final @Lazy NamespaceService namespaceService,
       final AppNamespaceService appNamespaceService,
       PortalSettings portalSettings,
-      PermissionValidator permissionValidator) {
+      PermissionValidator permissionValidator,
+      PortalConfig portalConfig) {
     this.appService = appService;
     this.clusterService = clusterService;
     this.namespaceService = namespaceService;
     this.appNamespaceService = appNamespaceService;
     this.portalSettings = portalSettings;
     this.permissionValidator = permissionValidator;
+    this.portalConfig = portalConfig;
   }
 
   /**
@@ -93,6 +128,10 @@ public class ConfigsExportService {
    * List<ownerName> -> List<App> -> List<Env> -> List<Namespace>
    * -----------------> app.metadata
    * -------------------------------------------> List<cluster.metadata>
+   * <p>
+   * The clusters and namespaces are loaded from admin services by a bounded pool shared by all the exports, and
+   * written to the zip by the calling thread only, the loading is blocked when the writing falls behind. The envs
+   * failed to export are logged, so they could be exported again separately.
    *
    * @param outputStream network file download stream to user
    */
@@ -111,6 +150,18 @@ public class ConfigsExportService {
       return;
     }
 
+    int concurrency = portalConfig.configExportConcurrency();
+    BlockingQueue<ExportFile> pendingFiles = new ArrayBlockingQueue<>(concurrency * PENDING_FILES_PER_THREAD);
+    ExportProgress progress = new ExportProgress(exportEnvs.size() * hasPermissionApps.size());
+    Queue<Runnable> exportTasks = new ConcurrentLinkedQueue<>();
+    for (Env env : exportEnvs) {
+      for (App app : hasPermissionApps) {
+        exportTasks.add(() -> exportClusters(env, app, pendingFiles, progress));
+      }
+    }
+    // submitted before anything is written, so a rejected export fails with a proper response
+    List<Future<?>> lanes = submitLanes(exportTasks, Math.min(concurrency, exportTasks.size()));
+
     try (final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
       //write app info to zip
       writeAppInfoToZip(hasPermissionApps, zipOutputStream);
@@ -119,16 +170,70 @@ public class ConfigsExportService {
       exportAppNamespaces(zipOutputStream);
 
       //export app's clusters
-      exportEnvs.parallelStream().forEach(env -> {
-        try {
-          this.exportClusters(env, hasPermissionApps, zipOutputStream);
-        } catch (Exception e) {
-          logger.error("export cluster error. env = {}", env, e);
-        }
-      });
+      writePendingFilesToZip(pendingFiles, progress, zipOutputStream);
     } catch (IOException e) {
       logger.error("export config error", e);
       throw new ServiceException("export config error", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceException("export config interrupted", e);
+    } finally {
+      // stop loading if the writing failed
+      exportTasks.clear();
+      lanes.forEach(lane -> lane.cancel(true));
+    }
+
+    if (!progress.getFailedEnvs().isEmpty()) {
+      logger.warn("Export of envs {} is incomplete, please export them again", progress.getFailedEnvs());
+    }
+  }
+
+  /**
+   * Each lane runs the tasks of the export one by one, so an export never takes more threads of the shared pool
+   * than the lanes, and the concurrent exports take turns.
+   */
+  private List<Future<?>> submitLanes(Queue<Runnable> exportTasks, int laneCount) {
+    ThreadPoolExecutor executor = exportExecutor();
+    List<Future<?>> lanes = new ArrayList<>(laneCount);
+    for (int i = 0; i < laneCount; i++) {
+      try {
+        lanes.add(executor.submit(() -> {
+          Runnable task;
+          while (!Thread.currentThread().isInterrupted() && (task = exportTasks.poll()) != null) {
+            task.run();
+          }
+        }));
+      } catch (RejectedExecutionException e) {
+        // the lanes submitted could finish all the tasks
+        break;
+      }
+    }
+    if (lanes.isEmpty()) {
+      throw new ServiceException("Too many exports in progress, please try again later");
+    }
+    return lanes;
+  }
+
+  private ThreadPoolExecutor exportExecutor() {
+    if (exportExecutor == null) {
+      synchronized (this) {
+        if (exportExecutor == null) {
+          int concurrency = portalConfig.configExportConcurrency();
+          ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(concurrency * QUEUED_LANES_PER_THREAD),
+              ApolloThreadFactory.create("ConfigsExportService", true));
+          executor.allowCoreThreadTimeOut(true);
+          exportExecutor = executor;
+        }
+      }
+    }
+    return exportExecutor;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (exportExecutor != null) {
+      exportExecutor.shutdownNow();
     }
   }
 
@@ -140,76 +245,75 @@ public class ConfigsExportService {
       return Collections.emptyList();
     }
 
-    // permission check
-    final Predicate<App> isAppAdmin =
-        app -> {
-          try {
-            return permissionValidator.isAppAdmin(app.getAppId());
-          } catch (Exception e) {
-            logger.error("permission check failed. app = {}", app);
-            return false;
-          }
-        };
+    // permission check, all the apps at once
+    final Set<String> appAdminAppIds;
+    try {
+      appAdminAppIds = permissionValidator.findAppAdminAppIds(
+          apps.stream().map(App::getAppId).collect(Collectors.toList()));
+    } catch (Exception e) {
+      logger.error("permission check failed.", e);
+      return Collections.emptyList();
+    }
 
     // app admin permission filter
-    return apps.stream().filter(isAppAdmin).collect(Collectors.toList());
+    return apps.stream().filter(app -> appAdminAppIds.contains(app.getAppId())).collect(Collectors.toList());
   }
 
-  private void writeAppInfoToZip(List<App> apps, ZipOutputStream zipOutputStream) {
+  private void writeAppInfoToZip(List<App> apps, ZipOutputStream zipOutputStream) throws IOException {
     logger.info("to import app size = {}", apps.size());
 
-    final Consumer<App> appConsumer =
-        app -> {
-          try {
-            synchronized (zipOutputStream) {
-              String fileName = ConfigFileUtils.genAppInfoPath(app);
-              String content = gson.toJson(app);
-
-              writeToZip(fileName, content, zipOutputStream);
-            }
-          } catch (IOException e) {
-            logger.error("Write error. {}", app);
-            throw new ServiceException("Write app error. {}", e);
-          }
-        };
+    for (App app : apps) {
+      String fileName = ConfigFileUtils.genAppInfoPath(app);
+      String content = gson.toJson(app);
 
-    apps.forEach(appConsumer);
+      writeToZip(fileName, content, zipOutputStream);
+    }
   }
 
-  private void exportAppNamespaces(ZipOutputStream zipOutputStream) {
+  private void exportAppNamespaces(ZipOutputStream zipOutputStream) throws IOException {
     List<AppNamespace> appNamespaces = appNamespaceService.findAll();
 
     logger.info("to import appnamespace size = " + appNamespaces.size());
 
-    Consumer<AppNamespace> appNamespaceConsumer = appNamespace -> {
-      try {
-        synchronized (zipOutputStream) {
-          String fileName = ConfigFileUtils.genAppNamespaceInfoPath(appNamespace);
-          String content = gson.toJson(appNamespace);
-
-          writeToZip(fileName, content, zipOutputStream);
-        }
-      } catch (Exception e) {
-        logger.error("Write appnamespace error. {}", appNamespace);
-        throw new IllegalStateException(e);
-      }
-    };
-
-    appNamespaces.forEach(appNamespaceConsumer);
+    for (AppNamespace appNamespace : appNamespaces) {
+      String fileName = ConfigFileUtils.genAppNamespaceInfoPath(appNamespace);
+      String content = gson.toJson(appNamespace);
 
+      writeToZip(fileName, content, zipOutputStream);
+    }
   }
 
-  private void exportClusters(final Env env, final List<App> exportApps, ZipOutputStream zipOutputStream) {
-    exportApps.parallelStream().forEach(exportApp -> {
-      try {
-        this.exportCluster(env, exportApp, zipOutputStream);
-      } catch (Exception e) {
-        logger.error("export cluster error. appId = {}", exportApp.getAppId(), e);
+  private void writePendingFilesToZip(BlockingQueue<ExportFile> pendingFiles, ExportProgress progress,
+                                      ZipOutputStream zipOutputStream) throws IOException, InterruptedException {
+    while (true) {
+      ExportFile file = pendingFiles.poll(100, TimeUnit.MILLISECONDS);
+      if (file != null) {
+        writeToZip(file.getPath(), file.getContent(), zipOutputStream);
+      } else if (progress.isFinished() && pendingFiles.isEmpty()) {
+        // all the files are put before the app is marked as finished
+        return;
       }
-    });
+    }
   }
 
-  private void exportCluster(final Env env, final App exportApp, ZipOutputStream zipOutputStream) {
+  private void exportClusters(final Env env, final App exportApp, BlockingQueue<ExportFile> pendingFiles,
+                              ExportProgress progress) {
+    boolean success = false;
+    try {
+      this.exportCluster(env, exportApp, pendingFiles);
+      success = true;
+    } catch (InterruptedException e) {
+      // the export is aborted
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("export cluster error. env = {}, appId = {}", env, exportApp.getAppId(), e);
+    } finally {
+      progress.appFinished(env, success);
+    }
+  }
+
+  private void exportCluster(final Env env, final App exportApp, BlockingQueue<ExportFile> pendingFiles)
+      throws InterruptedException {
     final List<ClusterDTO> exportClusters = clusterService.findClusters(env, exportApp.getAppId());
 
     if (CollectionUtils.isEmpty(exportClusters)) {
@@ -217,22 +321,25 @@ public class ConfigsExportService {
     }
 
     //write cluster info to zip
-    writeClusterInfoToZip(env, exportApp, exportClusters, zipOutputStream);
+    for (ClusterDTO cluster : exportClusters) {
+      String fileName = ConfigFileUtils.genClusterInfoPath(exportApp, env, cluster);
+      pendingFiles.put(new ExportFile(fileName, gson.toJson(cluster)));
+    }
 
     //export namespaces
-    exportClusters.parallelStream().forEach(cluster -> {
+    for (ClusterDTO cluster : exportClusters) {
       try {
-        this.exportNamespaces(env, exportApp, cluster, zipOutputStream);
+        this.exportNamespaces(env, exportApp, cluster, pendingFiles);
       } catch (BadRequestException badRequestException) {
         //ignore
-      } catch (Exception e) {
+      } catch (RuntimeException e) {
         logger.error("export namespace error. appId = {}, cluster = {}", exportApp.getAppId(), cluster, e);
       }
-    });
+    }
   }
 
   private void exportNamespaces(final Env env, final App exportApp, final ClusterDTO exportCluster,
-                                ZipOutputStream zipOutputStream) {
+                                BlockingQueue<ExportFile> pendingFiles) throws InterruptedException {
     String clusterName = exportCluster.getName();
 
     List<NamespaceBO> namespaceBOS = namespaceService.findNamespaceBOs(exportApp.getAppId(), env, clusterName, false);
@@ -241,59 +348,17 @@ public class ConfigsExportService {
       return;
     }
 
-    Stream<ConfigBO> configBOStream = namespaceBOS.stream()
-        .map(
-            namespaceBO -> new ConfigBO(env, exportApp.getOwnerName(), exportApp.getAppId(), clusterName, namespaceBO));
-
-    writeNamespacesToZip(configBOStream, zipOutputStream);
-  }
-
-  private void writeNamespacesToZip(Stream<ConfigBO> configBOStream, ZipOutputStream zipOutputStream) {
-    final Consumer<ConfigBO> configBOConsumer =
-        configBO -> {
-          try {
-            synchronized (zipOutputStream) {
-              String appId = configBO.getAppId();
-              String clusterName = configBO.getClusterName();
-              String namespace = configBO.getNamespace();
-              String configFileContent = configBO.getConfigFileContent();
-              ConfigFileFormat configFileFormat = configBO.getFormat();
-
-              String
-                  configFileName =
-                  ConfigFileUtils.toFilename(appId, clusterName, namespace, configFileFormat);
-              String filePath =
-                  ConfigFileUtils.genNamespacePath(configBO.getOwnerName(), appId, configBO.getEnv(), configFileName);
-
-              writeToZip(filePath, configFileContent, zipOutputStream);
-            }
-          } catch (IOException e) {
-            logger.error("Write error. {}", configBO);
-            throw new ServiceException("Write namespace error. {}", e);
-          }
-        };
-
-    configBOStream.forEach(configBOConsumer);
-  }
+    for (NamespaceBO namespaceBO : namespaceBOS) {
+      ConfigBO configBO = new ConfigBO(env, exportApp.getOwnerName(), exportApp.getAppId(), clusterName, namespaceBO);
+      String appId = configBO.getAppId();
+      String namespace = configBO.getNamespace();
+      ConfigFileFormat configFileFormat = configBO.getFormat();
 
-  private void writeClusterInfoToZip(Env env, App app, List<ClusterDTO> exportClusters,
-                                     ZipOutputStream zipOutputStream) {
-    final Consumer<ClusterDTO> clusterConsumer =
-        cluster -> {
-          try {
-            synchronized (zipOutputStream) {
-              String fileName = ConfigFileUtils.genClusterInfoPath(app, env, cluster);
-              String content = gson.toJson(cluster);
-
-              writeToZip(fileName, content, zipOutputStream);
-            }
-          } catch (IOException e) {
-            logger.error("Write error. {}", cluster);
-            throw new ServiceException("Write error. {}", e);
-          }
-        };
+      String configFileName = ConfigFileUtils.toFilename(appId, clusterName, namespace, configFileFormat);
+      String filePath = ConfigFileUtils.genNamespacePath(configBO.getOwnerName(), appId, env, configFileName);
 
-    exportClusters.forEach(clusterConsumer);
+      pendingFiles.put(new ExportFile(filePath, configBO.getConfigFileContent()));
+    }
   }
 
   private void writeToZip(String filePath, String content, ZipOutputStream zipOutputStream)
@@ -301,7 +366,7 @@ public class ConfigsExportService {
     final ZipEntry zipEntry = new ZipEntry(filePath);
     try {
       zipOutputStream.putNextEntry(zipEntry);
-      zipOutputStream.write(content.getBytes());
+      zipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
       zipOutputStream.closeEntry();
     } catch (IOException e) {
       String errorMsg = "write content to zip error. file = " + filePath + ", content = " + content;
@@ -310,4 +375,51 @@ public class ConfigsExportService {
     }
   }
 
+  private static class ExportFile {
+
+    private final String path;
+    private final String content;
+
+    ExportFile(String path, String content) {
+      this.path = path;
+      this.content = content;
+    }
+
+    String getPath() {
+      return path;
+    }
+
+    String getContent() {
+      return content;
+    }
+  }
+
+  private static class ExportProgress {
+
+    private final int totalApps;
+    private final AtomicInteger finishedApps = new AtomicInteger();
+    private final Set<Env> failedEnvs = ConcurrentHashMap.newKeySet();
+
+    ExportProgress(int totalApps) {
+      this.totalApps = totalApps;
+    }
+
+    void appFinished(Env env, boolean success) {
+      if (!success) {
+        failedEnvs.add(env);
+      }
+      int finished = finishedApps.incrementAndGet();
+      if (finished % PROGRESS_LOG_INTERVAL == 0 || finished == totalApps) {
+        logger.info("Exported {}/{} apps", finished, totalApps);
+      }
+    }
+
+    boolean isFinished() {
+      return finishedApps.get() >= totalApps;
+    }
+
+    Set<Env> getFailedEnvs() {
+      return failedEnvs;
+    }
+  }
 }
@@ -17,16 +17,23 @@
 package com.ctrip.framework.apollo.portal.service;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 
 import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.dto.ClusterDTO;
+import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceWithItemsDTO;
 import com.ctrip.framework.apollo.common.entity.App;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.vo.NamespaceIdentifier;
+import com.ctrip.framework.apollo.portal.entity.vo.NamespaceImportResult;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.listener.AppNamespaceCreationEvent;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
@@ -37,20 +44,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
-import org.springframework.web.client.HttpStatusCodeException;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.rmi.ServerException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CountDownLatch;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -61,6 +77,10 @@ import java.util.zip.ZipInputStream;
 public class ConfigsImportService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConfigsImportService.class);
+  /**
+   * max items pushed to admin service in one item set request
+   */
+  private static final int ITEM_BATCH_SIZE = 100;
 
   private Gson gson = new Gson();
 
@@ -72,6 +92,7 @@ public class ConfigsImportService {
   private final ApplicationEventPublisher publisher;
   private final UserInfoHolder            userInfoHolder;
   private final RoleInitializationService roleInitializationService;
+  private final PortalConfig              portalConfig;
 
   public ConfigsImportService(
       final ItemService itemService,
@@ -81,7 +102,8 @@ public class ConfigsImportService {
       final AppNamespaceService appNamespaceService,
       final ApplicationEventPublisher publisher,
       final UserInfoHolder userInfoHolder,
-      final RoleInitializationService roleInitializationService) {
+      final RoleInitializationService roleInitializationService,
+      final PortalConfig portalConfig) {
     this.itemService = itemService;
     this.appService = appService;
     this.clusterService = clusterService;
@@ -90,6 +112,7 @@ public class ConfigsImportService {
     this.publisher = publisher;
     this.userInfoHolder = userInfoHolder;
     this.roleInitializationService = roleInitializationService;
+    this.portalConfig = portalConfig;
   }
 
   /**
@@ -105,14 +128,18 @@ public class ConfigsImportService {
     }
 
     String operator = userInfoHolder.getUser().getUserId();
+    NamespaceIdentifier namespace = toNamespaceIdentifier(env, standardFilename);
 
-    this.importNamespaceFromText(env, standardFilename, configText, false, operator);
+    this.importNamespace(namespace, configText, loadExistingNamespace(namespace), false, operator,
+        new NamespaceImportResult(namespace));
   }
 
   /**
    * import all data include app、appnamespace、cluster、namespace、item
+   *
+   * @return the import result of each namespace
    */
-  public void importDataFromZipFile(List<Env> importEnvs, ZipInputStream dataZip, boolean ignoreConflictNamespace)
+  public List<NamespaceImportResult> importDataFromZipFile(List<Env> importEnvs, ZipInputStream dataZip, boolean ignoreConflictNamespace)
       throws IOException {
     List<String> toImportApps = Lists.newArrayList();
     List<String> toImportAppNSs = Lists.newArrayList();
@@ -165,7 +192,7 @@ public class ConfigsImportService {
                   toImportAppNSs.size(),
                   toImportClusters.size(), toImportNSs.size());
 
-      doImport(importEnvs, toImportApps, toImportAppNSs, toImportClusters, toImportNSs);
+      return doImport(importEnvs, toImportApps, toImportAppNSs, toImportClusters, toImportNSs);
 
     } catch (Exception e) {
       LOGGER.error("import config error.", e);
@@ -173,76 +200,109 @@ public class ConfigsImportService {
     }
   }
 
-  private void doImport(List<Env> importEnvs, List<String> toImportApps, List<String> toImportAppNSs,
-                        List<ImportClusterData> toImportClusters, List<ImportNamespaceData> toImportNSs)
+  private List<NamespaceImportResult> doImport(List<Env> importEnvs, List<String> toImportApps,
+                                               List<String> toImportAppNSs, List<ImportClusterData> toImportClusters,
+                                               List<ImportNamespaceData> toImportNSs)
       throws InterruptedException {
-    LOGGER.info("Start to import app. size = {}", toImportApps.size());
-
     String operator = userInfoHolder.getUser().getUserId();
 
-    long startTime = System.currentTimeMillis();
-    CountDownLatch appLatch = new CountDownLatch(toImportApps.size());
-    toImportApps.parallelStream().forEach(app -> {
-      try {
+    int concurrency = portalConfig.configImportConcurrency();
+    ExecutorService importExecutorService = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), ApolloThreadFactory.create("ConfigsImportService", true));
+    try {
+      runInParallel("app", toImportApps, app -> {
         importApp(app, importEnvs, operator);
-      } catch (Exception e) {
-        LOGGER.error("import app error. app = {}", app, e);
-      } finally {
-        appLatch.countDown();
-      }
-    });
-    appLatch.await();
+        return true;
+      }, importExecutorService);
 
-    LOGGER.info("Finish to import app. duration = {}", System.currentTimeMillis() - startTime);
-    LOGGER.info("Start to import appnamespace. size = {}", toImportAppNSs.size());
-
-    startTime = System.currentTimeMillis();
-    CountDownLatch appNSLatch = new CountDownLatch(toImportAppNSs.size());
-    toImportAppNSs.parallelStream().forEach(appNS -> {
-      try {
+      runInParallel("appnamespace", toImportAppNSs, appNS -> {
         importAppNamespace(appNS, operator);
-      } catch (Exception e) {
-        LOGGER.error("import appnamespace error. appnamespace = {}", appNS, e);
-      } finally {
-        appNSLatch.countDown();
+        return true;
+      }, importExecutorService);
+
+      runInParallel("cluster", toImportClusters, cluster -> {
+        importCluster(cluster, operator);
+        return true;
+      }, importExecutorService);
+
+      // load the existing namespaces and items of a cluster in one request to check the conflicts
+      Map<String, List<ImportNamespaceData>> toImportNSsByCluster = toImportNSs.stream()
+          .collect(Collectors.groupingBy(ImportNamespaceData::getClusterKey, LinkedHashMap::new, Collectors.toList()));
+      List<String> clusterKeys = Lists.newArrayList(toImportNSsByCluster.keySet());
+      List<Map<String, NamespaceWithItemsDTO>> existingNamespaces = runInParallel("existing namespace", clusterKeys,
+          clusterKey -> {
+            NamespaceIdentifier namespace = toImportNSsByCluster.get(clusterKey).get(0).getNamespace();
+            return loadExistingNamespaces(namespace.getEnv(), namespace.getAppId(), namespace.getClusterName());
+          }, importExecutorService);
+      Map<String, Map<String, NamespaceWithItemsDTO>> existingNamespacesByCluster = Maps.newHashMap();
+      for (int i = 0; i < clusterKeys.size(); i++) {
+        existingNamespacesByCluster.put(clusterKeys.get(i), existingNamespaces.get(i));
       }
-    });
-    appNSLatch.await();
 
-    LOGGER.info("Finish to import appnamespace. duration = {}", System.currentTimeMillis() - startTime);
-    LOGGER.info("Start to import cluster. size = {}", toImportClusters.size());
+      List<NamespaceImportResult> results = runInParallel("namespace", toImportNSs, namespace -> {
+        Map<String, NamespaceWithItemsDTO> existingNamespacesOfCluster =
+            existingNamespacesByCluster.get(namespace.getClusterKey());
+        if (existingNamespacesOfCluster == null) {
+          return failed(namespace.getNamespace(), "Failed to load the existing namespaces of the cluster");
+        }
+        NamespaceImportResult result = new NamespaceImportResult(namespace.getNamespace());
+        try {
+          importNamespace(namespace.getNamespace(), namespace.getContent(),
+              existingNamespacesOfCluster.get(namespace.getNamespace().getNamespaceName()),
+              namespace.isIgnoreConflictNamespace(), operator, result);
+        } catch (Exception e) {
+          LOGGER.error("import namespace error. namespace = {}", namespace, e);
+          result.setStatus(NamespaceImportResult.Status.FAILED);
+          result.setMessage(e.getMessage());
+        }
+        return result;
+      }, importExecutorService);
 
-    startTime = System.currentTimeMillis();
-    CountDownLatch clusterLatch = new CountDownLatch(toImportClusters.size());
-    toImportClusters.parallelStream().forEach(cluster -> {
-      try {
-        importCluster(cluster, operator);
-      } catch (Exception e) {
-        LOGGER.error("import cluster error. cluster = {}", cluster, e);
-      } finally {
-        clusterLatch.countDown();
+      for (int i = 0; i < results.size(); i++) {
+        if (results.get(i) == null) {
+          results.set(i, failed(toImportNSs.get(i).getNamespace(), "Unexpected error, please check the logs"));
+        }
       }
-    });
-    clusterLatch.await();
+      Map<NamespaceImportResult.Status, Long> statusCount = results.stream()
+          .collect(Collectors.groupingBy(NamespaceImportResult::getStatus, Collectors.counting()));
+      LOGGER.info("Import namespace result: {}", statusCount);
+
+      return results;
+    } finally {
+      importExecutorService.shutdownNow();
+    }
+  }
 
-    LOGGER.info("Finish to import cluster. duration = {}", System.currentTimeMillis() - startTime);
-    LOGGER.info("Start to import namespace. size = {}", toImportNSs.size());
+  /**
+   * Run the importer for each element with the executor service and wait for all of them finished.
+   *
+   * @return the results in the same order, null if the importer failed
+   */
+  private <T, R> List<R> runInParallel(String type, List<T> toImports, Function<T, R> importer,
+                                       ExecutorService executorService) throws InterruptedException {
+    LOGGER.info("Start to import {}. size = {}", type, toImports.size());
+    long startTime = System.currentTimeMillis();
 
-    startTime = System.currentTimeMillis();
-    CountDownLatch nsLatch = new CountDownLatch(toImportNSs.size());
-    toImportNSs.parallelStream().forEach(namespace -> {
+    List<Future<R>> futures = Lists.newArrayListWithCapacity(toImports.size());
+    for (T toImport : toImports) {
+      futures.add(executorService.submit(() -> importer.apply(toImport)));
+    }
+
+    List<R> results = Lists.newArrayListWithCapacity(toImports.size());
+    int failed = 0;
+    for (int i = 0; i < futures.size(); i++) {
       try {
-        importNamespaceFromText(namespace.getEnv(), namespace.getFileName(), namespace.getContent(),
-                                namespace.isIgnoreConflictNamespace(), operator);
-      } catch (Exception e) {
-        LOGGER.error("import namespace error. namespace = {}", namespace, e);
-      } finally {
-        nsLatch.countDown();
+        results.add(futures.get(i).get());
+      } catch (ExecutionException e) {
+        failed++;
+        LOGGER.error("import {} error. {} = {}", type, type, toImports.get(i), e.getCause());
+        results.add(null);
       }
-    });
-    nsLatch.await();
+    }
 
-    LOGGER.info("Finish to import namespace. duration = {}", System.currentTimeMillis() - startTime);
+    LOGGER.info("Finish to import {}. duration = {}, failed = {}", type, System.currentTimeMillis() - startTime,
+        failed);
+    return results;
   }
 
   private void importApp(String appInfo, List<Env> importEnvs, String operator) {
@@ -259,14 +319,14 @@ public class ConfigsImportService {
       appService.importAppInLocal(toImportApp);
     }
 
-    importEnvs.parallelStream().forEach(env -> {
+    for (Env env : importEnvs) {
       try {
         appService.load(env, appId);
       } catch (Exception e) {
         //not existed
         appService.createAppInRemote(env, toImportApp);
       }
-    });
+    }
   }
 
   private void importAppNamespace(String appNamespace, String operator) {
@@ -321,66 +381,109 @@ public class ConfigsImportService {
   }
 
   /**
-   * import a config file. the name of config file must be special like appId+cluster+namespace.format Example:
+   * The name of config file must be special like appId+cluster+namespace.format Example:
    * <pre>
    *   123456+default+application.properties (appId is 123456, cluster is default, namespace is application, format is properties)
    *   654321+north+password.yml (appId is 654321, cluster is north, namespace is password, format is yml)
    * </pre>
-   * so we can get the information of appId, cluster, namespace, format from the file name.
+   * so we can get the information of appId, cluster, namespace from the file name.
    *
    * @param env              environment
    * @param standardFilename appId+cluster+namespace.format
-   * @param configText       config content
    */
-  private void importNamespaceFromText(final Env env, final String standardFilename, final String configText,
-                                       boolean ignoreConflictNamespace, String operator) {
-    final String appId = ConfigFileUtils.getAppId(standardFilename);
-    final String clusterName = ConfigFileUtils.getClusterName(standardFilename);
-    final String namespace = ConfigFileUtils.getNamespace(standardFilename);
-    final String format = ConfigFileUtils.getFormat(standardFilename);
-
-    this.importNamespace(appId, env, clusterName, namespace, configText, format, ignoreConflictNamespace, operator);
+  private static NamespaceIdentifier toNamespaceIdentifier(Env env, String standardFilename) {
+    NamespaceIdentifier namespace = new NamespaceIdentifier();
+    namespace.setEnv(env.getName());
+    namespace.setAppId(ConfigFileUtils.getAppId(standardFilename));
+    namespace.setClusterName(ConfigFileUtils.getClusterName(standardFilename));
+    namespace.setNamespaceName(ConfigFileUtils.getNamespace(standardFilename));
+    return namespace;
   }
 
-  private void importNamespace(final String appId, final Env env,
-                               final String clusterName, final String namespaceName,
-                               final String configText, final String format,
-                               boolean ignoreConflictNamespace, String operator) {
+  /**
+   * @return namespace name -> the namespace with items
+   */
+  private Map<String, NamespaceWithItemsDTO> loadExistingNamespaces(Env env, String appId, String clusterName) {
+    Map<String, NamespaceWithItemsDTO> existingNamespaces = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (NamespaceWithItemsDTO namespace : namespaceService.findNamespacesWithItems(appId, env, clusterName)) {
+      existingNamespaces.put(namespace.getNamespace().getNamespaceName(), namespace);
+    }
+    return existingNamespaces;
+  }
+
+  /**
+   * @return null if the namespace is not existed
+   */
+  private NamespaceWithItemsDTO loadExistingNamespace(NamespaceIdentifier namespace) {
     NamespaceDTO namespaceDTO;
     try {
-      namespaceDTO = namespaceService.loadNamespaceBaseInfo(appId, env, clusterName, namespaceName);
+      namespaceDTO = namespaceService.loadNamespaceBaseInfo(namespace.getAppId(), namespace.getEnv(),
+          namespace.getClusterName(), namespace.getNamespaceName());
     } catch (Exception e) {
       //not existed
-      namespaceDTO = null;
+      return null;
     }
 
-    if (namespaceDTO == null) {
+    NamespaceWithItemsDTO existingNamespace = new NamespaceWithItemsDTO();
+    existingNamespace.setNamespace(namespaceDTO);
+    existingNamespace.setItems(itemService.findItems(namespace.getAppId(), namespace.getEnv(),
+        namespace.getClusterName(), namespace.getNamespaceName()));
+    return existingNamespace;
+  }
+
+  /**
+   * @param existingNamespace null if the namespace is not existed
+   * @param result            filled with the status and the count of imported items
+   */
+  private void importNamespace(final NamespaceIdentifier namespace, final String configText,
+                               final NamespaceWithItemsDTO existingNamespace, boolean ignoreConflictNamespace,
+                               String operator, NamespaceImportResult result) {
+    NamespaceDTO namespaceDTO;
+    List<ItemDTO> existingItems;
+    if (existingNamespace == null) {
       namespaceDTO = new NamespaceDTO();
-      namespaceDTO.setAppId(appId);
-      namespaceDTO.setClusterName(clusterName);
-      namespaceDTO.setNamespaceName(namespaceName);
+      namespaceDTO.setAppId(namespace.getAppId());
+      namespaceDTO.setClusterName(namespace.getClusterName());
+      namespaceDTO.setNamespaceName(namespace.getNamespaceName());
       namespaceDTO.setDataChangeCreatedBy(operator);
       namespaceDTO.setDataChangeLastModifiedBy(operator);
-      namespaceDTO = namespaceService.createNamespace(env, namespaceDTO);
-
-      roleInitializationService.initNamespaceRoles(appId, namespaceName, operator);
-      roleInitializationService.initNamespaceEnvRoles(appId, namespaceName, operator);
+      namespaceDTO = namespaceService.createNamespace(namespace.getEnv(), namespaceDTO);
+
+      roleInitializationService.initNamespaceRoles(namespace.getAppId(), namespace.getNamespaceName(), operator);
+      roleInitializationService.initNamespaceEnvRoles(namespace.getAppId(), namespace.getNamespaceName(), operator);
+      existingItems = Collections.emptyList();
+    } else {
+      namespaceDTO = existingNamespace.getNamespace();
+      existingItems = existingNamespace.getItems() == null ? Collections.emptyList() : existingNamespace.getItems();
     }
 
-    List<ItemDTO> itemDTOS = itemService.findItems(appId, env, clusterName, namespaceName);
     // skip import if target namespace has existed items
-    if (!CollectionUtils.isEmpty(itemDTOS) && ignoreConflictNamespace) {
+    if (!CollectionUtils.isEmpty(existingItems) && ignoreConflictNamespace) {
+      result.setStatus(NamespaceImportResult.Status.SKIPPED);
       return;
     }
 
-    importItems(appId, env, clusterName, namespaceName, configText, namespaceDTO, operator);
+    importItems(namespace, configText, namespaceDTO, existingItems, operator, result);
+    result.setStatus(NamespaceImportResult.Status.IMPORTED);
   }
 
-  private void importItems(String appId, Env env, String clusterName, String namespaceName, String configText,
-                           NamespaceDTO namespaceDTO, String operator) {
+  /**
+   * Create the new items and update the existing ones by item set requests, each request contains at most
+   * {@link #ITEM_BATCH_SIZE} items.
+   */
+  private void importItems(NamespaceIdentifier namespace, String configText, NamespaceDTO namespaceDTO,
+                           List<ItemDTO> existingItems, String operator, NamespaceImportResult result) {
     List<ItemDTO> toImportItems = gson.fromJson(configText, GsonType.ITEM_DTOS);
+    Map<String, ItemDTO> existingItemsByKey = Maps.newHashMap();
+    for (ItemDTO existingItem : existingItems) {
+      if (StringUtils.hasText(existingItem.getKey())) {
+        existingItemsByKey.put(existingItem.getKey(), existingItem);
+      }
+    }
 
-    toImportItems.parallelStream().forEach(newItem -> {
+    List<ItemDTO> createItems = Lists.newArrayList();
+    List<ItemDTO> updateItems = Lists.newArrayList();
+    for (ItemDTO newItem : toImportItems) {
       String key = newItem.getKey();
       newItem.setNamespaceId(namespaceDTO.getId());
       newItem.setDataChangeCreatedBy(operator);
@@ -389,30 +492,49 @@ public class ConfigsImportService {
       newItem.setDataChangeLastModifiedTime(new Date());
 
       if (StringUtils.hasText(key)) {
-        //create or update normal item
-        try {
-          ItemDTO oldItem = itemService.loadItem(env, appId, clusterName, namespaceName, key);
-          newItem.setId(oldItem.getId());
+        ItemDTO oldItem = existingItemsByKey.get(key);
+        if (oldItem != null) {
           //existed
-          itemService.updateItem(appId, env, clusterName, namespaceName, newItem);
-        } catch (Exception e) {
-          if (e instanceof HttpStatusCodeException && ((HttpStatusCodeException) e).getStatusCode()
-              .equals(HttpStatus.NOT_FOUND)) {
-            //not existed
-            itemService.createItem(appId, env, clusterName, namespaceName, newItem);
-          } else {
-            LOGGER.error("Load or update item error. appId = {}, env = {}, cluster = {}, namespace = {}", appId, env,
-                         clusterName, namespaceDTO, e);
-          }
+          newItem.setId(oldItem.getId());
+          updateItems.add(newItem);
+        } else {
+          //not existed
+          newItem.setId(0);
+          createItems.add(newItem);
         }
-      } else if (StringUtils.hasText(newItem.getComment())){
-        //create comment item
-        itemService.createCommentItem(appId, env, clusterName, namespaceName, newItem);
+      } else if (StringUtils.hasText(newItem.getComment())) {
+        //comment item
+        newItem.setId(0);
+        createItems.add(newItem);
       }
+    }
+
+    for (List<ItemDTO> batch : Lists.partition(createItems, ITEM_BATCH_SIZE)) {
+      ItemChangeSets changeSets = new ItemChangeSets();
+      changeSets.setCreateItems(batch);
+      updateItems(namespace, changeSets, operator);
+      result.setCreatedItems(result.getCreatedItems() + batch.size());
+    }
+    for (List<ItemDTO> batch : Lists.partition(updateItems, ITEM_BATCH_SIZE)) {
+      ItemChangeSets changeSets = new ItemChangeSets();
+      changeSets.setUpdateItems(batch);
+      updateItems(namespace, changeSets, operator);
+      result.setUpdatedItems(result.getUpdatedItems() + batch.size());
+    }
+  }
 
-    });
+  private void updateItems(NamespaceIdentifier namespace, ItemChangeSets changeSets, String operator) {
+    changeSets.setDataChangeLastModifiedBy(operator);
+    itemService.updateItems(namespace.getAppId(), namespace.getEnv(), namespace.getClusterName(),
+        namespace.getNamespaceName(), changeSets);
   }
 
+  private static NamespaceImportResult failed(NamespaceIdentifier namespace, String message) {
+    NamespaceImportResult result = new NamespaceImportResult(namespace);
+    result.setStatus(NamespaceImportResult.Status.FAILED);
+    result.setMessage(message);
+    return result;
+  }
 
   private String readContent(ZipInputStream zipInputStream) {
     try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
@@ -470,6 +592,18 @@ public class ConfigsImportService {
       return ignoreConflictNamespace;
     }
 
+    public NamespaceIdentifier getNamespace() {
+      return toNamespaceIdentifier(env, fileName);
+    }
+
+    /**
+     * the namespaces with the same key are in the same cluster
+     */
+    public String getClusterKey() {
+      return String.join("+", env.getName(), ConfigFileUtils.getAppId(fileName),
+          ConfigFileUtils.getClusterName(fileName));
+    }
+
     public void setIgnoreConflictNamespace(boolean ignoreConflictNamespace) {
       this.ignoreConflictNamespace = ignoreConflictNamespace;
     }
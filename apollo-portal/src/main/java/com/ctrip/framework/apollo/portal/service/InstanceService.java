@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.portal.service;
 
 import com.ctrip.framework.apollo.common.dto.InstanceDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
+import com.ctrip.framework.apollo.common.dto.ReleaseDeliveryDTO;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
 import org.springframework.stereotype.Service;
@@ -52,6 +53,10 @@ public class InstanceService {
     return instanceAPI.getByReleasesNotIn(appId, env, clusterName, namespaceName, releaseIds);
   }
 
+  public ReleaseDeliveryDTO getReleaseDeliveryByNamespace(Env env, String appId, String clusterName, String namespaceName){
+    return instanceAPI.getReleaseDeliveryByNamespace(appId, env, clusterName, namespaceName);
+  }
+
 
 
 }
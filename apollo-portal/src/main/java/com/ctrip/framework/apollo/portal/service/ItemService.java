@@ -21,7 +21,7 @@ import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.dto.*;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
-import com.ctrip.framework.apollo.common.utils.BeanUtils;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.openapi.utils.UrlUtils;
 import com.ctrip.framework.apollo.openapi.dto.OpenItemDTO;
@@ -31,23 +31,39 @@ import com.ctrip.framework.apollo.portal.api.AdminServiceAPI.ReleaseAPI;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.ConfigSyncExecutor;
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.component.txtresolver.ConfigTextResolver;
 import com.ctrip.framework.apollo.portal.constant.TracerEventType;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceTextModel;
 import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs;
+import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs.SyncResult;
 import com.ctrip.framework.apollo.portal.entity.vo.NamespaceIdentifier;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
+import com.ctrip.framework.apollo.portal.util.ItemIndexUtils;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.gson.Gson;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -61,6 +77,9 @@ public class ItemService {
   private final AdminServiceAPI.ReleaseAPI releaseAPI;
   private final ConfigTextResolver fileTextResolver;
   private final ConfigTextResolver propertyResolver;
+  private final PortalConfig portalConfig;
+  private final FanOutExecutor fanOutExecutor;
+  private final ConfigSyncExecutor configSyncExecutor;
 
   public ItemService(
       final UserInfoHolder userInfoHolder,
@@ -68,13 +87,19 @@ public class ItemService {
       final ItemAPI itemAPI,
       final ReleaseAPI releaseAPI,
       final @Qualifier("fileTextResolver") ConfigTextResolver fileTextResolver,
-      final @Qualifier("propertyResolver") ConfigTextResolver propertyResolver) {
+      final @Qualifier("propertyResolver") ConfigTextResolver propertyResolver,
+      final PortalConfig portalConfig,
+      final FanOutExecutor fanOutExecutor,
+      final ConfigSyncExecutor configSyncExecutor) {
     this.userInfoHolder = userInfoHolder;
     this.namespaceAPI = namespaceAPI;
     this.itemAPI = itemAPI;
     this.releaseAPI = releaseAPI;
     this.fileTextResolver = fileTextResolver;
     this.propertyResolver = propertyResolver;
+    this.portalConfig = portalConfig;
+    this.fanOutExecutor = fanOutExecutor;
+    this.configSyncExecutor = configSyncExecutor;
   }
 
 
@@ -182,24 +207,100 @@ public class ItemService {
     return item;
   }
 
-  public void syncItems(List<NamespaceIdentifier> comparedNamespaces, List<ItemDTO> sourceItems) {
+  /**
+   * Compute the diffs of all the namespaces once and apply them concurrently on the {@link ConfigSyncExecutor}.
+   *
+   * @return the result of each namespace, the failed ones are marked with the failure detail in extInfo and the
+   * {@link SyncResult} tells whether the diffs may have been applied
+   */
+  public List<ItemDiffs> syncItems(List<NamespaceIdentifier> comparedNamespaces, List<ItemDTO> sourceItems) {
+    // the user is bound to the request thread
+    String operator = userInfoHolder.getUser().getUserId();
     List<ItemDiffs> itemDiffs = compare(comparedNamespaces, sourceItems);
+
+    List<ItemDiffs> toSync = new ArrayList<>(itemDiffs.size());
     for (ItemDiffs itemDiff : itemDiffs) {
-      NamespaceIdentifier namespaceIdentifier = itemDiff.getNamespace();
-      ItemChangeSets changeSets = itemDiff.getDiffs();
-      changeSets.setDataChangeLastModifiedBy(userInfoHolder.getUser().getUserId());
+      if (itemDiff.getExtInfo() != null) {
+        // the namespace doesn't exist or failed to compare
+        itemDiff.setFailed(true);
+        itemDiff.setSyncResult(SyncResult.NOT_ATTEMPTED);
+      } else if (!itemDiff.getDiffs().isEmpty()) {
+        toSync.add(itemDiff);
+      }
+    }
+    if (toSync.isEmpty()) {
+      return itemDiffs;
+    }
 
-      String appId = namespaceIdentifier.getAppId();
-      Env env = namespaceIdentifier.getEnv();
-      String clusterName = namespaceIdentifier.getClusterName();
-      String namespaceName = namespaceIdentifier.getNamespaceName();
+    AtomicBoolean stopped = new AtomicBoolean();
+    List<Future<Void>> futures = configSyncExecutor.submitAll(
+        perEnvLanes(toSync, stopped, itemDiff -> syncNamespace(itemDiff, operator)));
+    boolean interrupted = false;
+    for (Future<Void> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          // don't start the remaining writes, but wait for the running ones to know their results
+          interrupted = true;
+          stopped.set(true);
+        } catch (ExecutionException | CancellationException e) {
+          break;
+        }
+      }
+    }
+    for (ItemDiffs itemDiff : toSync) {
+      if (itemDiff.getSyncResult() == null) {
+        itemDiff.setSyncResult(SyncResult.NOT_ATTEMPTED);
+        markFailed(itemDiff, "Not attempted as the sync is interrupted");
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
 
-      itemAPI.updateItemsByChangeSet(appId, env, clusterName, namespaceName, changeSets);
+    return itemDiffs;
+  }
 
+  private void syncNamespace(ItemDiffs itemDiff, String operator) {
+    NamespaceIdentifier namespaceIdentifier = itemDiff.getNamespace();
+    ItemChangeSets changeSets = itemDiff.getDiffs();
+    changeSets.setDataChangeLastModifiedBy(operator);
+
+    String appId = namespaceIdentifier.getAppId();
+    Env env = namespaceIdentifier.getEnv();
+    String clusterName = namespaceIdentifier.getClusterName();
+    String namespaceName = namespaceIdentifier.getNamespaceName();
+
+    long start = System.nanoTime();
+    try {
+      itemAPI.updateItemsByChangeSet(appId, env, clusterName, namespaceName, changeSets);
+      itemDiff.setSyncResult(SyncResult.APPLIED);
       Tracer.logEvent(TracerEventType.SYNC_NAMESPACE, String.format("%s+%s+%s+%s", appId, env, clusterName, namespaceName));
+    } catch (Exception ex) {
+      if (isRejected(ex)) {
+        itemDiff.setSyncResult(SyncResult.FAILED);
+        markFailed(itemDiff, describe(ex));
+      } else {
+        itemDiff.setSyncResult(SyncResult.UNKNOWN);
+        markFailed(itemDiff, "Outcome unknown, please check the namespace before syncing again: " + describe(ex));
+      }
+    } finally {
+      itemDiff.setCostInMillis(itemDiff.getCostInMillis() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
   }
 
+  /**
+   * Whether the change sets are surely not applied, i.e. the admin service responded with an error, or no admin
+   * service is reachable. Otherwise, e.g. a read timeout, the admin service may have applied them.
+   */
+  private boolean isRejected(Exception ex) {
+    if (ex instanceof HttpStatusCodeException) {
+      return ((HttpStatusCodeException) ex).getStatusCode() != HttpStatus.GATEWAY_TIMEOUT;
+    }
+    return ex instanceof ServiceException;
+  }
 
   public void revokeItem(String appId, Env env, String clusterName, String namespaceName) {
 
@@ -215,7 +316,7 @@ public class ItemService {
       releaseItemDTOs = GSON.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG);
     }
     List<ItemDTO> baseItems = itemAPI.findItems(appId, env, clusterName, namespaceName);
-    Map<String, ItemDTO> oldKeyMapItem = BeanUtils.mapByKey("key", baseItems);
+    Map<String, ItemDTO> oldKeyMapItem = ItemIndexUtils.indexByKey(baseItems);
     Map<String, ItemDTO> deletedItemDTOs = new HashMap<>();
 
     //deleted items for comment
@@ -250,23 +351,100 @@ public class ItemService {
 
   public List<ItemDiffs> compare(List<NamespaceIdentifier> comparedNamespaces, List<ItemDTO> sourceItems) {
 
-    List<ItemDiffs> result = new LinkedList<>();
-
+    List<ItemDiffs> result = new ArrayList<>(comparedNamespaces.size());
     for (NamespaceIdentifier namespace : comparedNamespaces) {
+      result.add(new ItemDiffs(namespace));
+    }
 
-      ItemDiffs itemDiffs = new ItemDiffs(namespace);
+    runPerNamespace("compareNamespaces", result, itemDiffs -> {
+      NamespaceIdentifier namespace = itemDiffs.getNamespace();
       try {
         itemDiffs.setDiffs(parseChangeSets(namespace, sourceItems));
       } catch (BadRequestException e) {
         itemDiffs.setDiffs(new ItemChangeSets());
         itemDiffs.setExtInfo("该集群下没有名为 " + namespace.getNamespaceName() + " 的namespace");
       }
-      result.add(itemDiffs);
-    }
+    });
 
     return result;
   }
 
+  /**
+   * Compare the namespaces concurrently on the {@link FanOutExecutor}, while the namespaces of one environment are
+   * limited by {@link PortalConfig#configSyncConcurrencyPerEnv()}. The failed ones are marked with the failure detail
+   * instead of failing the others.
+   */
+  private void runPerNamespace(String name, List<ItemDiffs> targets, Consumer<ItemDiffs> action) {
+    if (targets.isEmpty()) {
+      return;
+    }
+    List<Callable<Void>> lanes = perEnvLanes(targets, new AtomicBoolean(), target -> {
+      long start = System.nanoTime();
+      try {
+        action.accept(target);
+      } catch (Exception ex) {
+        markFailed(target, describe(ex));
+      } finally {
+        target.setCostInMillis(target.getCostInMillis()
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+    });
+
+    try {
+      fanOutExecutor.invokeAll(name, lanes);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceException("Comparing namespaces is interrupted", e);
+    }
+    for (ItemDiffs target : targets) {
+      if (target.getDiffs() == null) {
+        markFailed(target, "Timeout");
+      }
+    }
+  }
+
+  /**
+   * Split the targets by environment, each environment gets at most {@link PortalConfig#configSyncConcurrencyPerEnv()}
+   * lanes which handle its targets one after another. So the lanes never wait for each other, and a slow environment
+   * doesn't hold the threads of the others.
+   */
+  private List<Callable<Void>> perEnvLanes(List<ItemDiffs> targets, AtomicBoolean stopped,
+                                           Consumer<ItemDiffs> action) {
+    Map<Env, Queue<ItemDiffs>> envTargets = new LinkedHashMap<>();
+    for (ItemDiffs target : targets) {
+      envTargets.computeIfAbsent(target.getNamespace().getEnv(), env -> new ConcurrentLinkedQueue<>()).add(target);
+    }
+
+    int concurrencyPerEnv = portalConfig.configSyncConcurrencyPerEnv();
+    List<Callable<Void>> lanes = new ArrayList<>();
+    for (Queue<ItemDiffs> queue : envTargets.values()) {
+      int laneCount = Math.min(concurrencyPerEnv, queue.size());
+      for (int i = 0; i < laneCount; i++) {
+        lanes.add(() -> {
+          ItemDiffs target;
+          while (!stopped.get() && !Thread.currentThread().isInterrupted() && (target = queue.poll()) != null) {
+            action.accept(target);
+          }
+          return null;
+        });
+      }
+    }
+    return lanes;
+  }
+
+  private String describe(Exception ex) {
+    return ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+  }
+
+  private void markFailed(ItemDiffs target, String message) {
+    if (target.getDiffs() == null) {
+      target.setDiffs(new ItemChangeSets());
+    }
+    target.setFailed(true);
+    target.setExtInfo("Failed to handle namespace " + target.getNamespace().getNamespaceName() + " in cluster "
+        + target.getNamespace().getClusterName() + " of " + target.getNamespace().getEnv() + ": " + message);
+  }
+
   public PageDTO<OpenItemDTO> findItemsByNamespace(String appId, Env env, String clusterName,
                                                    String namespaceName, int page, int size) {
     return itemAPI.findItemsByNamespace(appId, env, clusterName, namespaceName, page, size);
@@ -304,7 +482,7 @@ public class ItemService {
         changeSets.addCreateItem(buildItem(namespaceId, lineNum++, sourceItem));
       }
     } else {
-      Map<String, ItemDTO> targetItemMap = BeanUtils.mapByKey("key", targetItems);
+      Map<String, ItemDTO> targetItemMap = ItemIndexUtils.indexByKey(targetItems);
       String key, sourceValue, sourceComment;
       ItemDTO targetItem = null;
       int maxLineNum = targetItems.size();//append to last
@@ -331,9 +509,9 @@ public class ItemService {
   }
 
   private ItemDTO buildItem(long namespaceId, int lineNum, ItemDTO sourceItem) {
-    ItemDTO createdItem = new ItemDTO();
-    BeanUtils.copyEntityProperties(sourceItem, createdItem);
-    createdItem.setLineNum(lineNum);
+    ItemDTO createdItem = new ItemDTO(sourceItem.getKey(), sourceItem.getValue(), sourceItem.getComment(), lineNum);
+    createdItem.setType(sourceItem.getType());
+    createdItem.setDataChangeLastModifiedBy(sourceItem.getDataChangeLastModifiedBy());
     createdItem.setNamespaceId(namespaceId);
     return createdItem;
   }
@@ -20,16 +20,17 @@ import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.dto.ClusterDTO;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceWithItemsDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
 import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
-import com.ctrip.framework.apollo.common.utils.BeanUtils;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI.NamespaceAPI;
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.constant.RoleType;
@@ -40,6 +41,7 @@ import com.ctrip.framework.apollo.portal.entity.bo.NamespaceBO;
 import com.ctrip.framework.apollo.portal.entity.vo.NamespaceUsage;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
+import com.ctrip.framework.apollo.portal.util.ItemIndexUtils;
 import com.ctrip.framework.apollo.portal.util.RoleUtils;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.collect.Maps;
@@ -52,26 +54,26 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.client.HttpClientErrorException;
 
 @Service
 public class NamespaceService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NamespaceService.class);
   private static final Gson GSON = new Gson();
-  private static final ExecutorService executorService = Executors.newFixedThreadPool(
-      Runtime.getRuntime().availableProcessors() * 2
-      , ApolloThreadFactory.create("NamespaceService", true));
 
   private final PortalConfig portalConfig;
   private final PortalSettings portalSettings;
@@ -85,6 +87,7 @@ public class NamespaceService {
   private final RolePermissionService rolePermissionService;
   private final AdditionalUserInfoEnrichService additionalUserInfoEnrichService;
   private final ClusterService clusterService;
+  private final FanOutExecutor fanOutExecutor;
 
   public NamespaceService(
       final PortalConfig portalConfig,
@@ -98,7 +101,8 @@ public class NamespaceService {
       final @Lazy NamespaceBranchService branchService,
       final RolePermissionService rolePermissionService,
       final AdditionalUserInfoEnrichService additionalUserInfoEnrichService,
-      ClusterService clusterService) {
+      ClusterService clusterService,
+      final FanOutExecutor fanOutExecutor) {
     this.portalConfig = portalConfig;
     this.portalSettings = portalSettings;
     this.userInfoHolder = userInfoHolder;
@@ -111,6 +115,7 @@ public class NamespaceService {
     this.rolePermissionService = rolePermissionService;
     this.additionalUserInfoEnrichService = additionalUserInfoEnrichService;
     this.clusterService = clusterService;
+    this.fanOutExecutor = fanOutExecutor;
   }
 
 
@@ -187,40 +192,94 @@ public class NamespaceService {
    * load cluster all namespace info with items
    */
   public List<NamespaceBO> findNamespaceBOs(String appId, Env env, String clusterName, boolean includeDeletedItems) {
+    List<NamespaceWithItemsDTO> namespaces;
+    try {
+      namespaces = namespaceAPI.findNamespacesWithItems(appId, env, clusterName, includeDeletedItems);
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+        throw e;
+      }
+      // the admin service of this env doesn't support loading namespaces with items in batch yet
+      return findNamespaceBOsOneByOne(appId, env, clusterName, includeDeletedItems);
+    }
+    if (CollectionUtils.isEmpty(namespaces)) {
+      throw BadRequestException.namespaceNotExists();
+    }
+
+    // enrich the items of all the namespaces at once
+    List<ItemDTO> allItems = namespaces.stream()
+        .map(NamespaceWithItemsDTO::getItems)
+        .filter(Objects::nonNull)
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+    additionalUserInfoEnrichService
+        .enrichAdditionalUserInfo(allItems, BaseDtoUserInfoEnrichedAdapter::new);
+
+    List<NamespaceBO> namespaceBOs = new ArrayList<>(namespaces.size());
+    List<String> exceptionNamespaces = new LinkedList<>();
+    for (NamespaceWithItemsDTO namespace : namespaces) {
+      try {
+        namespaceBOs.add(transformNamespace2BO(namespace.getNamespace(), namespace.getLatestRelease(),
+            namespace.getItems(), includeDeletedItems ? namespace.getDeletedItems() : null));
+      } catch (Exception e) {
+        LOGGER.error("parse namespace error. app id:{}, env:{}, clusterName:{}, namespace:{}",
+            appId, env, clusterName, namespace.getNamespace().getNamespaceName(), e);
+        exceptionNamespaces.add(namespace.getNamespace().getNamespaceName());
+      }
+    }
+
+    return checkAndSortNamespaceBOs(namespaces.size(), namespaceBOs, exceptionNamespaces);
+  }
 
+  private List<NamespaceBO> findNamespaceBOsOneByOne(String appId, Env env, String clusterName,
+      boolean includeDeletedItems) {
     List<NamespaceDTO> namespaces = namespaceAPI.findNamespaceByCluster(appId, env, clusterName);
     if (namespaces == null || namespaces.size() == 0) {
       throw BadRequestException.namespaceNotExists();
     }
 
-    List<NamespaceBO> namespaceBOs = Collections.synchronizedList(new LinkedList<>());
-    List<String> exceptionNamespaces = Collections.synchronizedList(new LinkedList<>());
-    CountDownLatch latch = new CountDownLatch(namespaces.size());
-    for (NamespaceDTO namespace : namespaces) {
-      executorService.submit(() -> {
-        NamespaceBO namespaceBO;
-        try {
-          namespaceBO = transformNamespace2BO(env, namespace, includeDeletedItems);
-          namespaceBOs.add(namespaceBO);
-        } catch (Exception e) {
-          LOGGER.error("parse namespace error. app id:{}, env:{}, clusterName:{}, namespace:{}",
-              appId, env, clusterName, namespace.getNamespaceName(), e);
-          exceptionNamespaces.add(namespace.getNamespaceName());
-        } finally {
-          latch.countDown();
-        }
-      });
-
-    }
+    List<Callable<NamespaceBO>> tasks = namespaces.stream()
+        .map(namespace -> (Callable<NamespaceBO>) () -> transformNamespace2BO(env, namespace, includeDeletedItems,
+            false))
+        .collect(Collectors.toList());
+    List<Future<NamespaceBO>> futures;
     try {
-      latch.await();
+      futures = fanOutExecutor.invokeAll("findNamespaceBOs", tasks);
     } catch (InterruptedException e) {
-      //ignore
+      Thread.currentThread().interrupt();
+      throw new ServiceException("Loading namespaces is interrupted", e);
+    }
+
+    List<NamespaceBO> namespaceBOs = new ArrayList<>(namespaces.size());
+    List<String> exceptionNamespaces = new LinkedList<>();
+    for (int i = 0; i < namespaces.size(); i++) {
+      NamespaceDTO namespace = namespaces.get(i);
+      try {
+        namespaceBOs.add(futures.get(i).get());
+      } catch (Exception e) {
+        LOGGER.error("parse namespace error. app id:{}, env:{}, clusterName:{}, namespace:{}",
+            appId, env, clusterName, namespace.getNamespaceName(), e);
+        exceptionNamespaces.add(namespace.getNamespaceName());
+      }
     }
 
-    if(namespaceBOs.size() != namespaces.size()){
+    // enrich the items of all the namespaces at once, so the users are resolved with one query
+    List<ItemDTO> allItems = namespaceBOs.stream()
+        .flatMap(namespaceBO -> namespaceBO.getItems().stream())
+        .filter(itemBO -> !itemBO.isDeleted())
+        .map(ItemBO::getItem)
+        .collect(Collectors.toList());
+    additionalUserInfoEnrichService
+        .enrichAdditionalUserInfo(allItems, BaseDtoUserInfoEnrichedAdapter::new);
+
+    return checkAndSortNamespaceBOs(namespaces.size(), namespaceBOs, exceptionNamespaces);
+  }
+
+  private List<NamespaceBO> checkAndSortNamespaceBOs(int expectedSize, List<NamespaceBO> namespaceBOs,
+      List<String> exceptionNamespaces) {
+    if(namespaceBOs.size() != expectedSize){
        throw new RuntimeException(String
-           .format("Parse namespaces error, expected: %s, but actual: %s, cannot get those namespaces: %s", namespaces.size(), namespaceBOs.size(), exceptionNamespaces));
+           .format("Parse namespaces error, expected: %s, but actual: %s, cannot get those namespaces: %s", expectedSize, namespaceBOs.size(), exceptionNamespaces));
     }
 
     return namespaceBOs.stream()
@@ -228,6 +287,30 @@ public class NamespaceService {
         .collect(Collectors.toList());
   }
 
+  /**
+   * load cluster all namespaces with their items, the deleted items are not included
+   */
+  public List<NamespaceWithItemsDTO> findNamespacesWithItems(String appId, Env env, String clusterName) {
+    try {
+      return namespaceAPI.findNamespacesWithItems(appId, env, clusterName, false);
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode() != HttpStatus.NOT_FOUND) {
+        throw e;
+      }
+    }
+
+    // the admin service of this env doesn't support loading namespaces with items in batch yet
+    List<NamespaceDTO> namespaces = namespaceAPI.findNamespaceByCluster(appId, env, clusterName);
+    List<NamespaceWithItemsDTO> namespacesWithItems = new ArrayList<>(namespaces.size());
+    for (NamespaceDTO namespace : namespaces) {
+      NamespaceWithItemsDTO namespaceWithItems = new NamespaceWithItemsDTO();
+      namespaceWithItems.setNamespace(namespace);
+      namespaceWithItems.setItems(itemService.findItems(appId, env, clusterName, namespace.getNamespaceName()));
+      namespacesWithItems.add(namespaceWithItems);
+    }
+    return namespacesWithItems;
+  }
+
   public List<NamespaceBO> findNamespaceBOs(String appId, Env env, String clusterName) {
     return findNamespaceBOs(appId, env, clusterName, true);
   }
@@ -240,7 +323,8 @@ public class NamespaceService {
    * the returned content's size is not fixed. so please carefully used.
    */
   public PageDTO<NamespaceDTO> findNamespacesByItem(Env env, String itemKey, Pageable pageable) {
-    return namespaceAPI.findByItem(env, itemKey, pageable.getPageNumber(), pageable.getPageSize());
+    return namespaceAPI.findByItem(env, itemKey, portalConfig.searchByItemMatchMode(), pageable.getPageNumber(),
+        pageable.getPageSize());
   }
 
   public List<NamespaceDTO> getPublicAppNamespaceAllNamespaces(Env env, String publicNamespaceName,
@@ -294,31 +378,58 @@ public class NamespaceService {
   }
 
   private NamespaceBO transformNamespace2BO(Env env, NamespaceDTO namespace, boolean includeDeletedItems) {
-    NamespaceBO namespaceBO = new NamespaceBO();
-    namespaceBO.setBaseInfo(namespace);
+    return transformNamespace2BO(env, namespace, includeDeletedItems, true);
+  }
 
+  /**
+   * @param enrichItems false if the caller enriches the items of many namespaces at once
+   */
+  private NamespaceBO transformNamespace2BO(Env env, NamespaceDTO namespace, boolean includeDeletedItems,
+      boolean enrichItems) {
     String appId = namespace.getAppId();
     String clusterName = namespace.getClusterName();
     String namespaceName = namespace.getNamespaceName();
 
+    //latest Release
+    ReleaseDTO latestRelease = releaseService.loadLatestRelease(appId, env, clusterName, namespaceName);
+
+    //not Release config items
+    List<ItemDTO> items = itemService.findItems(appId, env, clusterName, namespaceName);
+    if (enrichItems) {
+      additionalUserInfoEnrichService
+          .enrichAdditionalUserInfo(items, BaseDtoUserInfoEnrichedAdapter::new);
+    }
+
+    //deleted items
+    List<ItemDTO> deletedItems = null;
+    if (includeDeletedItems) {
+      deletedItems = itemService.findDeletedItems(appId, env, clusterName, namespaceName);
+    }
+
+    return transformNamespace2BO(namespace, latestRelease, items, deletedItems);
+  }
+
+  /**
+   * @param deletedItems null if the deleted items should not be included
+   */
+  private NamespaceBO transformNamespace2BO(NamespaceDTO namespace, ReleaseDTO latestRelease,
+      List<ItemDTO> items, List<ItemDTO> deletedItems) {
+    NamespaceBO namespaceBO = new NamespaceBO();
+    namespaceBO.setBaseInfo(namespace);
+
     fillAppNamespaceProperties(namespaceBO);
 
     List<ItemBO> itemBOs = new LinkedList<>();
     namespaceBO.setItems(itemBOs);
 
-    //latest Release
-    ReleaseDTO latestRelease;
     Map<String, String> releaseItems = new HashMap<>();
-    Map<String, ItemDTO> deletedItemDTOs = new HashMap<>();
-    latestRelease = releaseService.loadLatestRelease(appId, env, clusterName, namespaceName);
     if (latestRelease != null) {
       releaseItems = GSON.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG);
     }
 
-    //not Release config items
-    List<ItemDTO> items = itemService.findItems(appId, env, clusterName, namespaceName);
-    additionalUserInfoEnrichService
-        .enrichAdditionalUserInfo(items, BaseDtoUserInfoEnrichedAdapter::new);
+    if (items == null) {
+      items = Collections.emptyList();
+    }
     int modifiedItemCnt = 0;
     for (ItemDTO itemDTO : items) {
 
@@ -331,15 +442,15 @@ public class NamespaceService {
       itemBOs.add(itemBO);
     }
 
-    if (includeDeletedItems) {
-      //deleted items
-      itemService.findDeletedItems(appId, env, clusterName, namespaceName).forEach(item -> {
+    if (deletedItems != null) {
+      Map<String, ItemDTO> deletedItemDTOs = new HashMap<>();
+      deletedItems.forEach(item -> {
         deletedItemDTOs.put(item.getKey(), item);
       });
 
-      List<ItemBO> deletedItems = parseDeletedItems(items, releaseItems, deletedItemDTOs);
-      itemBOs.addAll(deletedItems);
-      modifiedItemCnt += deletedItems.size();
+      List<ItemBO> deletedItemBOs = parseDeletedItems(items, releaseItems, deletedItemDTOs);
+      itemBOs.addAll(deletedItemBOs);
+      modifiedItemCnt += deletedItemBOs.size();
     }
 
     namespaceBO.setItemModifiedCnt(modifiedItemCnt);
@@ -384,7 +495,7 @@ public class NamespaceService {
   }
 
   private List<ItemBO> parseDeletedItems(List<ItemDTO> newItems, Map<String, String> releaseItems, Map<String, ItemDTO> deletedItemDTOs) {
-    Map<String, ItemDTO> newItemMap = BeanUtils.mapByKey("key", newItems);
+    Map<String, ItemDTO> newItemMap = ItemIndexUtils.indexByKey(newItems);
 
     List<ItemBO> deletedItems = new LinkedList<>();
     for (Map.Entry<String, String> entry : releaseItems.entrySet()) {
@@ -22,4 +22,12 @@ public interface EmailService {
 
   void send(Email email);
 
+  /**
+   * Whether the failed email should be sent again, e.g. when the mail server couldn't be connected. Not retried by
+   * default, since the email may have been accepted before the failure and would be received twice.
+   */
+  default boolean isRetryable(Throwable ex) {
+    return false;
+  }
+
 }
@@ -23,4 +23,12 @@ public interface MQService {
 
   void sendPublishMsg(Env env, ReleaseHistoryBO releaseHistory);
 
+  /**
+   * Whether the failed message should be sent again, e.g. when the broker couldn't be connected. Not retried by
+   * default, since the message may have been accepted before the failure and would be consumed twice.
+   */
+  default boolean isRetryable(Throwable ex) {
+    return false;
+  }
+
 }
@@ -22,6 +22,7 @@ import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTa
 import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTableField;
 import com.ctrip.framework.apollo.audit.annotation.OpType;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.component.ExpiringCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.Permission;
@@ -34,8 +35,10 @@ import com.ctrip.framework.apollo.portal.repository.RoleRepository;
 import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
 import com.ctrip.framework.apollo.portal.service.RolePermissionService;
 import com.ctrip.framework.apollo.portal.spi.UserService;
+import com.ctrip.framework.apollo.portal.util.RoleUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -58,6 +61,9 @@ import java.util.stream.StreamSupport;
  */
 public class DefaultRolePermissionService implements RolePermissionService {
 
+    private static final int MAX_CACHED_USERS = 10000;
+    private static final int TARGET_ID_BATCH_SIZE = 500;
+
     private final RoleRepository roleRepository;
     private final RolePermissionRepository rolePermissionRepository;
     private final UserRoleRepository userRoleRepository;
@@ -65,6 +71,10 @@ public class DefaultRolePermissionService implements RolePermissionService {
     private final PortalConfig portalConfig;
     private final ConsumerRoleRepository consumerRoleRepository;
     private final UserService userService;
+    /**
+     * userId -> the permissions of the user, see {@link RoleUtils#buildPermissionKey(String, String)}
+     */
+    private final ExpiringCache<String, Set<String>> userPermissionCache;
 
     public DefaultRolePermissionService(final RoleRepository roleRepository,
         final RolePermissionRepository rolePermissionRepository,
@@ -80,6 +90,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
       this.portalConfig = portalConfig;
       this.consumerRoleRepository = consumerRoleRepository;
       this.userService = userService;
+      this.userPermissionCache = new ExpiringCache<>(portalConfig::permissionCacheExpireSeconds, MAX_CACHED_USERS);
     }
 
     /**
@@ -136,6 +147,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
         }).collect(Collectors.toList());
 
         userRoleRepository.saveAll(toCreate);
+        userPermissionCache.invalidateAll(toAssignUserIds);
         return toAssignUserIds;
     }
 
@@ -164,6 +176,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
         }
 
         userRoleRepository.saveAll(existedUserRoles);
+        userPermissionCache.invalidateAll(userIds);
     }
 
     /**
@@ -199,35 +212,67 @@ public class DefaultRolePermissionService implements RolePermissionService {
      * Check whether user has the permission
      */
     public boolean userHasPermission(String userId, String permissionType, String targetId) {
-        Permission permission =
-                permissionRepository.findTopByPermissionTypeAndTargetId(permissionType, targetId);
-        if (permission == null) {
-            return false;
+        if (isSuperAdmin(userId)) {
+            return permissionRepository.findTopByPermissionTypeAndTargetId(permissionType, targetId) != null;
+        }
+
+        return findUserPermissions(userId).contains(RoleUtils.buildPermissionKey(permissionType, targetId));
+    }
+
+    @Override
+    public Set<String> userHasPermissions(String userId, String permissionType,
+                                          Collection<String> targetIds) {
+        if (CollectionUtils.isEmpty(targetIds)) {
+            return Collections.emptySet();
         }
 
         if (isSuperAdmin(userId)) {
-            return true;
+            Set<String> existedPermissions = Sets.newHashSet();
+            for (List<String> batch : Iterables.partition(targetIds, TARGET_ID_BATCH_SIZE)) {
+                permissionRepository.findByPermissionTypeAndTargetIdIn(permissionType, batch)
+                    .forEach(permission -> existedPermissions.add(
+                        RoleUtils.buildPermissionKey(permission.getPermissionType(), permission.getTargetId())));
+            }
+            return targetIds.stream()
+                .filter(targetId ->
+                    existedPermissions.contains(RoleUtils.buildPermissionKey(permissionType, targetId)))
+                .collect(Collectors.toSet());
         }
 
+        Set<String> userPermissions = findUserPermissions(userId);
+        return targetIds.stream()
+            .filter(targetId -> userPermissions.contains(RoleUtils.buildPermissionKey(permissionType, targetId)))
+            .collect(Collectors.toSet());
+    }
+
+    private Set<String> findUserPermissions(String userId) {
+        return userPermissionCache.get(userId, this::loadUserPermissions);
+    }
+
+    private Set<String> loadUserPermissions(String userId) {
         List<UserRole> userRoles = userRoleRepository.findByUserId(userId);
         if (CollectionUtils.isEmpty(userRoles)) {
-            return false;
+            return Collections.emptySet();
         }
 
         Set<Long> roleIds =
             userRoles.stream().map(UserRole::getRoleId).collect(Collectors.toSet());
         List<RolePermission> rolePermissions = rolePermissionRepository.findByRoleIdIn(roleIds);
         if (CollectionUtils.isEmpty(rolePermissions)) {
-            return false;
+            return Collections.emptySet();
         }
 
-        for (RolePermission rolePermission : rolePermissions) {
-            if (rolePermission.getPermissionId() == permission.getId()) {
-                return true;
-            }
-        }
+        Set<Long> permissionIds =
+            rolePermissions.stream().map(RolePermission::getPermissionId).collect(Collectors.toSet());
+        Set<String> permissions = Sets.newHashSet();
+        permissionRepository.findAllById(permissionIds).forEach(permission -> permissions.add(
+            RoleUtils.buildPermissionKey(permission.getPermissionType(), permission.getTargetId())));
+        return permissions;
+    }
 
-        return false;
+    @Override
+    public void invalidateUserPermissions() {
+        userPermissionCache.invalidateAll();
     }
 
     @Override
@@ -310,6 +355,8 @@ public class DefaultRolePermissionService implements RolePermissionService {
             // 5. delete Consumer Role
             consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
         }
+
+        invalidateUserPermissions();
     }
 
     @Transactional
@@ -338,5 +385,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
             // 5. delete Consumer Role
             consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
         }
+
+        invalidateUserPermissions();
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.util;
+
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index items by key or line number with plain getters, so that text edit, revoke, compare and
+ * sync could match items without reflection. Like {@code BeanUtils.mapByKey}, the later item wins
+ * if more than one item has the same key.
+ */
+public final class ItemIndexUtils {
+
+  private ItemIndexUtils() {
+  }
+
+  public static Map<String, ItemDTO> indexByKey(List<ItemDTO> items) {
+    if (items == null || items.isEmpty()) {
+      return Maps.newHashMap();
+    }
+    Map<String, ItemDTO> index = Maps.newHashMapWithExpectedSize(items.size());
+    for (ItemDTO item : items) {
+      index.put(item.getKey(), item);
+    }
+    return index;
+  }
+
+  /**
+   * @return key -> item of the normal items, i.e. comment and blank items are excluded
+   */
+  public static Map<String, ItemDTO> indexNormalItemsByKey(List<ItemDTO> items) {
+    if (items == null || items.isEmpty()) {
+      return Maps.newHashMap();
+    }
+    Map<String, ItemDTO> index = Maps.newHashMapWithExpectedSize(items.size());
+    for (ItemDTO item : items) {
+      if (!isCommentOrBlank(item)) {
+        index.put(item.getKey(), item);
+      }
+    }
+    return index;
+  }
+
+  public static Map<Integer, ItemDTO> indexByLineNum(List<ItemDTO> items) {
+    if (items == null || items.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Integer, ItemDTO> index = Maps.newHashMapWithExpectedSize(items.size());
+    for (ItemDTO item : items) {
+      index.put(item.getLineNum(), item);
+    }
+    return index;
+  }
+
+  public static boolean isCommentOrBlank(ItemDTO item) {
+    return item.getKey() == null || item.getKey().isEmpty();
+  }
+}
@@ -21,6 +21,7 @@ import com.ctrip.framework.apollo.portal.constant.RoleType;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import java.util.Iterator;
+import java.util.Locale;
 
 public class RoleUtils {
 
@@ -28,6 +29,14 @@ public class RoleUtils {
   private static final Splitter STRING_SPLITTER = Splitter.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
       .omitEmptyStrings().trimResults();
 
+  /**
+   * The key of a permission in the permission caches, permission type and target id are compared
+   * case-insensitively, the same as querying them from MySQL
+   */
+  public static String buildPermissionKey(String permissionType, String targetId) {
+    return (permissionType + "|" + targetId).toLowerCase(Locale.ROOT);
+  }
+
   public static String buildAppMasterRoleName(String appId) {
     return STRING_JOINER.join(RoleType.MASTER, appId);
   }
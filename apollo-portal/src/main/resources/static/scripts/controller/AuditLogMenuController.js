@@ -28,7 +28,8 @@ function auditLogMenuController($scope, $window, $translate, $document, toastr,
     $scope.searchByOpNameAndDate = searchByOpNameAndDate;
     $scope.getMoreAuditLogs = getMoreAuditLogs;
 
-    $scope.page = 0;
+    // id of the last loaded log, the next page starts after it
+    $scope.beforeId = null;
     var PAGE_SIZE = 10;
 
     $scope.opName = '';
@@ -66,15 +67,18 @@ function auditLogMenuController($scope, $window, $translate, $document, toastr,
     }
 
     function initSearchingMenu() {
-        AuditLogService.find_all_logs($scope.page, PAGE_SIZE).then(function (result) {
-            if (!result || result.length < PAGE_SIZE) {
-                $scope.hasLoadAll = true;
-            }
-            if (result.length === 0) {
-                return;
-            }
-            $scope.auditLogList = $scope.auditLogList.concat(result);
-        });
+        AuditLogService.scroll_logs($scope.beforeId, PAGE_SIZE).then(appendAuditLogs);
+    }
+
+    function appendAuditLogs(result) {
+        if (!result || result.length < PAGE_SIZE) {
+            $scope.hasLoadAll = true;
+        }
+        if (!result || result.length === 0) {
+            return;
+        }
+        $scope.auditLogList = $scope.auditLogList.concat(result);
+        $scope.beforeId = result[result.length - 1].id;
     }
 
     function searchByOpNameAndDate(opName, startDate, endDate) {
@@ -85,60 +89,36 @@ function auditLogMenuController($scope, $window, $translate, $document, toastr,
             $scope.endDateFmt = new Date(endDate).Format("yyyy-MM-dd hh:mm:ss.S");
         }
         $scope.auditLogList = [];
-        $scope.page = 0;
+        $scope.beforeId = null;
+        $scope.hasLoadAll = false;
         $scope.opName = opName;
         $scope.startDate = startDate;
         $scope.endDate = endDate;
-        AuditLogService.find_logs_by_opName(
+        AuditLogService.scroll_logs_by_opName(
             $scope.opName,
             $scope.startDateFmt,
             $scope.endDateFmt,
-            $scope.page,
+            $scope.beforeId,
             PAGE_SIZE
-        ).then(function (result) {
-            if (!result || result.length < PAGE_SIZE) {
-                $scope.hasLoadAll = true;
-            }
-            if (result.length === 0) {
-                return;
-            }
-            $scope.auditLogList = $scope.auditLogList.concat(result);
-        });
+        ).then(appendAuditLogs);
     }
 
     function getMoreAuditLogs() {
-        $scope.page = $scope.page + 1;
         if ($scope.opName === '') {
-            AuditLogService.find_all_logs($scope.page, PAGE_SIZE).then(function (result) {
-                if (!result || result.length < PAGE_SIZE) {
-                    $scope.hasLoadAll = true;
-                }
-                if (result.length === 0) {
-                    return;
-                }
-                $scope.auditLogList = $scope.auditLogList.concat(result);
-            });
+            AuditLogService.scroll_logs($scope.beforeId, PAGE_SIZE).then(appendAuditLogs);
         } else {
-            AuditLogService.find_logs_by_opName(
+            AuditLogService.scroll_logs_by_opName(
                 $scope.opName,
                 $scope.startDateFmt,
                 $scope.endDateFmt,
-                $scope.page,
+                $scope.beforeId,
                 PAGE_SIZE
-            ).then(function (result) {
-                if (!result || result.length < PAGE_SIZE) {
-                    $scope.hasLoadAll = true;
-                }
-                if (result.length === 0) {
-                    return;
-                }
-                $scope.auditLogList = $scope.auditLogList.concat(result);
-            });
+            ).then(appendAuditLogs);
         }
     }
 
     function searchAuditLogs(query) {
-        AuditLogService.search_by_name_or_type_or_operator(query, 0, 20).then(function (result) {
+        AuditLogService.search_by_prefix(query, 20).then(function (result) {
             result.forEach(function (log) {
                 var optionDisplay = log.opName + '-(' + log.opType + ').by:' + log.operator;
                 var option = {
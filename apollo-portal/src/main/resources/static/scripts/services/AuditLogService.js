@@ -45,6 +45,21 @@ appService.service('AuditLogService', ['$resource', '$q', 'AppUtil', function ($
       method: 'GET',
       url: AppUtil.prefixPath() + '/apollo/audit/logs/by-name-or-type-or-operator?query=:query&page=:page&size=:size',
       isArray: true
+    },
+    scroll_logs: {
+      method: 'GET',
+      url: AppUtil.prefixPath() + '/apollo/audit/logs/scroll?beforeId=:beforeId&size=:size',
+      isArray: true
+    },
+    scroll_logs_by_opName: {
+      method: 'GET',
+      url: AppUtil.prefixPath() + '/apollo/audit/logs/opName/scroll?opName=:opName&beforeId=:beforeId&size=:size&startDate=:startDate&endDate=:endDate',
+      isArray: true
+    },
+    search_by_prefix: {
+      method: 'GET',
+      url: AppUtil.prefixPath() + '/apollo/audit/logs/search?query=:query&size=:size',
+      isArray: true
     }
   });
   return {
@@ -129,6 +144,48 @@ appService.service('AuditLogService', ['$resource', '$q', 'AppUtil', function ($
           }
       );
       return d.promise;
+    },
+    scroll_logs: function (beforeId, size) {
+      var d = $q.defer();
+      audit_resource.scroll_logs({
+            beforeId: beforeId,
+            size: size
+          }, function (result) {
+            d.resolve(result);
+          }, function (result) {
+            d.reject(result);
+          }
+      );
+      return d.promise;
+    },
+    scroll_logs_by_opName: function (opName, startDate, endDate, beforeId, size) {
+      var d = $q.defer();
+      audit_resource.scroll_logs_by_opName({
+            opName: opName,
+            startDate: startDate,
+            endDate: endDate,
+            beforeId: beforeId,
+            size: size
+          }, function (result) {
+            d.resolve(result);
+          }, function (result) {
+            d.reject(result);
+          }
+      );
+      return d.promise;
+    },
+    search_by_prefix: function (query, size) {
+      var d = $q.defer();
+      audit_resource.search_by_prefix({
+            query: query,
+            size: size
+          }, function (result) {
+            d.resolve(result);
+          }, function (result) {
+            d.reject(result);
+          }
+      );
+      return d.promise;
     }
   };
 }]);
\ No newline at end of file
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.service;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.ctrip.framework.apollo.portal.service.RolePermissionService;
+import java.sql.Timestamp;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+public class ConsumerCacheInvalidatorTest extends AbstractUnitTest {
+
+  @Mock
+  private ConsumerTokenRepository consumerTokenRepository;
+  @Mock
+  private ConsumerRoleRepository consumerRoleRepository;
+  @Mock
+  private RolePermissionRepository rolePermissionRepository;
+  @Mock
+  private UserRoleRepository userRoleRepository;
+  @Mock
+  private ConsumerService consumerService;
+  @Mock
+  private ConsumerRolePermissionService consumerRolePermissionService;
+  @Mock
+  private RolePermissionService rolePermissionService;
+  @Mock
+  private PortalConfig portalConfig;
+
+  private ConsumerCacheInvalidator consumerCacheInvalidator;
+
+  @Before
+  public void setUp() throws Exception {
+    consumerCacheInvalidator = new ConsumerCacheInvalidator(consumerTokenRepository, consumerRoleRepository,
+        rolePermissionRepository, userRoleRepository, consumerService, consumerRolePermissionService,
+        rolePermissionService, portalConfig);
+    when(consumerTokenRepository.findLatestModifiedTime()).thenReturn(new Timestamp(1000));
+    when(consumerRoleRepository.findLatestModifiedTime()).thenReturn(new Timestamp(2000));
+    when(rolePermissionRepository.findLatestModifiedTime()).thenReturn(new Timestamp(3000));
+    when(userRoleRepository.findLatestModifiedTime()).thenReturn(new Timestamp(4000));
+  }
+
+  @Test
+  public void testScanWithoutChanges() {
+    consumerCacheInvalidator.scan();
+    consumerCacheInvalidator.scan();
+
+    verify(consumerService, never()).invalidateConsumerTokens(null);
+    verify(consumerRolePermissionService, never()).invalidateConsumerPermissions(null);
+    verify(rolePermissionService, never()).invalidateUserPermissions();
+  }
+
+  @Test
+  public void testScanWithChanges() {
+    consumerCacheInvalidator.scan();
+
+    when(consumerRoleRepository.findLatestModifiedTime()).thenReturn(new Timestamp(4000));
+    consumerCacheInvalidator.scan();
+
+    verify(consumerService, times(1)).invalidateConsumerTokens(null);
+    verify(consumerRolePermissionService, times(1)).invalidateConsumerPermissions(null);
+    verify(rolePermissionService, never()).invalidateUserPermissions();
+
+    // checked once more for the changes made within the same second
+    consumerCacheInvalidator.scan();
+    consumerCacheInvalidator.scan();
+
+    verify(consumerService, times(2)).invalidateConsumerTokens(null);
+    verify(consumerRolePermissionService, times(2)).invalidateConsumerPermissions(null);
+  }
+
+  @Test
+  public void testScanWithFirstToken() {
+    when(consumerTokenRepository.findLatestModifiedTime()).thenReturn(null);
+    consumerCacheInvalidator.scan();
+
+    when(consumerTokenRepository.findLatestModifiedTime()).thenReturn(new Timestamp(5000));
+    consumerCacheInvalidator.scan();
+
+    verify(consumerService, times(1)).invalidateConsumerTokens(null);
+    verify(consumerRolePermissionService, times(1)).invalidateConsumerPermissions(null);
+  }
+
+  @Test
+  public void testScanWithUserRoleChanges() {
+    consumerCacheInvalidator.scan();
+
+    when(userRoleRepository.findLatestModifiedTime()).thenReturn(new Timestamp(5000));
+    consumerCacheInvalidator.scan();
+
+    verify(rolePermissionService, times(1)).invalidateUserPermissions();
+    verify(consumerService, never()).invalidateConsumerTokens(null);
+
+    // checked once more for the changes made within the same second
+    consumerCacheInvalidator.scan();
+    consumerCacheInvalidator.scan();
+
+    verify(rolePermissionService, times(2)).invalidateUserPermissions();
+  }
+
+  @Test
+  public void testScanWithRolePermissionChanges() {
+    consumerCacheInvalidator.scan();
+
+    when(rolePermissionRepository.findLatestModifiedTime()).thenReturn(new Timestamp(5000));
+    consumerCacheInvalidator.scan();
+
+    verify(rolePermissionService, times(1)).invalidateUserPermissions();
+    verify(consumerRolePermissionService, times(1)).invalidateConsumerPermissions(null);
+  }
+}
@@ -21,7 +21,10 @@ import static org.junit.Assert.assertFalse;
 
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.openapi.entity.Consumer;
+import com.ctrip.framework.apollo.openapi.entity.ConsumerAudit;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerAuditRepository;
 import com.ctrip.framework.apollo.portal.AbstractIntegrationTest;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.util.List;
 import java.util.Set;
@@ -38,6 +41,8 @@ public class ConsumerServiceIntegrationTest extends AbstractIntegrationTest {
 
   @Autowired
   private ConsumerService consumerService;
+  @Autowired
+  private ConsumerAuditRepository consumerAuditRepository;
 
   @Test
   @Sql(scripts = "/sql/openapi/ConsumerServiceIntegrationTest.testFindAppIdsAuthorizedByConsumerId.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -75,4 +80,27 @@ public class ConsumerServiceIntegrationTest extends AbstractIntegrationTest {
     Assertions.assertThat(consumerService.getConsumerByConsumerId(consumerId))
         .isNull();
   }
+
+  @Test
+  @Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testCreateConsumerAudits() {
+    List<ConsumerAudit> audits = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      ConsumerAudit audit = new ConsumerAudit();
+      audit.setConsumerId(1000L + i);
+      audit.setUri("/openapi/v1/someUri" + i);
+      audit.setMethod("POST");
+      audits.add(audit);
+    }
+
+    consumerService.createConsumerAudits(audits);
+
+    List<ConsumerAudit> savedAudits = Lists.newArrayList(consumerAuditRepository.findAll());
+    assertEquals(3, savedAudits.size());
+    for (ConsumerAudit savedAudit : savedAudits) {
+      assertEquals("/openapi/v1/someUri" + (savedAudit.getConsumerId() - 1000), savedAudit.getUri());
+      assertEquals("POST", savedAudit.getMethod());
+      Assertions.assertThat(savedAudit.getDataChangeCreatedTime()).isNotNull();
+    }
+  }
 }
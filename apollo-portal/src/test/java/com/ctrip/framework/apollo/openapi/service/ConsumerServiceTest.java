@@ -33,6 +33,8 @@ import com.ctrip.framework.apollo.portal.service.RolePermissionService;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.portal.spi.UserService;
 import com.ctrip.framework.apollo.portal.util.RoleUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 
 import java.util.Calendar;
@@ -71,6 +73,10 @@ public class ConsumerServiceTest {
   UserService userService;
   @MockBean
   RoleRepository roleRepository;
+  @MockBean
+  ConsumerRolePermissionService consumerRolePermissionService;
+  @MockBean
+  MeterRegistry meterRegistry;
 
   private final String someTokenSalt = "someTokenSalt";
   private final String testAppId = "testAppId";
@@ -95,6 +101,40 @@ public class ConsumerServiceTest {
     assertEquals(someConsumerId, consumerService.getConsumerIdByToken(someToken).longValue());
   }
 
+  @Test
+  public void testGetConsumerIdWithTokenCache() throws Exception {
+    String someToken = "someToken";
+    String someInvalidToken = "someInvalidToken";
+    long someConsumerId = 1;
+    ConsumerToken someConsumerToken = new ConsumerToken();
+    someConsumerToken.setConsumerId(someConsumerId);
+    someConsumerToken.setExpires(new Date(System.currentTimeMillis() + 60 * 1000));
+
+    when(portalConfig.openApiConsumerCacheExpireSeconds()).thenReturn(60);
+    when(consumerTokenRepository.findTopByTokenAndExpiresAfter(eq(someToken), any(Date.class)))
+        .thenReturn(someConsumerToken);
+    ConsumerService cachedConsumerService = new ConsumerService(userInfoHolder, consumerTokenRepository,
+        consumerRepository, consumerAuditRepository, consumerRoleRepository, portalConfig,
+        rolePermissionService, userService, roleRepository, consumerRolePermissionService,
+        new SimpleMeterRegistry());
+
+    assertEquals(someConsumerId, cachedConsumerService.getConsumerIdByToken(someToken).longValue());
+    assertEquals(someConsumerId, cachedConsumerService.getConsumerIdByToken(someToken).longValue());
+    assertNull(cachedConsumerService.getConsumerIdByToken(someInvalidToken));
+    assertNull(cachedConsumerService.getConsumerIdByToken(someInvalidToken));
+    verify(consumerTokenRepository, times(1)).findTopByTokenAndExpiresAfter(eq(someToken), any(Date.class));
+    verify(consumerTokenRepository, times(1)).findTopByTokenAndExpiresAfter(eq(someInvalidToken), any(Date.class));
+
+    // expired while being cached
+    someConsumerToken.setExpires(new Date(System.currentTimeMillis() - 1000));
+    assertNull(cachedConsumerService.getConsumerIdByToken(someToken));
+
+    someConsumerToken.setExpires(new Date(System.currentTimeMillis() + 60 * 1000));
+    cachedConsumerService.invalidateConsumerTokens(null);
+    assertEquals(someConsumerId, cachedConsumerService.getConsumerIdByToken(someToken).longValue());
+    verify(consumerTokenRepository, times(2)).findTopByTokenAndExpiresAfter(eq(someToken), any(Date.class));
+  }
+
   @Test
   public void testGetConsumerIdWithNullToken() throws Exception {
     Long consumerId = consumerService.getConsumerIdByToken(null);
@@ -18,7 +18,9 @@ package com.ctrip.framework.apollo.openapi.util;
 
 import com.ctrip.framework.apollo.openapi.entity.ConsumerAudit;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.google.common.util.concurrent.SettableFuture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,8 +35,12 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -47,12 +53,18 @@ public class ConsumerAuditUtilTest {
   private ConsumerService consumerService;
   @Mock
   private HttpServletRequest request;
+  @Mock
+  private PortalConfig portalConfig;
   private long batchTimeout = 50;
   private TimeUnit batchTimeUnit = TimeUnit.MILLISECONDS;
 
   @Before
   public void setUp() throws Exception {
-    consumerAuditUtil = new ConsumerAuditUtil(consumerService);
+    when(portalConfig.openApiAuditQueueCapacity()).thenReturn(10000);
+    when(portalConfig.openApiAuditWriters()).thenReturn(2);
+    when(portalConfig.openApiAuditMaxBatchSize()).thenReturn(1000);
+    when(portalConfig.openApiAuditOfferTimeoutMillis()).thenReturn(0);
+    consumerAuditUtil = new ConsumerAuditUtil(consumerService, portalConfig, new SimpleMeterRegistry());
     ReflectionTestUtils.setField(consumerAuditUtil, "BATCH_TIMEOUT", batchTimeout);
     ReflectionTestUtils.setField(consumerAuditUtil, "BATCH_TIMEUNIT", batchTimeUnit);
     consumerAuditUtil.afterPropertiesSet();
@@ -96,4 +108,52 @@ public class ConsumerAuditUtilTest {
     assertEquals(someConsumerId, audit.getConsumerId());
   }
 
+  @Test
+  public void auditDroppedWhenQueueIsFull() throws Exception {
+    when(portalConfig.openApiAuditQueueCapacity()).thenReturn(1);
+    ConsumerAuditUtil notStartedAuditUtil =
+        new ConsumerAuditUtil(consumerService, portalConfig, new SimpleMeterRegistry());
+    when(request.getRequestURI()).thenReturn("someUri");
+    when(request.getMethod()).thenReturn("POST");
+
+    assertTrue(notStartedAuditUtil.audit(request, 1));
+    assertFalse(notStartedAuditUtil.audit(request, 1));
+
+    assertEquals(1, notStartedAuditUtil.queued());
+    assertEquals(1, notStartedAuditUtil.dropped());
+  }
+
+  @Test
+  public void batchSizeGrowsWithBacklog() throws Exception {
+    when(portalConfig.openApiAuditMaxBatchSize()).thenReturn(300);
+    ConsumerAuditUtil notStartedAuditUtil =
+        new ConsumerAuditUtil(consumerService, portalConfig, new SimpleMeterRegistry());
+    when(request.getRequestURI()).thenReturn("someUri");
+    when(request.getMethod()).thenReturn("POST");
+
+    assertEquals(100, notStartedAuditUtil.batchSize());
+    for (int i = 0; i < 500; i++) {
+      notStartedAuditUtil.audit(request, 1);
+    }
+    assertEquals(250, notStartedAuditUtil.batchSize());
+    for (int i = 0; i < 500; i++) {
+      notStartedAuditUtil.audit(request, 1);
+    }
+    assertEquals(300, notStartedAuditUtil.batchSize());
+  }
+
+  @Test
+  public void remainingAuditsWrittenOnDestroy() throws Exception {
+    ConsumerAuditUtil notStartedAuditUtil =
+        new ConsumerAuditUtil(consumerService, portalConfig, new SimpleMeterRegistry());
+    when(request.getRequestURI()).thenReturn("someUri");
+    when(request.getMethod()).thenReturn("POST");
+
+    notStartedAuditUtil.audit(request, 1);
+    notStartedAuditUtil.audit(request, 1);
+    notStartedAuditUtil.destroy();
+
+    verify(consumerService, times(1)).createConsumerAudits(anyCollection());
+    assertEquals(2, notStartedAuditUtil.written());
+  }
 }
@@ -24,6 +24,7 @@ import com.ctrip.framework.apollo.openapi.repository.ConsumerRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
 import com.ctrip.framework.apollo.openapi.server.service.ServerAppOpenApiService;
+import com.ctrip.framework.apollo.openapi.service.ConsumerRolePermissionService;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
 import com.ctrip.framework.apollo.openapi.util.ConsumerAuthUtil;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
@@ -38,6 +39,7 @@ import com.ctrip.framework.apollo.portal.service.RolePermissionService;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.portal.spi.UserService;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -103,6 +105,10 @@ public class AppControllerTest {
   private UserService userService;
   @MockBean
   private RoleRepository roleRepository;
+  @MockBean
+  private ConsumerRolePermissionService consumerRolePermissionService;
+  @MockBean
+  private MeterRegistry meterRegistry;
 
   @Test
   public void testFindAppsAuthorized() throws Exception {
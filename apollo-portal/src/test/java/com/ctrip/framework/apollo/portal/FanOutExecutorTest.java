@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+public class FanOutExecutorTest extends AbstractUnitTest {
+
+  @Mock
+  private PortalConfig portalConfig;
+
+  private SimpleMeterRegistry meterRegistry;
+  private FanOutExecutor fanOutExecutor;
+
+  @Before
+  public void setUp() throws Exception {
+    when(portalConfig.fanOutPoolSize()).thenReturn(4);
+    when(portalConfig.fanOutQueueCapacity()).thenReturn(100);
+    when(portalConfig.fanOutConcurrencyPerRequest()).thenReturn(2);
+    when(portalConfig.fanOutTimeout()).thenReturn(1000);
+
+    meterRegistry = new SimpleMeterRegistry();
+    fanOutExecutor = new FanOutExecutor(portalConfig, meterRegistry);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    fanOutExecutor.shutdown();
+  }
+
+  @Test
+  public void testInvokeAll() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Callable<Integer>> tasks = Lists.newArrayList();
+    for (int i = 0; i < 10; i++) {
+      int index = i;
+      tasks.add(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        TimeUnit.MILLISECONDS.sleep(10);
+        running.decrementAndGet();
+        return index;
+      });
+    }
+
+    List<Future<Integer>> futures = fanOutExecutor.invokeAll("someTask", tasks);
+
+    assertEquals(10, futures.size());
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(i, futures.get(i).get().intValue());
+    }
+    assertTrue(maxRunning.get() <= 2);
+    assertEquals(10, meterRegistry.get("apollo.portal.fan-out.wait").tag("task", "someTask").timer().count());
+  }
+
+  @Test
+  public void testInvokeAllWithDeadline() throws Exception {
+    when(portalConfig.fanOutTimeout()).thenReturn(100);
+
+    List<Callable<Integer>> tasks = Lists.newArrayList();
+    tasks.add(() -> 1);
+    for (int i = 0; i < 3; i++) {
+      tasks.add(() -> {
+        TimeUnit.SECONDS.sleep(10);
+        return 2;
+      });
+    }
+
+    long start = System.currentTimeMillis();
+    List<Future<Integer>> futures = fanOutExecutor.invokeAll("someTask", tasks);
+
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertEquals(1, futures.get(0).get().intValue());
+    for (int i = 1; i < futures.size(); i++) {
+      assertTrue(futures.get(i).isCancelled());
+    }
+    assertEquals(1, meterRegistry.get("apollo.portal.fan-out.timeouts").tag("task", "someTask").counter().count(), 0);
+  }
+}
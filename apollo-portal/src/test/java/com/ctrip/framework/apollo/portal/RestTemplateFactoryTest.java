@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.audit.component.ApolloAuditHttpInterceptor;
+import com.ctrip.framework.apollo.portal.component.RestTemplateFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+
+public class RestTemplateFactoryTest extends AbstractUnitTest {
+
+  @Mock
+  private PortalConfig portalConfig;
+  @Mock
+  private ApolloAuditHttpInterceptor apolloAuditHttpInterceptor;
+
+  private SimpleMeterRegistry meterRegistry;
+  private RestTemplateFactory restTemplateFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    when(portalConfig.connectionTimeToLive()).thenReturn(-1);
+    when(portalConfig.connectionPoolMaxTotal()).thenReturn(100);
+    when(portalConfig.connectionPoolMaxPerRoute()).thenReturn(20);
+    when(portalConfig.connectionKeepAlive()).thenReturn(15000);
+    when(portalConfig.connectTimeout()).thenReturn(3000);
+    when(portalConfig.readTimeout()).thenReturn(10000);
+
+    meterRegistry = new SimpleMeterRegistry();
+    restTemplateFactory = new RestTemplateFactory(new HttpMessageConverters(), portalConfig,
+        apolloAuditHttpInterceptor, meterRegistry);
+    restTemplateFactory.afterPropertiesSet();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    restTemplateFactory.destroy();
+  }
+
+  @Test
+  public void testConnectionPool() {
+    assertNotNull(restTemplateFactory.getObject());
+
+    assertEquals(100, meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value(), 0);
+    assertEquals(20, meterRegistry.get("httpcomponents.httpclient.pool.route.max.default").gauge().value(), 0);
+    assertEquals(0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+        .tag("state", "leased").gauge().value(), 0);
+  }
+}
@@ -25,6 +25,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,32 +33,43 @@ import static org.mockito.Mockito.when;
 import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.core.dto.ServiceDTO;
 import com.ctrip.framework.apollo.portal.component.AdminServiceAddressLocator;
+import com.ctrip.framework.apollo.portal.component.AdminServiceLoadBalancer;
+import com.ctrip.framework.apollo.portal.component.RestTemplateFactory;
 import com.ctrip.framework.apollo.portal.component.RetryableRestTemplate;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.environment.PortalMetaDomainService;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.net.SocketTimeoutException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.http.HttpHost;
 import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.HttpHostConnectException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 public class RetryableRestTemplateTest extends AbstractUnitTest {
 
@@ -69,7 +81,8 @@ public class RetryableRestTemplateTest extends AbstractUnitTest {
   private PortalMetaDomainService portalMetaDomainService;
   @Mock
   private PortalConfig portalConfig;
-  @InjectMocks
+  @Mock
+  private RestTemplateFactory restTemplateFactory;
   private RetryableRestTemplate retryableRestTemplate;
 
   private static final Gson GSON = new Gson();
@@ -87,6 +100,10 @@ public class RetryableRestTemplateTest extends AbstractUnitTest {
 
   @Before
   public void init() {
+    retryableRestTemplate = new RetryableRestTemplate(restTemplateFactory, serviceAddressLocator,
+        portalMetaDomainService, portalConfig, new AdminServiceLoadBalancer(portalConfig, new SimpleMeterRegistry()));
+    ReflectionTestUtils.setField(retryableRestTemplate, "restTemplate", restTemplate);
+
     socketTimeoutException.initCause(new SocketTimeoutException());
 
     httpHostConnectException
@@ -164,6 +181,125 @@ public class RetryableRestTemplateTest extends AbstractUnitTest {
     assertEquals(result, actualResult);
   }
 
+  @Test
+  public void testEjectUnavailableAdminService() {
+    ResponseEntity someEntity = mock(ResponseEntity.class);
+    when(someEntity.getBody()).thenReturn(result);
+
+    when(portalConfig.outlierEjectionConsecutiveFailures()).thenReturn(3);
+    when(portalConfig.outlierEjectionDuration()).thenReturn(30000);
+    when(serviceAddressLocator.getServiceList(any()))
+        .thenAnswer(invocation -> Lists.newArrayList(mockService(serviceOne), mockService(serviceTwo)));
+    when(restTemplate
+        .exchange(eq(serviceOne + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class))).thenThrow(httpHostConnectException);
+    when(restTemplate
+        .exchange(eq(serviceTwo + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class))).thenReturn(someEntity);
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(result, retryableRestTemplate.get(Env.DEV, path, Object.class));
+    }
+
+    verify(restTemplate, times(3))
+        .exchange(eq(serviceOne + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class));
+    verify(restTemplate, times(5))
+        .exchange(eq(serviceTwo + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class));
+  }
+
+  @Test
+  public void testHedgedGet() throws Exception {
+    ResponseEntity someEntity = mock(ResponseEntity.class);
+    when(someEntity.getBody()).thenReturn(result);
+    CountDownLatch slowRequestLatch = new CountDownLatch(1);
+
+    when(portalConfig.isHedgedRequestEnabled()).thenReturn(true);
+    when(portalConfig.hedgedRequestMinDelay()).thenReturn(10);
+    when(serviceAddressLocator.getServiceList(any()))
+        .thenReturn(Collections.singletonList(mockService(serviceTwo)));
+    when(restTemplate
+        .exchange(eq(serviceTwo + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class))).thenReturn(someEntity);
+
+    // collect enough latency samples to decide the hedge delay
+    for (int i = 0; i < 20; i++) {
+      retryableRestTemplate.get(Env.DEV, path, Object.class);
+    }
+
+    when(serviceAddressLocator.getServiceList(any()))
+        .thenReturn(Arrays.asList(mockService(serviceOne), mockService(serviceTwo)));
+    when(restTemplate
+        .exchange(eq(serviceOne + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class))).thenAnswer(invocation -> {
+              slowRequestLatch.await(5, TimeUnit.SECONDS);
+              return someEntity;
+            });
+
+    Object actualResult = retryableRestTemplate.get(Env.DEV, path, Object.class);
+
+    // returned by the hedged request while the first one is still blocked
+    assertEquals(1, slowRequestLatch.getCount());
+    slowRequestLatch.countDown();
+
+    assertEquals(result, actualResult);
+    verify(restTemplate, timeout(1000).times(1))
+        .exchange(eq(serviceOne + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class));
+    verify(restTemplate, times(21))
+        .exchange(eq(serviceTwo + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class));
+  }
+
+  @Test
+  public void testHedgedGetKeepsCallerContextAndCancelsLoser() throws Exception {
+    ResponseEntity someEntity = mock(ResponseEntity.class);
+    when(someEntity.getBody()).thenReturn(result);
+    CountDownLatch slowRequestInterrupted = new CountDownLatch(1);
+    RequestAttributes requestAttributes = new ServletRequestAttributes(new MockHttpServletRequest());
+    AtomicReference<RequestAttributes> hedgedRequestAttributes = new AtomicReference<>();
+
+    when(portalConfig.isHedgedRequestEnabled()).thenReturn(true);
+    when(portalConfig.hedgedRequestMinDelay()).thenReturn(10);
+    when(serviceAddressLocator.getServiceList(any()))
+        .thenReturn(Collections.singletonList(mockService(serviceTwo)));
+    when(restTemplate
+        .exchange(eq(serviceTwo + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class))).thenAnswer(invocation -> {
+              hedgedRequestAttributes.set(RequestContextHolder.getRequestAttributes());
+              return someEntity;
+            });
+
+    // collect enough latency samples to decide the hedge delay
+    for (int i = 0; i < 20; i++) {
+      retryableRestTemplate.get(Env.DEV, path, Object.class);
+    }
+
+    when(serviceAddressLocator.getServiceList(any()))
+        .thenReturn(Arrays.asList(mockService(serviceOne), mockService(serviceTwo)));
+    when(restTemplate
+        .exchange(eq(serviceOne + "/" + path), eq(HttpMethod.GET), any(HttpEntity.class),
+            eq(Object.class))).thenAnswer(invocation -> {
+              try {
+                TimeUnit.SECONDS.sleep(5);
+              } catch (InterruptedException ex) {
+                slowRequestInterrupted.countDown();
+              }
+              return someEntity;
+            });
+
+    RequestContextHolder.setRequestAttributes(requestAttributes);
+    try {
+      assertEquals(result, retryableRestTemplate.get(Env.DEV, path, Object.class));
+    } finally {
+      RequestContextHolder.resetRequestAttributes();
+    }
+
+    assertSame(requestAttributes, hedgedRequestAttributes.get());
+    assertTrue(slowRequestInterrupted.await(1, TimeUnit.SECONDS));
+  }
+
   @Test
   public void testPostSocketTimeoutNotRetry() {
     ResponseEntity someEntity = mock(ResponseEntity.class);
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+public class ConfigReleaseWebhookNotifierTest {
+
+  @Test
+  public void testIsRetryable() {
+    assertTrue(ConfigReleaseWebhookNotifier.isRetryable(
+        new ResourceAccessException("some error", new ConnectException("Connection refused"))));
+    assertTrue(ConfigReleaseWebhookNotifier.isRetryable(
+        new ResourceAccessException("some error", new SocketTimeoutException("connect timed out"))));
+    assertTrue(ConfigReleaseWebhookNotifier.isRetryable(
+        new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+    assertTrue(ConfigReleaseWebhookNotifier.isRetryable(
+        new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS)));
+
+    assertFalse(ConfigReleaseWebhookNotifier.isRetryable(
+        new ResourceAccessException("some error", new SocketTimeoutException("Read timed out"))));
+    assertFalse(ConfigReleaseWebhookNotifier.isRetryable(
+        new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+    assertFalse(ConfigReleaseWebhookNotifier.isRetryable(new IllegalStateException("some error")));
+  }
+}
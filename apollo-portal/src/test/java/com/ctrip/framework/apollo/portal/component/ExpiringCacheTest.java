@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ExpiringCacheTest {
+
+  private static final String someKey = "someKey";
+
+  private final AtomicInteger expireSeconds = new AtomicInteger(60);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void testGetCached() {
+    ExpiringCache<String, Integer> cache = new ExpiringCache<>(expireSeconds::get, 10);
+
+    assertEquals(1, cache.get(someKey, this::load).intValue());
+    assertEquals(1, cache.get(someKey, this::load).intValue());
+  }
+
+  @Test
+  public void testExpirationChanged() {
+    ExpiringCache<String, Integer> cache = new ExpiringCache<>(expireSeconds::get, 10);
+    cache.get(someKey, this::load);
+
+    expireSeconds.set(0);
+    assertEquals(2, cache.get(someKey, this::load).intValue());
+    assertEquals(3, cache.get(someKey, this::load).intValue());
+
+    expireSeconds.set(30);
+    assertEquals(4, cache.get(someKey, this::load).intValue());
+    assertEquals(4, cache.get(someKey, this::load).intValue());
+  }
+
+  @Test
+  public void testInvalidate() {
+    ExpiringCache<String, Integer> cache = new ExpiringCache<>(expireSeconds::get, 10);
+
+    cache.get(someKey, this::load);
+    cache.invalidate(someKey);
+    assertEquals(2, cache.get(someKey, this::load).intValue());
+
+    cache.invalidateAll(Collections.singleton(someKey));
+    assertEquals(3, cache.get(someKey, this::load).intValue());
+
+    cache.invalidateAll();
+    assertEquals(4, cache.get(someKey, this::load).intValue());
+  }
+
+  @Test
+  public void testInvalidateAgainAfterCommit() {
+    ExpiringCache<String, Integer> cache = new ExpiringCache<>(expireSeconds::get, 10);
+    cache.get(someKey, this::load);
+
+    TransactionSynchronizationManager.initSynchronization();
+    cache.invalidate(someKey);
+    // loaded concurrently before the commit
+    assertEquals(2, cache.get(someKey, this::load).intValue());
+
+    for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      synchronization.afterCommit();
+    }
+    assertEquals(3, cache.get(someKey, this::load).intValue());
+  }
+
+  @Test
+  public void testMonitoredOnceEnabled() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    expireSeconds.set(0);
+    ExpiringCache<String, Integer> cache = new ExpiringCache<>(expireSeconds::get, 10, meterRegistry,
+        "someCache");
+    cache.get(someKey, this::load);
+    assertEquals(0, meterRegistry.getMeters().size());
+
+    expireSeconds.set(60);
+    cache.get(someKey, this::load);
+    cache.get(someKey, this::load);
+
+    assertNotNull(meterRegistry.find("cache.size").tag("cache", "someCache").gauge());
+    assertEquals(1, meterRegistry.find("cache.size").tag("cache", "someCache").gauge().value(), 0);
+  }
+
+  private Integer load(String key) {
+    return loads.incrementAndGet();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.PublishNotificationDispatcher.Channel;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+public class PublishNotificationDispatcherTest extends AbstractUnitTest {
+
+  private static final String DELIVERY = "apollo.portal.publish-notification.delivery";
+  private static final String DROPPED = "apollo.portal.publish-notification.dropped";
+
+  @Mock
+  private PortalConfig portalConfig;
+
+  private SimpleMeterRegistry meterRegistry;
+  private PublishNotificationDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    when(portalConfig.publishNotificationPoolSize()).thenReturn(1);
+    when(portalConfig.publishNotificationQueueCapacity()).thenReturn(1);
+    when(portalConfig.publishNotificationMaxRetries()).thenReturn(2);
+    when(portalConfig.publishNotificationRetryBackoff()).thenReturn(10);
+    meterRegistry = new SimpleMeterRegistry();
+    dispatcher = new PublishNotificationDispatcher(portalConfig, meterRegistry);
+  }
+
+  @After
+  public void tearDown() {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  public void testDispatchWithRetries() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch delivered = new CountDownLatch(1);
+
+    dispatcher.dispatch(Channel.WEBHOOK, "someUrl", () -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw new IllegalStateException("some failure");
+      }
+      delivered.countDown();
+    });
+
+    assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    assertEquals(3, attempts.get());
+    waitForDelivery("webhook", "success");
+  }
+
+  @Test
+  public void testDispatchGivenUpAfterMaxRetries() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+
+    dispatcher.dispatch(Channel.EMAIL, "someTarget", () -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("some failure");
+    });
+
+    waitForDelivery("email", "failure");
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  public void testDispatchNotRetryable() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+
+    dispatcher.dispatch(Channel.WEBHOOK, "someUrl", () -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("some failure");
+    }, ex -> false);
+
+    waitForDelivery("webhook", "failure");
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void testSlowChannelNotBlockingOthers() throws Exception {
+    CountDownLatch slowWebhook = new CountDownLatch(1);
+    CountDownLatch mqDelivered = new CountDownLatch(1);
+
+    dispatcher.dispatch(Channel.WEBHOOK, "someSlowUrl", () -> {
+      try {
+        slowWebhook.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    // queued
+    dispatcher.dispatch(Channel.WEBHOOK, "anotherUrl", () -> {
+    });
+    // dropped
+    dispatcher.dispatch(Channel.WEBHOOK, "yetAnotherUrl", () -> {
+    });
+    dispatcher.dispatch(Channel.MQ, "someTarget", mqDelivered::countDown);
+
+    assertTrue(mqDelivered.await(5, TimeUnit.SECONDS));
+    assertEquals(1, meterRegistry.get(DROPPED).tag("channel", "webhook").counter().count(), 0);
+    slowWebhook.countDown();
+  }
+
+  private void waitForDelivery(String channel, String result) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (System.currentTimeMillis() < deadline) {
+      if (meterRegistry.find(DELIVERY).tag("channel", channel).tag("result", result).timer() != null) {
+        return;
+      }
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    throw new AssertionError("Notification not delivered: " + channel + ", " + result);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
+import com.ctrip.framework.apollo.portal.spi.UserService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class UserInfoCacheTest extends AbstractUnitTest {
+
+  private static final String someUserId = "someUser";
+  private static final String anotherUserId = "anotherUser";
+  private static final String unknownUserId = "unknownUser";
+
+  @Mock
+  private UserService userService;
+  @Mock
+  private PortalConfig portalConfig;
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  public void testFindByUserIdsWithCache() {
+    UserInfoCache userInfoCache = createUserInfoCache(300);
+    when(userService.findByUserIds(anyList())).thenAnswer(invocation -> {
+      Iterable<String> userIds = invocation.getArgument(0);
+      return Lists.newArrayList(userIds).stream()
+          .filter(userId -> !unknownUserId.equals(userId))
+          .map(UserInfo::new)
+          .collect(Collectors.toList());
+    });
+
+    Map<String, UserInfo> users = userInfoCache.findByUserIds(Sets.newHashSet(someUserId, unknownUserId));
+    assertEquals(Collections.singleton(someUserId), users.keySet());
+
+    // the unknown user is cached as well
+    users = userInfoCache.findByUserIds(Sets.newHashSet(someUserId, anotherUserId, unknownUserId));
+    assertEquals(Sets.newHashSet(someUserId, anotherUserId), users.keySet());
+    verify(userService, times(1)).findByUserIds(Lists.newArrayList(anotherUserId));
+
+    userInfoCache.invalidate(someUserId);
+    users = userInfoCache.findByUserIds(Collections.singleton(someUserId));
+    assertTrue(users.containsKey(someUserId));
+    verify(userService, times(3)).findByUserIds(anyList());
+  }
+
+  @Test
+  public void testFindByUserIdsInRequestWithoutCache() {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    UserInfoCache userInfoCache = createUserInfoCache(0);
+    when(userService.findByUserIds(anyList())).thenReturn(Lists.newArrayList(new UserInfo(someUserId)));
+
+    assertTrue(userInfoCache.findByUserIds(Collections.singleton(someUserId)).containsKey(someUserId));
+    assertTrue(userInfoCache.findByUserIds(Collections.singleton(someUserId)).containsKey(someUserId));
+    verify(userService, times(1)).findByUserIds(anyList());
+
+    // another request
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    assertTrue(userInfoCache.findByUserIds(Collections.singleton(someUserId)).containsKey(someUserId));
+    verify(userService, times(2)).findByUserIds(anyList());
+  }
+
+  @Test
+  public void testFindByUserIdsWithoutCacheOrRequest() {
+    UserInfoCache userInfoCache = createUserInfoCache(0);
+    when(userService.findByUserIds(anyList())).thenReturn(Collections.emptyList());
+
+    assertFalse(userInfoCache.findByUserIds(Collections.singleton(unknownUserId)).containsKey(unknownUserId));
+    assertFalse(userInfoCache.findByUserIds(Collections.singleton(unknownUserId)).containsKey(unknownUserId));
+    verify(userService, times(2)).findByUserIds(anyList());
+  }
+
+  private UserInfoCache createUserInfoCache(int expireSeconds) {
+    when(portalConfig.userInfoCacheExpireSeconds()).thenReturn(expireSeconds);
+    when(portalConfig.userInfoCacheMaxSize()).thenReturn(100);
+    return new UserInfoCache(userService, portalConfig, new SimpleMeterRegistry());
+  }
+}
@@ -133,6 +133,32 @@ public class PropertyResolverTest extends AbstractUnitTest {
     Assert.assertEquals(5, changeSets.getCreateItems().size());
   }
 
+  @Test
+  public void testRepeatKeyAfterChangedLines() {
+    try {
+      resolver.resolve(1, "a=x\n#comment\n\nc=y\nA=z", mockBaseItemHas3Key());
+      Assert.fail("should throw");
+    } catch (BadRequestException e) {
+      Assert.assertTrue(e.getMessage().contains("repeated keys"));
+    }
+  }
+
+  @Test
+  public void testLineWithoutSeparator() {
+    try {
+      resolver.resolve(1, "a=b\nc\nd=e", mockBaseItemHas3Key());
+      Assert.fail("should throw");
+    } catch (BadRequestException e) {
+      Assert.assertEquals("line:2 key value must separate by '='", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testUnchangedText() {
+    ItemChangeSets changeSets = resolver.resolve(1, "#qqqq\na=b\n\nb=c", mockBaseItemWith2Key1Comment1Blank());
+    Assert.assertTrue(changeSets.isEmpty());
+  }
+
   /**
    * a=b b=c c=d
    */
@@ -21,6 +21,8 @@ import com.google.common.collect.Lists;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
 import com.ctrip.framework.apollo.common.dto.PageDTO;
 import com.ctrip.framework.apollo.common.entity.App;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.environment.Env;
@@ -36,8 +38,13 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -57,6 +64,8 @@ public class SearchControllerTest {
   private PortalSettings   portalSettings;
   @Mock
   private PortalConfig     portalConfig;
+  @Mock
+  private FanOutExecutor   fanOutExecutor;
   @InjectMocks
   private SearchController searchController;
 
@@ -100,7 +109,7 @@ public class SearchControllerTest {
   }
 
   @Test
-  public void testSearchItem() {
+  public void testSearchItem() throws Exception {
     String query = "timeout";
     PageRequest request = PageRequest.of(0, 20);
 
@@ -113,6 +122,7 @@ public class SearchControllerTest {
     when(portalSettings.getActiveEnvs()).thenReturn(Lists.newArrayList(Env.DEV, Env.FAT));
     when(namespaceService.findNamespacesByItem(Env.DEV, query, request)).thenReturn(devNamespaces);
     when(namespaceService.findNamespacesByItem(Env.FAT, query, request)).thenReturn(fatNamespaces);
+    mockFanOutExecutor();
 
     PageDTO<App> result = searchController.search(query, request);
 
@@ -125,6 +135,59 @@ public class SearchControllerTest {
     verify(namespaceService).findNamespacesByItem(Env.FAT, query, request);
   }
 
+  @Test
+  public void testSearchItemWithUnavailableEnv() throws Exception {
+    String query = "timeout";
+    PageRequest request = PageRequest.of(0, 20);
+
+    PageDTO<App> apps = new PageDTO<>(Lists.newLinkedList(), request, 0);
+    PageDTO<NamespaceDTO> fatNamespaces = genPageNamespace(15, request, 30);
+
+    when(appService.searchByAppIdOrAppName(query, request)).thenReturn(apps);
+    when(portalConfig.supportSearchByItem()).thenReturn(true);
+    when(portalSettings.getActiveEnvs()).thenReturn(Lists.newArrayList(Env.DEV, Env.FAT));
+    when(namespaceService.findNamespacesByItem(Env.DEV, query, request))
+        .thenThrow(new IllegalStateException("admin service unavailable"));
+    when(namespaceService.findNamespacesByItem(Env.FAT, query, request)).thenReturn(fatNamespaces);
+    mockFanOutExecutor();
+
+    PageDTO<App> result = searchController.search(query, request);
+
+    Assert.assertEquals(15, result.getContent().size());
+    Assert.assertEquals(30, result.getTotal());
+    Assert.assertTrue(result.getContent().get(0).getName().startsWith(Env.FAT.getName()));
+  }
+
+  @Test(expected = ServiceException.class)
+  public void testSearchItemWithAllEnvsUnavailable() throws Exception {
+    String query = "timeout";
+    PageRequest request = PageRequest.of(0, 20);
+
+    PageDTO<App> apps = new PageDTO<>(Lists.newLinkedList(), request, 0);
+
+    when(appService.searchByAppIdOrAppName(query, request)).thenReturn(apps);
+    when(portalConfig.supportSearchByItem()).thenReturn(true);
+    when(portalSettings.getActiveEnvs()).thenReturn(Lists.newArrayList(Env.DEV, Env.FAT));
+    when(namespaceService.findNamespacesByItem(any(), any(), any()))
+        .thenThrow(new IllegalStateException("admin service unavailable"));
+    mockFanOutExecutor();
+
+    searchController.search(query, request);
+  }
+
+  private void mockFanOutExecutor() throws InterruptedException {
+    when(fanOutExecutor.invokeAll(any(), any())).thenAnswer(invocation -> {
+      List<Callable<Object>> tasks = invocation.getArgument(1);
+      List<Future<Object>> futures = new ArrayList<>();
+      for (Callable<Object> task : tasks) {
+        FutureTask<Object> future = new FutureTask<>(task);
+        future.run();
+        futures.add(future);
+      }
+      return futures;
+    });
+  }
+
   private PageDTO<App> genPageApp(int size, Pageable pageable, int total) {
     List<App> result = Lists.newLinkedList();
     for (int i = 0; i < size; i++) {
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.portal.controller;
 
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import com.ctrip.framework.apollo.portal.component.UserInfoCache;
 import com.ctrip.framework.apollo.portal.entity.po.UserPO;
 import com.ctrip.framework.apollo.portal.spi.springsecurity.SpringSecurityUserService;
 import com.ctrip.framework.apollo.portal.util.checker.AuthUserPasswordChecker;
@@ -38,6 +39,8 @@ public class UserInfoControllerTest {
   private SpringSecurityUserService userService;
   @Mock
   private AuthUserPasswordChecker userPasswordChecker;
+  @Mock
+  private UserInfoCache userInfoCache;
 
   @Test
   public void testCreateOrUpdateUser() {
@@ -49,6 +52,8 @@ public class UserInfoControllerTest {
         .thenReturn(new CheckResult(Boolean.TRUE, ""));
 
     userInfoController.createOrUpdateUser(true, user);
+
+    Mockito.verify(userInfoCache).invalidate("username");
   }
 
   @Test(expected = BadRequestException.class)
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.listener;
+
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.common.constants.ReleaseOperation;
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.ConfigReleaseWebhookNotifier;
+import com.ctrip.framework.apollo.portal.component.PublishNotificationDispatcher;
+import com.ctrip.framework.apollo.portal.component.PublishNotificationDispatcher.Channel;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.component.emailbuilder.GrayPublishEmailBuilder;
+import com.ctrip.framework.apollo.portal.component.emailbuilder.MergeEmailBuilder;
+import com.ctrip.framework.apollo.portal.component.emailbuilder.NormalPublishEmailBuilder;
+import com.ctrip.framework.apollo.portal.component.emailbuilder.RollbackEmailBuilder;
+import com.ctrip.framework.apollo.portal.entity.bo.ReleaseHistoryBO;
+import com.ctrip.framework.apollo.portal.environment.Env;
+import com.ctrip.framework.apollo.portal.service.ReleaseHistoryService;
+import com.google.common.collect.Sets;
+import java.net.SocketTimeoutException;
+import java.util.function.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+public class ConfigPublishListenerTest extends AbstractUnitTest {
+
+  private static final long someReleaseId = 1;
+
+  @Mock
+  private ReleaseHistoryService releaseHistoryService;
+  @Mock
+  private NormalPublishEmailBuilder normalPublishEmailBuilder;
+  @Mock
+  private GrayPublishEmailBuilder grayPublishEmailBuilder;
+  @Mock
+  private RollbackEmailBuilder rollbackEmailBuilder;
+  @Mock
+  private MergeEmailBuilder mergeEmailBuilder;
+  @Mock
+  private PortalConfig portalConfig;
+  @Mock
+  private ConfigReleaseWebhookNotifier configReleaseWebhookNotifier;
+  @Mock
+  private PublishNotificationDispatcher publishNotificationDispatcher;
+  @Captor
+  private ArgumentCaptor<Predicate<Throwable>> retryableCaptor;
+
+  private ConfigPublishListener configPublishListener;
+
+  @Before
+  public void setUp() {
+    ReleaseHistoryBO releaseHistory = new ReleaseHistoryBO();
+    releaseHistory.setAppId("someAppId");
+    releaseHistory.setClusterName("default");
+    releaseHistory.setNamespaceName("application");
+    releaseHistory.setOperation(ReleaseOperation.NORMAL_RELEASE);
+    when(releaseHistoryService.findLatestByReleaseIdAndOperation(Env.DEV, someReleaseId,
+        ReleaseOperation.NORMAL_RELEASE)).thenReturn(releaseHistory);
+    when(portalConfig.emailSupportedEnvs()).thenReturn(Sets.newHashSet(Env.DEV));
+
+    // the default retry decisions of the spi
+    configPublishListener = new ConfigPublishListener(releaseHistoryService, email -> {
+    }, normalPublishEmailBuilder, grayPublishEmailBuilder, rollbackEmailBuilder, mergeEmailBuilder, portalConfig,
+        (env, history) -> {
+        }, configReleaseWebhookNotifier, publishNotificationDispatcher);
+    configPublishListener.init();
+  }
+
+  @Test
+  public void testEmailNotRetriedByDefault() {
+    publish();
+
+    verify(publishNotificationDispatcher, timeout(1000))
+        .dispatch(eq(Channel.EMAIL), anyString(), any(Runnable.class), retryableCaptor.capture());
+    assertFalse(retryableCaptor.getValue().test(new SocketTimeoutException("Read timed out")));
+  }
+
+  @Test
+  public void testMQNotRetriedByDefault() {
+    publish();
+
+    verify(publishNotificationDispatcher, timeout(1000))
+        .dispatch(eq(Channel.MQ), anyString(), any(Runnable.class), retryableCaptor.capture());
+    assertFalse(retryableCaptor.getValue().test(new SocketTimeoutException("Read timed out")));
+  }
+
+  private void publish() {
+    configPublishListener.onConfigPublish(ConfigPublishEvent.instance()
+        .withAppId("someAppId")
+        .withCluster("default")
+        .withNamespace("application")
+        .withReleaseId(someReleaseId)
+        .setNormalPublishEvent(true)
+        .setEnv(Env.DEV));
+  }
+}
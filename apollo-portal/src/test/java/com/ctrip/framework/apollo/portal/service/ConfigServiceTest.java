@@ -25,25 +25,45 @@ import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.AbstractUnitTest;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.ConfigSyncExecutor;
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.component.txtresolver.PropertyResolver;
 import com.ctrip.framework.apollo.portal.entity.model.NamespaceTextModel;
 import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs;
+import com.ctrip.framework.apollo.portal.entity.vo.ItemDiffs.SyncResult;
 import com.ctrip.framework.apollo.portal.entity.vo.NamespaceIdentifier;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ConfigServiceTest extends AbstractUnitTest {
@@ -58,13 +78,40 @@ public class ConfigServiceTest extends AbstractUnitTest {
   private PropertyResolver resolver;
   @Mock
   private UserInfoHolder userInfoHolder;
+  @Mock
+  private PortalConfig portalConfig;
+  @Mock
+  private FanOutExecutor fanOutExecutor;
+  @Mock
+  private ConfigSyncExecutor configSyncExecutor;
 
   @InjectMocks
   private ItemService configService;
 
   @Before
-  public void setup() {
+  public void setup() throws Exception {
     ReflectionTestUtils.setField(configService, "propertyResolver", resolver);
+    when(portalConfig.configSyncConcurrencyPerEnv()).thenReturn(2);
+    when(fanOutExecutor.invokeAll(any(), any())).thenAnswer(invocation -> {
+      List<Callable<Void>> tasks = invocation.getArgument(1);
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Callable<Void> task : tasks) {
+        FutureTask<Void> future = new FutureTask<>(task);
+        future.run();
+        futures.add(future);
+      }
+      return futures;
+    });
+    when(configSyncExecutor.submitAll(any())).thenAnswer(invocation -> {
+      List<Callable<Void>> tasks = invocation.getArgument(0);
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Callable<Void> task : tasks) {
+        FutureTask<Void> future = new FutureTask<>(task);
+        future.run();
+        futures.add(future);
+      }
+      return futures;
+    });
   }
 
   @Test
@@ -245,6 +292,81 @@ public class ConfigServiceTest extends AbstractUnitTest {
 
   }
 
+  @Test
+  public void testCompareWithFailedNamespace() {
+    List<ItemDTO> sourceItems = Collections.singletonList(new ItemDTO("a", "b", "comment", 1));
+
+    String appId = "6666", clusterName = ConfigConsts.CLUSTER_NAME_DEFAULT,
+        namespaceName = ConfigConsts.NAMESPACE_APPLICATION;
+    List<NamespaceIdentifier> namespaceIdentifiers = new ArrayList<>();
+    namespaceIdentifiers.addAll(generateNamespaceIdentifier(appId, "DEV", clusterName, namespaceName));
+    namespaceIdentifiers.addAll(generateNamespaceIdentifier(appId, "FAT", clusterName, namespaceName));
+
+    when(namespaceAPI.loadNamespace(appId, Env.DEV, clusterName, namespaceName))
+        .thenReturn(generateNamespaceDTO(appId, clusterName, namespaceName));
+    when(itemAPI.findItems(appId, Env.DEV, clusterName, namespaceName)).thenReturn(null);
+    when(itemAPI.findItems(appId, Env.FAT, clusterName, namespaceName))
+        .thenThrow(new IllegalStateException("admin service unavailable"));
+
+    List<ItemDiffs> itemDiffses = configService.compare(namespaceIdentifiers, sourceItems);
+
+    assertEquals(2, itemDiffses.size());
+    assertFalse(itemDiffses.get(0).isFailed());
+    assertEquals(1, itemDiffses.get(0).getDiffs().getCreateItems().size());
+    assertTrue(itemDiffses.get(1).isFailed());
+    assertTrue(itemDiffses.get(1).getDiffs().isEmpty());
+    assertTrue(itemDiffses.get(1).getExtInfo().contains("admin service unavailable"));
+  }
+
+  @Test
+  public void testSyncItems() {
+    List<ItemDTO> sourceItems = Collections.singletonList(new ItemDTO("a", "b", "comment", 1));
+
+    String appId = "6666", clusterName = ConfigConsts.CLUSTER_NAME_DEFAULT,
+        namespaceName = ConfigConsts.NAMESPACE_APPLICATION;
+    List<NamespaceIdentifier> namespaceIdentifiers = new ArrayList<>();
+    namespaceIdentifiers.addAll(generateNamespaceIdentifier(appId, "DEV", clusterName, namespaceName));
+    namespaceIdentifiers.addAll(generateNamespaceIdentifier(appId, "FAT", clusterName, namespaceName));
+    namespaceIdentifiers.addAll(generateNamespaceIdentifier(appId, "UAT", clusterName, namespaceName));
+    namespaceIdentifiers.addAll(generateNamespaceIdentifier(appId, "PRO", clusterName, namespaceName));
+
+    for (Env env : Arrays.asList(Env.DEV, Env.FAT, Env.UAT, Env.PRO)) {
+      when(namespaceAPI.loadNamespace(appId, env, clusterName, namespaceName))
+          .thenReturn(generateNamespaceDTO(appId, clusterName, namespaceName));
+    }
+    when(itemAPI.findItems(appId, Env.DEV, clusterName, namespaceName)).thenReturn(null);
+    when(itemAPI.findItems(appId, Env.FAT, clusterName, namespaceName))
+        .thenReturn(Collections.singletonList(new ItemDTO("a", "b", "comment", 1)));
+    when(itemAPI.findItems(appId, Env.UAT, clusterName, namespaceName)).thenReturn(null);
+    when(itemAPI.findItems(appId, Env.PRO, clusterName, namespaceName)).thenReturn(null);
+    doThrow(new ResourceAccessException("Read timed out")).when(itemAPI)
+        .updateItemsByChangeSet(eq(appId), eq(Env.UAT), eq(clusterName), eq(namespaceName), any());
+    doThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST, "namespace locked")).when(itemAPI)
+        .updateItemsByChangeSet(eq(appId), eq(Env.PRO), eq(clusterName), eq(namespaceName), any());
+
+    UserInfo userInfo = new UserInfo();
+    userInfo.setUserId("test");
+    when(userInfoHolder.getUser()).thenReturn(userInfo);
+
+    List<ItemDiffs> results = configService.syncItems(namespaceIdentifiers, sourceItems);
+
+    assertEquals(4, results.size());
+    assertFalse(results.get(0).isFailed());
+    assertEquals(SyncResult.APPLIED, results.get(0).getSyncResult());
+    assertEquals("test", results.get(0).getDiffs().getDataChangeLastModifiedBy());
+    // nothing to sync
+    assertFalse(results.get(1).isFailed());
+    assertNull(results.get(1).getSyncResult());
+    // the admin service may have applied it before the read timeout
+    assertTrue(results.get(2).isFailed());
+    assertEquals(SyncResult.UNKNOWN, results.get(2).getSyncResult());
+    assertTrue(results.get(2).getExtInfo().contains("Read timed out"));
+    assertTrue(results.get(3).isFailed());
+    assertEquals(SyncResult.FAILED, results.get(3).getSyncResult());
+    verify(itemAPI, times(1)).updateItemsByChangeSet(eq(appId), eq(Env.DEV), eq(clusterName), eq(namespaceName), any());
+    verify(itemAPI, never()).updateItemsByChangeSet(eq(appId), eq(Env.FAT), eq(clusterName), eq(namespaceName), any());
+  }
+
   private NamespaceDTO generateNamespaceDTO(String appId, String clusterName, String namespaceName) {
     NamespaceDTO namespaceDTO = new NamespaceDTO();
     namespaceDTO.setAppId(appId);
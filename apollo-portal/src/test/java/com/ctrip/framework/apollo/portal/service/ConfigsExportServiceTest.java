@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.portal.service;
 
 import com.ctrip.framework.apollo.common.dto.ClusterDTO;
+import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
 import com.ctrip.framework.apollo.common.entity.App;
@@ -24,15 +25,18 @@ import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.portal.AbstractUnitTest;
 import com.ctrip.framework.apollo.portal.component.PermissionValidator;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.ItemBO;
 import com.ctrip.framework.apollo.portal.entity.bo.NamespaceBO;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
+import com.ctrip.framework.apollo.portal.entity.vo.NamespaceImportResult;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 
 import org.assertj.core.util.Files;
 import org.assertj.core.util.Lists;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.context.ApplicationEventPublisher;
@@ -44,11 +48,15 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.zip.ZipInputStream;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -70,6 +78,8 @@ public class ConfigsExportServiceTest extends AbstractUnitTest {
   private UserInfoHolder            userInfoHolder;
   @Mock
   private AppNamespaceService       appNamespaceService;
+  @Mock
+  private PortalConfig              portalConfig;
   @InjectMocks
   private ConfigsExportService      configsExportService;
   @Mock
@@ -141,9 +151,12 @@ public class ConfigsExportServiceTest extends AbstractUnitTest {
     NamespaceBO app2Cluster2Namespace2 = genNamespace(app2, app1Cluster2, items, namespaceName2);
     List<NamespaceBO> app2Cluster2Namespace = Lists.newArrayList(app2Cluster2Namespace1, app2Cluster2Namespace2);
 
+    when(portalConfig.configExportConcurrency()).thenReturn(2);
+    when(portalConfig.configImportConcurrency()).thenReturn(2);
     when(appService.findAll()).thenReturn(exportApps);
     when(appNamespaceService.findAll()).thenReturn(appNamespaces);
-    when(permissionValidator.isAppAdmin(any())).thenReturn(true);
+    when(permissionValidator.findAppAdminAppIds(any()))
+        .thenAnswer(invocation -> new HashSet<>(invocation.<Collection<String>>getArgument(0)));
     when(clusterService.findClusters(env, appId1)).thenReturn(app1Clusters);
     when(clusterService.findClusters(env, appId2)).thenReturn(app2Clusters);
     when(namespaceService.findNamespaceBOs(appId1, Env.DEV, clusterName1, false)).thenReturn(app1Cluster1Namespace);
@@ -173,8 +186,9 @@ public class ConfigsExportServiceTest extends AbstractUnitTest {
     FileInputStream fileInputStream = new FileInputStream(filePath);
     ZipInputStream zipInputStream = new ZipInputStream(fileInputStream);
 
+    List<NamespaceImportResult> results = null;
     try {
-      configsImportService.importDataFromZipFile(Lists.newArrayList(Env.DEV), zipInputStream, false);
+      results = configsImportService.importDataFromZipFile(Lists.newArrayList(Env.DEV), zipInputStream, false);
     } catch (Exception e) {
       e.printStackTrace();
     }
@@ -189,7 +203,16 @@ public class ConfigsExportServiceTest extends AbstractUnitTest {
     verify(namespaceService, times(6)).createNamespace(any(), any());
     verify(roleInitializationService,times(6)).initNamespaceRoles(any(), any(), anyString());
     verify(roleInitializationService,times(6)).initNamespaceEnvRoles(any(), any(), anyString());
-    verify(itemService, times(12)).createItem(any(), any(), any(), any(), any());
+    ArgumentCaptor<ItemChangeSets> changeSetsCaptor = ArgumentCaptor.forClass(ItemChangeSets.class);
+    verify(itemService, times(6)).updateItems(any(), any(), any(), any(), changeSetsCaptor.capture());
+    assertEquals(12, changeSetsCaptor.getAllValues().stream().mapToInt(changeSets -> changeSets.getCreateItems().size()).sum());
+    verify(itemService, never()).createItem(any(), any(), any(), any(), any());
+
+    assertEquals(6, results.size());
+    for (NamespaceImportResult result : results) {
+      assertEquals(NamespaceImportResult.Status.IMPORTED, result.getStatus());
+      assertEquals(2, result.getCreatedItems());
+    }
   }
 
   private App genApp(String name, String appId, String orgId, String orgName) {
@@ -19,6 +19,7 @@ package com.ctrip.framework.apollo.portal.service;
 import com.ctrip.framework.apollo.common.dto.ClusterDTO;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.dto.NamespaceDTO;
+import com.ctrip.framework.apollo.common.dto.NamespaceWithItemsDTO;
 import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
@@ -27,6 +28,7 @@ import com.ctrip.framework.apollo.portal.entity.vo.NamespaceUsage;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.AbstractUnitTest;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
+import com.ctrip.framework.apollo.portal.component.FanOutExecutor;
 import com.ctrip.framework.apollo.portal.component.txtresolver.PropertyResolver;
 import com.ctrip.framework.apollo.portal.entity.bo.NamespaceBO;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
@@ -37,10 +39,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -48,6 +56,7 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThatExceptionOf
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -76,6 +85,8 @@ public class NamespaceServiceTest extends AbstractUnitTest {
   private PortalSettings portalSettings;
   @Mock
   private ClusterService clusterService;
+  @Mock
+  private FanOutExecutor fanOutExecutor;
 
   @InjectMocks
   private NamespaceService namespaceService;
@@ -101,6 +112,72 @@ public class NamespaceServiceTest extends AbstractUnitTest {
     application.setAppId(testAppId);
     application.setNamespaceName(testNamespaceName);
 
+    NamespaceDTO hermes = new NamespaceDTO();
+    hermes.setId(2);
+    hermes.setClusterName("default");
+    hermes.setAppId(testAppId);
+    hermes.setNamespaceName("hermes");
+
+    ReleaseDTO someRelease = new ReleaseDTO();
+    someRelease.setConfigurations("{\"a\":\"123\",\"b\":\"123\"}");
+
+    ItemDTO i1 = new ItemDTO("a", "123", "", 1);
+    ItemDTO i2 = new ItemDTO("b", "1", "", 2);
+    ItemDTO i3 = new ItemDTO("", "", "#dddd", 3);
+    ItemDTO i4 = new ItemDTO("c", "1", "", 4);
+    List<ItemDTO> someItems = Arrays.asList(i1, i2, i3, i4);
+
+    NamespaceWithItemsDTO applicationWithItems = createNamespaceWithItems(application, someRelease, someItems);
+    NamespaceWithItemsDTO hermesWithItems = createNamespaceWithItems(hermes, someRelease, Collections.emptyList());
+
+    when(applicationAppNamespace.getFormat()).thenReturn(ConfigFileFormat.Properties.getValue());
+    when(hermesAppNamespace.getFormat()).thenReturn(ConfigFileFormat.XML.getValue());
+    when(appNamespaceService.findByAppIdAndName(testAppId, testNamespaceName))
+        .thenReturn(applicationAppNamespace);
+    when(appNamespaceService.findPublicAppNamespace("hermes")).thenReturn(hermesAppNamespace);
+    when(namespaceAPI.findNamespacesWithItems(testAppId, Env.DEV, testClusterName, true))
+        .thenReturn(Arrays.asList(hermesWithItems, applicationWithItems));
+
+    List<NamespaceBO> namespaceVOs = namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName);
+    assertEquals(2, namespaceVOs.size());
+    assertEquals(testNamespaceName, namespaceVOs.get(0).getBaseInfo().getNamespaceName());
+    verify(additionalUserInfoEnrichService, times(1)).enrichAdditionalUserInfo(any(), any());
+    verify(releaseService, never()).loadLatestRelease(any(), any(), any(), any());
+    verify(itemService, never()).findItems(any(), any(), any(), any());
+
+    when(namespaceAPI.findNamespacesWithItems(testAppId, Env.DEV, testClusterName, true))
+        .thenReturn(Lists.list(applicationWithItems));
+    namespaceVOs = namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName);
+    assertEquals(1, namespaceVOs.size());
+    NamespaceBO namespaceVO = namespaceVOs.get(0);
+    assertEquals(4, namespaceVO.getItems().size());
+    assertEquals("a", namespaceVO.getItems().get(0).getItem().getKey());
+    assertEquals(2, namespaceVO.getItemModifiedCnt());
+    assertEquals(testAppId, namespaceVO.getBaseInfo().getAppId());
+    assertEquals(testClusterName, namespaceVO.getBaseInfo().getClusterName());
+    assertEquals(testNamespaceName, namespaceVO.getBaseInfo().getNamespaceName());
+
+    ReleaseDTO errorRelease = new ReleaseDTO();
+    errorRelease.setConfigurations("\"a\":\"123\",\"b\":\"123\"");
+    applicationWithItems.setLatestRelease(errorRelease);
+    assertThatExceptionOfType(RuntimeException.class)
+        .isThrownBy(()-> namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName))
+        .withMessageStartingWith("Parse namespaces error, expected: 1, but actual: 0, cannot get those namespaces: [application]");
+
+  }
+
+  @Test
+  public void testFindNamespaceWithAdminServiceNotSupportingBatchLoad() throws Exception {
+
+    AppNamespace applicationAppNamespace = mock(AppNamespace.class);
+    AppNamespace hermesAppNamespace = mock(AppNamespace.class);
+
+    NamespaceDTO application = new NamespaceDTO();
+    application.setId(1);
+    application.setClusterName(testClusterName);
+    application.setAppId(testAppId);
+    application.setNamespaceName(testNamespaceName);
+
     NamespaceDTO hermes = new NamespaceDTO();
     hermes.setId(2);
     hermes.setClusterName("default");
@@ -122,7 +199,19 @@ public class NamespaceServiceTest extends AbstractUnitTest {
     when(appNamespaceService.findByAppIdAndName(testAppId, testNamespaceName))
         .thenReturn(applicationAppNamespace);
     when(appNamespaceService.findPublicAppNamespace("hermes")).thenReturn(hermesAppNamespace);
+    when(namespaceAPI.findNamespacesWithItems(testAppId, Env.DEV, testClusterName, true))
+        .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
     when(namespaceAPI.findNamespaceByCluster(testAppId, Env.DEV, testClusterName)).thenReturn(namespaces);
+    when(fanOutExecutor.invokeAll(any(), any())).thenAnswer(invocation -> {
+      List<Callable<NamespaceBO>> tasks = invocation.getArgument(1);
+      List<Future<NamespaceBO>> futures = new ArrayList<>();
+      for (Callable<NamespaceBO> task : tasks) {
+        FutureTask<NamespaceBO> future = new FutureTask<>(task);
+        future.run();
+        futures.add(future);
+      }
+      return futures;
+    });
     when(releaseService.loadLatestRelease(testAppId, Env.DEV, testClusterName,
                                           testNamespaceName)).thenReturn(someRelease);
     when(releaseService.loadLatestRelease(testAppId, Env.DEV, testClusterName, "hermes")).thenReturn(someRelease);
@@ -130,6 +219,8 @@ public class NamespaceServiceTest extends AbstractUnitTest {
 
     List<NamespaceBO> namespaceVOs = namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName);
     assertEquals(2, namespaceVOs.size());
+    // the items of both namespaces are enriched at once
+    verify(additionalUserInfoEnrichService, times(1)).enrichAdditionalUserInfo(any(), any());
 
     when(namespaceAPI.findNamespaceByCluster(testAppId, Env.DEV, testClusterName)).thenReturn(Lists.list(application));
     namespaceVOs = namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName);
@@ -299,4 +390,14 @@ public class NamespaceServiceTest extends AbstractUnitTest {
 
     return instance;
   }
+
+  private NamespaceWithItemsDTO createNamespaceWithItems(NamespaceDTO namespace, ReleaseDTO latestRelease,
+      List<ItemDTO> items) {
+    NamespaceWithItemsDTO namespaceWithItems = new NamespaceWithItemsDTO();
+    namespaceWithItems.setNamespace(namespace);
+    namespaceWithItems.setLatestRelease(latestRelease);
+    namespaceWithItems.setItems(items);
+    namespaceWithItems.setDeletedItems(Collections.emptyList());
+    return namespaceWithItems;
+  }
 }
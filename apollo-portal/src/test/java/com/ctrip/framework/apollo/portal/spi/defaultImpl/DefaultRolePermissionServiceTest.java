@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.spi.defaultImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.AbstractUnitTest;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.entity.po.Role;
+import com.ctrip.framework.apollo.portal.entity.po.RolePermission;
+import com.ctrip.framework.apollo.portal.entity.po.UserRole;
+import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.RoleRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.ctrip.framework.apollo.portal.spi.UserService;
+import com.ctrip.framework.apollo.portal.spi.defaultimpl.DefaultRolePermissionService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+public class DefaultRolePermissionServiceTest extends AbstractUnitTest {
+
+  private static final String someUserId = "someUser";
+  private static final String somePermissionType = "ModifyNamespace";
+  private static final String someTargetId = "someApp+application";
+  private static final String anotherTargetId = "someApp+anotherNamespace";
+  private static final long someRoleId = 1;
+  private static final long somePermissionId = 2;
+
+  @Mock
+  private RoleRepository roleRepository;
+  @Mock
+  private RolePermissionRepository rolePermissionRepository;
+  @Mock
+  private UserRoleRepository userRoleRepository;
+  @Mock
+  private PermissionRepository permissionRepository;
+  @Mock
+  private PortalConfig portalConfig;
+  @Mock
+  private ConsumerRoleRepository consumerRoleRepository;
+  @Mock
+  private UserService userService;
+
+  private DefaultRolePermissionService rolePermissionService;
+
+  @Before
+  public void setUp() {
+    when(portalConfig.permissionCacheExpireSeconds()).thenReturn(60);
+    when(portalConfig.superAdmins()).thenReturn(Collections.emptyList());
+
+    UserRole userRole = new UserRole();
+    userRole.setUserId(someUserId);
+    userRole.setRoleId(someRoleId);
+    when(userRoleRepository.findByUserId(someUserId)).thenReturn(Lists.newArrayList(userRole));
+
+    RolePermission rolePermission = new RolePermission();
+    rolePermission.setRoleId(someRoleId);
+    rolePermission.setPermissionId(somePermissionId);
+    when(rolePermissionRepository.findByRoleIdIn(anyCollection()))
+        .thenReturn(Lists.newArrayList(rolePermission));
+
+    when(permissionRepository.findAllById(anyCollection()))
+        .thenReturn(Lists.newArrayList(assemblePermission(somePermissionType, someTargetId)));
+
+    rolePermissionService = createService();
+  }
+
+  @Test
+  public void testUserHasPermissionCached() {
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+    assertFalse(rolePermissionService.userHasPermission(someUserId, somePermissionType, anotherTargetId));
+    assertFalse(rolePermissionService.userHasPermission(someUserId, "ReleaseNamespace", someTargetId));
+
+    verify(userRoleRepository, times(1)).findByUserId(someUserId);
+    verify(rolePermissionRepository, times(1)).findByRoleIdIn(anyCollection());
+    verify(permissionRepository, never()).findTopByPermissionTypeAndTargetId(anyString(), anyString());
+  }
+
+  @Test
+  public void testUserHasPermissionIgnoreCase() {
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType,
+        someTargetId.toUpperCase()));
+  }
+
+  @Test
+  public void testUserHasPermissionWithoutCache() {
+    when(portalConfig.permissionCacheExpireSeconds()).thenReturn(0);
+    rolePermissionService = createService();
+
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+
+    verify(userRoleRepository, times(2)).findByUserId(someUserId);
+  }
+
+  @Test
+  public void testUserHasPermissionWithCacheExpirationChanged() {
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+
+    when(portalConfig.permissionCacheExpireSeconds()).thenReturn(0);
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+
+    when(portalConfig.permissionCacheExpireSeconds()).thenReturn(30);
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+
+    verify(userRoleRepository, times(4)).findByUserId(someUserId);
+  }
+
+  @Test
+  public void testInvalidateUserPermissions() {
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+    rolePermissionService.invalidateUserPermissions();
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+
+    verify(userRoleRepository, times(2)).findByUserId(someUserId);
+  }
+
+  @Test
+  public void testAssignRoleToUsersInvalidatesCache() {
+    Role someRole = new Role();
+    someRole.setId(someRoleId);
+    someRole.setRoleName("someRole");
+    when(roleRepository.findTopByRoleName("someRole")).thenReturn(someRole);
+
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+    rolePermissionService.assignRoleToUsers("someRole", Sets.newHashSet(someUserId), "operator");
+    assertTrue(rolePermissionService.userHasPermission(someUserId, somePermissionType, someTargetId));
+
+    verify(userRoleRepository, times(2)).findByUserId(someUserId);
+  }
+
+  @Test
+  public void testUserHasPermissions() {
+    Set<String> permitted = rolePermissionService.userHasPermissions(someUserId, somePermissionType,
+        Lists.newArrayList(someTargetId, anotherTargetId));
+
+    assertEquals(Sets.newHashSet(someTargetId), permitted);
+    verify(userRoleRepository, times(1)).findByUserId(someUserId);
+  }
+
+  @Test
+  public void testUserHasPermissionsForSuperAdmin() {
+    when(portalConfig.superAdmins()).thenReturn(Lists.newArrayList(someUserId));
+    when(permissionRepository.findByPermissionTypeAndTargetIdIn(eq(somePermissionType), any()))
+        .thenReturn(Lists.newArrayList(assemblePermission(somePermissionType, anotherTargetId)));
+
+    Set<String> permitted = rolePermissionService.userHasPermissions(someUserId, somePermissionType,
+        Lists.newArrayList(someTargetId, anotherTargetId));
+
+    assertEquals(Sets.newHashSet(anotherTargetId), permitted);
+    verify(userRoleRepository, never()).findByUserId(someUserId);
+  }
+
+  private DefaultRolePermissionService createService() {
+    return new DefaultRolePermissionService(roleRepository, rolePermissionRepository,
+        userRoleRepository, permissionRepository, portalConfig, consumerRoleRepository, userService);
+  }
+
+  private Permission assemblePermission(String permissionType, String targetId) {
+    Permission permission = new Permission();
+    permission.setId(somePermissionId);
+    permission.setPermissionType(permissionType);
+    permission.setTargetId(targetId);
+    return permission;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.util;
+
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ItemIndexUtilsTest {
+
+  @Test
+  public void testIndexByKey() {
+    ItemDTO comment = new ItemDTO("", "", "#comment", 1);
+    ItemDTO a = new ItemDTO("a", "1", "", 2);
+    ItemDTO anotherA = new ItemDTO("a", "2", "", 3);
+
+    Map<String, ItemDTO> index = ItemIndexUtils.indexByKey(Arrays.asList(comment, a, anotherA));
+
+    assertEquals(2, index.size());
+    assertSame(comment, index.get(""));
+    assertSame(anotherA, index.get("a"));
+  }
+
+  @Test
+  public void testIndexNormalItemsByKey() {
+    List<ItemDTO> items = Arrays.asList(new ItemDTO("", "", "#comment", 1),
+        new ItemDTO("", "", "", 2), new ItemDTO("a", "1", "", 3));
+
+    Map<String, ItemDTO> index = ItemIndexUtils.indexNormalItemsByKey(items);
+
+    assertEquals(1, index.size());
+    assertTrue(index.containsKey("a"));
+    assertFalse(index.containsKey(""));
+  }
+
+  @Test
+  public void testIndexByLineNum() {
+    ItemDTO a = new ItemDTO("a", "1", "", 1);
+    ItemDTO blank = new ItemDTO("", "", "", 2);
+
+    Map<Integer, ItemDTO> index = ItemIndexUtils.indexByLineNum(Arrays.asList(a, blank));
+
+    assertSame(a, index.get(1));
+    assertSame(blank, index.get(2));
+  }
+
+  @Test
+  public void testIndexEmptyItems() {
+    assertTrue(ItemIndexUtils.indexByKey(null).isEmpty());
+    assertTrue(ItemIndexUtils.indexNormalItemsByKey(Collections.emptyList()).isEmpty());
+    assertTrue(ItemIndexUtils.indexByLineNum(null).isEmpty());
+  }
+}
@@ -16,12 +16,12 @@ rem
 @echo off
 
 rem apollo config db info
-set apollo_config_db_url="jdbc:mysql://localhost:3306/ApolloConfigDB?characterEncoding=utf8"
+set apollo_config_db_url="jdbc:mysql://localhost:3306/ApolloConfigDB?characterEncoding=utf8&rewriteBatchedStatements=true"
 set apollo_config_db_username="root"
 set apollo_config_db_password=""
 
 rem apollo portal db info
-set apollo_portal_db_url="jdbc:mysql://localhost:3306/ApolloPortalDB?characterEncoding=utf8"
+set apollo_portal_db_url="jdbc:mysql://localhost:3306/ApolloPortalDB?characterEncoding=utf8&rewriteBatchedStatements=true"
 set apollo_portal_db_username="root"
 set apollo_portal_db_password=""
 
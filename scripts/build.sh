@@ -16,12 +16,12 @@
 #
 
 # apollo config db info
-apollo_config_db_url='jdbc:mysql://fill-in-the-correct-server:3306/ApolloConfigDB?characterEncoding=utf8'
+apollo_config_db_url='jdbc:mysql://fill-in-the-correct-server:3306/ApolloConfigDB?characterEncoding=utf8&rewriteBatchedStatements=true'
 apollo_config_db_username='FillInCorrectUser'
 apollo_config_db_password='FillInCorrectPassword'
 
 # apollo portal db info
-apollo_portal_db_url='jdbc:mysql://fill-in-the-correct-server:3306/ApolloPortalDB?characterEncoding=utf8'
+apollo_portal_db_url='jdbc:mysql://fill-in-the-correct-server:3306/ApolloPortalDB?characterEncoding=utf8&rewriteBatchedStatements=true'
 apollo_portal_db_username='FillInCorrectUser'
 apollo_portal_db_password='FillInCorrectPassword'
 
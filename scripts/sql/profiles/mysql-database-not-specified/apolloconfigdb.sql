@@ -229,6 +229,25 @@ CREATE TABLE `InstanceConfig` (
 
 
 
+-- Dump of table instancenamespacesummary
+-- ------------------------------------------------------------
+
+DROP TABLE IF EXISTS `InstanceNamespaceSummary`;
+
+CREATE TABLE `InstanceNamespaceSummary` (
+  `Id` int(11) unsigned NOT NULL AUTO_INCREMENT COMMENT '自增Id',
+  `ConfigAppId` varchar(64) NOT NULL DEFAULT 'default' COMMENT 'Config App Id',
+  `ConfigClusterName` varchar(32) NOT NULL DEFAULT 'default' COMMENT 'Config Cluster Name',
+  `ConfigNamespaceName` varchar(32) NOT NULL DEFAULT 'default' COMMENT 'Config Namespace Name',
+  `InstanceCount` int(11) NOT NULL DEFAULT '0' COMMENT '活跃实例数量',
+  `DataChange_CreatedTime` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `DataChange_LastTime` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后修改时间',
+  PRIMARY KEY (`Id`),
+  UNIQUE KEY `IX_UNIQUE_KEY` (`ConfigAppId`,`ConfigClusterName`,`ConfigNamespaceName`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='应用实例按Namespace的汇总信息';
+
+
+
 -- Dump of table item
 -- ------------------------------------------------------------
 
@@ -435,6 +454,21 @@ CREATE TABLE `ServiceRegistry` (
   INDEX `IX_DataChange_LastTime` (`DataChange_LastTime`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='注册中心';
 
+-- Dump of table serviceregistryversion
+-- ------------------------------------------------------------
+
+DROP TABLE IF EXISTS `ServiceRegistryVersion`;
+
+CREATE TABLE `ServiceRegistryVersion` (
+  `Id` INT(11) UNSIGNED NOT NULL AUTO_INCREMENT COMMENT '自增Id',
+  `ServiceName` VARCHAR(64) NOT NULL COMMENT '服务名',
+  `Version` BIGINT(20) UNSIGNED NOT NULL DEFAULT '0' COMMENT '服务实例的变更版本号',
+  `DataChange_CreatedTime` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `DataChange_LastTime` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后修改时间',
+  PRIMARY KEY (`Id`),
+  UNIQUE KEY `IX_UNIQUE_KEY` (`ServiceName`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='注册中心版本';
+
 -- Dump of table AuditLog
 -- ------------------------------------------------------------
 